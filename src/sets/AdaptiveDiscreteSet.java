@@ -0,0 +1,455 @@
+package sets;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A set that picks its own backing representation from the size and shape of its elements,
+ * so callers do not have to choose between storage layouts by hand.
+ *
+ * Like every {@link GenericDiscreteSet}, it starts with its elements inline and moves to a hash set as it grows.
+ * When every element is an {@link Integer}, it also considers a bitset over the range of the values,
+ * and a list of runs of consecutive values, and keeps whichever of the three takes the least memory.
+ * The choice is revisited each time the set doubles or halves in size, when a run set fragments, and when a value
+ * would stretch a bitset too far, so the cost of choosing is amortized over the additions and removals.
+ * Removals are checked once per call, or once at the end of an iteration that removed elements through its iterator.
+ *
+ * The algebra methods pick a kernel from the representations of both operands: two bitsets are combined
+ * word by word with the {@link SetKernels} bitset kernels, unless their union would span a large empty gap,
+ * two run sets are merged run by run, and anything else probes the larger operand with the elements of the smaller.
+ * How often each representation and kernel was chosen is counted, see {@link #chosenCount(Representation)}
+ * and {@link #kernelCount(Kernel)}.
+ *
+ * @author Gavin Borne
+ */
+public class AdaptiveDiscreteSet<E>
+    extends GenericDiscreteSet<E>
+{
+    /**
+     * The ways an adaptive set can store its elements.
+     */
+    public enum Representation {
+        /** Up to four elements kept in fields */
+        INLINE,
+        /** A hash set */
+        HASH,
+        /** One bit per value over the range of the values, for dense integers */
+        BITSET,
+        /** Sorted runs of consecutive values, for integers that mostly come in ranges */
+        RUNS
+    }
+
+    /**
+     * The ways the algebra methods can combine two sets.
+     */
+    public enum Kernel {
+        /** Look up each element of the smaller set in the larger one */
+        PROBE,
+        /** Combine two bitsets word by word */
+        BITSET,
+        /** Merge the runs of two run sets */
+        RUNS
+    }
+
+    // Sets smaller than this are never converted to a bitset or runs
+    private static final int FIRST_CHECK = 16;
+    // Approximate bytes per element of a HashSet of Integers: table slot, node and boxed value
+    private static final long HASH_BYTES_PER_ELEMENT = 48;
+    // Shortest average run length at which runs are considered
+    private static final int MIN_RUN_LENGTH = 4;
+    // A new representation must be at least this much smaller than the current one to switch to it
+    private static final double SWITCH_RATIO = 0.75;
+
+    private static final LongAdder[] chosen = newCounters(Representation.values().length);
+    private static final LongAdder[] kernels = newCounters(Kernel.values().length);
+
+    // Size at which the representation is next reconsidered
+    private int nextCheck = FIRST_CHECK;
+    // Runs at the last check, so a run set that fragments is reconsidered before it doubles in size
+    private int runsAtCheck = 0;
+
+    /**
+     * Create an adaptive set starting with no elements.
+     */
+    public AdaptiveDiscreteSet() {
+        super();
+        chosen[Representation.INLINE.ordinal()].increment();
+    }
+
+    /**
+     * Create an adaptive set with a collection of elements.
+     *
+     * @param elements - Elements to initialize the set with
+     */
+    public AdaptiveDiscreteSet(Collection<E> elements) {
+        super(elements);
+        chosen[getRepresentation().ordinal()].increment();
+        if (size() >= FIRST_CHECK) {
+            adapt(null);
+        }
+    }
+
+    /**
+     * Create an adaptive set by copying another set.
+     *
+     * @param set - Set to copy
+     */
+    public AdaptiveDiscreteSet(DiscreteSet<E> set) {
+        this(set.getElements());
+    }
+
+    /**
+     * Create an adaptive set backed by the result of a bitset or run kernel.
+     */
+    @SuppressWarnings("unchecked")
+    private AdaptiveDiscreteSet(Set<Integer> result, Kernel kernel) {
+        super();
+        kernels[kernel.ordinal()].increment();
+        replaceBacking((Set<E>) (Set<?>) result);
+        chosen[getRepresentation().ordinal()].increment();
+        // The result can be much sparser or denser than the operands
+        adapt(null);
+    }
+
+    /**
+     * Get the representation currently backing this set.
+     *
+     * @return The representation
+     */
+    public Representation getRepresentation() {
+        return representationOf(backing());
+    }
+
+    /**
+     * Get how many times a representation has been chosen for an adaptive set,
+     * counting both new sets and sets that switched.
+     *
+     * @param representation - Representation to count
+     * @return The number of times it was chosen since the counters were last reset
+     */
+    public static long chosenCount(Representation representation) {
+        return chosen[representation.ordinal()].sum();
+    }
+
+    /**
+     * Get how many times the algebra methods of adaptive sets have used a kernel.
+     *
+     * @param kernel - Kernel to count
+     * @return The number of times it was used since the counters were last reset
+     */
+    public static long kernelCount(Kernel kernel) {
+        return kernels[kernel.ordinal()].sum();
+    }
+
+    /**
+     * Reset the representation and kernel counters to zero.
+     */
+    public static void resetCounters() {
+        for (LongAdder counter : chosen) counter.reset();
+        for (LongAdder counter : kernels) counter.reset();
+    }
+
+    /**
+     * Rebuild this set's storage at the smallest size that holds its current elements,
+     * choosing the representation again for what is left.
+     */
+    @Override
+    public void compact() {
+        adapt(null);
+        super.compact();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSubsetOf(DiscreteSet<E> other) {
+        Set<E> mine = backing();
+        Set<E> theirs = backingOf(other);
+        if (mine instanceof IntBitSet && theirs instanceof IntBitSet) {
+            kernels[Kernel.BITSET.ordinal()].increment();
+            return IntBitSet.isSubset((IntBitSet) mine, (IntBitSet) theirs);
+        }
+        if (mine instanceof IntRunSet && theirs instanceof IntRunSet) {
+            kernels[Kernel.RUNS.ordinal()].increment();
+            return ((IntRunSet) mine).toRangeSet().isSubsetOf(((IntRunSet) theirs).toRangeSet());
+        }
+
+        kernels[Kernel.PROBE.ordinal()].increment();
+        return cardinality() <= other.cardinality() && super.isSubsetOf(other);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isOverlappingWith(DiscreteSet<E> other) {
+        Set<E> mine = backing();
+        Set<E> theirs = backingOf(other);
+        if (mine instanceof IntBitSet && theirs instanceof IntBitSet) {
+            kernels[Kernel.BITSET.ordinal()].increment();
+            return IntBitSet.intersects((IntBitSet) mine, (IntBitSet) theirs);
+        }
+
+        kernels[Kernel.PROBE.ordinal()].increment();
+        return super.isOverlappingWith(other);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DiscreteSet<E> union(DiscreteSet<E> other) {
+        SlowSetOperationEvent event = SetMetrics.start();
+        Set<E> mine = backing();
+        Set<E> theirs = backingOf(other);
+        AdaptiveDiscreteSet<E> newSet;
+        if (mine instanceof IntBitSet && theirs instanceof IntBitSet && isDenseUnion((IntBitSet) mine, (IntBitSet) theirs)) {
+            newSet = fromKernel(Kernel.BITSET, IntBitSet.union((IntBitSet) mine, (IntBitSet) theirs));
+        } else if (mine instanceof IntRunSet && theirs instanceof IntRunSet) {
+            RangeSet union = ((IntRunSet) mine).toRangeSet().union(((IntRunSet) theirs).toRangeSet());
+            newSet = fromKernel(Kernel.RUNS, IntRunSet.of(union));
+        } else {
+            kernels[Kernel.PROBE.ordinal()].increment();
+            boolean smaller = cardinality() <= other.cardinality();
+            newSet = new AdaptiveDiscreteSet<>(smaller ? other.getElements() : mine);
+            newSet.addAll(smaller ? mine : other.getElements());
+        }
+
+        SetMetrics.record(SetOperation.UNION, event, cardinality(), other.cardinality(), newSet.cardinality());
+        return newSet;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DiscreteSet<E> intersection(DiscreteSet<E> other) {
+        SlowSetOperationEvent event = SetMetrics.start();
+        Set<E> mine = backing();
+        Set<E> theirs = backingOf(other);
+        AdaptiveDiscreteSet<E> newSet;
+        if (mine instanceof IntBitSet && theirs instanceof IntBitSet) {
+            newSet = fromKernel(Kernel.BITSET, IntBitSet.intersection((IntBitSet) mine, (IntBitSet) theirs));
+        } else if (mine instanceof IntRunSet && theirs instanceof IntRunSet) {
+            RangeSet intersection = ((IntRunSet) mine).toRangeSet().intersection(((IntRunSet) theirs).toRangeSet());
+            newSet = fromKernel(Kernel.RUNS, IntRunSet.of(intersection));
+        } else {
+            kernels[Kernel.PROBE.ordinal()].increment();
+            boolean smaller = cardinality() <= other.cardinality();
+            Collection<E> probed = smaller ? other.getElements() : mine;
+            newSet = new AdaptiveDiscreteSet<>();
+            for (E element : smaller ? mine : other.getElements()) {
+                if (probed.contains(element)) {
+                    newSet.add(element);
+                }
+            }
+        }
+
+        SetMetrics.record(SetOperation.INTERSECTION, event, cardinality(), other.cardinality(), newSet.cardinality());
+        return newSet;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DiscreteSet<E> difference(DiscreteSet<E> other) {
+        SlowSetOperationEvent event = SetMetrics.start();
+        Set<E> mine = backing();
+        Set<E> theirs = backingOf(other);
+        AdaptiveDiscreteSet<E> newSet;
+        if (mine instanceof IntBitSet && theirs instanceof IntBitSet) {
+            newSet = fromKernel(Kernel.BITSET, IntBitSet.difference((IntBitSet) mine, (IntBitSet) theirs));
+        } else if (mine instanceof IntRunSet && theirs instanceof IntRunSet) {
+            RangeSet difference = ((IntRunSet) mine).toRangeSet().difference(((IntRunSet) theirs).toRangeSet());
+            newSet = fromKernel(Kernel.RUNS, IntRunSet.of(difference));
+        } else {
+            kernels[Kernel.PROBE.ordinal()].increment();
+            // removeAll probes whichever side is smaller
+            newSet = new AdaptiveDiscreteSet<>(mine);
+            newSet.removeAll(other.getElements());
+        }
+
+        SetMetrics.record(SetOperation.DIFFERENCE, event, cardinality(), other.cardinality(), newSet.cardinality());
+        return newSet;
+    }
+
+    /**
+     * Check whether a bitset covering the union of two bitsets would cost about as little as a hash set of their
+     * elements. Two dense bitsets far apart do not: the words for the gap between them would all be empty.
+     * Intersections and differences never need more words than their operands, so they are always done word by word.
+     */
+    private static boolean isDenseUnion(IntBitSet a, IntBitSet b) {
+        long words = IntBitSet.wordsForUnion(a, b);
+        return words * 8 * SWITCH_RATIO <= HASH_BYTES_PER_ELEMENT * ((long) a.size() + b.size());
+    }
+
+    /**
+     * Reconsider the representation before an element is stored, when the set has grown enough since
+     * the last check, or when the element does not fit the current representation well.
+     */
+    @Override
+    void beforeStore(E element) {
+        Set<E> backing = backing();
+        if (backing instanceof IntBitSet || backing instanceof IntRunSet) {
+            if (!(element instanceof Integer)) {
+                switchTo(Representation.HASH, 0, 0);
+                return;
+            }
+            if (backing.contains(element)) return;
+        }
+
+        Integer value = element instanceof Integer ? (Integer) element : null;
+        if (backing.size() + 1 >= this.nextCheck) {
+            adapt(value);
+        } else if (backing instanceof IntBitSet) {
+            IntBitSet bits = (IntBitSet) backing;
+            long words = bits.wordsWith(value);
+            // Only look again if the value would grow the bitset well past the cost of a hash set
+            if (words > bits.wordCount() && words * 8 * SWITCH_RATIO > HASH_BYTES_PER_ELEMENT * (backing.size() + 1)) {
+                adapt(value);
+            }
+        } else if (backing instanceof IntRunSet && ((IntRunSet) backing).runCount() > 2 * this.runsAtCheck + FIRST_CHECK) {
+            adapt(value);
+        }
+    }
+
+    /**
+     * Reconsider the representation after removals, when the set has halved in size since the last check,
+     * or when removing from the middle of runs has split them into many more.
+     */
+    @Override
+    void afterRemovals() {
+        Set<E> backing = backing();
+        if (backing.size() < this.nextCheck / 4) {
+            adapt(null);
+        } else if (backing instanceof IntRunSet && ((IntRunSet) backing).runCount() > 2 * this.runsAtCheck + FIRST_CHECK) {
+            adapt(null);
+        }
+        super.afterRemovals();
+    }
+
+    /**
+     * Choose the cheapest representation for the current elements plus one about to be added, and switch to it.
+     *
+     * @param pending - Integer about to be added, or null if there is none or it is not an integer
+     */
+    private void adapt(Integer pending) {
+        Set<E> backing = backing();
+        int size = backing.size() + (pending == null ? 0 : 1);
+        this.nextCheck = (int) Math.min(Math.max(FIRST_CHECK, 2L * size), Integer.MAX_VALUE);
+        if (size < FIRST_CHECK) return;
+
+        int min;
+        int max;
+        int runs;
+        if (backing instanceof IntBitSet) {
+            IntBitSet bits = (IntBitSet) backing;
+            min = bits.min();
+            max = bits.max();
+            runs = bits.runCount();
+        } else if (backing instanceof IntRunSet) {
+            IntRunSet set = (IntRunSet) backing;
+            min = set.min();
+            max = set.max();
+            runs = set.runCount();
+        } else {
+            int[] values = new int[backing.size()];
+            int length = 0;
+            for (E element : backing) {
+                // Only integers can be stored as a bitset or runs
+                if (!(element instanceof Integer)) return;
+                values[length++] = (Integer) element;
+            }
+            Arrays.sort(values);
+            min = length == 0 ? Integer.MAX_VALUE : values[0];
+            max = length == 0 ? Integer.MIN_VALUE : values[length - 1];
+            runs = length == 0 ? 0 : 1;
+            for (int i = 1; i < length; i++) {
+                if (values[i] != values[i - 1] + 1) runs++;
+            }
+        }
+        if (pending != null) {
+            min = Math.min(min, pending);
+            max = Math.max(max, pending);
+            runs++;
+        }
+        this.runsAtCheck = runs;
+
+        long[] costs = new long[Representation.values().length];
+        costs[Representation.INLINE.ordinal()] = Long.MAX_VALUE;
+        costs[Representation.HASH.ordinal()] = HASH_BYTES_PER_ELEMENT * size;
+        costs[Representation.BITSET.ordinal()] = 8 * IntBitSet.wordsFor(min, max);
+        // Adding into the middle shifts the runs after it, so short runs are left to the other representations
+        costs[Representation.RUNS.ordinal()] = (long) runs * MIN_RUN_LENGTH <= size ? 8L * runs : Long.MAX_VALUE;
+
+        Representation current = getRepresentation();
+        Representation best = Representation.HASH;
+        for (Representation candidate : Representation.values()) {
+            if (costs[candidate.ordinal()] < costs[best.ordinal()]) {
+                best = candidate;
+            }
+        }
+        if (current == Representation.INLINE || costs[best.ordinal()] < costs[current.ordinal()] * SWITCH_RATIO) {
+            if (best != current) switchTo(best, min, max);
+        }
+    }
+
+    /**
+     * Copy the elements into a new representation.
+     *
+     * @param representation - Representation to switch to
+     * @param min - Smallest value the bitset has to cover, if switching to a bitset
+     * @param max - Largest value the bitset has to cover, if switching to a bitset
+     */
+    @SuppressWarnings("unchecked")
+    private void switchTo(Representation representation, int min, int max) {
+        Set<E> backing = backing();
+        Set<?> replacement;
+        switch (representation) {
+            case BITSET: replacement = IntBitSet.of(backing, min, max); break;
+            case RUNS: replacement = IntRunSet.of(backing, backing.size()); break;
+            default: replacement = new HashSet<>(backing); break;
+        }
+        replaceBacking((Set<E>) replacement);
+        chosen[representation.ordinal()].increment();
+    }
+
+    /**
+     * Wrap the result of a bitset or run kernel in a new set, inline if it is small enough.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> AdaptiveDiscreteSet<E> fromKernel(Kernel kernel, Set<Integer> result) {
+        if (result.size() > InlineSet.CAPACITY) {
+            return new AdaptiveDiscreteSet<>(result, kernel);
+        }
+
+        kernels[kernel.ordinal()].increment();
+        AdaptiveDiscreteSet<E> newSet = new AdaptiveDiscreteSet<>();
+        newSet.addAll((Collection<E>) (Collection<?>) result);
+        return newSet;
+    }
+
+    private static <E> Set<E> backingOf(DiscreteSet<E> set) {
+        return set instanceof AdaptiveDiscreteSet ? ((AdaptiveDiscreteSet<E>) set).backing() : null;
+    }
+
+    private static Representation representationOf(Set<?> backing) {
+        if (backing instanceof InlineSet) return Representation.INLINE;
+        if (backing instanceof IntBitSet) return Representation.BITSET;
+        if (backing instanceof IntRunSet) return Representation.RUNS;
+        return Representation.HASH;
+    }
+
+    private static LongAdder[] newCounters(int count) {
+        LongAdder[] counters = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+}
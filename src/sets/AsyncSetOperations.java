@@ -0,0 +1,204 @@
+package sets;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Runs long set computations on an {@link Executor} instead of the calling thread.
+ *
+ * Each method returns a {@link SetTask} right away. The computation checks the task after every item
+ * it produces, so cancelling the task or giving it a deadline with {@link SetTask#orTimeout} stops the
+ * computation within one item instead of leaving it running in the background.
+ *
+ * Any executor can be used, such as a fixed thread pool or a virtual thread per task executor
+ * on runtimes that provide one. The default is the common fork/join pool.
+ * The sets given to a computation must not be changed until its task is complete.
+ *
+ * @author Gavin Borne
+ */
+public class AsyncSetOperations {
+    private final Executor executor;
+
+    /**
+     * Create an instance that runs computations on the common fork/join pool.
+     */
+    public AsyncSetOperations() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create an instance that runs computations on a given executor.
+     *
+     * @param executor - Executor to run computations on
+     */
+    public AsyncSetOperations(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Generate the power set of a set in the background.
+     * Progress counts the subsets produced, out of 2^n.
+     *
+     * @param set - Set to take the power set of
+     * @return A task completed with the power set
+     */
+    public <E> SetTask<DiscreteSet<DiscreteSet<E>>> powerSet(DiscreteSet<E> set) {
+        int n = set.cardinality();
+        long total = n < Long.SIZE - 1 ? 1L << n : -1;
+
+        return submit(total, task -> {
+            SlowSetOperationEvent event = SetMetrics.start();
+            DiscreteSet<DiscreteSet<E>> powerSet = GenericDiscreteSet.powerSetOf(set, task::checkpoint);
+            SetMetrics.record(SetOperation.POWER_SET, event, n, -1, powerSet.cardinality());
+            return powerSet;
+        });
+    }
+
+    /**
+     * Generate the cartesian product of a list of sets in the background,
+     * as ordered groups (x1, x2, ...xn) where x1 is a member of the first set, x2 of the second, etc.
+     * Progress counts the groups produced, out of the product of the cardinalities.
+     *
+     * @param sets - Sets to take the product of, in order
+     * @return A task completed with the cartesian product
+     * @throws IllegalArgumentException If sets is an empty list
+     */
+    public SetTask<DiscreteSet<OrderedGroup>> cartesianProduct(List<? extends DiscreteSet<?>> sets) throws IllegalArgumentException {
+        if (sets.isEmpty()) {
+            throw new IllegalArgumentException("cartesianProduct arg 'sets' cannot be an empty list");
+        }
+
+        long total = 1;
+        for (DiscreteSet<?> set : sets) {
+            total = total < 0 ? -1 : multiplyOrUnknown(total, set.cardinality());
+        }
+        for (DiscreteSet<?> set : sets) {
+            if (set.isEmpty()) total = 0;
+        }
+        // Recorded like the synchronous product: the first set, then the others together
+        int othersCardinality = totalCardinality(sets.subList(1, sets.size()));
+
+        return submit(total, task -> {
+            SlowSetOperationEvent event = SetMetrics.start();
+            DiscreteSet<OrderedGroup> product = GenericDiscreteSet.cartesianProductOf(sets, task::checkpoint);
+            SetMetrics.record(SetOperation.CARTESIAN_PRODUCT, event, sets.get(0).cardinality(), othersCardinality, product.cardinality());
+            return product;
+        });
+    }
+
+    /**
+     * Calculate the Bell number of a set in the background.
+     * Progress counts the rows of the Bell triangle computed, out of n.
+     *
+     * @param set - Set to calculate the Bell number of
+     * @return A task completed with the Bell number
+     */
+    public SetTask<BigInteger> bellNumber(DiscreteSet<?> set) {
+        return bellNumber(set.cardinality());
+    }
+
+    /**
+     * Calculate the nth Bell number in the background.
+     * Progress counts the rows of the Bell triangle computed, out of n.
+     *
+     * @param n - Bell number to compute
+     * @return A task completed with the nth Bell number
+     * @throws IllegalArgumentException If n is negative
+     */
+    public SetTask<BigInteger> bellNumber(int n) throws IllegalArgumentException {
+        if (n < 0) {
+            throw new IllegalArgumentException("bellNumber arg 'n' cannot be negative");
+        }
+
+        return submit(n, task -> {
+            SlowSetOperationEvent event = SetMetrics.start();
+            BigInteger bellNumber = BellNumbers.bellNumber(n, task::checkpoint);
+            SetMetrics.record(SetOperation.BELL_NUMBER, event, n, -1, bellNumber.bitLength());
+            return bellNumber;
+        });
+    }
+
+    /**
+     * Generate the intersection of a set and an arbitrary number of other sets in the background.
+     * Only the elements of the smallest set are checked against the others.
+     * Progress counts the elements of the smallest set checked, out of its cardinality.
+     *
+     * @param set - First set
+     * @param others - Other sets
+     * @return A task completed with the intersection of the sets
+     */
+    public <E> SetTask<DiscreteSet<E>> intersection(DiscreteSet<E> set, List<DiscreteSet<E>> others) {
+        List<DiscreteSet<E>> sets = new ArrayList<>(others.size() + 1);
+        sets.add(set);
+        sets.addAll(others);
+        sets.sort(Comparator.comparingInt(DiscreteSet::cardinality));
+        DiscreteSet<E> smallest = sets.get(0);
+        // Recorded like the synchronous intersection: the first set, then the others together
+        int othersCardinality = totalCardinality(others);
+
+        return submit(smallest.cardinality(), task -> {
+            SlowSetOperationEvent event = SetMetrics.start();
+            DiscreteSet<E> intersection = new GenericDiscreteSet<>();
+            long checked = 0;
+            for (E element : smallest) {
+                boolean inAll = true;
+                for (int i = 1; i < sets.size() && inAll; i++) {
+                    inAll = sets.get(i).contains(element);
+                }
+                if (inAll) {
+                    intersection.add(element);
+                }
+                task.checkpoint(++checked);
+            }
+
+            SetMetrics.record(SetOperation.INTERSECTION, event, set.cardinality(), othersCardinality, intersection.cardinality());
+            return intersection;
+        });
+    }
+
+    private <T> SetTask<T> submit(long total, Function<SetTask<T>, T> computation) {
+        SetTask<T> task = new SetTask<>(total);
+        Runnable run = () -> {
+            // Cancelled before it started
+            if (task.isDone()) return;
+            try {
+                task.complete(computation.apply(task));
+            } catch (CancellationException e) {
+                // Usually the task was completed elsewhere, which is what stopped the computation,
+                // but the computation can also throw one of its own
+                if (!task.isDone()) task.completeExceptionally(e);
+            } catch (Throwable t) {
+                task.completeExceptionally(t);
+            }
+        };
+
+        try {
+            this.executor.execute(run);
+        } catch (RuntimeException e) {
+            task.completeExceptionally(e);
+        }
+        return task;
+    }
+
+    private static int totalCardinality(List<? extends DiscreteSet<?>> sets) {
+        int total = 0;
+        for (DiscreteSet<?> set : sets) {
+            total += set.cardinality();
+        }
+        return total;
+    }
+
+    private static long multiplyOrUnknown(long a, long b) {
+        try {
+            return Math.multiplyExact(a, b);
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+    }
+}
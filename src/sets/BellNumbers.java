@@ -3,6 +3,7 @@ package sets;
 import java.math.BigInteger;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.IntConsumer;
 
 /**
  * Compute Bell numbers.
@@ -17,25 +18,73 @@ public class BellNumbers {
      *
      * @param n - Bell number to compute
      * @return nth Bell number
+     * @throws IllegalArgumentException If n is negative
      */
-    public static BigInteger bellNumber(int n) {
-        BigInteger[][] bell = new BigInteger[n + 1][n + 1];
-
-        // Initialize the first bell number
-        bell[0][0] = BigInteger.ONE;
+    public static BigInteger bellNumber(int n) throws IllegalArgumentException {
+        if (n < 0) {
+            throw new IllegalArgumentException("bellNumber arg 'n' cannot be negative");
+        }
+        return bellNumber(n, row -> {});
+    }
 
+    /**
+     * Calculate the nth Bell number with the Bell triangle, reporting each row as it is finished.
+     *
+     * @param n - Bell number to compute, which must not be negative
+     * @param progress - Called with the index of each row of the triangle after it is computed
+     * @return nth Bell number
+     */
+    static BigInteger bellNumber(int n, IntConsumer progress) {
+        // Only the previous row of the Bell triangle is needed for the next one
+        BigInteger[] row = { BigInteger.ONE };
         for (int i = 1; i <= n; i++) {
             // The first element in each row is
             // the last element of the previous row
-            bell[i][0] = bell[i - 1][i - 1];
-
+            BigInteger[] next = new BigInteger[i + 1];
+            next[0] = row[i - 1];
             for (int j = 1; j <= i; j++) {
-                bell[i][j] = bell[i - 1][j - 1].add(bell[i][j - 1]);
+                next[j] = row[j - 1].add(next[j - 1]);
             }
+            row = next;
+            progress.accept(i);
         }
 
         // B(n) is the first element in row n
-        return bell[n][0];
+        return row[0];
+    }
+
+    /**
+     * Calculate the Stirling number of the second kind S(n, k),
+     * the number of ways to partition a set of n elements into exactly k non-empty blocks.
+     * The nth Bell number is the sum of S(n, k) over every k.
+     *
+     * @param n - Number of elements
+     * @param k - Number of blocks
+     * @return S(n, k), or zero if k is not between 0 and n
+     * @throws IllegalArgumentException If n is negative
+     */
+    public static BigInteger stirlingSecondKind(int n, int k) throws IllegalArgumentException {
+        if (n < 0) {
+            throw new IllegalArgumentException("stirlingSecondKind arg 'n' cannot be negative");
+        }
+        if (k < 0 || k > n) {
+            return BigInteger.ZERO;
+        }
+
+        // row[j] holds S(i, j), built up one row at a time with S(i, j) = j * S(i - 1, j) + S(i - 1, j - 1)
+        BigInteger[] row = new BigInteger[k + 1];
+        row[0] = BigInteger.ONE;
+        for (int j = 1; j <= k; j++) {
+            row[j] = BigInteger.ZERO;
+        }
+        for (int i = 1; i <= n; i++) {
+            for (int j = Math.min(i, k); j >= 1; j--) {
+                row[j] = BigInteger.valueOf(j).multiply(row[j]).add(row[j - 1]);
+            }
+            row[0] = BigInteger.ZERO;
+        }
+
+        return row[k];
     }
 
     /**
@@ -58,29 +107,14 @@ public class BellNumbers {
             return memo.get(n);
         }
 
+        // Each term uses a coefficient from the same row of Pascal's triangle
+        BigInteger[] row = BinomialCoefficients.pascalRow(n - 1);
         BigInteger sum = BigInteger.ZERO;
         for (int k = 0; k < n; k++) {
-            sum = sum.add(binomial(n - 1, k).multiply(bellNumberRecursive(k, memo)));
+            sum = sum.add(row[k].multiply(bellNumberRecursive(k, memo)));
         }
 
         memo.put(n, sum);
         return sum;
     }
-
-    /**
-     * Calculate the binomial coefficient C(n, k).
-     * Used in the recursive formula for Bell numbers.
-     *
-     * @param n - THe total number of items
-     * @param k - The number of selected items
-     * @return The binomial coefficient C(n, k)
-     */
-    private static BigInteger binomial(int n, int k) {
-        BigInteger result = BigInteger.ONE;
-        for (int i = 0; i < k; i++) {
-            result = result.multiply(BigInteger.valueOf(n - i))
-                .divide(BigInteger.valueOf(i + 1));
-        }
-        return result;
-    }
 }
@@ -0,0 +1,316 @@
+package sets;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compute binomial and multinomial coefficients.
+ *
+ * Each call picks the cheapest strategy for its arguments:
+ * <ol>
+ *     <li>A {@code long} computation when the result fits in 64 bits.</li>
+ *     <li>Cached rows of Pascal's triangle for moderate n, so repeated calls with the same n are a lookup.
+ *     The cache holds rows until it reaches a fixed memory budget, and can be emptied with {@link #clearCache()}.</li>
+ *     <li>A multiplicative loop for large n and small k.</li>
+ *     <li>Prime factorization using Legendre's formula and a product tree for large n and large k.</li>
+ * </ol>
+ *
+ * @author Gavin Borne
+ */
+public class BinomialCoefficients {
+    /**
+     * Largest n whose row of Pascal's triangle is cached.
+     */
+    private static final int MAX_CACHED_ROW = 1024;
+
+    /**
+     * Below this k, the multiplicative loop beats factoring n!.
+     */
+    private static final int MULTIPLICATIVE_THRESHOLD = 64;
+
+    /**
+     * Most bytes the cached rows may take; rows that do not fit are computed without being cached.
+     */
+    private static final long MAX_CACHED_BYTES = 8L << 20;
+
+    // Only the first half of each row is stored since rows are symmetric
+    private static final ConcurrentMap<Integer, BigInteger[]> rows = new ConcurrentHashMap<>();
+    // Estimated size of the cached rows, reserved before a row is cached and released when it is removed
+    private static final AtomicLong cachedBytes = new AtomicLong();
+
+    /**
+     * Calculate the binomial coefficient C(n, k),
+     * the number of ways to choose k items from n items.
+     *
+     * @param n - The total number of items
+     * @param k - The number of selected items
+     * @return The binomial coefficient C(n, k), or zero if k is not between 0 and n
+     * @throws IllegalArgumentException If n is negative
+     */
+    public static BigInteger binomial(int n, int k) throws IllegalArgumentException {
+        if (n < 0) {
+            throw new IllegalArgumentException("binomial arg 'n' cannot be negative");
+        }
+        if (k < 0 || k > n) {
+            return BigInteger.ZERO;
+        }
+        k = Math.min(k, n - k);
+
+        long small = binomialOrNegative(n, k);
+        if (small >= 0) {
+            return BigInteger.valueOf(small);
+        }
+        if (n <= MAX_CACHED_ROW) {
+            BigInteger[] half = cachedHalfRow(n);
+            if (half != null) {
+                return half[k];
+            }
+        }
+        if (k < MULTIPLICATIVE_THRESHOLD) {
+            return multiplicative(n, k);
+        }
+        return primeFactorized(n, k);
+    }
+
+    /**
+     * Calculate the binomial coefficient C(n, k) as a long.
+     *
+     * @param n - The total number of items
+     * @param k - The number of selected items
+     * @return The binomial coefficient C(n, k), or zero if k is not between 0 and n
+     * @throws IllegalArgumentException If n is negative
+     * @throws ArithmeticException If the result does not fit in a long
+     */
+    public static long binomialExact(int n, int k) throws IllegalArgumentException, ArithmeticException {
+        if (n < 0) {
+            throw new IllegalArgumentException("binomialExact arg 'n' cannot be negative");
+        }
+        if (k < 0 || k > n) {
+            return 0;
+        }
+
+        long result = binomialOrNegative(n, Math.min(k, n - k));
+        if (result < 0) {
+            throw new ArithmeticException("C(" + n + ", " + k + ") does not fit in a long");
+        }
+        return result;
+    }
+
+    /**
+     * Get row n of Pascal's triangle, i.e. C(n, 0), C(n, 1), ...C(n, n).
+     * Rows up to a moderate size are cached while the cache has room, so this is cheap to call repeatedly.
+     *
+     * @param n - Row to get
+     * @return A new array containing row n of Pascal's triangle
+     * @throws IllegalArgumentException If n is negative
+     */
+    public static BigInteger[] pascalRow(int n) throws IllegalArgumentException {
+        if (n < 0) {
+            throw new IllegalArgumentException("pascalRow arg 'n' cannot be negative");
+        }
+
+        BigInteger[] half = n <= MAX_CACHED_ROW ? cachedHalfRow(n) : null;
+        if (half == null) {
+            half = computeHalfRow(n);
+        }
+        BigInteger[] row = new BigInteger[n + 1];
+        for (int k = 0; k <= n; k++) {
+            row[k] = half[Math.min(k, n - k)];
+        }
+        return row;
+    }
+
+    /**
+     * Calculate the multinomial coefficient (k1 + k2 + ...kn)! / (k1! k2! ...kn!),
+     * the number of ways to split a set into labeled groups of the given sizes.
+     *
+     * @param ks - Sizes of the groups
+     * @return The multinomial coefficient
+     * @throws IllegalArgumentException If any group size is negative
+     * @throws ArithmeticException If the total size overflows an int
+     */
+    public static BigInteger multinomial(int... ks) throws IllegalArgumentException, ArithmeticException {
+        BigInteger result = BigInteger.ONE;
+        int total = 0;
+
+        // (k1 + ...kn)! / (k1! ...kn!) = C(k1, k1) * C(k1 + k2, k2) * ...C(k1 + ...kn, kn)
+        for (int k : ks) {
+            if (k < 0) {
+                throw new IllegalArgumentException("multinomial arg 'ks' cannot contain negative sizes");
+            }
+            total = Math.addExact(total, k);
+            result = result.multiply(binomial(total, k));
+        }
+
+        return result;
+    }
+
+    /**
+     * Empty the cache of Pascal's triangle rows, for example after a burst of calls
+     * that will not be repeated.
+     */
+    public static void clearCache() {
+        for (Integer n : rows.keySet()) {
+            BigInteger[] removed = rows.remove(n);
+            if (removed != null) {
+                cachedBytes.addAndGet(-footprint(removed));
+            }
+        }
+    }
+
+    /**
+     * Estimate the memory taken by the cached rows of Pascal's triangle.
+     *
+     * @return The approximate size of the cache in bytes
+     */
+    public static long cacheFootprint() {
+        return cachedBytes.get();
+    }
+
+    /**
+     * Calculate C(n, k) for 0 <= k <= n / 2 using long arithmetic.
+     *
+     * @return C(n, k), or -1 if it does not fit in a long
+     */
+    private static long binomialOrNegative(int n, int k) {
+        long result = 1;
+        for (int i = 0; i < k; i++) {
+            // C(n, i + 1) = C(n, i) * (n - i) / (i + 1).
+            // Dividing out the gcd first keeps every step exact without overflowing early.
+            long divisor = i + 1;
+            long gcd = gcd(result, divisor);
+            long multiplier = (n - i) / (divisor / gcd);
+
+            long high = Math.multiplyHigh(result / gcd, multiplier);
+            long low = (result / gcd) * multiplier;
+            if (high != 0 || low < 0) {
+                return -1;
+            }
+            result = low;
+        }
+        return result;
+    }
+
+    /**
+     * Get the first half of row n from the cache, computing and caching it if there is room.
+     *
+     * @return The half row, or null if it is not cached and the cache is full
+     */
+    private static BigInteger[] cachedHalfRow(int n) {
+        BigInteger[] half = rows.get(n);
+        if (half != null || cachedBytes.get() >= MAX_CACHED_BYTES) {
+            return half;
+        }
+
+        half = computeHalfRow(n);
+        long bytes = footprint(half);
+        if (cachedBytes.addAndGet(bytes) > MAX_CACHED_BYTES) {
+            // Too large for what is left of the budget, but still good for this call
+            cachedBytes.addAndGet(-bytes);
+            return half;
+        }
+        BigInteger[] cached = rows.putIfAbsent(n, half);
+        if (cached != null) {
+            // Another thread cached the row first
+            cachedBytes.addAndGet(-bytes);
+            return cached;
+        }
+        return half;
+    }
+
+    /**
+     * Estimate the size of a half row: the array, and each BigInteger with its array of 32-bit words.
+     */
+    private static long footprint(BigInteger[] half) {
+        long bytes = MemoryFootprint.array(half.length, MemoryFootprint.REFERENCE);
+        for (BigInteger value : half) {
+            bytes += MemoryFootprint.OBJECT + MemoryFootprint.array((value.bitLength() + 31) / 32, Integer.BYTES);
+        }
+        return bytes;
+    }
+
+    private static BigInteger[] computeHalfRow(int n) {
+        BigInteger[] half = new BigInteger[n / 2 + 1];
+        half[0] = BigInteger.ONE;
+        for (int k = 1; k < half.length; k++) {
+            half[k] = half[k - 1].multiply(BigInteger.valueOf(n - k + 1))
+                .divide(BigInteger.valueOf(k));
+        }
+        return half;
+    }
+
+    private static BigInteger multiplicative(int n, int k) {
+        BigInteger result = BigInteger.ONE;
+        for (int i = 0; i < k; i++) {
+            result = result.multiply(BigInteger.valueOf(n - i))
+                .divide(BigInteger.valueOf(i + 1));
+        }
+        return result;
+    }
+
+    /**
+     * Calculate C(n, k) from its prime factorization.
+     * By Legendre's formula, the exponent of a prime p in n! is n/p + n/p^2 + ... (rounding down),
+     * so its exponent in C(n, k) = n! / (k! (n - k)!) is that sum for n minus the sums for k and n - k.
+     * Only primes up to n contribute, and primes above the square root of n contribute at most once.
+     */
+    private static BigInteger primeFactorized(int n, int k) {
+        List<BigInteger> factors = new ArrayList<>();
+        boolean[] composite = new boolean[n + 1];
+
+        for (int p = 2; p <= n; p++) {
+            if (composite[p]) continue;
+            for (long multiple = (long) p * p; multiple <= n; multiple += p) {
+                composite[(int) multiple] = true;
+            }
+
+            int exponent = legendre(n, p) - legendre(k, p) - legendre(n - k, p);
+            if (exponent > 0) {
+                factors.add(BigInteger.valueOf(p).pow(exponent));
+            }
+        }
+
+        return productTree(factors, 0, factors.size());
+    }
+
+    /**
+     * Calculate the exponent of the prime p in n!.
+     */
+    private static int legendre(int n, int p) {
+        int exponent = 0;
+        while (n > 0) {
+            n /= p;
+            exponent += n;
+        }
+        return exponent;
+    }
+
+    /**
+     * Multiply factors[from, to) by recursively splitting them in half,
+     * so the large multiplications happen between operands of similar size.
+     */
+    private static BigInteger productTree(List<BigInteger> factors, int from, int to) {
+        if (to - from == 0) {
+            return BigInteger.ONE;
+        }
+        if (to - from == 1) {
+            return factors.get(from);
+        }
+
+        int middle = (from + to) >>> 1;
+        return productTree(factors, from, middle).multiply(productTree(factors, middle, to));
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,353 @@
+package sets;
+
+import java.math.BigInteger;
+import java.util.AbstractCollection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * A lazy collection of the k-subsets (combinations) of a set.
+ * Subsets are produced one at a time in colexicographic order of the
+ * positions of their elements, so only the subsets that are visited are ever built.
+ *
+ * Sets with at most 64 elements are walked with Gosper's hack over a bit mask,
+ * while larger sets use an array of element positions.
+ * Each subset has a rank (its position in the enumeration), which allows
+ * random access through {@link #get(long)} and splitting for parallel streams.
+ *
+ * The elements of the source set are copied when this collection is created,
+ * so later changes to the source set are not reflected.
+ *
+ * @author Gavin Borne
+ */
+public class Combinations<E>
+    extends AbstractCollection<DiscreteSet<E>>
+{
+    private final Object[] elements;
+    private final int k;
+    private final BigInteger count;
+    // Position of each element, for membership checks
+    private final Map<Object, Integer> positions = new HashMap<>();
+
+    /**
+     * Create the collection of k-subsets of a set.
+     *
+     * @param set - Set to choose elements from
+     * @param k - Number of elements in each subset
+     * @throws IllegalArgumentException If k is negative
+     */
+    public Combinations(DiscreteSet<E> set, int k) throws IllegalArgumentException {
+        if (k < 0) {
+            throw new IllegalArgumentException("Combinations arg 'k' cannot be negative");
+        }
+        this.elements = set.toArray();
+        for (int i = 0; i < this.elements.length; i++) {
+            this.positions.put(this.elements[i], i);
+        }
+        this.k = k;
+        this.count = BinomialCoefficients.binomial(this.elements.length, k);
+    }
+
+    /**
+     * Get the number of elements in each subset.
+     *
+     * @return The size of each subset
+     */
+    public int getK() {
+        return this.k;
+    }
+
+    /**
+     * Calculate the exact number of k-subsets, C(n, k).
+     *
+     * @return The number of k-subsets
+     */
+    public BigInteger count() {
+        return this.count;
+    }
+
+    /**
+     * Calculate the number of k-subsets.
+     * If there are more than {@link Integer#MAX_VALUE} subsets, {@link Integer#MAX_VALUE} is returned;
+     * use {@link #count()} for the exact value.
+     *
+     * @return The number of k-subsets
+     */
+    @Override
+    public int size() {
+        return this.count.bitLength() < Integer.SIZE ? this.count.intValue() : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Check whether an object is one of the k-subsets.
+     *
+     * @param o - Object to check
+     * @return Whether the object is a k-subset of the source set
+     */
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof DiscreteSet)) return false;
+
+        DiscreteSet<?> set = (DiscreteSet<?>) o;
+        if (set.cardinality() != this.k) return false;
+        for (Object element : set) {
+            if (!this.positions.containsKey(element)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the k-subset with a given rank.
+     *
+     * @param rank - Rank of the subset, from 0 (inclusive) to {@link #count()} (exclusive)
+     * @return The subset with the given rank
+     * @throws IndexOutOfBoundsException If the rank is out of range
+     */
+    public DiscreteSet<E> get(long rank) throws IndexOutOfBoundsException {
+        return get(BigInteger.valueOf(rank));
+    }
+
+    /**
+     * Get the k-subset with a given rank.
+     *
+     * @param rank - Rank of the subset, from 0 (inclusive) to {@link #count()} (exclusive)
+     * @return The subset with the given rank
+     * @throws IndexOutOfBoundsException If the rank is out of range
+     */
+    public DiscreteSet<E> get(BigInteger rank) throws IndexOutOfBoundsException {
+        checkRank(rank);
+
+        int[] positions = new int[this.k];
+        unrank(rank, positions);
+        return toSet(positions);
+    }
+
+    /**
+     * Generate an iterator over the k-subsets in colexicographic order.
+     *
+     * @return Iterator over the k-subsets
+     */
+    @Override
+    public Iterator<DiscreteSet<E>> iterator() {
+        return new Iterator<>() {
+            private final Cursor cursor = new Cursor();
+            private boolean hasNext = count.signum() > 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.hasNext;
+            }
+
+            @Override
+            public DiscreteSet<E> next() {
+                if (!this.hasNext) {
+                    throw new NoSuchElementException();
+                }
+                DiscreteSet<E> subset = this.cursor.current();
+                this.hasNext = this.cursor.advance();
+                return subset;
+            }
+        };
+    }
+
+    /**
+     * Generate a spliterator over the k-subsets.
+     * When the number of subsets fits in a long, the spliterator splits by rank range,
+     * so parallel streams process disjoint blocks of subsets without coordination.
+     *
+     * @return Spliterator over the k-subsets
+     */
+    @Override
+    public Spliterator<DiscreteSet<E>> spliterator() {
+        if (this.count.bitLength() < Long.SIZE) {
+            return new RankSpliterator(0, this.count.longValue());
+        }
+        return Spliterators.spliteratorUnknownSize(iterator(),
+            Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    private void checkRank(BigInteger rank) throws IndexOutOfBoundsException {
+        if (rank.signum() < 0 || rank.compareTo(this.count) >= 0) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " out of range for " + this.count + " combinations");
+        }
+    }
+
+    /**
+     * Fill positions with the element positions of the subset with a given rank.
+     * The colex rank of positions c0 < c1 < ...c(k-1) is C(c0, 1) + C(c1, 2) + ...C(c(k-1), k),
+     * so each position is found greedily from the largest down.
+     */
+    private void unrank(BigInteger rank, int[] positions) {
+        int c = this.elements.length;
+        for (int i = this.k - 1; i >= 0; i--) {
+            BigInteger binomial;
+            do {
+                c--;
+                binomial = BinomialCoefficients.binomial(c, i + 1);
+            } while (binomial.compareTo(rank) > 0);
+
+            positions[i] = c;
+            rank = rank.subtract(binomial);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private DiscreteSet<E> toSet(int[] positions) {
+        DiscreteSet<E> subset = new GenericDiscreteSet<>();
+        for (int position : positions) {
+            subset.add((E) this.elements[position]);
+        }
+        return subset;
+    }
+
+    /**
+     * Position in the enumeration, stored as a bit mask when n <= 64
+     * and as an array of element positions otherwise.
+     */
+    private final class Cursor {
+        private final boolean useMask = elements.length <= Long.SIZE;
+        private long mask;
+        private final int[] positions = new int[k];
+
+        Cursor() {
+            for (int i = 0; i < k; i++) {
+                this.positions[i] = i;
+            }
+            this.mask = toMask(this.positions);
+        }
+
+        Cursor(long rank) {
+            unrank(BigInteger.valueOf(rank), this.positions);
+            this.mask = toMask(this.positions);
+        }
+
+        /**
+         * Move to the next subset in colex order.
+         *
+         * @return Whether there was a next subset
+         */
+        boolean advance() {
+            return this.useMask ? advanceMask() : advancePositions();
+        }
+
+        DiscreteSet<E> current() {
+            if (!this.useMask) {
+                return toSet(this.positions);
+            }
+
+            DiscreteSet<E> subset = new GenericDiscreteSet<>();
+            for (long bits = this.mask; bits != 0; bits &= bits - 1) {
+                subset.add(element(Long.numberOfTrailingZeros(bits)));
+            }
+            return subset;
+        }
+
+        private boolean advanceMask() {
+            if (this.mask == 0) return false;
+
+            // Gosper's hack: the next larger integer with the same number of set bits
+            long lowest = this.mask & -this.mask;
+            long ripple = this.mask + lowest;
+            if (ripple == 0) return false; // The set bits were already at the top of the word
+
+            long next = (((ripple ^ this.mask) >>> 2) >>> Long.numberOfTrailingZeros(lowest)) | ripple;
+            if (elements.length < Long.SIZE && (next >>> elements.length) != 0) return false;
+
+            this.mask = next;
+            return true;
+        }
+
+        private boolean advancePositions() {
+            // Increment the first position that has room, and reset the ones below it
+            for (int i = 0; i < k; i++) {
+                int limit = i == k - 1 ? elements.length : this.positions[i + 1];
+                if (this.positions[i] + 1 < limit) {
+                    this.positions[i]++;
+                    for (int j = 0; j < i; j++) {
+                        this.positions[j] = j;
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private long toMask(int[] positions) {
+            if (!this.useMask) return 0;
+
+            long mask = 0;
+            for (int position : positions) {
+                mask |= 1L << position;
+            }
+            return mask;
+        }
+
+        @SuppressWarnings("unchecked")
+        private E element(int position) {
+            return (E) elements[position];
+        }
+    }
+
+    /**
+     * Spliterator over the subsets with ranks in [next, end).
+     */
+    private final class RankSpliterator
+        implements Spliterator<DiscreteSet<E>>
+    {
+        private long next;
+        private final long end;
+        private Cursor cursor;
+
+        RankSpliterator(long start, long end) {
+            this.next = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super DiscreteSet<E>> action) {
+            if (this.next >= this.end) return false;
+
+            if (this.cursor == null) {
+                this.cursor = new Cursor(this.next);
+            } else {
+                this.cursor.advance();
+            }
+            this.next++;
+            action.accept(this.cursor.current());
+            return true;
+        }
+
+        @Override
+        public Spliterator<DiscreteSet<E>> trySplit() {
+            long remaining = this.end - this.next;
+            if (remaining < 2) return null;
+
+            // Hand the lower half to the new spliterator;
+            // this one seeks to the upper half the next time it advances
+            long middle = this.next + remaining / 2;
+            RankSpliterator prefix = new RankSpliterator(this.next, middle);
+            if (this.cursor != null) {
+                prefix.cursor = this.cursor;
+                prefix.next = this.next;
+                this.cursor = null;
+            }
+            this.next = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.end - this.next;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | DISTINCT | NONNULL | IMMUTABLE;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package sets;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A read-only set that is kept equal to the result of an operation on other sets (its sources)
+ * as the sources change, like a materialized view in a database.
+ *
+ * The result is computed once when the view is created. After that, the view listens for changes
+ * to its sources and updates itself in O(1) per changed element instead of recomputing the operation:
+ * a union keeps a count of how many sources contain each element, and the other operations
+ * check whether the other source contains the changed element.
+ *
+ * Since a derived set notifies its own listeners as it changes, views can be built on top of other views.
+ * A view stays registered with its sources until {@link #detach()} is called, after which it no longer changes.
+ *
+ * @author Gavin Borne
+ */
+public abstract class DerivedSet<E>
+    extends GenericDiscreteSet<E>
+{
+    private final List<DiscreteSet<E>> sources;
+    private final List<SetChangeListener<E>> sourceListeners = new ArrayList<>();
+    private boolean attached = false;
+
+    private DerivedSet(List<DiscreteSet<E>> sources) {
+        this.sources = List.copyOf(sources);
+    }
+
+    /**
+     * Create a view of the union of two sets.
+     *
+     * @param first - First set
+     * @param second - Second set
+     * @return A view of the union of the two sets
+     */
+    public static <E> DerivedSet<E> unionOf(DiscreteSet<E> first, DiscreteSet<E> second) {
+        return unionOf(List.of(first, second));
+    }
+
+    /**
+     * Create a view of the union of an arbitrary number of sets.
+     *
+     * @param sources - Sets to unite
+     * @return A view of the union of the sets
+     * @throws IllegalArgumentException If sources is an empty list
+     */
+    public static <E> DerivedSet<E> unionOf(List<DiscreteSet<E>> sources) throws IllegalArgumentException {
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("unionOf arg 'sources' cannot be an empty list");
+        }
+        return new Union<>(sources).attach();
+    }
+
+    /**
+     * Create a view of the intersection of two sets.
+     *
+     * @param first - First set
+     * @param second - Second set
+     * @return A view of the intersection of the two sets
+     */
+    public static <E> DerivedSet<E> intersectionOf(DiscreteSet<E> first, DiscreteSet<E> second) {
+        return new Intersection<>(first, second).attach();
+    }
+
+    /**
+     * Create a view of the difference between two sets, the elements of the first set that are not in the second.
+     *
+     * @param first - Set to take elements from
+     * @param second - Set of elements to leave out
+     * @return A view of the difference between the two sets
+     */
+    public static <E> DerivedSet<E> differenceOf(DiscreteSet<E> first, DiscreteSet<E> second) {
+        return new Difference<>(first, second).attach();
+    }
+
+    /**
+     * Create a view of the symmetric difference of two sets, the elements that are in exactly one of the sets.
+     *
+     * @param first - First set
+     * @param second - Second set
+     * @return A view of the symmetric difference of the two sets
+     */
+    public static <E> DerivedSet<E> symmetricDifferenceOf(DiscreteSet<E> first, DiscreteSet<E> second) {
+        return new SymmetricDifference<>(first, second).attach();
+    }
+
+    /**
+     * Get the sets this view is derived from.
+     *
+     * @return The sources of this view, in the order they were given
+     */
+    public List<DiscreteSet<E>> getSources() {
+        return this.sources;
+    }
+
+    /**
+     * Determine whether this view is still following changes to its sources.
+     *
+     * @return Whether this view is attached to its sources
+     */
+    public boolean isAttached() {
+        return this.attached;
+    }
+
+    /**
+     * Stop following changes to the sources.
+     * The view keeps its current elements, and can then be garbage collected independently of its sources.
+     */
+    public void detach() {
+        if (!this.attached) return;
+
+        for (int i = 0; i < this.sources.size(); i++) {
+            this.sources.get(i).removeChangeListener(this.sourceListeners.get(i));
+        }
+        this.sourceListeners.clear();
+        this.attached = false;
+    }
+
+    /**
+     * Compute the initial elements of this view from the current contents of the sources.
+     */
+    abstract void populate();
+
+    /**
+     * Update this view after an element was added to or removed from a source.
+     *
+     * @param side - Position of the changed source in the list of sources
+     * @param element - Element that changed
+     * @param added - Whether the element was added rather than removed
+     */
+    abstract void sourceChanged(int side, E element, boolean added);
+
+    final DiscreteSet<E> source(int side) {
+        return this.sources.get(side);
+    }
+
+    final void include(E element) {
+        super.add(element);
+    }
+
+    final void exclude(Object element) {
+        super.remove(element);
+    }
+
+    final DerivedSet<E> attach() {
+        populate();
+        for (int i = 0; i < this.sources.size(); i++) {
+            int side = i;
+            SetChangeListener<E> listener = new SetChangeListener<>() {
+                @Override
+                public void elementAdded(DiscreteSet<?> source, E element) {
+                    sourceChanged(side, element, true);
+                }
+
+                @Override
+                public void elementRemoved(DiscreteSet<?> source, E element) {
+                    sourceChanged(side, element, false);
+                }
+            };
+            this.sourceListeners.add(listener);
+            this.sources.get(i).addChangeListener(listener);
+        }
+        this.attached = true;
+        return this;
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("DerivedSet cannot be modified directly, only through its sources");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean add(E element) {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> elements) {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addAll(E[] elements) {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(Object o) {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean removeAll(Object[] elements) {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        throw readOnly();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return getElements().iterator();
+    }
+
+    private static final class Union<E>
+        extends DerivedSet<E>
+    {
+        // Number of sources containing each element of the union
+        private final Map<E, Integer> counts = new HashMap<>();
+
+        private Union(List<DiscreteSet<E>> sources) {
+            super(sources);
+        }
+
+        @Override
+        void populate() {
+            for (DiscreteSet<E> source : getSources()) {
+                for (E element : source) {
+                    if (this.counts.merge(element, 1, Integer::sum) == 1) {
+                        include(element);
+                    }
+                }
+            }
+        }
+
+        @Override
+        void sourceChanged(int side, E element, boolean added) {
+            if (added) {
+                if (this.counts.merge(element, 1, Integer::sum) == 1) {
+                    include(element);
+                }
+                return;
+            }
+
+            Integer count = this.counts.get(element);
+            if (count == null) return;
+            if (count == 1) {
+                this.counts.remove(element);
+                exclude(element);
+            } else {
+                this.counts.put(element, count - 1);
+            }
+        }
+    }
+
+    private static final class Intersection<E>
+        extends DerivedSet<E>
+    {
+        private Intersection(DiscreteSet<E> first, DiscreteSet<E> second) {
+            super(List.of(first, second));
+        }
+
+        @Override
+        void populate() {
+            DiscreteSet<E> smaller = source(0);
+            DiscreteSet<E> bigger = source(1);
+            if (smaller.cardinality() > bigger.cardinality()) {
+                smaller = source(1);
+                bigger = source(0);
+            }
+            for (E element : smaller) {
+                if (bigger.contains(element)) {
+                    include(element);
+                }
+            }
+        }
+
+        @Override
+        void sourceChanged(int side, E element, boolean added) {
+            if (!added) {
+                exclude(element);
+            } else if (source(1 - side).contains(element)) {
+                include(element);
+            }
+        }
+    }
+
+    private static final class Difference<E>
+        extends DerivedSet<E>
+    {
+        private Difference(DiscreteSet<E> first, DiscreteSet<E> second) {
+            super(List.of(first, second));
+        }
+
+        @Override
+        void populate() {
+            for (E element : source(0)) {
+                if (!source(1).contains(element)) {
+                    include(element);
+                }
+            }
+        }
+
+        @Override
+        void sourceChanged(int side, E element, boolean added) {
+            // The element is in the difference exactly when the first set has it and the second does not
+            if (source(0).contains(element) && !source(1).contains(element)) {
+                include(element);
+            } else {
+                exclude(element);
+            }
+        }
+    }
+
+    private static final class SymmetricDifference<E>
+        extends DerivedSet<E>
+    {
+        private SymmetricDifference(DiscreteSet<E> first, DiscreteSet<E> second) {
+            super(List.of(first, second));
+        }
+
+        @Override
+        void populate() {
+            for (int side = 0; side < 2; side++) {
+                for (E element : source(side)) {
+                    if (!source(1 - side).contains(element)) {
+                        include(element);
+                    }
+                }
+            }
+        }
+
+        @Override
+        void sourceChanged(int side, E element, boolean added) {
+            if (source(0).contains(element) != source(1).contains(element)) {
+                include(element);
+            } else {
+                exclude(element);
+            }
+        }
+    }
+}
@@ -0,0 +1,530 @@
+package sets;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A multiset (also known as a bag), which is like a set except that each element can occur more than once.
+ * The number of times an element occurs is its multiplicity, or count.
+ *
+ * Elements and their counts are stored side by side in one open addressing hash table,
+ * with the counts in a primitive int array, so looking up or changing a count hashes the element once
+ * and never boxes the count. Removing the last occurrence of an element shifts the following entries back
+ * instead of leaving a marker behind, so lookups stay fast after many removals.
+ *
+ * The algebra methods follow multiset semantics: the {@link #sum} adds counts, the {@link #union} takes the
+ * larger count, the {@link #intersection} takes the smaller count and the {@link #difference} subtracts counts.
+ *
+ * @author Gavin Borne
+ */
+public class DiscreteMultiset<E> {
+    private static final int MINIMUM_CAPACITY = 8;
+    // Stands in for null elements, since null marks an empty slot
+    private static final Object NULL = new Object();
+
+    private Object[] keys;
+    private int[] counts;
+    private int distinct = 0;
+    private long total = 0;
+
+    /**
+     * Create an empty multiset.
+     */
+    public DiscreteMultiset() {
+        this.keys = new Object[MINIMUM_CAPACITY];
+        this.counts = new int[MINIMUM_CAPACITY];
+    }
+
+    /**
+     * Create a multiset containing every element of a collection, as many times as it occurs in the collection.
+     *
+     * @param elements - Elements to add
+     */
+    public DiscreteMultiset(Iterable<? extends E> elements) {
+        this();
+        for (E element : elements) {
+            add(element);
+        }
+    }
+
+    /**
+     * Create a multiset by copying another multiset.
+     *
+     * @param multiset - Multiset to copy
+     */
+    public DiscreteMultiset(DiscreteMultiset<? extends E> multiset) {
+        this.keys = multiset.keys.clone();
+        this.counts = multiset.counts.clone();
+        this.distinct = multiset.distinct;
+        this.total = multiset.total;
+    }
+
+    /**
+     * Add one occurrence of an element.
+     *
+     * @param element - Element to add
+     * @return The count of the element before it was added
+     */
+    public int add(E element) {
+        return add(element, 1);
+    }
+
+    /**
+     * Add a number of occurrences of an element.
+     *
+     * @param element - Element to add
+     * @param occurrences - Number of occurrences to add
+     * @return The count of the element before it was added
+     * @throws IllegalArgumentException If occurrences is negative or the count would overflow an int
+     */
+    public int add(E element, int occurrences) throws IllegalArgumentException {
+        if (occurrences < 0) {
+            throw new IllegalArgumentException("add arg 'occurrences' cannot be negative");
+        }
+        int slot = slotFor(element);
+        int before = this.counts[slot];
+        if (occurrences == 0) return before;
+        if (before > Integer.MAX_VALUE - occurrences) {
+            throw new IllegalArgumentException("add arg 'occurrences' would overflow the count of " + element);
+        }
+
+        if (before == 0) {
+            slot = insert(slot, element);
+        }
+        this.counts[slot] = before + occurrences;
+        this.total += occurrences;
+        return before;
+    }
+
+    /**
+     * Remove one occurrence of an element.
+     *
+     * @param element - Element to remove
+     * @return The count of the element before it was removed
+     */
+    public int remove(Object element) {
+        return remove(element, 1);
+    }
+
+    /**
+     * Remove a number of occurrences of an element.
+     * If the element occurs fewer times than that, every occurrence is removed.
+     *
+     * @param element - Element to remove
+     * @param occurrences - Number of occurrences to remove
+     * @return The count of the element before it was removed
+     * @throws IllegalArgumentException If occurrences is negative
+     */
+    public int remove(Object element, int occurrences) throws IllegalArgumentException {
+        if (occurrences < 0) {
+            throw new IllegalArgumentException("remove arg 'occurrences' cannot be negative");
+        }
+        int slot = slotFor(element);
+        int before = this.counts[slot];
+        if (before == 0 || occurrences == 0) return before;
+
+        if (occurrences >= before) {
+            delete(slot);
+            this.total -= before;
+        } else {
+            this.counts[slot] = before - occurrences;
+            this.total -= occurrences;
+        }
+        return before;
+    }
+
+    /**
+     * Set the count of an element, adding or removing occurrences as needed.
+     *
+     * @param element - Element to change
+     * @param count - New count, where zero removes the element
+     * @return The count of the element before it was changed
+     * @throws IllegalArgumentException If count is negative
+     */
+    public int setCount(E element, int count) throws IllegalArgumentException {
+        if (count < 0) {
+            throw new IllegalArgumentException("setCount arg 'count' cannot be negative");
+        }
+        int before = count(element);
+        if (count > before) {
+            add(element, count - before);
+        } else {
+            remove(element, before - count);
+        }
+        return before;
+    }
+
+    /**
+     * Get the number of times an element occurs in this multiset.
+     *
+     * @param element - Element to count
+     * @return The count of the element, or zero if it does not occur
+     */
+    public int count(Object element) {
+        return this.counts[slotFor(element)];
+    }
+
+    /**
+     * Check whether this multiset contains at least one occurrence of an element.
+     *
+     * @param element - Element to check
+     * @return Whether the element occurs
+     */
+    public boolean contains(Object element) {
+        return count(element) > 0;
+    }
+
+    /**
+     * Calculate the number of distinct elements in this multiset.
+     *
+     * @return The number of distinct elements
+     */
+    public int distinctSize() {
+        return this.distinct;
+    }
+
+    /**
+     * Calculate the number of occurrences of every element in this multiset.
+     *
+     * @return The sum of the counts of all elements
+     */
+    public long size() {
+        return this.total;
+    }
+
+    /**
+     * Determine whether this multiset is empty.
+     *
+     * @return If this multiset is empty
+     */
+    public boolean isEmpty() {
+        return this.distinct == 0;
+    }
+
+    /**
+     * Remove every element from this multiset.
+     */
+    public void clear() {
+        Arrays.fill(this.keys, null);
+        Arrays.fill(this.counts, 0);
+        this.distinct = 0;
+        this.total = 0;
+    }
+
+    /**
+     * Estimate the memory used by this multiset's table, not counting the elements themselves.
+     *
+     * @return The approximate size in bytes
+     */
+    public long memoryFootprint() {
+        return MemoryFootprint.OBJECT
+            + MemoryFootprint.array(this.keys.length, MemoryFootprint.REFERENCE)
+            + MemoryFootprint.array(this.counts.length, Integer.BYTES);
+    }
+
+    /**
+     * Rebuild the table at the smallest size that keeps it at most two thirds full,
+     * for example after most elements have been removed, since removing never shrinks it.
+     */
+    public void compact() {
+        int capacity = MINIMUM_CAPACITY;
+        while (this.distinct * 3L > capacity * 2L) {
+            capacity <<= 1;
+        }
+        if (capacity < this.keys.length) {
+            resize(capacity);
+        }
+    }
+
+    /**
+     * Call an action with every distinct element and its count.
+     *
+     * @param action - Action to call for each element
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachEntry(ObjIntConsumer<? super E> action) {
+        for (int slot = 0; slot < this.keys.length; slot++) {
+            if (this.keys[slot] != null) {
+                action.accept((E) unmask(this.keys[slot]), this.counts[slot]);
+            }
+        }
+    }
+
+    /**
+     * Get the distinct elements of this multiset as a set.
+     * The set is a read-only view of this multiset, not a copy, so it reflects later changes.
+     * This multiset should not be changed while the set is being iterated.
+     *
+     * @return The set of distinct elements
+     */
+    public DiscreteSet<E> toSet() {
+        return GenericDiscreteSet.view(new ElementView());
+    }
+
+    /**
+     * Generate the sum of this multiset and another, in which each count is the sum of the two counts.
+     *
+     * @param other - Other multiset
+     * @return The sum of the two multisets
+     */
+    public DiscreteMultiset<E> sum(DiscreteMultiset<? extends E> other) {
+        DiscreteMultiset<E> sum = new DiscreteMultiset<>(this);
+        other.forEachEntry(sum::add);
+        return sum;
+    }
+
+    /**
+     * Generate the union of this multiset and another, in which each count is the larger of the two counts.
+     *
+     * @param other - Other multiset
+     * @return The union of the two multisets
+     */
+    public DiscreteMultiset<E> union(DiscreteMultiset<? extends E> other) {
+        DiscreteMultiset<E> union = new DiscreteMultiset<>(this);
+        other.forEachEntry((element, count) -> {
+            if (count > union.count(element)) {
+                union.setCount(element, count);
+            }
+        });
+        return union;
+    }
+
+    /**
+     * Generate the intersection of this multiset and another, in which each count is the smaller of the two counts.
+     *
+     * @param other - Other multiset
+     * @return The intersection of the two multisets
+     */
+    public DiscreteMultiset<E> intersection(DiscreteMultiset<?> other) {
+        DiscreteMultiset<E> intersection = new DiscreteMultiset<>();
+        forEachEntry((element, count) -> {
+            int common = Math.min(count, other.count(element));
+            if (common > 0) {
+                intersection.add(element, common);
+            }
+        });
+        return intersection;
+    }
+
+    /**
+     * Generate the difference between this multiset and another, in which each count is
+     * this multiset's count minus the other's, or zero if the other's is larger.
+     *
+     * @param other - Other multiset
+     * @return The difference between this multiset and the other multiset
+     */
+    public DiscreteMultiset<E> difference(DiscreteMultiset<?> other) {
+        DiscreteMultiset<E> difference = new DiscreteMultiset<>();
+        forEachEntry((element, count) -> {
+            int remaining = count - other.count(element);
+            if (remaining > 0) {
+                difference.add(element, remaining);
+            }
+        });
+        return difference;
+    }
+
+    /**
+     * Check whether every element occurs in another multiset at least as many times as in this one.
+     *
+     * @param other - Other multiset
+     * @return Whether this multiset is contained in the other multiset
+     * @throws IllegalArgumentException If other is null
+     */
+    public boolean isSubMultisetOf(DiscreteMultiset<?> other) throws IllegalArgumentException {
+        if (other == null) {
+            throw new IllegalArgumentException("isSubMultisetOf arg 'other' cannot be null");
+        }
+        if (this.distinct > other.distinct || this.total > other.total) return false;
+
+        for (int slot = 0; slot < this.keys.length; slot++) {
+            if (this.keys[slot] != null && this.counts[slot] > other.count(unmask(this.keys[slot]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determine if this multiset is equal to another multiset.
+     * Two multisets are equal if every element has the same count in both.
+     *
+     * @param other - Other multiset
+     * @return Whether the two multisets are equal
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof DiscreteMultiset)) return false;
+
+        DiscreteMultiset<?> otherMultiset = (DiscreteMultiset<?>) other;
+        return this.distinct == otherMultiset.distinct && this.total == otherMultiset.total && isSubMultisetOf(otherMultiset);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int slot = 0; slot < this.keys.length; slot++) {
+            if (this.keys[slot] != null) {
+                hash += Objects.hashCode(unmask(this.keys[slot])) ^ this.counts[slot];
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Generate a String representation of this multiset, with the count of each element.
+     *
+     * @return String representation
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder("{");
+        forEachEntry((element, count) -> {
+            if (out.length() > 1) {
+                out.append(", ");
+            }
+            out.append(element).append(": ").append(count);
+        });
+        return out.append("}").toString();
+    }
+
+    /**
+     * Find the slot holding an element, or the empty slot where it would be inserted.
+     */
+    private int slotFor(Object element) {
+        Object key = mask(element);
+        int mask = this.keys.length - 1;
+        int slot = home(key, mask);
+        while (this.keys[slot] != null && !this.keys[slot].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Put a new element in the given empty slot, growing the table first if it is too full.
+     *
+     * @return The slot the element ended up in
+     */
+    private int insert(int slot, Object element) {
+        // Keep the table at most two thirds full so probe sequences stay short
+        if ((this.distinct + 1) * 3L > this.keys.length * 2L) {
+            resize(this.keys.length * 2);
+            slot = slotFor(element);
+        }
+        this.keys[slot] = mask(element);
+        this.distinct++;
+        return slot;
+    }
+
+    /**
+     * Empty a slot, then shift back any following entries whose probe sequence passes through it.
+     */
+    private void delete(int slot) {
+        int mask = this.keys.length - 1;
+        this.keys[slot] = null;
+        this.counts[slot] = 0;
+        this.distinct--;
+
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (this.keys[next] == null) return;
+
+            // The entry can move into the hole unless its home lies cyclically in (slot, next]
+            int home = home(this.keys[next], mask);
+            boolean stays = slot <= next ? slot < home && home <= next : slot < home || home <= next;
+            if (!stays) {
+                this.keys[slot] = this.keys[next];
+                this.counts[slot] = this.counts[next];
+                this.keys[next] = null;
+                this.counts[next] = 0;
+                slot = next;
+            }
+        }
+    }
+
+    private void resize(int capacity) {
+        Object[] oldKeys = this.keys;
+        int[] oldCounts = this.counts;
+        this.keys = new Object[capacity];
+        this.counts = new int[capacity];
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) continue;
+            int slot = home(oldKeys[i], mask);
+            while (this.keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            this.keys[slot] = oldKeys[i];
+            this.counts[slot] = oldCounts[i];
+        }
+    }
+
+    private static int home(Object key, int mask) {
+        // Spread the hash so keys with similar low bits do not cluster
+        int hash = key.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static Object mask(Object element) {
+        return element == null ? NULL : element;
+    }
+
+    private static Object unmask(Object key) {
+        return key == NULL ? null : key;
+    }
+
+    /**
+     * The distinct elements, read straight from the table.
+     */
+    private final class ElementView
+        extends AbstractSet<E>
+    {
+        @Override
+        public int size() {
+            return distinct;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return DiscreteMultiset.this.contains(o);
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<>() {
+                private int slot = advance(0);
+
+                private int advance(int from) {
+                    while (from < keys.length && keys[from] == null) {
+                        from++;
+                    }
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return this.slot < keys.length;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public E next() {
+                    if (this.slot >= keys.length) {
+                        throw new NoSuchElementException();
+                    }
+                    E element = (E) unmask(keys[this.slot]);
+                    this.slot = advance(this.slot + 1);
+                    return element;
+                }
+            };
+        }
+    }
+}
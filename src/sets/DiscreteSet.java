@@ -1,10 +1,14 @@
 package sets;
 
 import java.math.BigInteger;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Base for all discrete set implementations.
@@ -35,6 +39,16 @@ public interface DiscreteSet<E>
      */
     boolean addAll(Collection<? extends E> elements);
 
+    /**
+     * Add an array of elements to this set.
+     * Sets cannot contain duplicate items.
+     * Implementations should make room for all the elements at once instead of growing repeatedly.
+     *
+     * @param elements - Elements to add
+     * @return Whether this operation changed the items inside the set
+     */
+    boolean addAll(E[] elements);
+
     /**
      * Remove an element from this set.
      *
@@ -52,6 +66,23 @@ public interface DiscreteSet<E>
     @Override
     public boolean removeAll(Collection<?> c);
 
+    /**
+     * Remove all the elements in a given array from this set.
+     *
+     * @param elements - Elements to remove
+     * @return Whether this operation changed the items inside the set
+     */
+    boolean removeAll(Object[] elements);
+
+    /**
+     * Remove all the elements in this set that satisfy a predicate, in a single pass over this set.
+     *
+     * @param filter - Predicate that returns true for elements to remove
+     * @return Whether this operation changed the items inside the set
+     */
+    @Override
+    public boolean removeIf(Predicate<? super E> filter);
+
     /**
      * Retain only the elements in this set that are in a given collection.
      *
@@ -66,6 +97,21 @@ public interface DiscreteSet<E>
      */
     void clear();
 
+    /**
+     * Register a listener to be notified of every element added to or removed from this set.
+     *
+     * @param listener - Listener to register
+     */
+    void addChangeListener(SetChangeListener<? super E> listener);
+
+    /**
+     * Stop notifying a listener of changes to this set.
+     *
+     * @param listener - Listener to unregister
+     * @return Whether the listener was registered
+     */
+    boolean removeChangeListener(SetChangeListener<? super E> listener);
+
     /**
      * Check whether this set contains an element.
      *
@@ -83,13 +129,53 @@ public interface DiscreteSet<E>
     @Override
     public boolean containsAll(Collection<?> c);
 
+    /**
+     * Check which of an array of elements this set contains.
+     *
+     * @param elements - Elements to check
+     * @return A bit set where bit i is set if this set contains elements[i]
+     */
+    BitSet containsEach(Object[] elements);
+
+    /**
+     * Check which of a stream of elements this set contains.
+     *
+     * @param elements - Elements to check
+     * @return A bit set where bit i is set if this set contains the ith element of the stream
+     */
+    BitSet containsEach(Stream<?> elements);
+
+    /**
+     * Count how many of the elements in a collection this set contains.
+     * Duplicates in the collection are counted each time they appear.
+     *
+     * @param c - Collection to check
+     * @return The number of elements of the collection that are in this set
+     */
+    int countContained(Collection<?> c);
+
     /**
      * Get the elements in this set.
      *
-     * @return The elements in this set
+     * @return An unmodifiable view of the elements in this set
      */
     Set<E> getElements();
 
+    /**
+     * Estimate the memory used by this set's own storage.
+     * The elements themselves are not counted, since they are usually shared with other sets.
+     *
+     * @return The approximate size in bytes
+     */
+    long memoryFootprint();
+
+    /**
+     * Rebuild this set's storage at the smallest size that holds its current elements,
+     * for example after most of them have been removed.
+     * Like any change to the set, this must not be done while iterating over it.
+     */
+    void compact();
+
     /**
      * Calculate the cardinality of this set.
      * The cardinality of a set is defined as the number of elements within the set.
@@ -159,6 +245,20 @@ public interface DiscreteSet<E>
     @Override
     boolean equals(Object other);
 
+    /**
+     * Calculate the hash code of this set.
+     * The hash code of a set is the sum of the hash codes of its elements (with null counting as zero),
+     * each first mixed so that sets of small integers do not collide, so equal sets have equal hash codes
+     * regardless of their order. Because of the mixing it differs from the hash code of a {@link java.util.Set}
+     * with the same elements.
+     * Changing an element of a set in a way that changes its hash code leaves the set's hash code out of date,
+     * so elements should not be changed while they are in a set.
+     *
+     * @return The hash code of this set
+     */
+    @Override
+    int hashCode();
+
     /**
      * Determine if this set is equivalent to another set.
      * Two sets are defined to be equivalent if their cardinalities are the same.
@@ -290,6 +390,47 @@ public interface DiscreteSet<E>
      */
     DiscreteSet<DiscreteSet<E>> powerSet();
 
+    /**
+     * Generate the power set of this set as a compact {@link SetFamily}.
+     * All 2^n subsets are stored in two flat arrays instead of as separate sets,
+     * which uses far less memory than {@link #powerSet()} for large n.
+     *
+     * @return The power set of this set as a family
+     * @throws IllegalArgumentException If the power set is too large to store in one array
+     */
+    SetFamily<E> powerSetFamily() throws IllegalArgumentException;
+
+    /**
+     * Generate the subsets of this set that contain exactly k elements (the k-combinations of this set).
+     * The subsets are produced lazily, so this is much cheaper than filtering the {@link #powerSet()}.
+     * The number of k-subsets of a set with cardinality n is C(n, k).
+     *
+     * @param k - Number of elements in each subset
+     * @return The k-subsets of this set
+     * @throws IllegalArgumentException If k is negative
+     */
+    Combinations<E> combinations(int k) throws IllegalArgumentException;
+
+    /**
+     * Generate the permutations of this set.
+     * A permutation of a set is an ordered arrangement of all of its elements.
+     * The number of permutations of a set with cardinality n is n!.
+     *
+     * @return The permutations of this set
+     */
+    Permutations<E> permutations();
+
+    /**
+     * Generate the k-permutations of this set.
+     * A k-permutation of a set is an ordered arrangement of k distinct elements of the set.
+     * The number of k-permutations of a set with cardinality n is n! / (n - k)!.
+     *
+     * @param k - Number of elements in each arrangement
+     * @return The k-permutations of this set
+     * @throws IllegalArgumentException If k is negative or greater than the cardinality of this set
+     */
+    Permutations<E> permutations(int k) throws IllegalArgumentException;
+
     /**
      * Partition this set into a number of equally sized segments.
      * The final segment will be made shorter if the set cannot be evenly divided.
@@ -313,6 +454,27 @@ public interface DiscreteSet<E>
      */
     boolean isPartition(List<DiscreteSet<E>> partition);
 
+    /**
+     * Generate the quotient of this set by an equivalence relation given as pairs of equivalent elements.
+     * The quotient is the partition of this set into equivalence classes, where two elements are in the
+     * same class if they are connected by a chain of equivalent pairs.
+     * Elements that are not in any pair are in a class of their own.
+     *
+     * @param pairs - Ordered pairs (a, b) of equivalent elements of this set
+     * @return The equivalence classes of this set
+     * @throws IllegalArgumentException If a group is not a pair of elements of this set
+     */
+    List<DiscreteSet<E>> quotient(Stream<OrderedGroup> pairs) throws IllegalArgumentException;
+
+    /**
+     * Generate the quotient of this set by the equivalence relation "has the same key".
+     * The quotient is the partition of this set into classes of elements with equal keys.
+     *
+     * @param key - Function giving the key of each element
+     * @return The equivalence classes of this set
+     */
+    List<DiscreteSet<E>> quotient(Function<? super E, ?> key);
+
     /**
      * Calculate the Bell number for this set.
      *
@@ -0,0 +1,196 @@
+package sets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A disjoint-set forest (union-find) that partitions the elements of a set into equivalence classes.
+ *
+ * Every element starts in its own class, and merging two elements joins their classes.
+ * Merges use union by rank and lookups use path halving, so any sequence of m operations
+ * on n elements takes O(m * a(n)) time, where a is the inverse Ackermann function.
+ * New elements and new merges can be added at any time, and {@link #classes()}
+ * returns the current quotient partition.
+ *
+ * @author Gavin Borne
+ */
+public class DisjointSets<E> {
+    private final Map<Object, Integer> indices = new HashMap<>();
+    private Object[] elements;
+    private int[] parents;
+    private byte[] ranks;
+    private int size = 0;
+    private int classCount = 0;
+
+    /**
+     * Create a forest in which every element of a set is in its own class.
+     *
+     * @param set - Elements to partition
+     */
+    public DisjointSets(DiscreteSet<E> set) {
+        int capacity = Math.max(set.cardinality(), 8);
+        this.elements = new Object[capacity];
+        this.parents = new int[capacity];
+        this.ranks = new byte[capacity];
+        for (E element : set) {
+            add(element);
+        }
+    }
+
+    /**
+     * Partition a set into the classes of elements that share the same key.
+     *
+     * @param <E> Type of the elements
+     * @param set - Set to partition
+     * @param key - Function giving the key of each element; elements are equivalent if their keys are equal
+     * @return The equivalence classes
+     */
+    public static <E> List<DiscreteSet<E>> classesByKey(DiscreteSet<E> set, Function<? super E, ?> key) {
+        // Grouping by key is a single pass, so no forest is needed
+        Map<Object, DiscreteSet<E>> classes = new LinkedHashMap<>();
+        for (E element : set) {
+            classes.computeIfAbsent(key.apply(element), k -> new GenericDiscreteSet<>()).add(element);
+        }
+        return new ArrayList<>(classes.values());
+    }
+
+    /**
+     * Add a new element in its own class.
+     *
+     * @param element - Element to add
+     * @return Whether this operation changed the forest
+     */
+    public boolean add(E element) {
+        if (this.indices.containsKey(element)) return false;
+
+        if (this.size == this.parents.length) {
+            int capacity = this.size + (this.size >> 1) + 1;
+            this.elements = Arrays.copyOf(this.elements, capacity);
+            this.parents = Arrays.copyOf(this.parents, capacity);
+            this.ranks = Arrays.copyOf(this.ranks, capacity);
+        }
+        this.indices.put(element, this.size);
+        this.elements[this.size] = element;
+        this.parents[this.size] = this.size;
+        this.size++;
+        this.classCount++;
+        return true;
+    }
+
+    /**
+     * Make two elements equivalent by merging their classes.
+     *
+     * @param a - First element
+     * @param b - Second element
+     * @return Whether the elements were in different classes before
+     * @throws IllegalArgumentException If a or b has not been added
+     */
+    public boolean merge(E a, E b) throws IllegalArgumentException {
+        int rootA = find(indexOf(a));
+        int rootB = find(indexOf(b));
+        if (rootA == rootB) return false;
+
+        // Union by rank keeps the trees shallow
+        if (this.ranks[rootA] < this.ranks[rootB]) {
+            this.parents[rootA] = rootB;
+        } else if (this.ranks[rootA] > this.ranks[rootB]) {
+            this.parents[rootB] = rootA;
+        } else {
+            this.parents[rootB] = rootA;
+            this.ranks[rootA]++;
+        }
+        this.classCount--;
+        return true;
+    }
+
+    /**
+     * Merge the classes of every pair in a stream.
+     *
+     * @param pairs - Ordered pairs (a, b) of equivalent elements
+     * @throws IllegalArgumentException If a group is not a pair of added elements
+     */
+    @SuppressWarnings("unchecked")
+    public void mergeAll(Stream<OrderedGroup> pairs) throws IllegalArgumentException {
+        pairs.sequential().forEach(pair -> {
+            if (pair.size() != 2) {
+                throw new IllegalArgumentException("mergeAll arg 'pairs' can only contain ordered pairs");
+            }
+            merge((E) pair.get(0), (E) pair.get(1));
+        });
+    }
+
+    /**
+     * Determine whether two elements are in the same class.
+     *
+     * @param a - First element
+     * @param b - Second element
+     * @return Whether the elements are equivalent
+     * @throws IllegalArgumentException If a or b has not been added
+     */
+    public boolean areEquivalent(E a, E b) throws IllegalArgumentException {
+        return find(indexOf(a)) == find(indexOf(b));
+    }
+
+    /**
+     * Calculate the number of elements in the forest.
+     *
+     * @return The number of elements
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Calculate the number of equivalence classes.
+     *
+     * @return The number of classes
+     */
+    public int classCount() {
+        return this.classCount;
+    }
+
+    /**
+     * Generate the equivalence classes, i.e. the quotient partition of the elements.
+     *
+     * @return The equivalence classes, in order of their first element
+     */
+    @SuppressWarnings("unchecked")
+    public List<DiscreteSet<E>> classes() {
+        List<DiscreteSet<E>> classes = new ArrayList<>(this.classCount);
+        int[] classOfRoot = new int[this.size];
+        Arrays.fill(classOfRoot, -1);
+
+        for (int i = 0; i < this.size; i++) {
+            int root = find(i);
+            if (classOfRoot[root] < 0) {
+                classOfRoot[root] = classes.size();
+                classes.add(new GenericDiscreteSet<>());
+            }
+            classes.get(classOfRoot[root]).add((E) this.elements[i]);
+        }
+        return classes;
+    }
+
+    private int indexOf(Object element) throws IllegalArgumentException {
+        Integer index = this.indices.get(element);
+        if (index == null) {
+            throw new IllegalArgumentException("Element " + element + " has not been added to the disjoint sets");
+        }
+        return index;
+    }
+
+    private int find(int i) {
+        // Path halving: point every other node on the path at its grandparent
+        while (this.parents[i] != i) {
+            this.parents[i] = this.parents[this.parents[i]];
+            i = this.parents[i];
+        }
+        return i;
+    }
+}
@@ -0,0 +1,218 @@
+package sets;
+
+import java.math.BigInteger;
+import java.util.function.Consumer;
+
+/**
+ * The functions from one set (the domain) to another (the codomain).
+ *
+ * Counting uses closed forms, so deciding whether an enumeration is feasible never requires running it:
+ * with n elements in the domain and m in the codomain, there are m^n functions, m! / (m - n)! injections,
+ * m! * S(n, m) surjections (where S is a {@link BellNumbers#stirlingSecondKind Stirling number of the second kind})
+ * and n! bijections if n = m.
+ *
+ * Enumeration is lazy and passes the same {@link Mapping} to the visitor for every function,
+ * updating it in place: functions are walked as mixed radix numbers, injections as k-permutations
+ * of the codomain, and surjections as restricted growth strings with exactly m blocks,
+ * each combined with every labeling of the blocks by the codomain.
+ *
+ * The elements of both sets are copied when the function space is created,
+ * so later changes to the sets are not reflected.
+ *
+ * @author Gavin Borne
+ */
+public class FunctionSpace<D, C> {
+    private final Object[] domain;
+    private final Object[] codomain;
+
+    /**
+     * Create the space of functions from one set to another.
+     *
+     * @param domain - Set of inputs
+     * @param codomain - Set of possible outputs
+     */
+    public FunctionSpace(DiscreteSet<D> domain, DiscreteSet<C> codomain) {
+        this.domain = domain.toArray();
+        this.codomain = codomain.toArray();
+    }
+
+    /**
+     * Calculate the number of functions from the domain to the codomain, m^n.
+     *
+     * @return The number of functions
+     */
+    public BigInteger functionCount() {
+        return BigInteger.valueOf(this.codomain.length).pow(this.domain.length);
+    }
+
+    /**
+     * Calculate the number of injective (one-to-one) functions, m! / (m - n)!.
+     *
+     * @return The number of injections
+     */
+    public BigInteger injectionCount() {
+        int n = this.domain.length;
+        int m = this.codomain.length;
+        if (n > m) {
+            return BigInteger.ZERO;
+        }
+
+        BigInteger count = BigInteger.ONE;
+        for (int i = 0; i < n; i++) {
+            count = count.multiply(BigInteger.valueOf(m - i));
+        }
+        return count;
+    }
+
+    /**
+     * Calculate the number of surjective (onto) functions, m! * S(n, m).
+     *
+     * @return The number of surjections
+     */
+    public BigInteger surjectionCount() {
+        int n = this.domain.length;
+        int m = this.codomain.length;
+        return factorial(m).multiply(BellNumbers.stirlingSecondKind(n, m));
+    }
+
+    /**
+     * Calculate the number of bijective functions, n! if n = m and zero otherwise.
+     *
+     * @return The number of bijections
+     */
+    public BigInteger bijectionCount() {
+        if (this.domain.length != this.codomain.length) {
+            return BigInteger.ZERO;
+        }
+        return factorial(this.domain.length);
+    }
+
+    /**
+     * Visit every function from the domain to the codomain.
+     * The visitor receives the same {@link Mapping} every time, updated in place.
+     *
+     * @param visitor - Visitor to call for each function
+     */
+    public void forEachFunction(Consumer<? super Mapping<D, C>> visitor) {
+        int n = this.domain.length;
+        int m = this.codomain.length;
+        if (m == 0 && n > 0) return;
+
+        Mapping<D, C> mapping = new Mapping<>(this.domain, this.codomain);
+        int[] images = mapping.images;
+        while (true) {
+            visitor.accept(mapping);
+
+            // Odometer increment with the last element of the domain as the least significant digit
+            int i = n - 1;
+            while (i >= 0 && images[i] == m - 1) {
+                images[i--] = 0;
+            }
+            if (i < 0) return;
+            images[i]++;
+        }
+    }
+
+    /**
+     * Visit every injective (one-to-one) function from the domain to the codomain.
+     * The visitor receives the same {@link Mapping} every time, updated in place.
+     *
+     * @param visitor - Visitor to call for each injection
+     */
+    public void forEachInjection(Consumer<? super Mapping<D, C>> visitor) {
+        int n = this.domain.length;
+        int m = this.codomain.length;
+        if (n > m) return;
+
+        // An injection is an arrangement of n distinct codomain positions
+        int[] positions = new int[m];
+        for (int i = 0; i < m; i++) {
+            positions[i] = i;
+        }
+        Mapping<D, C> mapping = new Mapping<>(this.domain, this.codomain);
+        System.arraycopy(positions, 0, mapping.images, 0, n);
+
+        int changed;
+        do {
+            visitor.accept(mapping);
+            changed = Permutations.nextKPermutation(positions, n);
+            if (changed >= 0) {
+                System.arraycopy(positions, changed, mapping.images, changed, n - changed);
+            }
+        } while (changed >= 0);
+    }
+
+    /**
+     * Visit every surjective (onto) function from the domain to the codomain.
+     * The visitor receives the same {@link Mapping} every time, updated in place.
+     *
+     * @param visitor - Visitor to call for each surjection
+     */
+    public void forEachSurjection(Consumer<? super Mapping<D, C>> visitor) {
+        int n = this.domain.length;
+        int m = this.codomain.length;
+        if (m > n || (m == 0 && n > 0)) return;
+
+        Mapping<D, C> mapping = new Mapping<>(this.domain, this.codomain);
+        visitGrowthStrings(new int[n], 0, 0, new int[m], mapping, visitor);
+    }
+
+    /**
+     * Visit every bijective function from the domain to the codomain.
+     * The visitor receives the same {@link Mapping} every time, updated in place.
+     *
+     * @param visitor - Visitor to call for each bijection
+     */
+    public void forEachBijection(Consumer<? super Mapping<D, C>> visitor) {
+        if (this.domain.length != this.codomain.length) return;
+        forEachInjection(visitor);
+    }
+
+    /**
+     * Fill growth[i..] with every restricted growth string that uses exactly m blocks,
+     * then visit every labeling of the blocks by the codomain.
+     */
+    private void visitGrowthStrings(int[] growth, int i, int blocks, int[] labels,
+                                    Mapping<D, C> mapping, Consumer<? super Mapping<D, C>> visitor) {
+        int n = growth.length;
+        int m = labels.length;
+        // Skip prefixes that can no longer reach m blocks
+        if (n - i < m - blocks) return;
+
+        if (i == n) {
+            visitLabelings(growth, labels, mapping, visitor);
+            return;
+        }
+
+        for (int block = 0; block < blocks; block++) {
+            growth[i] = block;
+            visitGrowthStrings(growth, i + 1, blocks, labels, mapping, visitor);
+        }
+        if (blocks < m) {
+            growth[i] = blocks;
+            visitGrowthStrings(growth, i + 1, blocks + 1, labels, mapping, visitor);
+        }
+    }
+
+    private void visitLabelings(int[] growth, int[] labels, Mapping<D, C> mapping, Consumer<? super Mapping<D, C>> visitor) {
+        int m = labels.length;
+        for (int i = 0; i < m; i++) {
+            labels[i] = i;
+        }
+
+        do {
+            for (int i = 0; i < growth.length; i++) {
+                mapping.images[i] = labels[growth[i]];
+            }
+            visitor.accept(mapping);
+        } while (Permutations.nextKPermutation(labels, m) >= 0);
+    }
+
+    private static BigInteger factorial(int n) {
+        BigInteger result = BigInteger.ONE;
+        for (int i = 2; i <= n; i++) {
+            result = result.multiply(BigInteger.valueOf(i));
+        }
+        return result;
+    }
+}
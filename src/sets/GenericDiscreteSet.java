@@ -1,33 +1,57 @@
 package sets;
 
 import java.math.BigInteger;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * A set that can be typed so that it only contains a specific type.
  * For a general set (e.g. {@code TypedSet<Object>}), use {@link RawDiscreteSet}.
  *
- * This class uses LinkedLists under the hood to store items since
- * object retrieval is not supported.
+ * Sets with up to four elements keep them inline in a small fixed-size store,
+ * since most sets produced by the algebra methods are tiny, and move to a HashSet once they grow past that.
  *
  * @author Gavin Borne
  */
 public class GenericDiscreteSet<E>
     implements DiscreteSet<E>, Cloneable
 {
+    // Sets that never held this many elements are too small for automatic compaction to matter
+    private static final int AUTO_COMPACT_MINIMUM = 64;
+
     private Set<E> elements;
     // private List<E> elements;
+    // Created when the first listener is registered, so sets without listeners pay nothing
+    private List<SetChangeListener<? super E>> listeners;
+    // Sum of the mixed hash codes of the elements, kept up to date by every change so hashCode() is O(1)
+    private int hash = 0;
+    // Whether the elements are a view of a structure that can change without this set knowing,
+    // in which case the hash is computed when asked for instead
+    private final boolean view;
+    // Most elements held by the current backing set, which its hash table is sized for, since tables never shrink
+    private int peak = 0;
+    // Fraction of the peak below which removals compact the set, or 0 to never compact automatically
+    private float compactBelow = 0;
 
     /**
      * Create a typed set starting with no elements.
      */
     public GenericDiscreteSet() {
-        this.elements = new HashSet<>();
+        this.elements = new InlineSet<>();
+        this.view = false;
     }
 
     /**
@@ -36,7 +60,10 @@ public class GenericDiscreteSet<E>
      * @param elements - Elements to initialize the set with
      */
     public GenericDiscreteSet(Collection<E> elements) {
-        this.elements = new HashSet<>(elements);
+        this.elements = copyOf(elements);
+        this.hash = hashOf(this.elements);
+        this.view = false;
+        this.peak = this.elements.size();
     }
 
     /**
@@ -45,7 +72,28 @@ public class GenericDiscreteSet<E>
      * @param set - Set to copy
      */
     public GenericDiscreteSet(DiscreteSet<E> set) {
-        this.elements = new HashSet<>(set.getElements());
+        this.elements = copyOf(set.getElements());
+        this.hash = set.hashCode();
+        this.view = false;
+        this.peak = this.elements.size();
+    }
+
+    private GenericDiscreteSet(Set<E> elements, boolean view) {
+        this.elements = elements;
+        this.view = view;
+    }
+
+    /**
+     * Create a set backed directly by another set, without copying it.
+     * The backing set may change underneath the new set, so its hash code is computed on demand.
+     * The backing set is expected to reject changes made through the new set
+     * (for example by being a subclass of {@link java.util.AbstractSet} that does not override add or remove).
+     *
+     * @param elements - Set to use as the elements
+     * @return A set viewing the given elements
+     */
+    static <E> GenericDiscreteSet<E> view(Set<E> elements) {
+        return new GenericDiscreteSet<>(elements, true);
     }
 
     /**
@@ -54,7 +102,9 @@ public class GenericDiscreteSet<E>
     @Override
     public boolean add(E element) {
         if (contains(element)) return false;
-        return this.elements.add(element);
+        store(element);
+        afterAdd(element);
+        return true;
     }
 
     /**
@@ -62,9 +112,27 @@ public class GenericDiscreteSet<E>
      */
     @Override
     public boolean addAll(Collection<? extends E> elements) {
+        ensureCapacity(elements.size());
         boolean anyAdded = false;
         for (E element : elements) {
-            if (this.elements.add(element)) {
+            if (store(element)) {
+                afterAdd(element);
+                anyAdded = true;
+            }
+        }
+        return anyAdded;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addAll(E[] elements) {
+        ensureCapacity(elements.length);
+        boolean anyAdded = false;
+        for (E element : elements) {
+            if (store(element)) {
+                afterAdd(element);
                 anyAdded = true;
             }
         }
@@ -76,7 +144,9 @@ public class GenericDiscreteSet<E>
      */
     @Override
     public boolean remove(Object o) {
-        return this.elements.remove(o);
+        if (!unstore(o)) return false;
+        afterRemovals();
+        return true;
     }
 
     /**
@@ -84,7 +154,67 @@ public class GenericDiscreteSet<E>
      */
     @Override
     public boolean removeAll(Collection<?> c) {
-        return this.elements.removeAll(c);
+        // Probe whichever side is smaller
+        if (c.size() >= this.elements.size()) {
+            return removeIf(c::contains);
+        }
+
+        boolean anyRemoved = false;
+        for (Object element : c) {
+            if (unstore(element)) {
+                anyRemoved = true;
+            }
+        }
+        // Compact once for the whole batch rather than each time a removal crosses the threshold
+        if (anyRemoved) {
+            afterRemovals();
+        }
+        return anyRemoved;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean removeAll(Object[] elements) {
+        boolean anyRemoved = false;
+        for (Object element : elements) {
+            if (unstore(element)) {
+                anyRemoved = true;
+            }
+        }
+        if (anyRemoved) {
+            afterRemovals();
+        }
+        return anyRemoved;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        boolean anyRemoved = false;
+        if (this.listeners == null) {
+            anyRemoved = this.elements.removeIf(element -> {
+                if (!filter.test(element)) return false;
+                this.hash -= hashOf(element);
+                return true;
+            });
+        } else {
+            Iterator<E> iterator = iterator();
+            while (iterator.hasNext()) {
+                if (filter.test(iterator.next())) {
+                    iterator.remove();
+                    anyRemoved = true;
+                }
+            }
+        }
+
+        if (anyRemoved) {
+            afterRemovals();
+        }
+        return anyRemoved;
     }
 
     /**
@@ -92,7 +222,7 @@ public class GenericDiscreteSet<E>
      */
     @Override
     public boolean retainAll(Collection<?> c) {
-        return this.elements.retainAll(c);
+        return removeIf(element -> !c.contains(element));
     }
 
     /**
@@ -100,7 +230,87 @@ public class GenericDiscreteSet<E>
      */
     @Override
     public void clear() {
-        this.elements.clear();
+        if (this.listeners == null) {
+            this.elements.clear();
+            this.hash = 0;
+        } else {
+            Object[] removed = this.elements.toArray();
+            this.elements.clear();
+            for (Object element : removed) {
+                afterRemove(element);
+            }
+        }
+        afterRemovals();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long memoryFootprint() {
+        long footprint = MemoryFootprint.OBJECT;
+        if (this.listeners != null) {
+            footprint += MemoryFootprint.OBJECT + MemoryFootprint.array(this.listeners.size(), MemoryFootprint.REFERENCE);
+        }
+        // A view's elements belong to the structure it views
+        if (this.view) return footprint;
+
+        if (this.elements instanceof InlineSet) return footprint + InlineSet.FOOTPRINT;
+        if (this.elements instanceof IntBitSet) return footprint + ((IntBitSet) this.elements).memoryFootprint();
+        if (this.elements instanceof IntRunSet) return footprint + ((IntRunSet) this.elements).memoryFootprint();
+        return footprint + MemoryFootprint.hashSet(this.elements.size(), this.peak);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void compact() {
+        if (this.view) return;
+
+        // Same elements, so the hash does not change
+        this.elements = compacted(this.elements);
+        this.peak = this.elements.size();
+    }
+
+    /**
+     * Compact this set automatically once removals leave it with fewer than a fraction of the most elements
+     * it has held since it was last compacted, so a set that grew large and then shrank does not keep
+     * its large table. Sets that never held more than a few dozen elements are left alone.
+     *
+     * @param fraction - Fraction of the most elements held, between 0 and 1, or 0 to turn automatic compaction off
+     * @throws IllegalArgumentException If fraction is not between 0 and 1
+     */
+    public void setAutoCompaction(double fraction) throws IllegalArgumentException {
+        if (!(fraction >= 0 && fraction < 1)) {
+            throw new IllegalArgumentException("setAutoCompaction arg 'fraction' must be at least 0 and less than 1");
+        }
+        this.compactBelow = (float) fraction;
+        compactIfShrunk();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addChangeListener(SetChangeListener<? super E> listener) {
+        if (this.listeners == null) {
+            this.listeners = new CopyOnWriteArrayList<>();
+        }
+        this.listeners.add(listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean removeChangeListener(SetChangeListener<? super E> listener) {
+        if (this.listeners == null || !this.listeners.remove(listener)) return false;
+
+        if (this.listeners.isEmpty()) {
+            this.listeners = null;
+        }
+        return true;
     }
 
     /**
@@ -119,12 +329,56 @@ public class GenericDiscreteSet<E>
         return this.elements.containsAll(c);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BitSet containsEach(Object[] elements) {
+        BitSet contained = new BitSet(elements.length);
+        for (int i = 0; i < elements.length; i++) {
+            if (this.elements.contains(elements[i])) {
+                contained.set(i);
+            }
+        }
+        return contained;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BitSet containsEach(Stream<?> elements) {
+        BitSet contained = new BitSet();
+        Iterator<?> iterator = elements.iterator();
+        for (int i = 0; iterator.hasNext(); i++) {
+            if (this.elements.contains(iterator.next())) {
+                contained.set(i);
+            }
+        }
+        return contained;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countContained(Collection<?> c) {
+        int count = 0;
+        for (Object element : c) {
+            if (this.elements.contains(element)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public Set<E> getElements() {
-        return this.elements;
+        // Read through this set rather than the backing set, which is replaced as the set grows
+        return Collections.unmodifiableSet(new ElementsView());
     }
 
     /**
@@ -197,8 +451,18 @@ public class GenericDiscreteSet<E>
         if (this == other) return true;
         if (!(other instanceof DiscreteSet)) return false;
 
-        GenericDiscreteSet<?> otherSet = (GenericDiscreteSet<?>) other;
-        return this.elements.equals(otherSet.elements);
+        // Sets with different sizes or hashes cannot be equal, and both are O(1) to check
+        DiscreteSet<?> otherSet = (DiscreteSet<?>) other;
+        if (otherSet.cardinality() != cardinality() || otherSet.hashCode() != hashCode()) return false;
+        return this.elements.containsAll(otherSet);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return this.view ? hashOf(this.elements) : this.hash;
     }
 
     /**
@@ -236,6 +500,7 @@ public class GenericDiscreteSet<E>
      */
     @Override
     public DiscreteSet<E> union(DiscreteSet<E> other) {
+        SlowSetOperationEvent event = SetMetrics.start();
         DiscreteSet<E> newSet = new GenericDiscreteSet<>();
 
         for (E element : this.elements) {
@@ -245,6 +510,7 @@ public class GenericDiscreteSet<E>
             newSet.add(element);
         }
 
+        SetMetrics.record(SetOperation.UNION, event, cardinality(), other.cardinality(), newSet.cardinality());
         return newSet;
     }
 
@@ -253,17 +519,21 @@ public class GenericDiscreteSet<E>
      */
     @Override
     public DiscreteSet<E> union(List<DiscreteSet<E>> others) throws IllegalArgumentException {
+        SlowSetOperationEvent event = SetMetrics.start();
         DiscreteSet<E> newSet = new GenericDiscreteSet<>();
 
         for (E element : this.elements) {
             newSet.add(element);
         }
+        int othersCardinality = 0;
         for (DiscreteSet<E> set : others) {
             for (E element : set) {
                 newSet.add(element);
             }
+            othersCardinality += set.cardinality();
         }
 
+        SetMetrics.record(SetOperation.UNION, event, cardinality(), othersCardinality, newSet.cardinality());
         return newSet;
     }
 
@@ -272,6 +542,7 @@ public class GenericDiscreteSet<E>
      */
     @Override
     public DiscreteSet<E> intersection(DiscreteSet<E> other) {
+        SlowSetOperationEvent event = SetMetrics.start();
         DiscreteSet<E> newSet = new GenericDiscreteSet<>();
 
         // Prevent wasted time looping over bigger set
@@ -293,26 +564,40 @@ public class GenericDiscreteSet<E>
             }
         }
 
+        SetMetrics.record(SetOperation.INTERSECTION, event, cardinality(), other.cardinality(), newSet.cardinality());
         return newSet;
     }
 
     /**
      * {@inheritDoc}
      */
-
     @Override
     public DiscreteSet<E> intersection(List<DiscreteSet<E>> others) {
-        DiscreteSet<E> newSet = new GenericDiscreteSet<>(this.elements);
+        SlowSetOperationEvent event = SetMetrics.start();
+        DiscreteSet<E> newSet = new GenericDiscreteSet<>();
 
+        // Only elements of the smallest set can be in every set,
+        // so check those against the others from smallest to largest
+        List<DiscreteSet<E>> sets = new ArrayList<>(others.size() + 1);
+        sets.add(this);
+        sets.addAll(others);
+        sets.sort(Comparator.comparingInt(DiscreteSet::cardinality));
+        int othersCardinality = 0;
         for (DiscreteSet<E> set : others) {
-            newSet = newSet.intersection(set);
-            // If the set is empty, its intersection will always be the empty set.
-            if (newSet.cardinality() == 0) {
-                // So return here to not waste time.
-                return newSet;
+            othersCardinality += set.cardinality();
+        }
+
+        for (E element : sets.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < sets.size() && inAll; i++) {
+                inAll = sets.get(i).contains(element);
+            }
+            if (inAll) {
+                newSet.add(element);
             }
         }
 
+        SetMetrics.record(SetOperation.INTERSECTION, event, cardinality(), othersCardinality, newSet.cardinality());
         return newSet;
     }
 
@@ -321,6 +606,7 @@ public class GenericDiscreteSet<E>
      */
     @Override
     public DiscreteSet<E> difference(DiscreteSet<E> other) {
+        SlowSetOperationEvent event = SetMetrics.start();
         DiscreteSet<E> newSet = new GenericDiscreteSet<>();
 
         for (E element : this.elements) {
@@ -329,6 +615,7 @@ public class GenericDiscreteSet<E>
             }
         }
 
+        SetMetrics.record(SetOperation.DIFFERENCE, event, cardinality(), other.cardinality(), newSet.cardinality());
         return newSet;
     }
 
@@ -337,9 +624,22 @@ public class GenericDiscreteSet<E>
      */
     @Override
     public DiscreteSet<E> symmetricDifference(DiscreteSet<E> other) {
-        DiscreteSet<E> firstDifference = difference(other);
-        DiscreteSet<E> secondDifference = other.difference(this);
-        return firstDifference.union(secondDifference);
+        SlowSetOperationEvent event = SetMetrics.start();
+        DiscreteSet<E> newSet = new GenericDiscreteSet<>();
+
+        for (E element : this.elements) {
+            if (!other.contains(element)) {
+                newSet.add(element);
+            }
+        }
+        for (E element : other) {
+            if (!contains(element)) {
+                newSet.add(element);
+            }
+        }
+
+        SetMetrics.record(SetOperation.SYMMETRIC_DIFFERENCE, event, cardinality(), other.cardinality(), newSet.cardinality());
+        return newSet;
     }
 
     /**
@@ -355,14 +655,10 @@ public class GenericDiscreteSet<E>
      */
     @Override
     public DiscreteSet<OrderedGroup> cartesianProduct(DiscreteSet<E> other) {
-        DiscreteSet<OrderedGroup> newSet = new GenericDiscreteSet<>();
-
-        for (E element : this.elements) {
-            for (E otherElement : other) {
-                newSet.add(new OrderedGroup(element, otherElement));
-            }
-        }
+        SlowSetOperationEvent event = SetMetrics.start();
+        DiscreteSet<OrderedGroup> newSet = cartesianProductOf(List.of(this, other), produced -> {});
 
+        SetMetrics.record(SetOperation.CARTESIAN_PRODUCT, event, cardinality(), other.cardinality(), newSet.cardinality());
         return newSet;
     }
 
@@ -374,23 +670,18 @@ public class GenericDiscreteSet<E>
         if (others.size() == 0) {
             throw new IllegalArgumentException("cartesianProduct arg 'others' cannot be an empty list");
         }
+        SlowSetOperationEvent event = SetMetrics.start();
 
-        GenericDiscreteSet<OrderedGroup> newSet = new GenericDiscreteSet<>();
-        newSet.add(new OrderedGroup());
-
-        for (int i = 0; i < others.size(); i++) {
-            GenericDiscreteSet<OrderedGroup> result = new GenericDiscreteSet<>();
-
-            for (OrderedGroup group : newSet) {
-                for (Object element : group.getAll()) {
-                    group.add(element);
-                    result.add(group);
-                }
-            }
+        List<DiscreteSet<E>> sets = new ArrayList<>(others.size() + 1);
+        sets.add(this);
+        sets.addAll(others);
+        DiscreteSet<OrderedGroup> newSet = cartesianProductOf(sets, produced -> {});
 
-            newSet = result;
+        int othersCardinality = 0;
+        for (DiscreteSet<E> set : others) {
+            othersCardinality += set.cardinality();
         }
-
+        SetMetrics.record(SetOperation.CARTESIAN_PRODUCT, event, cardinality(), othersCardinality, newSet.cardinality());
         return newSet;
     }
 
@@ -399,25 +690,110 @@ public class GenericDiscreteSet<E>
      */
     @Override
     public DiscreteSet<DiscreteSet<E>> powerSet() {
-        DiscreteSet<DiscreteSet<E>> newSet = new GenericDiscreteSet<>();
+        SlowSetOperationEvent event = SetMetrics.start();
+        DiscreteSet<DiscreteSet<E>> newSet = powerSetOf(this.elements, produced -> {});
 
-        // Add empty set
-        newSet.add(new GenericDiscreteSet<>());
+        SetMetrics.record(SetOperation.POWER_SET, event, cardinality(), -1, newSet.cardinality());
+        return newSet;
+    }
 
-        for (E element : this.elements) {
-            List<DiscreteSet<E>> subsets = new ArrayList<>();
+    /**
+     * Generate the cartesian product of a list of sets, reporting the number of groups after each one is produced.
+     * {@link AsyncSetOperations} runs the same loop, and its progress callback stops it by throwing.
+     *
+     * @param sets - Sets to take the product of, in order
+     * @param progress - Called with the number of groups produced so far
+     * @return The cartesian product of the sets
+     */
+    static DiscreteSet<OrderedGroup> cartesianProductOf(List<? extends Collection<?>> sets, LongConsumer progress) {
+        int n = sets.size();
+        Object[][] factors = new Object[n][];
+        for (int i = 0; i < n; i++) {
+            factors[i] = sets.get(i).toArray();
+            if (factors[i].length == 0) return new GenericDiscreteSet<>();
+        }
 
-            for (DiscreteSet<E> set : newSet) {
-                DiscreteSet<E> newSubset = new GenericDiscreteSet<>(set);
-                newSubset.add(element);
+        DiscreteSet<OrderedGroup> product = new GenericDiscreteSet<>();
+        // Odometer over one position per set, with the last set as the least significant digit
+        int[] positions = new int[n];
+        long produced = 0;
+        while (true) {
+            Object[] items = new Object[n];
+            for (int i = 0; i < n; i++) {
+                items[i] = factors[i][positions[i]];
+            }
+            product.add(new OrderedGroup(items));
+            progress.accept(++produced);
 
-                subsets.add(newSubset);
+            int i = n - 1;
+            while (i >= 0 && positions[i] == factors[i].length - 1) {
+                positions[i--] = 0;
             }
+            if (i < 0) break;
+            positions[i]++;
+        }
+        return product;
+    }
 
-            newSet.addAll(subsets);
+    /**
+     * Generate the power set of some elements, reporting the number of subsets after each one is produced.
+     * {@link AsyncSetOperations} runs the same loop, and its progress callback stops it by throwing.
+     *
+     * @param elements - Elements to take subsets of
+     * @param progress - Called with the number of subsets produced so far
+     * @return The power set of the elements
+     */
+    static <E> DiscreteSet<DiscreteSet<E>> powerSetOf(Collection<E> elements, LongConsumer progress) {
+        List<DiscreteSet<E>> subsets = new ArrayList<>();
+        subsets.add(new GenericDiscreteSet<>());
+        progress.accept(1);
+
+        // Each element doubles the subsets found so far
+        for (E element : elements) {
+            int existing = subsets.size();
+            for (int i = 0; i < existing; i++) {
+                DiscreteSet<E> subset = new GenericDiscreteSet<>(subsets.get(i));
+                subset.add(element);
+                subsets.add(subset);
+                progress.accept(subsets.size());
+            }
         }
 
-        return newSet;
+        DiscreteSet<DiscreteSet<E>> powerSet = new GenericDiscreteSet<>();
+        powerSet.addAll(subsets);
+        return powerSet;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SetFamily<E> powerSetFamily() throws IllegalArgumentException {
+        return SetFamily.powerSetOf(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Combinations<E> combinations(int k) throws IllegalArgumentException {
+        return new Combinations<>(this, k);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Permutations<E> permutations() {
+        return new Permutations<>(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Permutations<E> permutations(int k) throws IllegalArgumentException {
+        return new Permutations<>(this, k);
     }
 
     /**
@@ -425,11 +801,12 @@ public class GenericDiscreteSet<E>
      */
     @Override
     public List<DiscreteSet<E>> partition(int segments) {
+        SlowSetOperationEvent event = SetMetrics.start();
         List<DiscreteSet<E>> splitSets = new ArrayList<>();
-        int segmentSize = Math.floorDiv(this.elements.size(), segments);
+        // At least one element per segment, or the loop below would never finish
+        int segmentSize = Math.max(1, Math.floorDiv(this.elements.size(), segments));
 
         Iterator<E> iterator = iterator();
-        iterator.next(); // Place pointer at first item
 
         int i = 0;
         while (i < this.elements.size()) {
@@ -443,6 +820,7 @@ public class GenericDiscreteSet<E>
             splitSets.add(currentSegment);
         }
 
+        SetMetrics.record(SetOperation.PARTITION, event, cardinality(), segments, splitSets.size());
         return splitSets;
     }
 
@@ -465,17 +843,31 @@ public class GenericDiscreteSet<E>
             return false;
         }
 
-        // Check if the sets are all disjoin with one another
-        for (int i = 0; i < partition.size(); i++) {
-            // Only check each pair once
-            for (int j = i + 1; j < partition.size(); j++) {
-                if (!partition.get(i).isDisjointWith(partition.get(j))) {
-                    return false;
-                }
-            }
+        // The sets cover this set, so they are pairwise disjoint exactly when no element is counted twice.
+        // This replaces comparing every pair of sets, which was quadratic in the number of sets.
+        long total = 0;
+        for (DiscreteSet<E> set : partition) {
+            total += set.cardinality();
         }
+        return total == cardinality();
+    }
 
-        return true;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<DiscreteSet<E>> quotient(Stream<OrderedGroup> pairs) throws IllegalArgumentException {
+        DisjointSets<E> classes = new DisjointSets<>(this);
+        classes.mergeAll(pairs);
+        return classes.classes();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<DiscreteSet<E>> quotient(Function<? super E, ?> key) {
+        return DisjointSets.classesByKey(this, key);
     }
 
     /**
@@ -483,13 +875,19 @@ public class GenericDiscreteSet<E>
      */
     @Override
     public BigInteger bellNumber() {
+        SlowSetOperationEvent event = SetMetrics.start();
         int size = cardinality();
 
         // Prioritize accuracy
+        BigInteger bellNumber;
         if (size <= 100) {
-            return BellNumbers.bellNumber(size);
+            bellNumber = BellNumbers.bellNumber(size);
+        } else {
+            bellNumber = BellNumbers.bellNumberRecursive(size);
         }
-        return BellNumbers.bellNumberRecursive(size);
+
+        SetMetrics.record(SetOperation.BELL_NUMBER, event, size, -1, bellNumber.bitLength());
+        return bellNumber;
     }
 
     /**
@@ -533,6 +931,229 @@ public class GenericDiscreteSet<E>
      */
     @Override
     public Iterator<E> iterator() {
-        return this.elements.iterator();
+        return new TrackingIterator();
+    }
+
+    /**
+     * Copy elements into a new backing set, inline if there are few enough of them.
+     */
+    private static <E> Set<E> copyOf(Collection<? extends E> elements) {
+        if (elements.size() > InlineSet.CAPACITY) {
+            return new HashSet<>(elements);
+        }
+
+        Set<E> copy = new InlineSet<>();
+        copy.addAll(elements);
+        return copy;
+    }
+
+    /**
+     * Add an element to the backing set, moving from the inline store to a hash set once it is full.
+     */
+    private boolean store(E element) {
+        beforeStore(element);
+        if (this.elements instanceof InlineSet && !((InlineSet<E>) this.elements).hasRoom()) {
+            if (this.elements.contains(element)) return false;
+            Set<E> promoted = new HashSet<>(this.elements);
+            // Emptying the inline store fails any iterator still running over it, as an add to the hash set would
+            this.elements.clear();
+            this.elements = promoted;
+        }
+        return this.elements.add(element);
+    }
+
+    /**
+     * Remove an element from the backing set, leaving compaction to the caller so bulk removals compact at most once.
+     */
+    private boolean unstore(Object element) {
+        if (!this.elements.remove(element)) return false;
+        afterRemove(element);
+        return true;
+    }
+
+    /**
+     * Called before each element is added to the backing set.
+     * Subclasses that choose their own backing set override this to switch it, see {@link #replaceBacking}.
+     *
+     * @param element - Element about to be added
+     */
+    void beforeStore(E element) {}
+
+    /**
+     * Called once after each call that removed elements from the backing set,
+     * and once at the end of an iteration that removed elements through its iterator.
+     * Compacts the set if it has shrunk enough; subclasses that choose their own backing set
+     * override this to reconsider it too.
+     */
+    void afterRemovals() {
+        compactIfShrunk();
+    }
+
+    /**
+     * Get the backing set.
+     */
+    Set<E> backing() {
+        return this.elements;
+    }
+
+    /**
+     * Replace the backing set, for example with one that stores the same elements more compactly.
+     *
+     * @param elements - New backing set, which this set takes ownership of
+     */
+    void replaceBacking(Set<E> elements) {
+        this.elements = elements;
+        this.hash = hashOf(elements);
+        this.peak = elements.size();
+    }
+
+    /**
+     * Copy a backing set into the smallest storage that holds its elements.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> Set<E> compacted(Set<E> elements) {
+        if (elements.size() <= InlineSet.CAPACITY) {
+            if (elements instanceof InlineSet) return elements;
+            Set<E> inline = new InlineSet<>();
+            inline.addAll(elements);
+            return inline;
+        }
+        if (elements instanceof IntBitSet) return (Set<E>) (Set<?>) ((IntBitSet) elements).trimmed();
+        if (elements instanceof IntRunSet) return (Set<E>) (Set<?>) ((IntRunSet) elements).trimmed();
+        // Sized by the copy constructor for exactly these elements
+        return new HashSet<>(elements);
+    }
+
+    private void compactIfShrunk() {
+        if (this.compactBelow > 0 && this.peak >= AUTO_COMPACT_MINIMUM && this.elements.size() < this.peak * this.compactBelow) {
+            compact();
+        }
+    }
+
+    /**
+     * Update the hash and notify listeners after an element has been added to the backing set.
+     */
+    private void afterAdd(E element) {
+        this.hash += hashOf(element);
+        this.peak = Math.max(this.peak, this.elements.size());
+        if (this.listeners == null) return;
+        for (SetChangeListener<? super E> listener : this.listeners) {
+            listener.elementAdded(this, element);
+        }
+    }
+
+    /**
+     * Update the hash and notify listeners after an element has been removed from the backing set.
+     */
+    @SuppressWarnings("unchecked")
+    private void afterRemove(Object element) {
+        this.hash -= hashOf(element);
+        if (this.listeners == null) return;
+        for (SetChangeListener<? super E> listener : this.listeners) {
+            listener.elementRemoved(this, (E) element);
+        }
+    }
+
+    /**
+     * Mix an element's hash code before it is summed, using the MurmurHash3 finalizer.
+     * A plain sum collides badly for sets of small integers, whose subsets share only a few hundred sums,
+     * which made sets of such sets fall into a handful of hash buckets.
+     * The offset keeps a hash code of zero from mixing to zero, which would make it invisible in the sum.
+     */
+    private static int hashOf(Object element) {
+        int hash = (element == null ? 0 : element.hashCode()) + 0x9E3779B9;
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    private static int hashOf(Collection<?> elements) {
+        int hash = 0;
+        for (Object element : elements) {
+            hash += hashOf(element);
+        }
+        return hash;
+    }
+
+    /**
+     * A view of whichever backing set is current.
+     */
+    private class ElementsView
+        extends AbstractSet<E>
+    {
+        @Override
+        public int size() {
+            return elements.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return elements.contains(o);
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return elements.iterator();
+        }
+    }
+
+    /**
+     * An iterator that keeps the hash up to date and notifies listeners of elements removed through it.
+     */
+    private class TrackingIterator
+        implements Iterator<E>
+    {
+        private final Iterator<E> iterator = elements.iterator();
+        private E last;
+        private boolean removed = false;
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = this.iterator.hasNext();
+            // The backing set can only be replaced once this iteration over it is over
+            if (!hasNext && this.removed) {
+                this.removed = false;
+                afterRemovals();
+            }
+            return hasNext;
+        }
+
+        @Override
+        public E next() {
+            this.last = this.iterator.next();
+            return this.last;
+        }
+
+        @Override
+        public void remove() {
+            this.iterator.remove();
+            afterRemove(this.last);
+            this.removed = true;
+        }
+    }
+
+    /**
+     * Make room for a number of new elements before adding them,
+     * so the hash table is rebuilt at most once instead of doubling repeatedly.
+     * Small additions are left to the table's own growth.
+     */
+    private void ensureCapacity(int additional) {
+        int size = this.elements.size();
+        if (additional <= size || additional < 16) return;
+        // Leave backing sets this set does not own, like the elements of a view, or that are specialized,
+        // like those of an AdaptiveDiscreteSet, alone
+        if (!(this.elements instanceof HashSet || this.elements instanceof InlineSet)) return;
+
+        long needed = (long) size + additional;
+        int capacity = (int) Math.min(needed * 4 / 3 + 1, Integer.MAX_VALUE);
+        Set<E> grown = new HashSet<>(capacity);
+        grown.addAll(this.elements);
+        // As when promoting an inline store, emptying the old store fails any iterator still running over it
+        this.elements.clear();
+        this.elements = grown;
+        this.peak = (int) Math.min(needed, Integer.MAX_VALUE);
     }
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+package sets;
+
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A set of at most {@value #CAPACITY} elements stored directly in fields, with no table or nodes.
+ *
+ * This is the initial backing store of a {@link GenericDiscreteSet}. Most sets produced by the power set,
+ * partitions and small unions have only a few elements, and a linear scan over a handful of fields
+ * is as fast as hashing while using a fraction of the memory of a {@link java.util.HashSet}.
+ * The owning set replaces it with a hash set once it needs more room, see {@link #hasRoom()}.
+ *
+ * @author Gavin Borne
+ */
+final class InlineSet<E>
+    extends AbstractSet<E>
+{
+    static final int CAPACITY = 4;
+    // 12-byte header, four references, the size and the modification count, padded to a multiple of 8
+    static final long FOOTPRINT = 40;
+
+    private Object e0;
+    private Object e1;
+    private Object e2;
+    private Object e3;
+    private int size = 0;
+    // Number of changes made, so iterators can fail fast like those of a HashSet
+    private int modCount = 0;
+
+    /**
+     * Determine whether another element can be added.
+     *
+     * @return Whether this set has fewer than {@value #CAPACITY} elements
+     */
+    boolean hasRoom() {
+        return this.size < CAPACITY;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Add an element.
+     *
+     * @param element - Element to add
+     * @return Whether this operation changed the set
+     * @throws IllegalStateException If the element is new and the set is full
+     */
+    @Override
+    public boolean add(E element) throws IllegalStateException {
+        if (indexOf(element) >= 0) return false;
+        if (this.size == CAPACITY) {
+            throw new IllegalStateException("InlineSet cannot hold more than " + CAPACITY + " elements");
+        }
+
+        set(this.size++, element);
+        this.modCount++;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) return false;
+
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        this.e0 = this.e1 = this.e2 = this.e3 = null;
+        this.size = 0;
+        this.modCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int next = 0;
+            private int last = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                checkForComodification();
+                if (this.next >= size) {
+                    throw new NoSuchElementException();
+                }
+                this.last = this.next++;
+                return (E) get(this.last);
+            }
+
+            @Override
+            public void remove() {
+                if (this.last < 0) {
+                    throw new IllegalStateException();
+                }
+                checkForComodification();
+                // The last element moves into the hole, so it has to be visited from there
+                removeAt(this.last);
+                this.next = this.last;
+                this.last = -1;
+                this.expectedModCount = modCount;
+            }
+
+            private void checkForComodification() {
+                if (modCount != this.expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        };
+    }
+
+    private int indexOf(Object o) {
+        for (int i = 0; i < this.size; i++) {
+            if (Objects.equals(get(i), o)) return i;
+        }
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        int last = --this.size;
+        set(index, get(last));
+        set(last, null);
+        this.modCount++;
+    }
+
+    private Object get(int index) {
+        switch (index) {
+            case 0: return this.e0;
+            case 1: return this.e1;
+            case 2: return this.e2;
+            default: return this.e3;
+        }
+    }
+
+    private void set(int index, Object element) {
+        switch (index) {
+            case 0: this.e0 = element; break;
+            case 1: this.e1 = element; break;
+            case 2: this.e2 = element; break;
+            default: this.e3 = element; break;
+        }
+    }
+}
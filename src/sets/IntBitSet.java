@@ -0,0 +1,351 @@
+package sets;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of integers stored as one bit per value over the range of words it covers.
+ *
+ * Used by {@link AdaptiveDiscreteSet} when its elements are integers packed closely enough
+ * that a bit per value in their range is cheaper than a hash set entry per element.
+ * Words are aligned to multiples of 64, so two bitsets line up word for word wherever their ranges overlap,
+ * and the algebra methods run the {@link SetKernels} bitset kernels over the overlap.
+ *
+ * @author Gavin Borne
+ */
+final class IntBitSet
+    extends AbstractSet<Integer>
+{
+    // Word i holds the values (baseWord + i) * 64 to (baseWord + i) * 64 + 63
+    private long[] words;
+    private int baseWord;
+    private int size = 0;
+    private int modCount = 0;
+
+    /**
+     * Create an empty bitset.
+     */
+    IntBitSet() {
+        this.words = new long[1];
+        this.baseWord = 0;
+    }
+
+    private IntBitSet(int baseWord, long[] words) {
+        this.words = words;
+        this.baseWord = baseWord;
+        this.size = SetKernels.cardinality(words, 0, words.length);
+    }
+
+    /**
+     * Copy a collection of integers into a bitset sized to cover them.
+     */
+    static IntBitSet of(Iterable<?> values, int min, int max) {
+        int baseWord = min >> 6;
+        IntBitSet bits = new IntBitSet(baseWord, new long[(max >> 6) - baseWord + 1]);
+        for (Object value : values) {
+            bits.add((Integer) value);
+        }
+        return bits;
+    }
+
+    /**
+     * Count the words needed to cover a range of values.
+     */
+    static long wordsFor(int min, int max) {
+        return (long) (max >> 6) - (min >> 6) + 1;
+    }
+
+    /**
+     * Count the words the union of two bitsets would need, including any gap between them.
+     */
+    static long wordsForUnion(IntBitSet a, IntBitSet b) {
+        return (long) Math.max(a.end(), b.end()) - Math.min(a.baseWord, b.baseWord);
+    }
+
+    /**
+     * Count the words this bitset would need to also cover a value.
+     */
+    long wordsWith(int value) {
+        int word = value >> 6;
+        long low = Math.min(word, this.baseWord);
+        long high = Math.max(word, (long) this.baseWord + this.words.length - 1);
+        return high - low + 1;
+    }
+
+    /**
+     * Estimate the memory used by this bitset.
+     *
+     * @return The approximate size in bytes
+     */
+    long memoryFootprint() {
+        return MemoryFootprint.OBJECT + MemoryFootprint.array(this.words.length, Long.BYTES);
+    }
+
+    /**
+     * Copy this bitset into words covering exactly the range of its values.
+     */
+    IntBitSet trimmed() {
+        if (this.size == 0) return new IntBitSet();
+
+        int low = (min() >> 6) - this.baseWord;
+        int high = (max() >> 6) - this.baseWord + 1;
+        return new IntBitSet(this.baseWord + low, Arrays.copyOfRange(this.words, low, high));
+    }
+
+    /**
+     * Get the number of words allocated.
+     */
+    int wordCount() {
+        return this.words.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Integer)) return false;
+        int value = (Integer) o;
+        int index = (value >> 6) - this.baseWord;
+        return index >= 0 && index < this.words.length && (this.words[index] & (1L << value)) != 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean add(Integer element) {
+        int value = element;
+        int index = cover(value >> 6);
+        long bit = 1L << value;
+        if ((this.words[index] & bit) != 0) return false;
+
+        this.words[index] |= bit;
+        this.size++;
+        this.modCount++;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) return false;
+
+        int value = (Integer) o;
+        this.words[(value >> 6) - this.baseWord] &= ~(1L << value);
+        this.size--;
+        this.modCount++;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        this.words = new long[1];
+        this.baseWord = 0;
+        this.size = 0;
+        this.modCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<>() {
+            private int index = 0;
+            private long word = words.length == 0 ? 0 : words[0];
+            private int last = 0;
+            private boolean hasLast = false;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                while (this.word == 0 && this.index + 1 < words.length) {
+                    this.word = words[++this.index];
+                }
+                return this.word != 0;
+            }
+
+            @Override
+            public Integer next() {
+                if (this.expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int bit = Long.numberOfTrailingZeros(this.word);
+                this.word &= this.word - 1;
+                this.last = (baseWord + this.index) * 64 + bit;
+                this.hasLast = true;
+                return this.last;
+            }
+
+            @Override
+            public void remove() {
+                if (!this.hasLast) {
+                    throw new IllegalStateException();
+                }
+                // The bit was already cleared from the local copy of its word
+                IntBitSet.this.remove(this.last);
+                this.expectedModCount = modCount;
+                this.hasLast = false;
+            }
+        };
+    }
+
+    /**
+     * Get the smallest value, or Integer.MAX_VALUE if empty.
+     */
+    int min() {
+        for (int i = 0; i < this.words.length; i++) {
+            if (this.words[i] != 0) {
+                return (this.baseWord + i) * 64 + Long.numberOfTrailingZeros(this.words[i]);
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Get the largest value, or Integer.MIN_VALUE if empty.
+     */
+    int max() {
+        for (int i = this.words.length - 1; i >= 0; i--) {
+            if (this.words[i] != 0) {
+                return (this.baseWord + i) * 64 + 63 - Long.numberOfLeadingZeros(this.words[i]);
+            }
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Count the runs of consecutive values.
+     */
+    int runCount() {
+        int runs = 0;
+        long carry = 0;
+        for (long word : this.words) {
+            // A run starts at each set bit whose lower neighbour is clear
+            runs += Long.bitCount(word & ~((word << 1) | carry));
+            carry = word >>> 63;
+        }
+        return runs;
+    }
+
+    /**
+     * Build the union of two bitsets, with words covering both of them and everything in between.
+     * Callers should check {@link #wordsForUnion} first, since two bitsets far apart leave a large empty gap.
+     */
+    static IntBitSet union(IntBitSet a, IntBitSet b) {
+        int low = Math.min(a.baseWord, b.baseWord);
+        int high = Math.max(a.end(), b.end());
+        long[] words = new long[high - low];
+        System.arraycopy(a.words, 0, words, a.baseWord - low, a.words.length);
+        SetKernels.or(words, b.baseWord - low, b.words, 0, b.words.length);
+        return new IntBitSet(low, words);
+    }
+
+    /**
+     * Build the intersection of two bitsets.
+     */
+    static IntBitSet intersection(IntBitSet a, IntBitSet b) {
+        int low = Math.max(a.baseWord, b.baseWord);
+        int high = Math.min(a.end(), b.end());
+        if (low >= high) return new IntBitSet();
+
+        long[] words = new long[high - low];
+        System.arraycopy(a.words, low - a.baseWord, words, 0, words.length);
+        SetKernels.and(words, 0, b.words, low - b.baseWord, words.length);
+        return new IntBitSet(low, words);
+    }
+
+    /**
+     * Build the values of one bitset that are not in another.
+     */
+    static IntBitSet difference(IntBitSet a, IntBitSet b) {
+        long[] words = a.words.clone();
+        int low = Math.max(a.baseWord, b.baseWord);
+        int high = Math.min(a.end(), b.end());
+        if (low < high) {
+            SetKernels.andNot(words, low - a.baseWord, b.words, low - b.baseWord, high - low);
+        }
+        return new IntBitSet(a.baseWord, words);
+    }
+
+    /**
+     * Check whether every value of one bitset is in another.
+     */
+    static boolean isSubset(IntBitSet a, IntBitSet b) {
+        if (a.size > b.size) return false;
+
+        int low = Math.max(a.baseWord, b.baseWord);
+        int high = Math.min(a.end(), b.end());
+        if (low >= high) return a.size == 0;
+
+        // Words of a outside the overlap must be empty
+        return SetKernels.isZero(a.words, 0, low - a.baseWord)
+            && SetKernels.isZero(a.words, high - a.baseWord, a.end() - high)
+            && SetKernels.isSubset(a.words, low - a.baseWord, b.words, low - b.baseWord, high - low);
+    }
+
+    /**
+     * Check whether two bitsets have a value in common.
+     */
+    static boolean intersects(IntBitSet a, IntBitSet b) {
+        int low = Math.max(a.baseWord, b.baseWord);
+        int high = Math.min(a.end(), b.end());
+        return low < high && SetKernels.intersects(a.words, low - a.baseWord, b.words, low - b.baseWord, high - low);
+    }
+
+    private int end() {
+        return this.baseWord + this.words.length;
+    }
+
+    /**
+     * Grow the words to cover a word index, doubling so repeated growth is amortized.
+     *
+     * @return The position of the word in the array
+     */
+    private int cover(int word) {
+        int index = word - this.baseWord;
+        if (index >= 0 && index < this.words.length) return index;
+
+        if (this.size == 0) {
+            this.baseWord = word;
+            this.words = new long[Math.max(this.words.length, 1)];
+            return 0;
+        }
+
+        int length = this.words.length;
+        int low = Math.min(word, this.baseWord);
+        int high = Math.max(word + 1, end());
+        // Grow towards the side being extended, but never past the ends of the int range
+        int grown = (int) Math.min(Math.max((long) high - low, 2L * length), (1L << 26));
+        long newLow = word < this.baseWord ? Math.max((long) high - grown, Integer.MIN_VALUE >> 6) : low;
+        long newHigh = Math.min(newLow + grown, (Integer.MAX_VALUE >> 6) + 1L);
+        newLow = Math.min(newLow, low);
+        newHigh = Math.max(newHigh, high);
+
+        long[] words = new long[(int) (newHigh - newLow)];
+        System.arraycopy(this.words, 0, words, (int) (this.baseWord - newLow), length);
+        this.words = words;
+        this.baseWord = (int) newLow;
+        return word - this.baseWord;
+    }
+}
@@ -0,0 +1,308 @@
+package sets;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of integers stored as sorted runs of consecutive values.
+ *
+ * Used by {@link AdaptiveDiscreteSet} when its elements are integers that mostly come in long runs,
+ * such as id ranges, where two ints per run are far smaller than either a hash set or a bitset over the range.
+ * Lookups binary search the runs, and the algebra methods work run by run through {@link RangeSet}.
+ *
+ * @author Gavin Borne
+ */
+final class IntRunSet
+    extends AbstractSet<Integer>
+{
+    // Run i is [starts[i], ends[i]], and ends[i] + 1 < starts[i + 1]
+    private int[] starts;
+    private int[] ends;
+    private int runs = 0;
+    private int size = 0;
+    private int modCount = 0;
+
+    /**
+     * Create an empty run set.
+     */
+    IntRunSet() {
+        this.starts = new int[4];
+        this.ends = new int[4];
+    }
+
+    /**
+     * Copy a collection of integers into runs.
+     */
+    static IntRunSet of(Iterable<?> values, int count) {
+        int[] sorted = new int[count];
+        int length = 0;
+        for (Object value : values) {
+            sorted[length++] = (Integer) value;
+        }
+        Arrays.sort(sorted, 0, length);
+
+        IntRunSet set = new IntRunSet();
+        for (int i = 0; i < length; i++) {
+            set.append(sorted[i], sorted[i]);
+        }
+        return set;
+    }
+
+    /**
+     * Copy the intervals of a range set, all of which must lie within the int range.
+     */
+    static IntRunSet of(RangeSet ranges) {
+        IntRunSet set = new IntRunSet();
+        for (int i = 0; i < ranges.intervalCount(); i++) {
+            set.append((int) ranges.intervalLow(i), (int) ranges.intervalHigh(i));
+        }
+        return set;
+    }
+
+    /**
+     * View the runs as a range set.
+     */
+    RangeSet toRangeSet() {
+        long[] lows = new long[this.runs];
+        long[] highs = new long[this.runs];
+        for (int i = 0; i < this.runs; i++) {
+            lows[i] = this.starts[i];
+            highs[i] = this.ends[i];
+        }
+        return RangeSet.wrap(lows, highs);
+    }
+
+    /**
+     * Get the number of runs.
+     */
+    int runCount() {
+        return this.runs;
+    }
+
+    /**
+     * Estimate the memory used by this run set.
+     *
+     * @return The approximate size in bytes
+     */
+    long memoryFootprint() {
+        return MemoryFootprint.OBJECT + 2 * MemoryFootprint.array(this.starts.length, Integer.BYTES);
+    }
+
+    /**
+     * Copy this run set into arrays with no room to spare.
+     */
+    IntRunSet trimmed() {
+        IntRunSet set = new IntRunSet();
+        set.starts = Arrays.copyOf(this.starts, Math.max(this.runs, 1));
+        set.ends = Arrays.copyOf(this.ends, Math.max(this.runs, 1));
+        set.runs = this.runs;
+        set.size = this.size;
+        return set;
+    }
+
+    /**
+     * Get the smallest value, or Integer.MAX_VALUE if empty.
+     */
+    int min() {
+        return this.runs == 0 ? Integer.MAX_VALUE : this.starts[0];
+    }
+
+    /**
+     * Get the largest value, or Integer.MIN_VALUE if empty.
+     */
+    int max() {
+        return this.runs == 0 ? Integer.MIN_VALUE : this.ends[this.runs - 1];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Integer)) return false;
+        int value = (Integer) o;
+        int run = runAtOrBefore(value);
+        return run >= 0 && value <= this.ends[run];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean add(Integer element) {
+        int value = element;
+        int run = runAtOrBefore(value);
+        if (run >= 0 && value <= this.ends[run]) return false;
+
+        // Written to avoid overflowing at the ends of the int range
+        boolean joinsLeft = run >= 0 && this.ends[run] == value - 1 && value != Integer.MIN_VALUE;
+        boolean joinsRight = run + 1 < this.runs && this.starts[run + 1] == value + 1 && value != Integer.MAX_VALUE;
+        if (joinsLeft && joinsRight) {
+            this.ends[run] = this.ends[run + 1];
+            deleteRun(run + 1);
+        } else if (joinsLeft) {
+            this.ends[run] = value;
+        } else if (joinsRight) {
+            this.starts[run + 1] = value;
+        } else {
+            insertRun(run + 1, value, value);
+        }
+        this.size++;
+        this.modCount++;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) return false;
+
+        int value = (Integer) o;
+        int run = runAtOrBefore(value);
+        int start = this.starts[run];
+        int end = this.ends[run];
+        if (start == end) {
+            deleteRun(run);
+        } else if (value == start) {
+            this.starts[run] = value + 1;
+        } else if (value == end) {
+            this.ends[run] = value - 1;
+        } else {
+            this.ends[run] = value - 1;
+            insertRun(run + 1, value + 1, end);
+        }
+        this.size--;
+        this.modCount++;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        this.starts = new int[4];
+        this.ends = new int[4];
+        this.runs = 0;
+        this.size = 0;
+        this.modCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<>() {
+            private int run = 0;
+            // Next value to return, within the current run
+            private int next = runs == 0 ? 0 : starts[0];
+            private int last = 0;
+            private boolean hasLast = false;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return this.run < runs;
+            }
+
+            @Override
+            public Integer next() {
+                if (this.expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                this.last = this.next;
+                this.hasLast = true;
+                if (this.next == ends[this.run]) {
+                    this.run++;
+                    if (this.run < runs) this.next = starts[this.run];
+                } else {
+                    this.next++;
+                }
+                return this.last;
+            }
+
+            @Override
+            public void remove() {
+                if (!this.hasLast) {
+                    throw new IllegalStateException();
+                }
+                boolean more = hasNext();
+                IntRunSet.this.remove(this.last);
+                this.expectedModCount = modCount;
+                this.hasLast = false;
+                // Removing can split or delete runs, so find the run of the next value again
+                this.run = more ? runAtOrBefore(this.next) : runs;
+            }
+        };
+    }
+
+    /**
+     * Find the last run starting at or before a value.
+     *
+     * @return The run, or -1 if every run starts after the value
+     */
+    private int runAtOrBefore(int value) {
+        int low = 0;
+        int high = this.runs;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.starts[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - 1;
+    }
+
+    /**
+     * Add a run after every existing run, merging it into the last one if they touch.
+     */
+    private void append(int start, int end) {
+        if (this.runs > 0 && (long) this.ends[this.runs - 1] + 1 >= start) {
+            int last = this.ends[this.runs - 1];
+            if (end > last) {
+                this.size += end - last;
+                this.ends[this.runs - 1] = end;
+            }
+            return;
+        }
+        insertRun(this.runs, start, end);
+        this.size += end - start + 1;
+    }
+
+    private void insertRun(int run, int start, int end) {
+        if (this.runs == this.starts.length) {
+            this.starts = Arrays.copyOf(this.starts, this.runs * 2);
+            this.ends = Arrays.copyOf(this.ends, this.runs * 2);
+        }
+        System.arraycopy(this.starts, run, this.starts, run + 1, this.runs - run);
+        System.arraycopy(this.ends, run, this.ends, run + 1, this.runs - run);
+        this.starts[run] = start;
+        this.ends[run] = end;
+        this.runs++;
+    }
+
+    private void deleteRun(int run) {
+        System.arraycopy(this.starts, run + 1, this.starts, run, this.runs - run - 1);
+        System.arraycopy(this.ends, run + 1, this.ends, run, this.runs - run - 1);
+        this.runs--;
+    }
+}
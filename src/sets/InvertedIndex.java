@@ -0,0 +1,239 @@
+package sets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index over a family of sets that maps every element to the ids of the sets containing it,
+ * for answering "which sets contain all of these elements" without looking at the other sets.
+ *
+ * Each element has a compressed, sorted posting list of set ids with skip pointers.
+ * A query intersects the posting lists of its elements from the shortest up, galloping through
+ * the longer lists, so the work depends on the length of the shortest list rather than the size of the family.
+ *
+ * Sets are given increasing ids as they are added, and the index keeps a reference to each set,
+ * so a set must not be changed after it is added. Removed sets are left in the posting lists
+ * and skipped by queries until {@link #compact()} rebuilds the index.
+ *
+ * @author Gavin Borne
+ */
+public class InvertedIndex<E> {
+    private final List<DiscreteSet<E>> sets = new ArrayList<>();
+    private final BitSet removed = new BitSet();
+    private Map<Object, PostingList> postings = new HashMap<>();
+    private int size = 0;
+
+    /**
+     * Create an empty index.
+     */
+    public InvertedIndex() {}
+
+    /**
+     * Create an index containing a family of sets.
+     *
+     * @param sets - Sets to add, which are given ids in iteration order
+     */
+    public InvertedIndex(Iterable<? extends DiscreteSet<E>> sets) {
+        for (DiscreteSet<E> set : sets) {
+            add(set);
+        }
+    }
+
+    /**
+     * Add a set to this index.
+     *
+     * @param set - Set to add
+     * @return The id of the set
+     */
+    public int add(DiscreteSet<E> set) {
+        int id = this.sets.size();
+        this.sets.add(set);
+        for (E element : set) {
+            this.postings.computeIfAbsent(element, k -> new PostingList()).append(id);
+        }
+        this.size++;
+        return id;
+    }
+
+    /**
+     * Remove a set from this index.
+     *
+     * @param id - Id of the set to remove
+     * @return Whether this operation changed the index
+     */
+    public boolean remove(int id) {
+        if (id < 0 || id >= this.sets.size() || this.removed.get(id)) return false;
+
+        this.removed.set(id);
+        this.sets.set(id, null);
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Get the set with a given id.
+     *
+     * @param id - Id of the set
+     * @return The set, or null if it was removed
+     * @throws IndexOutOfBoundsException If no set was ever given the id
+     */
+    public DiscreteSet<E> get(int id) throws IndexOutOfBoundsException {
+        return this.sets.get(id);
+    }
+
+    /**
+     * Calculate the number of sets in this index.
+     *
+     * @return The number of sets that have not been removed
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Count the sets containing an element.
+     *
+     * @param element - Element to look up
+     * @return The number of sets containing the element, including removed sets until the index is compacted
+     */
+    public int frequency(Object element) {
+        PostingList list = this.postings.get(element);
+        return list == null ? 0 : list.size();
+    }
+
+    /**
+     * Find the ids of the sets that contain every given element.
+     * If no elements are given, every set matches.
+     *
+     * @param elements - Elements that must be contained
+     * @return The ids of the matching sets, in increasing order
+     */
+    public int[] idsContainingAll(Collection<?> elements) {
+        if (elements.isEmpty()) {
+            return this.removed.isEmpty()
+                ? rangeOfIds()
+                : Arrays.stream(rangeOfIds()).filter(id -> !this.removed.get(id)).toArray();
+        }
+
+        List<PostingList> lists = new ArrayList<>(elements.size());
+        for (Object element : elements) {
+            PostingList list = this.postings.get(element);
+            // An element in no set means no set can match
+            if (list == null) return new int[0];
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+
+        // Candidates start as the shortest list and can only shrink
+        int[] candidates = lists.get(0).toArray();
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            PostingList.Cursor cursor = lists.get(i).cursor();
+            int kept = 0;
+            for (int j = 0; j < count; j++) {
+                int id = cursor.advanceTo(candidates[j]);
+                if (id < 0) break;
+                if (id == candidates[j]) {
+                    candidates[kept++] = id;
+                }
+            }
+            count = kept;
+        }
+
+        int kept = 0;
+        for (int j = 0; j < count; j++) {
+            if (!this.removed.get(candidates[j])) {
+                candidates[kept++] = candidates[j];
+            }
+        }
+        return Arrays.copyOf(candidates, kept);
+    }
+
+    /**
+     * Find the sets that contain every given element.
+     *
+     * @param elements - Elements that must be contained
+     * @return The matching sets, in order of id
+     */
+    public List<DiscreteSet<E>> containingAll(Collection<?> elements) {
+        int[] ids = idsContainingAll(elements);
+        List<DiscreteSet<E>> matches = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            matches.add(this.sets.get(id));
+        }
+        return matches;
+    }
+
+    /**
+     * Generate the intersection of the sets with the given ids.
+     * Only elements of the smallest set are checked against the others.
+     *
+     * @param ids - Ids of the sets to intersect
+     * @return The intersection of the sets
+     * @throws IllegalArgumentException If ids is empty or contains the id of a removed set
+     */
+    public DiscreteSet<E> intersectionOf(int[] ids) throws IllegalArgumentException {
+        if (ids.length == 0) {
+            throw new IllegalArgumentException("intersectionOf arg 'ids' cannot be empty");
+        }
+
+        List<DiscreteSet<E>> members = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            DiscreteSet<E> set = this.sets.get(id);
+            if (set == null) {
+                throw new IllegalArgumentException("intersectionOf arg 'ids' cannot contain removed set " + id);
+            }
+            members.add(set);
+        }
+        members.sort(Comparator.comparingInt(DiscreteSet::cardinality));
+        return members.get(0).intersection(members.subList(1, members.size()));
+    }
+
+    /**
+     * Rebuild the posting lists without the ids of removed sets, each at the smallest size that holds its ids.
+     * Ids of the remaining sets do not change.
+     */
+    public void compact() {
+        Map<Object, PostingList> compacted = new HashMap<>();
+        for (int id = 0; id < this.sets.size(); id++) {
+            DiscreteSet<E> set = this.sets.get(id);
+            if (set == null) continue;
+            for (E element : set) {
+                compacted.computeIfAbsent(element, k -> new PostingList()).append(id);
+            }
+        }
+        compacted.values().forEach(PostingList::trim);
+        this.postings = compacted;
+    }
+
+    /**
+     * Estimate the memory used by this index.
+     * The indexed sets are not counted, since the index only keeps references to them.
+     *
+     * @return The approximate size in bytes
+     */
+    public long memoryFootprint() {
+        long footprint = MemoryFootprint.OBJECT
+            + MemoryFootprint.OBJECT + MemoryFootprint.array(this.sets.size(), MemoryFootprint.REFERENCE)
+            + MemoryFootprint.OBJECT + MemoryFootprint.array(this.removed.size() / Long.SIZE, Long.BYTES)
+            + MemoryFootprint.hashMap(this.postings.size(), this.postings.size());
+        for (PostingList list : this.postings.values()) {
+            footprint += list.memoryFootprint();
+        }
+        return footprint;
+    }
+
+    private int[] rangeOfIds() {
+        int[] ids = new int[this.sets.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i;
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,126 @@
+package sets;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A function from the elements of one set (the domain) to the elements of another (the codomain),
+ * as produced by {@link FunctionSpace}.
+ *
+ * The function space reuses one mapping for the whole enumeration and updates it in place,
+ * so a mapping only describes the current function until the visitor returns.
+ * Use {@link #toMap()} to keep a copy.
+ *
+ * @author Gavin Borne
+ */
+public class Mapping<D, C> {
+    private final Object[] domain;
+    private final Object[] codomain;
+    private final Map<Object, Integer> domainPositions;
+    // images[i] is the position in the codomain of the image of domain[i]
+    final int[] images;
+
+    Mapping(Object[] domain, Object[] codomain) {
+        this.domain = domain;
+        this.codomain = codomain;
+        this.domainPositions = new HashMap<>();
+        for (int i = 0; i < domain.length; i++) {
+            this.domainPositions.put(domain[i], i);
+        }
+        this.images = new int[domain.length];
+    }
+
+    /**
+     * Get the image of an element of the domain.
+     *
+     * @param element - Element of the domain
+     * @return The element of the codomain it maps to
+     * @throws IllegalArgumentException If element is not in the domain
+     */
+    @SuppressWarnings("unchecked")
+    public C get(Object element) throws IllegalArgumentException {
+        Integer position = this.domainPositions.get(element);
+        if (position == null) {
+            throw new IllegalArgumentException("Element " + element + " is not in the domain of this mapping");
+        }
+        return (C) this.codomain[this.images[position]];
+    }
+
+    /**
+     * Calculate the cardinality of the domain.
+     *
+     * @return The number of elements being mapped
+     */
+    public int size() {
+        return this.domain.length;
+    }
+
+    /**
+     * Get the ith element of the domain, in the order the function space enumerates them.
+     *
+     * @param i - Position in the domain
+     * @return The element at that position
+     * @throws IndexOutOfBoundsException If i is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public D domainElement(int i) throws IndexOutOfBoundsException {
+        return (D) this.domain[i];
+    }
+
+    /**
+     * Get the image of the ith element of the domain.
+     *
+     * @param i - Position in the domain
+     * @return The element of the codomain the ith element maps to
+     * @throws IndexOutOfBoundsException If i is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public C image(int i) throws IndexOutOfBoundsException {
+        return (C) this.codomain[this.images[i]];
+    }
+
+    /**
+     * Generate the image (range) of this mapping,
+     * the set of elements of the codomain that some element maps to.
+     *
+     * @return The image of this mapping
+     */
+    public DiscreteSet<C> range() {
+        DiscreteSet<C> range = new GenericDiscreteSet<>();
+        for (int i = 0; i < this.domain.length; i++) {
+            range.add(image(i));
+        }
+        return range;
+    }
+
+    /**
+     * Copy this mapping into a map.
+     *
+     * @return A new map from every element of the domain to its image
+     */
+    public Map<D, C> toMap() {
+        Map<D, C> map = new LinkedHashMap<>();
+        for (int i = 0; i < this.domain.length; i++) {
+            map.put(domainElement(i), image(i));
+        }
+        return map;
+    }
+
+    /**
+     * Generate a String representation of this mapping.
+     *
+     * @return String representation
+     */
+    @Override
+    public String toString() {
+        String out = "{";
+        for (int i = 0; i < this.domain.length; i++) {
+            if (i != 0) {
+                out += ", ";
+            }
+            out += this.domain[i] + " -> " + this.codomain[this.images[i]];
+        }
+        return out + "}";
+    }
+}
@@ -0,0 +1,67 @@
+package sets;
+
+/**
+ * Rough sizes of the objects the sets in this package are built from, for their memoryFootprint() estimates.
+ * The figures are for a 64-bit JVM with compressed references, where every object starts with
+ * a 12-byte header and is padded to a multiple of 8 bytes.
+ *
+ * @author Gavin Borne
+ */
+final class MemoryFootprint {
+    // An object header plus a few fields
+    static final long OBJECT = 24;
+    static final int REFERENCE = 4;
+
+    // A HashMap.Node: header, hash, key, value and next
+    private static final long HASH_NODE = 32;
+    // A HashMap: header, table and the size, threshold and load factor fields
+    private static final long HASH_MAP = 48;
+    // A HashSet: header and its HashMap
+    private static final long HASH_SET = 16;
+
+    private MemoryFootprint() {}
+
+    /**
+     * Estimate the size of an array.
+     *
+     * @param length - Number of elements
+     * @param elementBytes - Size of each element
+     * @return The approximate size in bytes
+     */
+    static long array(long length, int elementBytes) {
+        return align(16 + length * elementBytes);
+    }
+
+    /**
+     * Estimate the size of a HashMap, whose table is sized for the most entries it has held, since tables never shrink.
+     *
+     * @param size - Number of entries
+     * @param peak - Most entries it has held
+     * @return The approximate size in bytes, not counting the keys and values
+     */
+    static long hashMap(int size, int peak) {
+        return HASH_MAP + array(tableLength(Math.max(size, peak)), REFERENCE) + HASH_NODE * size;
+    }
+
+    /**
+     * Estimate the size of a HashSet, see {@link #hashMap}.
+     */
+    static long hashSet(int size, int peak) {
+        return HASH_SET + hashMap(size, peak);
+    }
+
+    /**
+     * Get the table length a HashMap grows to for a number of entries, at the default load factor of 0.75.
+     */
+    private static long tableLength(int entries) {
+        long length = 16;
+        while (length * 3 / 4 < entries) {
+            length <<= 1;
+        }
+        return length;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,139 @@
+package sets;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and histograms for one {@link SetOperation}, collected by {@link SetMetrics}.
+ *
+ * Histograms use power of two buckets: bucket 0 counts values of 0,
+ * and bucket i counts values from 2^(i-1) (inclusive) to 2^i (exclusive).
+ * All methods are thread-safe, and the values they return are a snapshot.
+ *
+ * @author Gavin Borne
+ */
+public class OperationStats {
+    private static final int BUCKETS = Long.SIZE + 1;
+
+    private final SetOperation operation;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLongArray latencyBuckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray resultSizeBuckets = new AtomicLongArray(BUCKETS);
+
+    OperationStats(SetOperation operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Get the operation these statistics are for.
+     *
+     * @return The measured operation
+     */
+    public SetOperation getOperation() {
+        return this.operation;
+    }
+
+    /**
+     * Get the number of recorded calls.
+     *
+     * @return The number of calls
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * Get the total time spent in recorded calls.
+     *
+     * @return The total latency in nanoseconds
+     */
+    public long getTotalNanos() {
+        return this.totalNanos.sum();
+    }
+
+    /**
+     * Get the histogram of call latencies in nanoseconds.
+     *
+     * @return Count of calls per power of two bucket
+     */
+    public long[] getLatencyHistogram() {
+        return snapshot(this.latencyBuckets);
+    }
+
+    /**
+     * Get the histogram of result sizes.
+     * The size of a set is its cardinality, the size of a partition is its number of segments,
+     * and the size of a Bell number is its bit length.
+     *
+     * @return Count of calls per power of two bucket
+     */
+    public long[] getResultSizeHistogram() {
+        return snapshot(this.resultSizeBuckets);
+    }
+
+    /**
+     * Estimate a latency percentile from the histogram.
+     * The result is the upper bound of the bucket containing the percentile,
+     * so it overestimates by at most a factor of two.
+     *
+     * @param percentile - Percentile to estimate, between 0 and 100
+     * @return The estimated latency in nanoseconds, or 0 if no calls were recorded
+     * @throws IllegalArgumentException If percentile is out of range
+     */
+    public long latencyPercentileNanos(double percentile) throws IllegalArgumentException {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("latencyPercentileNanos arg 'percentile' must be between 0 and 100");
+        }
+
+        long[] histogram = getLatencyHistogram();
+        long total = 0;
+        for (long bucket : histogram) {
+            total += bucket;
+        }
+        if (total == 0) return 0;
+
+        long target = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram[i];
+            if (seen >= Math.max(target, 1)) {
+                return i == 0 ? 0 : i >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    void record(long nanos, long resultSize) {
+        this.count.increment();
+        this.totalNanos.add(nanos);
+        this.latencyBuckets.incrementAndGet(bucket(nanos));
+        this.resultSizeBuckets.incrementAndGet(bucket(resultSize));
+    }
+
+    void reset() {
+        this.count.reset();
+        this.totalNanos.reset();
+        for (int i = 0; i < BUCKETS; i++) {
+            this.latencyBuckets.set(i, 0);
+            this.resultSizeBuckets.set(i, 0);
+        }
+    }
+
+    private static int bucket(long value) {
+        return value <= 0 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    private static long[] snapshot(AtomicLongArray buckets) {
+        long[] values = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            values[i] = buckets.get(i);
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return this.operation + "{count=" + getCount() + ", totalNanos=" + getTotalNanos() + "}";
+    }
+}
@@ -86,8 +86,18 @@ public class OrderedGroup {
         return items.equals(otherOrderedPair.items);
     }
 
+    @Override
+    public int hashCode() {
+        return this.items.hashCode();
+    }
+
     protected void add(Object element) {
         this.items.add(element);
         this.types.add(element.getClass());
     }
+
+    protected void set(int index, Object element) throws IndexOutOfBoundsException {
+        this.items.set(index, element);
+        this.types.set(index, element.getClass());
+    }
 }
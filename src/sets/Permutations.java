@@ -0,0 +1,442 @@
+package sets;
+
+import java.math.BigInteger;
+import java.util.AbstractCollection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * A lazy collection of the k-permutations (ordered arrangements of k distinct elements) of a set,
+ * represented as {@link OrderedGroup}s.
+ * When k equals the cardinality of the set, these are the permutations of the set.
+ *
+ * Permutations are produced in lexicographic order of the positions of their elements.
+ * Each permutation has a rank (its position in the enumeration) given by the
+ * factorial number system, which allows random access through {@link #get(long)}
+ * and splitting the enumeration into independent rank ranges.
+ *
+ * For allocation-free enumeration, {@link #visit(Consumer)} mutates a single
+ * {@link OrderedGroup} in place, while {@link #iterator()} produces a new group for every permutation.
+ *
+ * The elements of the source set are copied when this collection is created,
+ * so later changes to the source set are not reflected.
+ *
+ * @author Gavin Borne
+ */
+public class Permutations<E>
+    extends AbstractCollection<OrderedGroup>
+{
+    private final Object[] elements;
+    private final int k;
+    private final BigInteger count;
+    // Position of each element, for ranking and membership checks
+    private final Map<Object, Integer> positions = new HashMap<>();
+
+    /**
+     * Create the collection of permutations of a set.
+     *
+     * @param set - Set to arrange
+     */
+    public Permutations(DiscreteSet<E> set) {
+        this(set, set.cardinality());
+    }
+
+    /**
+     * Create the collection of k-permutations of a set.
+     *
+     * @param set - Set to arrange
+     * @param k - Number of elements in each arrangement
+     * @throws IllegalArgumentException If k is negative or greater than the cardinality of the set
+     */
+    public Permutations(DiscreteSet<E> set, int k) throws IllegalArgumentException {
+        this.elements = set.toArray();
+        for (int i = 0; i < this.elements.length; i++) {
+            this.positions.put(this.elements[i], i);
+        }
+        if (k < 0 || k > this.elements.length) {
+            throw new IllegalArgumentException("Permutations arg 'k' must be between 0 and the cardinality of the set");
+        }
+        this.k = k;
+        this.count = fallingFactorial(this.elements.length, k);
+    }
+
+    /**
+     * Get the number of elements in each arrangement.
+     *
+     * @return The size of each arrangement
+     */
+    public int getK() {
+        return this.k;
+    }
+
+    /**
+     * Calculate the exact number of k-permutations, n! / (n - k)!.
+     *
+     * @return The number of k-permutations
+     */
+    public BigInteger count() {
+        return this.count;
+    }
+
+    /**
+     * Calculate the number of k-permutations.
+     * If there are more than {@link Integer#MAX_VALUE} permutations, {@link Integer#MAX_VALUE} is returned;
+     * use {@link #count()} for the exact value.
+     *
+     * @return The number of k-permutations
+     */
+    @Override
+    public int size() {
+        return this.count.bitLength() < Integer.SIZE ? this.count.intValue() : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Check whether an object is one of the k-permutations.
+     *
+     * @param o - Object to check
+     * @return Whether the object is a k-permutation of the source set
+     */
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof OrderedGroup)) return false;
+        return positionsOf((OrderedGroup) o) != null;
+    }
+
+    /**
+     * Get the k-permutation with a given rank.
+     *
+     * @param rank - Rank of the permutation, from 0 (inclusive) to {@link #count()} (exclusive)
+     * @return The permutation with the given rank
+     * @throws IndexOutOfBoundsException If the rank is out of range
+     */
+    public OrderedGroup get(long rank) throws IndexOutOfBoundsException {
+        return get(BigInteger.valueOf(rank));
+    }
+
+    /**
+     * Get the k-permutation with a given rank.
+     *
+     * @param rank - Rank of the permutation, from 0 (inclusive) to {@link #count()} (exclusive)
+     * @return The permutation with the given rank
+     * @throws IndexOutOfBoundsException If the rank is out of range
+     */
+    public OrderedGroup get(BigInteger rank) throws IndexOutOfBoundsException {
+        checkRank(rank);
+
+        Cursor cursor = new Cursor(rank);
+        return cursor.copy();
+    }
+
+    /**
+     * Calculate the rank of a k-permutation.
+     *
+     * @param permutation - Permutation to rank
+     * @return The rank of the permutation
+     * @throws IllegalArgumentException If the group is not a k-permutation of the source set
+     */
+    public BigInteger rank(OrderedGroup permutation) throws IllegalArgumentException {
+        int[] positions = positionsOf(permutation);
+        if (positions == null) {
+            throw new IllegalArgumentException("rank arg 'permutation' is not a permutation of this set");
+        }
+
+        // Digit i of the factorial number system is the number of unused positions
+        // smaller than positions[i], and it is weighted by (n - 1 - i)! / (n - k)!
+        int n = this.elements.length;
+        boolean[] used = new boolean[n];
+        BigInteger rank = BigInteger.ZERO;
+        for (int i = 0; i < this.k; i++) {
+            int digit = 0;
+            for (int j = 0; j < positions[i]; j++) {
+                if (!used[j]) digit++;
+            }
+            used[positions[i]] = true;
+            rank = rank.add(BigInteger.valueOf(digit).multiply(fallingFactorial(n - 1 - i, this.k - 1 - i)));
+        }
+        return rank;
+    }
+
+    /**
+     * Visit every k-permutation in order.
+     * The visitor receives the same {@link OrderedGroup} every time, mutated in place,
+     * so it must copy the group if it needs to keep it.
+     *
+     * @param visitor - Visitor to call for each permutation
+     */
+    public void visit(Consumer<? super OrderedGroup> visitor) {
+        if (this.count.signum() == 0) return;
+
+        Cursor cursor = new Cursor(BigInteger.ZERO);
+        do {
+            visitor.accept(cursor.group);
+        } while (cursor.advance());
+    }
+
+    /**
+     * Visit the k-permutations with ranks in [from, to) in order.
+     * Disjoint rank ranges can be visited on different threads.
+     * The visitor receives the same {@link OrderedGroup} every time, mutated in place,
+     * so it must copy the group if it needs to keep it.
+     *
+     * @param from - First rank to visit (inclusive)
+     * @param to - Last rank to visit (exclusive)
+     * @param visitor - Visitor to call for each permutation
+     * @throws IndexOutOfBoundsException If the range is out of bounds
+     */
+    public void visit(BigInteger from, BigInteger to, Consumer<? super OrderedGroup> visitor) throws IndexOutOfBoundsException {
+        if (from.signum() < 0 || to.compareTo(this.count) > 0 || from.compareTo(to) > 0) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for " + this.count + " permutations");
+        }
+        if (from.equals(to)) return;
+
+        // A range too long for a long counter could never be finished anyway
+        long remaining = to.subtract(from).min(BigInteger.valueOf(Long.MAX_VALUE)).longValue();
+        Cursor cursor = new Cursor(from);
+        for (; remaining > 0; remaining--) {
+            visitor.accept(cursor.group);
+            cursor.advance();
+        }
+    }
+
+    /**
+     * Generate an iterator over the k-permutations in lexicographic order.
+     * Every call to {@link Iterator#next()} returns a new {@link OrderedGroup}.
+     *
+     * @return Iterator over the k-permutations
+     */
+    @Override
+    public Iterator<OrderedGroup> iterator() {
+        return new Iterator<>() {
+            private Cursor cursor;
+            private boolean hasNext = count.signum() > 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.hasNext;
+            }
+
+            @Override
+            public OrderedGroup next() {
+                if (!this.hasNext) {
+                    throw new NoSuchElementException();
+                }
+                if (this.cursor == null) {
+                    this.cursor = new Cursor(BigInteger.ZERO);
+                }
+                OrderedGroup permutation = this.cursor.copy();
+                this.hasNext = this.cursor.advance();
+                return permutation;
+            }
+        };
+    }
+
+    /**
+     * Generate a spliterator over the k-permutations.
+     * When the number of permutations fits in a long, the spliterator splits by rank range,
+     * so parallel streams process disjoint blocks of permutations without coordination.
+     *
+     * @return Spliterator over the k-permutations
+     */
+    @Override
+    public Spliterator<OrderedGroup> spliterator() {
+        if (this.count.bitLength() < Long.SIZE) {
+            return new RankSpliterator(0, this.count.longValue());
+        }
+        return Spliterators.spliteratorUnknownSize(iterator(),
+            Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    private void checkRank(BigInteger rank) throws IndexOutOfBoundsException {
+        if (rank.signum() < 0 || rank.compareTo(this.count) >= 0) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " out of range for " + this.count + " permutations");
+        }
+    }
+
+    /**
+     * Find the positions of the items of a group in the source set.
+     *
+     * @return The positions, or null if the group is not a k-permutation
+     */
+    private int[] positionsOf(OrderedGroup group) {
+        if (group.size() != this.k) return null;
+
+        int[] positions = new int[this.k];
+        boolean[] used = new boolean[this.elements.length];
+        for (int i = 0; i < this.k; i++) {
+            Integer position = this.positions.get(group.get(i));
+            if (position == null || used[position]) return null;
+
+            used[position] = true;
+            positions[i] = position;
+        }
+        return positions;
+    }
+
+    /**
+     * Calculate n! / (n - k)!, the number of k-permutations of n items.
+     */
+    private static BigInteger fallingFactorial(int n, int k) {
+        BigInteger result = BigInteger.ONE;
+        for (int i = 0; i < k; i++) {
+            result = result.multiply(BigInteger.valueOf(n - i));
+        }
+        return result;
+    }
+
+    /**
+     * Advance an array of distinct positions to its next k-permutation in lexicographic order.
+     * The first k entries are the arrangement and the remaining entries are the unused positions,
+     * which must be in ascending order; they are kept in ascending order.
+     *
+     * @param positions - Arrangement followed by the unused positions
+     * @param k - Length of the arrangement
+     * @return The first slot that changed, or -1 if this was the last k-permutation
+     */
+    static int nextKPermutation(int[] positions, int k) {
+        if (k == 0) return -1;
+
+        int n = positions.length;
+        // Reversing the ascending tail makes the next full permutation the next k-permutation
+        reverse(positions, k, n - 1);
+
+        int i = n - 2;
+        while (i >= 0 && positions[i] >= positions[i + 1]) {
+            i--;
+        }
+        if (i < 0) return -1;
+
+        int j = n - 1;
+        while (positions[j] <= positions[i]) {
+            j--;
+        }
+        swap(positions, i, j);
+        reverse(positions, i + 1, n - 1);
+        return i;
+    }
+
+    private static void reverse(int[] positions, int from, int to) {
+        while (from < to) {
+            swap(positions, from++, to--);
+        }
+    }
+
+    private static void swap(int[] positions, int i, int j) {
+        int t = positions[i];
+        positions[i] = positions[j];
+        positions[j] = t;
+    }
+
+    /**
+     * Position in the enumeration.
+     * The first k entries of positions are the current arrangement and the rest
+     * are the unused positions, which is the layout next-permutation needs.
+     */
+    private final class Cursor {
+        private final int[] positions = new int[elements.length];
+        private final OrderedGroup group = new OrderedGroup();
+
+        Cursor(BigInteger rank) {
+            int n = elements.length;
+            int[] unused = new int[n];
+            for (int i = 0; i < n; i++) {
+                unused[i] = i;
+            }
+
+            // Decode the factorial number system digits from the most significant down
+            int remaining = n;
+            for (int i = 0; i < k; i++) {
+                BigInteger[] digit = rank.divideAndRemainder(fallingFactorial(n - 1 - i, k - 1 - i));
+                int d = digit[0].intValue();
+                rank = digit[1];
+
+                this.positions[i] = unused[d];
+                System.arraycopy(unused, d + 1, unused, d, remaining - d - 1);
+                remaining--;
+            }
+            System.arraycopy(unused, 0, this.positions, k, remaining);
+
+            for (int i = 0; i < k; i++) {
+                this.group.add(elements[this.positions[i]]);
+            }
+        }
+
+        /**
+         * Move to the next k-permutation in lexicographic order and update the group in place.
+         *
+         * @return Whether there was a next permutation
+         */
+        boolean advance() {
+            int changed = nextKPermutation(this.positions, k);
+            if (changed < 0) return false;
+
+            for (int slot = changed; slot < k; slot++) {
+                this.group.set(slot, elements[this.positions[slot]]);
+            }
+            return true;
+        }
+
+        OrderedGroup copy() {
+            return new OrderedGroup(this.group.getAll());
+        }
+    }
+
+    /**
+     * Spliterator over the permutations with ranks in [next, end).
+     */
+    private final class RankSpliterator
+        implements Spliterator<OrderedGroup>
+    {
+        private long next;
+        private final long end;
+        private Cursor cursor;
+
+        RankSpliterator(long start, long end) {
+            this.next = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super OrderedGroup> action) {
+            if (this.next >= this.end) return false;
+
+            if (this.cursor == null) {
+                this.cursor = new Cursor(BigInteger.valueOf(this.next));
+            } else {
+                this.cursor.advance();
+            }
+            this.next++;
+            action.accept(this.cursor.copy());
+            return true;
+        }
+
+        @Override
+        public Spliterator<OrderedGroup> trySplit() {
+            long remaining = this.end - this.next;
+            if (remaining < 2) return null;
+
+            // Hand the lower half to the new spliterator;
+            // this one seeks to the upper half the next time it advances
+            long middle = this.next + remaining / 2;
+            RankSpliterator prefix = new RankSpliterator(this.next, middle);
+            prefix.cursor = this.cursor;
+            this.cursor = null;
+            this.next = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.end - this.next;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | DISTINCT | NONNULL;
+        }
+    }
+}
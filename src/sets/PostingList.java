@@ -0,0 +1,189 @@
+package sets;
+
+import java.util.Arrays;
+
+/**
+ * A sorted list of non-negative int ids, compressed as variable-length gaps between consecutive ids,
+ * with a skip pointer at the start of every block of {@value #BLOCK_SIZE} ids.
+ *
+ * Ids must be appended in increasing order. A {@link Cursor} can jump past whole blocks
+ * using the skip pointers, so intersecting a short list with a long one only decodes
+ * the blocks of the long list that might contain a match.
+ *
+ * @author Gavin Borne
+ */
+final class PostingList {
+    static final int BLOCK_SIZE = 64;
+
+    private byte[] data = new byte[16];
+    private int length = 0;
+    private int size = 0;
+    private int last = -1;
+
+    // Block b starts at byte skipOffsets[b], and its first gap is relative to skipPrevious[b]
+    private int[] skipPrevious = new int[4];
+    private int[] skipOffsets = new int[4];
+    private int blocks = 0;
+
+    /**
+     * Append an id, which must be greater than every id already in the list.
+     *
+     * @param id - Id to append
+     * @throws IllegalArgumentException If id is not greater than the last id
+     */
+    void append(int id) throws IllegalArgumentException {
+        if (id <= this.last) {
+            throw new IllegalArgumentException("PostingList ids must be appended in increasing order");
+        }
+
+        if (this.size % BLOCK_SIZE == 0) {
+            if (this.blocks == this.skipOffsets.length) {
+                this.skipPrevious = Arrays.copyOf(this.skipPrevious, this.blocks * 2);
+                this.skipOffsets = Arrays.copyOf(this.skipOffsets, this.blocks * 2);
+            }
+            this.skipPrevious[this.blocks] = this.last;
+            this.skipOffsets[this.blocks] = this.length;
+            this.blocks++;
+        }
+
+        // Variable-length encoding: 7 bits per byte, high bit set on every byte but the last
+        int gap = id - this.last;
+        if (this.length + 5 > this.data.length) {
+            this.data = Arrays.copyOf(this.data, this.data.length * 2);
+        }
+        while ((gap & ~0x7F) != 0) {
+            this.data[this.length++] = (byte) ((gap & 0x7F) | 0x80);
+            gap >>>= 7;
+        }
+        this.data[this.length++] = (byte) gap;
+
+        this.last = id;
+        this.size++;
+    }
+
+    /**
+     * Get the number of ids in this list.
+     *
+     * @return The number of ids
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Estimate the memory used by this list.
+     *
+     * @return The approximate size in bytes
+     */
+    long memoryFootprint() {
+        return 64 + this.data.length + 4L * (this.skipOffsets.length + this.skipPrevious.length);
+    }
+
+    /**
+     * Shrink the arrays to what the ids use, leaving room to append one more id.
+     */
+    void trim() {
+        this.data = Arrays.copyOf(this.data, this.length + 5);
+        this.skipPrevious = Arrays.copyOf(this.skipPrevious, Math.max(this.blocks, 1));
+        this.skipOffsets = Arrays.copyOf(this.skipOffsets, Math.max(this.blocks, 1));
+    }
+
+    /**
+     * Decode every id.
+     *
+     * @return The ids in increasing order
+     */
+    int[] toArray() {
+        int[] ids = new int[this.size];
+        Cursor cursor = cursor();
+        for (int i = 0; i < this.size; i++) {
+            ids[i] = cursor.next();
+        }
+        return ids;
+    }
+
+    /**
+     * Create a cursor positioned before the first id.
+     *
+     * @return A new cursor
+     */
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * A forward-only position in a posting list.
+     */
+    final class Cursor {
+        private int offset = 0;
+        private int index = 0;
+        private int current = -1;
+
+        /**
+         * Move to the next id.
+         *
+         * @return The next id, or -1 if there are none left
+         */
+        int next() {
+            if (this.index == size) return -1;
+
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[this.offset++];
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            this.current += gap;
+            this.index++;
+            return this.current;
+        }
+
+        /**
+         * Move to the first id that is greater than or equal to a target.
+         * The cursor never moves backwards, so the target should not be less than the current id.
+         *
+         * @param target - Id to look for
+         * @return The first id not less than the target, or -1 if there is none
+         */
+        int advanceTo(int target) {
+            if (this.index > 0 && this.current >= target) {
+                return this.current;
+            }
+
+            // Gallop over the skip pointers to the last block that starts before the target
+            int block = this.index / BLOCK_SIZE;
+            int step = 1;
+            int high = block + 1;
+            while (high < blocks && skipPrevious[high] < target) {
+                block = high;
+                step <<= 1;
+                high = block + step;
+            }
+            int low = block;
+            high = Math.min(high, blocks);
+            while (low + 1 < high) {
+                int middle = (low + high) >>> 1;
+                if (skipPrevious[middle] < target) {
+                    low = middle;
+                } else {
+                    high = middle;
+                }
+            }
+            if (low * BLOCK_SIZE > this.index) {
+                this.index = low * BLOCK_SIZE;
+                this.offset = skipOffsets[low];
+                this.current = skipPrevious[low];
+            }
+
+            // Scan within the block
+            int id;
+            do {
+                id = next();
+            } while (id >= 0 && id < target);
+            return id;
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package sets;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * An immutable set of long integers stored as sorted, disjoint, non-adjacent closed intervals [low, high].
+ *
+ * A set like {x | 0 < x < 10^9} is a single interval and takes a few bytes, where a {@link GenericDiscreteSet}
+ * would need an object per element. The cost of every operation depends on the number of intervals k,
+ * not on the number of elements: {@link #contains} is a binary search in O(log k), {@link #size} is a sum of
+ * interval lengths, and union, intersection, difference and complement merge the two interval lists in O(k).
+ *
+ * Range sets interoperate with discrete sets through {@link #of(DiscreteSet)} and {@link #asDiscreteSet()}.
+ *
+ * @author Gavin Borne
+ */
+public final class RangeSet {
+    private static final RangeSet EMPTY = new RangeSet(new long[0], new long[0]);
+
+    // Interval i is [lows[i], highs[i]], and highs[i] + 1 < lows[i + 1]
+    private final long[] lows;
+    private final long[] highs;
+
+    private RangeSet(long[] lows, long[] highs) {
+        this.lows = lows;
+        this.highs = highs;
+    }
+
+    /**
+     * Wrap intervals that are already sorted, disjoint and not touching, without copying or checking them.
+     */
+    static RangeSet wrap(long[] lows, long[] highs) {
+        return lows.length == 0 ? EMPTY : new RangeSet(lows, highs);
+    }
+
+    /**
+     * Get the empty range set.
+     *
+     * @return A range set with no elements
+     */
+    public static RangeSet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Create a range set containing every long.
+     *
+     * @return The range set [Long.MIN_VALUE, Long.MAX_VALUE]
+     */
+    public static RangeSet all() {
+        return closed(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Create a range set containing every integer from low to high, inclusive.
+     *
+     * @param low - Smallest element
+     * @param high - Largest element
+     * @return The range set [low, high]
+     * @throws IllegalArgumentException If low is greater than high
+     */
+    public static RangeSet closed(long low, long high) throws IllegalArgumentException {
+        if (low > high) {
+            throw new IllegalArgumentException("closed arg 'low' cannot be greater than arg 'high'");
+        }
+        return new RangeSet(new long[] { low }, new long[] { high });
+    }
+
+    /**
+     * Create a range set containing every integer greater than or equal to low.
+     *
+     * @param low - Smallest element
+     * @return The range set [low, Long.MAX_VALUE]
+     */
+    public static RangeSet atLeast(long low) {
+        return closed(low, Long.MAX_VALUE);
+    }
+
+    /**
+     * Create a range set containing every integer less than or equal to high.
+     *
+     * @param high - Largest element
+     * @return The range set [Long.MIN_VALUE, high]
+     */
+    public static RangeSet atMost(long high) {
+        return closed(Long.MIN_VALUE, high);
+    }
+
+    /**
+     * Create a range set containing the given values, with consecutive values merged into intervals.
+     *
+     * @param values - Values in the set, in any order and possibly repeated
+     * @return The range set of the values
+     */
+    public static RangeSet of(long... values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        Builder builder = new Builder(sorted.length);
+        for (long value : sorted) {
+            builder.append(value, value);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Convert a discrete set of integers into a range set, with consecutive values merged into intervals.
+     *
+     * @param set - Set of integers, such as {@code Integer} or {@code Long} values
+     * @return The range set of the values
+     */
+    public static RangeSet of(DiscreteSet<? extends Number> set) {
+        long[] values = new long[set.cardinality()];
+        int i = 0;
+        for (Number value : set) {
+            values[i++] = value.longValue();
+        }
+        return of(values);
+    }
+
+    /**
+     * Check whether this set contains a value, by binary search over the intervals.
+     *
+     * @param value - Value to check
+     * @return Whether this set contains the value
+     */
+    public boolean contains(long value) {
+        int i = intervalAtOrBefore(value);
+        return i >= 0 && value <= this.highs[i];
+    }
+
+    /**
+     * Calculate the number of elements in this set.
+     *
+     * @return The number of elements, or Long.MAX_VALUE if there are more than that
+     */
+    public long size() {
+        long size = 0;
+        for (int i = 0; i < this.lows.length; i++) {
+            long length = this.highs[i] - this.lows[i] + 1;
+            // The length wraps around when the interval spans more than Long.MAX_VALUE values
+            if (length <= 0 || size > Long.MAX_VALUE - length) return Long.MAX_VALUE;
+            size += length;
+        }
+        return size;
+    }
+
+    /**
+     * Get the number of disjoint intervals this set is stored as.
+     *
+     * @return The number of intervals
+     */
+    public int intervalCount() {
+        return this.lows.length;
+    }
+
+    /**
+     * Get the smallest element of an interval.
+     *
+     * @param i - Index of the interval, in increasing order
+     * @return The lower bound of the interval
+     * @throws IndexOutOfBoundsException If i is out of range
+     */
+    public long intervalLow(int i) throws IndexOutOfBoundsException {
+        return this.lows[i];
+    }
+
+    /**
+     * Get the largest element of an interval.
+     *
+     * @param i - Index of the interval, in increasing order
+     * @return The upper bound of the interval
+     * @throws IndexOutOfBoundsException If i is out of range
+     */
+    public long intervalHigh(int i) throws IndexOutOfBoundsException {
+        return this.highs[i];
+    }
+
+    /**
+     * Determine whether this set is empty.
+     *
+     * @return If this set is empty
+     */
+    public boolean isEmpty() {
+        return this.lows.length == 0;
+    }
+
+    /**
+     * Check if this set is a subset of another set.
+     *
+     * @param other - Other set
+     * @return Whether every element of this set is in the other set
+     */
+    public boolean isSubsetOf(RangeSet other) {
+        // Every interval of this set must lie inside a single interval of the other
+        int j = 0;
+        for (int i = 0; i < this.lows.length; i++) {
+            while (j < other.lows.length && other.highs[j] < this.lows[i]) j++;
+            if (j == other.lows.length || other.lows[j] > this.lows[i] || other.highs[j] < this.highs[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Generate the union of this set and another set.
+     *
+     * @param other - Other set
+     * @return The union of the two sets
+     */
+    public RangeSet union(RangeSet other) {
+        Builder builder = new Builder(this.lows.length + other.lows.length);
+        int i = 0;
+        int j = 0;
+        // Append intervals in order of their lower bounds, and the builder merges overlaps
+        while (i < this.lows.length || j < other.lows.length) {
+            if (j == other.lows.length || (i < this.lows.length && this.lows[i] <= other.lows[j])) {
+                builder.append(this.lows[i], this.highs[i]);
+                i++;
+            } else {
+                builder.append(other.lows[j], other.highs[j]);
+                j++;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Generate the intersection of this set and another set.
+     *
+     * @param other - Other set
+     * @return The intersection of the two sets
+     */
+    public RangeSet intersection(RangeSet other) {
+        Builder builder = new Builder(this.lows.length + other.lows.length);
+        int i = 0;
+        int j = 0;
+        while (i < this.lows.length && j < other.lows.length) {
+            long low = Math.max(this.lows[i], other.lows[j]);
+            long high = Math.min(this.highs[i], other.highs[j]);
+            if (low <= high) {
+                builder.append(low, high);
+            }
+            // The interval that ends first cannot overlap anything further along the other list
+            if (this.highs[i] < other.highs[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Generate the difference between this set and another set.
+     *
+     * @param other - Other set
+     * @return The elements of this set that are not in the other set
+     */
+    public RangeSet difference(RangeSet other) {
+        return intersection(other.gaps());
+    }
+
+    /**
+     * Generate the symmetric difference of this set and another set.
+     *
+     * @param other - Other set
+     * @return The elements that are in exactly one of the two sets
+     */
+    public RangeSet symmetricDifference(RangeSet other) {
+        return union(other).difference(intersection(other));
+    }
+
+    /**
+     * Generate the complement of this set in a universe, the elements of the universe not in this set.
+     *
+     * @param universe - The universal set such that S' = (U - S)
+     * @return The complement of this set
+     */
+    public RangeSet complement(RangeSet universe) {
+        return universe.difference(this);
+    }
+
+    /**
+     * Generate an iterator over the elements of this set in increasing order.
+     *
+     * @return Iterator over this set's elements
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int interval = 0;
+            private long next = lows.length > 0 ? lows[0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.interval < lows.length;
+            }
+
+            @Override
+            public long nextLong() {
+                if (this.interval >= lows.length) {
+                    throw new NoSuchElementException();
+                }
+                long value = this.next;
+                if (value == highs[this.interval]) {
+                    this.interval++;
+                    if (this.interval < lows.length) {
+                        this.next = lows[this.interval];
+                    }
+                } else {
+                    this.next++;
+                }
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Get this set as a read-only {@link DiscreteSet} of Longs.
+     * The view does not copy the elements: contains stays O(log k), and elements are produced while iterating.
+     * Its cardinality is capped at Integer.MAX_VALUE, and computing its hash code visits every element.
+     *
+     * @return A view of this set as a discrete set
+     */
+    public DiscreteSet<Long> asDiscreteSet() {
+        return GenericDiscreteSet.view(new AbstractSet<Long>() {
+            @Override
+            public int size() {
+                return (int) Math.min(RangeSet.this.size(), Integer.MAX_VALUE);
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Long && RangeSet.this.contains((Long) o);
+            }
+
+            @Override
+            public Iterator<Long> iterator() {
+                return RangeSet.this.iterator();
+            }
+        });
+    }
+
+    /**
+     * Determine if this set is equal to another set.
+     * Two range sets are equal if they contain the same elements.
+     *
+     * @param other - Other set
+     * @return Whether the two sets are equal
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof RangeSet)) return false;
+
+        RangeSet otherSet = (RangeSet) other;
+        return Arrays.equals(this.lows, otherSet.lows) && Arrays.equals(this.highs, otherSet.highs);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(this.lows) + Arrays.hashCode(this.highs);
+    }
+
+    /**
+     * Generate a String representation of this set as a list of intervals.
+     *
+     * @return String representation
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder("{");
+        for (int i = 0; i < this.lows.length; i++) {
+            if (i != 0) {
+                out.append(", ");
+            }
+            out.append('[').append(this.lows[i]).append(", ").append(this.highs[i]).append(']');
+        }
+        return out.append('}').toString();
+    }
+
+    /**
+     * Find the last interval whose lower bound is at most the value.
+     *
+     * @return The index of the interval, or -1 if every interval starts after the value
+     */
+    private int intervalAtOrBefore(long value) {
+        int i = Arrays.binarySearch(this.lows, value);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /**
+     * Generate the complement of this set among all longs.
+     */
+    private RangeSet gaps() {
+        Builder builder = new Builder(this.lows.length + 1);
+        long start = Long.MIN_VALUE;
+        for (int i = 0; i < this.lows.length; i++) {
+            if (this.lows[i] > start) {
+                builder.append(start, this.lows[i] - 1);
+            }
+            if (this.highs[i] == Long.MAX_VALUE) return builder.build();
+            start = this.highs[i] + 1;
+        }
+        builder.append(start, Long.MAX_VALUE);
+        return builder.build();
+    }
+
+    /**
+     * Collects intervals given in order of their lower bounds, merging any that overlap or touch.
+     */
+    private static final class Builder {
+        private long[] lows;
+        private long[] highs;
+        private int count = 0;
+
+        private Builder(int capacity) {
+            this.lows = new long[Math.max(capacity, 1)];
+            this.highs = new long[Math.max(capacity, 1)];
+        }
+
+        private void append(long low, long high) {
+            if (this.count > 0) {
+                long last = this.highs[this.count - 1];
+                // Written to avoid overflowing when last is Long.MAX_VALUE
+                if (low <= last || low - 1 == last) {
+                    this.highs[this.count - 1] = Math.max(last, high);
+                    return;
+                }
+            }
+            if (this.count == this.lows.length) {
+                this.lows = Arrays.copyOf(this.lows, this.count * 2);
+                this.highs = Arrays.copyOf(this.highs, this.count * 2);
+            }
+            this.lows[this.count] = low;
+            this.highs[this.count] = high;
+            this.count++;
+        }
+
+        private RangeSet build() {
+            if (this.count == 0) return EMPTY;
+            return new RangeSet(Arrays.copyOf(this.lows, this.count), Arrays.copyOf(this.highs, this.count));
+        }
+    }
+}
@@ -0,0 +1,536 @@
+package sets;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A binary relation on a set, i.e. a subset of the cartesian product of a set (the domain) with itself.
+ * An element a is related to an element b, written aRb, if the ordered pair (a, b) is in the relation.
+ *
+ * The relation is stored as a bit matrix with one row per element of the domain,
+ * packed 64 entries to a long. Closures, compositions and property checks work on whole
+ * words at a time instead of probing a set of {@link OrderedGroup} pairs.
+ *
+ * The elements of the domain are copied when the relation is created,
+ * so later changes to the domain set are not reflected.
+ *
+ * @author Gavin Borne
+ */
+public class Relation<E> {
+    // Largest array the JVM reliably allocates
+    private static final long MAX_WORDS = Integer.MAX_VALUE - 8;
+
+    private final Object[] elements;
+    private final Map<Object, Integer> positions;
+    private final int words;
+    // Row i occupies bits[i * words, (i + 1) * words), and bit j of the row is set if element i is related to element j
+    private final long[] bits;
+
+    /**
+     * Create an empty relation on a domain.
+     *
+     * @param domain - Set the relation is defined on
+     * @throws IllegalArgumentException If the domain is too large to store as a bit matrix in one array
+     */
+    public Relation(DiscreteSet<E> domain) throws IllegalArgumentException {
+        this(domain.toArray());
+    }
+
+    /**
+     * Create a relation on a domain from a set of ordered pairs,
+     * such as a subset of {@code domain.cartesianProduct(domain)}.
+     *
+     * @param domain - Set the relation is defined on
+     * @param pairs - Ordered pairs (a, b) such that aRb
+     * @throws IllegalArgumentException If a group is not a pair of elements of the domain,
+     *                                  or the domain is too large to store as a bit matrix in one array
+     */
+    @SuppressWarnings("unchecked")
+    public Relation(DiscreteSet<E> domain, DiscreteSet<OrderedGroup> pairs) throws IllegalArgumentException {
+        this(domain);
+        for (OrderedGroup pair : pairs) {
+            if (pair.size() != 2) {
+                throw new IllegalArgumentException("Relation arg 'pairs' can only contain ordered pairs");
+            }
+            add((E) pair.get(0), (E) pair.get(1));
+        }
+    }
+
+    private Relation(Object[] elements) throws IllegalArgumentException {
+        long words = (elements.length + Long.SIZE - 1) / Long.SIZE;
+        if (elements.length * words > MAX_WORDS) {
+            throw new IllegalArgumentException("Relation arg 'domain' has too many elements (" + elements.length + ") to store as a bit matrix");
+        }
+
+        this.elements = elements;
+        this.positions = new HashMap<>();
+        for (int i = 0; i < elements.length; i++) {
+            this.positions.put(elements[i], i);
+        }
+        this.words = (int) words;
+        this.bits = new long[elements.length * this.words];
+    }
+
+    private Relation(Relation<E> other) {
+        this.elements = other.elements;
+        this.positions = other.positions;
+        this.words = other.words;
+        this.bits = other.bits.clone();
+    }
+
+    /**
+     * Create the identity relation on a domain, in which every element is related only to itself.
+     *
+     * @param <E> Type of the elements
+     * @param domain - Set the relation is defined on
+     * @return The identity relation
+     * @throws IllegalArgumentException If the domain is too large to store as a bit matrix in one array
+     */
+    public static <E> Relation<E> identity(DiscreteSet<E> domain) throws IllegalArgumentException {
+        Relation<E> relation = new Relation<>(domain);
+        relation.setDiagonal();
+        return relation;
+    }
+
+    /**
+     * Get the domain of this relation.
+     *
+     * @return A new set containing the elements of the domain
+     */
+    @SuppressWarnings("unchecked")
+    public DiscreteSet<E> getDomain() {
+        DiscreteSet<E> domain = new GenericDiscreteSet<>();
+        for (Object element : this.elements) {
+            domain.add((E) element);
+        }
+        return domain;
+    }
+
+    /**
+     * Relate a to b.
+     *
+     * @param a - First element of the pair
+     * @param b - Second element of the pair
+     * @return Whether this operation changed the relation
+     * @throws IllegalArgumentException If a or b is not in the domain
+     */
+    public boolean add(E a, E b) throws IllegalArgumentException {
+        long index = bitIndex(a, b);
+        long mask = 1L << index;
+        long old = this.bits[(int) (index >>> 6)];
+        this.bits[(int) (index >>> 6)] = old | mask;
+        return (old & mask) == 0;
+    }
+
+    /**
+     * Stop relating a to b.
+     *
+     * @param a - First element of the pair
+     * @param b - Second element of the pair
+     * @return Whether this operation changed the relation
+     * @throws IllegalArgumentException If a or b is not in the domain
+     */
+    public boolean remove(E a, E b) throws IllegalArgumentException {
+        long index = bitIndex(a, b);
+        long mask = 1L << index;
+        long old = this.bits[(int) (index >>> 6)];
+        this.bits[(int) (index >>> 6)] = old & ~mask;
+        return (old & mask) != 0;
+    }
+
+    /**
+     * Check whether a is related to b.
+     *
+     * @param a - First element of the pair
+     * @param b - Second element of the pair
+     * @return Whether aRb, or false if a or b is not in the domain
+     */
+    public boolean contains(Object a, Object b) {
+        Integer i = this.positions.get(a);
+        Integer j = this.positions.get(b);
+        if (i == null || j == null) return false;
+        return testBit(i, j);
+    }
+
+    /**
+     * Calculate the number of ordered pairs in this relation.
+     *
+     * @return The number of related pairs
+     */
+    public long size() {
+        // Counted a row at a time, since a large relation can hold more pairs than an int counts
+        long size = 0;
+        for (int i = 0; i < this.elements.length; i++) {
+            size += SetKernels.cardinality(this.bits, i * this.words, this.words);
+        }
+        return size;
+    }
+
+    /**
+     * Determine whether this relation is empty.
+     *
+     * @return Whether no elements are related
+     */
+    public boolean isEmpty() {
+        return SetKernels.isZero(this.bits, 0, this.bits.length);
+    }
+
+    /**
+     * Convert this relation into a set of ordered pairs.
+     *
+     * @return The set of ordered pairs (a, b) such that aRb
+     */
+    public DiscreteSet<OrderedGroup> toPairs() {
+        DiscreteSet<OrderedGroup> pairs = new GenericDiscreteSet<>();
+        for (int i = 0; i < this.elements.length; i++) {
+            for (int w = 0; w < this.words; w++) {
+                for (long word = this.bits[i * this.words + w]; word != 0; word &= word - 1) {
+                    int j = w * Long.SIZE + Long.numberOfTrailingZeros(word);
+                    pairs.add(new OrderedGroup(this.elements[i], this.elements[j]));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Determine whether this relation is reflexive.
+     * A relation is reflexive if every element is related to itself.
+     *
+     * @return Whether this relation is reflexive
+     */
+    public boolean isReflexive() {
+        for (int i = 0; i < this.elements.length; i++) {
+            if (!testBit(i, i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Determine whether this relation is irreflexive.
+     * A relation is irreflexive if no element is related to itself.
+     *
+     * @return Whether this relation is irreflexive
+     */
+    public boolean isIrreflexive() {
+        for (int i = 0; i < this.elements.length; i++) {
+            if (testBit(i, i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Determine whether this relation is symmetric.
+     * A relation is symmetric if aRb implies bRa.
+     *
+     * @return Whether this relation is symmetric
+     */
+    public boolean isSymmetric() {
+        return Arrays.equals(this.bits, transposedBits());
+    }
+
+    /**
+     * Determine whether this relation is antisymmetric.
+     * A relation is antisymmetric if aRb and bRa imply a = b.
+     *
+     * @return Whether this relation is antisymmetric
+     */
+    public boolean isAntisymmetric() {
+        long[] transposed = transposedBits();
+        for (int i = 0; i < this.elements.length; i++) {
+            for (int w = 0; w < this.words; w++) {
+                long both = this.bits[i * this.words + w] & transposed[i * this.words + w];
+                // Only the diagonal entry may be set in both directions
+                if (w == i >>> 6) {
+                    both &= ~(1L << i);
+                }
+                if (both != 0) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determine whether this relation is transitive.
+     * A relation is transitive if aRb and bRc imply aRc.
+     *
+     * @return Whether this relation is transitive
+     */
+    public boolean isTransitive() {
+        // Transitive if, for every aRb, the row of b is contained in the row of a
+        for (int i = 0; i < this.elements.length; i++) {
+            for (int w = 0; w < this.words; w++) {
+                for (long word = this.bits[i * this.words + w]; word != 0; word &= word - 1) {
+                    int j = w * Long.SIZE + Long.numberOfTrailingZeros(word);
+                    if (!isRowSubset(j, i)) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determine whether this relation is an equivalence relation.
+     * An equivalence relation is reflexive, symmetric and transitive.
+     *
+     * @return Whether this relation is an equivalence relation
+     */
+    public boolean isEquivalence() {
+        return isReflexive() && isSymmetric() && isTransitive();
+    }
+
+    /**
+     * Determine whether this relation is a partial order.
+     * A partial order is reflexive, antisymmetric and transitive.
+     *
+     * @return Whether this relation is a partial order
+     */
+    public boolean isPartialOrder() {
+        return isReflexive() && isAntisymmetric() && isTransitive();
+    }
+
+    /**
+     * Generate the equivalence classes of the smallest equivalence relation containing this relation.
+     * For an equivalence relation these are exactly its equivalence classes.
+     *
+     * @return The equivalence classes, which partition the domain
+     */
+    @SuppressWarnings("unchecked")
+    public List<DiscreteSet<E>> equivalenceClasses() {
+        DisjointSets<E> classes = new DisjointSets<>(getDomain());
+        for (int i = 0; i < this.elements.length; i++) {
+            for (int w = 0; w < this.words; w++) {
+                for (long word = this.bits[i * this.words + w]; word != 0; word &= word - 1) {
+                    int j = w * Long.SIZE + Long.numberOfTrailingZeros(word);
+                    classes.merge((E) this.elements[i], (E) this.elements[j]);
+                }
+            }
+        }
+        return classes.classes();
+    }
+
+    /**
+     * Generate the inverse (converse) of this relation.
+     * The inverse of a relation R relates b to a whenever aRb.
+     *
+     * @return The inverse of this relation
+     */
+    public Relation<E> inverse() {
+        Relation<E> inverse = new Relation<>(this.elements);
+        System.arraycopy(transposedBits(), 0, inverse.bits, 0, this.bits.length);
+        return inverse;
+    }
+
+    /**
+     * Generate the union of this relation and another relation on the same domain.
+     *
+     * @param other - Other relation
+     * @return The relation containing the pairs of either relation
+     * @throws IllegalArgumentException If the relations have different domains
+     */
+    public Relation<E> union(Relation<E> other) throws IllegalArgumentException {
+        checkSameDomain(other);
+        Relation<E> union = new Relation<>(this);
+        SetKernels.or(union.bits, 0, other.bits, 0, this.bits.length);
+        return union;
+    }
+
+    /**
+     * Generate the intersection of this relation and another relation on the same domain.
+     *
+     * @param other - Other relation
+     * @return The relation containing the pairs of both relations
+     * @throws IllegalArgumentException If the relations have different domains
+     */
+    public Relation<E> intersection(Relation<E> other) throws IllegalArgumentException {
+        checkSameDomain(other);
+        Relation<E> intersection = new Relation<>(this);
+        SetKernels.and(intersection.bits, 0, other.bits, 0, this.bits.length);
+        return intersection;
+    }
+
+    /**
+     * Generate the composition of this relation followed by another relation on the same domain.
+     * The composition relates a to c whenever aRb and bSc for some b, where R is this relation
+     * and S is the other relation.
+     *
+     * @param other - Relation to apply after this one
+     * @return The composition of the two relations
+     * @throws IllegalArgumentException If the relations have different domains
+     */
+    public Relation<E> compose(Relation<E> other) throws IllegalArgumentException {
+        checkSameDomain(other);
+        Relation<E> composition = new Relation<>(this.elements);
+
+        // Row a of the composition is the union of the rows of S for every b with aRb
+        for (int i = 0; i < this.elements.length; i++) {
+            for (int w = 0; w < this.words; w++) {
+                for (long word = this.bits[i * this.words + w]; word != 0; word &= word - 1) {
+                    int j = w * Long.SIZE + Long.numberOfTrailingZeros(word);
+                    composition.orRow(i, other.bits, j);
+                }
+            }
+        }
+        return composition;
+    }
+
+    /**
+     * Generate the reflexive closure of this relation,
+     * the smallest reflexive relation containing this relation.
+     *
+     * @return The reflexive closure
+     */
+    public Relation<E> reflexiveClosure() {
+        Relation<E> closure = new Relation<>(this);
+        closure.setDiagonal();
+        return closure;
+    }
+
+    /**
+     * Generate the symmetric closure of this relation,
+     * the smallest symmetric relation containing this relation.
+     *
+     * @return The symmetric closure
+     */
+    public Relation<E> symmetricClosure() {
+        Relation<E> closure = new Relation<>(this);
+        SetKernels.or(closure.bits, 0, transposedBits(), 0, this.bits.length);
+        return closure;
+    }
+
+    /**
+     * Generate the transitive closure of this relation,
+     * the smallest transitive relation containing this relation.
+     * This uses Warshall's algorithm on whole rows at a time.
+     *
+     * @return The transitive closure
+     */
+    public Relation<E> transitiveClosure() {
+        Relation<E> closure = new Relation<>(this);
+        int n = this.elements.length;
+
+        // After step k, aRb whenever there is a path from a to b through elements 0..k
+        for (int k = 0; k < n; k++) {
+            for (int i = 0; i < n; i++) {
+                if (closure.testBit(i, k)) {
+                    closure.orRow(i, closure.bits, k);
+                }
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * Determine if this relation is equal to another relation.
+     * Two relations are equal if they have the same domain, in the same order, and relate the same pairs.
+     *
+     * @param other - Other relation
+     * @return Whether the two relations are equal
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof Relation)) return false;
+
+        Relation<?> otherRelation = (Relation<?>) other;
+        return Arrays.equals(this.elements, otherRelation.elements)
+            && Arrays.equals(this.bits, otherRelation.bits);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(this.elements) + Arrays.hashCode(this.bits);
+    }
+
+    /**
+     * Generate a String representation of this relation as a set of ordered pairs.
+     *
+     * @return String representation
+     */
+    @Override
+    public String toString() {
+        return toPairs().toString();
+    }
+
+    /**
+     * Get the position of the bit for aRb in the whole matrix, which can exceed the int range for large domains.
+     */
+    private long bitIndex(Object a, Object b) throws IllegalArgumentException {
+        Integer i = this.positions.get(a);
+        Integer j = this.positions.get(b);
+        if (i == null || j == null) {
+            throw new IllegalArgumentException("Pair (" + a + ", " + b + ") is not in the domain of this relation");
+        }
+        return ((long) i * this.words) * Long.SIZE + j;
+    }
+
+    private boolean testBit(int i, int j) {
+        return (this.bits[i * this.words + (j >>> 6)] & (1L << j)) != 0;
+    }
+
+    private void setDiagonal() {
+        for (int i = 0; i < this.elements.length; i++) {
+            this.bits[i * this.words + (i >>> 6)] |= 1L << i;
+        }
+    }
+
+    /**
+     * Or row j of source into row i of this relation.
+     */
+    private void orRow(int i, long[] source, int j) {
+        SetKernels.or(this.bits, i * this.words, source, j * this.words, this.words);
+    }
+
+    private boolean isRowSubset(int i, int j) {
+        return SetKernels.isSubset(this.bits, i * this.words, this.bits, j * this.words, this.words);
+    }
+
+    private void checkSameDomain(Relation<E> other) throws IllegalArgumentException {
+        if (!Arrays.equals(this.elements, other.elements)) {
+            throw new IllegalArgumentException("Relations must be defined on the same domain");
+        }
+    }
+
+    /**
+     * Transpose the bit matrix one 64 x 64 block at a time.
+     */
+    private long[] transposedBits() {
+        int n = this.elements.length;
+        long[] transposed = new long[this.bits.length];
+        long[] block = new long[Long.SIZE];
+
+        for (int blockRow = 0; blockRow < this.words; blockRow++) {
+            for (int blockColumn = 0; blockColumn < this.words; blockColumn++) {
+                for (int r = 0; r < Long.SIZE; r++) {
+                    int row = blockRow * Long.SIZE + r;
+                    block[r] = row < n ? this.bits[row * this.words + blockColumn] : 0;
+                }
+                transpose64(block);
+                for (int r = 0; r < Long.SIZE; r++) {
+                    int row = blockColumn * Long.SIZE + r;
+                    if (row < n) {
+                        transposed[row * this.words + blockRow] = block[r];
+                    }
+                }
+            }
+        }
+        return transposed;
+    }
+
+    /**
+     * Transpose a 64 x 64 bit matrix in place, where bit j of block[i] is entry (i, j),
+     * by recursively swapping the off-diagonal quadrants.
+     */
+    private static void transpose64(long[] block) {
+        long mask = 0x00000000FFFFFFFFL;
+        for (int j = 32; j != 0; j >>>= 1, mask ^= mask << j) {
+            for (int k = 0; k < Long.SIZE; k = ((k | j) + 1) & ~j) {
+                long t = ((block[k] >>> j) ^ block[k | j]) & mask;
+                block[k] ^= t << j;
+                block[k | j] ^= t;
+            }
+        }
+    }
+}
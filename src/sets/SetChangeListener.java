@@ -0,0 +1,29 @@
+package sets;
+
+/**
+ * A listener that is notified of every element added to or removed from a {@link DiscreteSet}.
+ *
+ * Listeners are called after the change has been made, once for each element that actually changed,
+ * so adding an element the set already contains does not notify anything.
+ * Bulk operations such as {@link DiscreteSet#removeAll(java.util.Collection)} and {@link DiscreteSet#clear()}
+ * notify listeners once per element.
+ *
+ * @author Gavin Borne
+ */
+public interface SetChangeListener<E> {
+    /**
+     * Called after an element has been added to a set.
+     *
+     * @param source - Set that changed
+     * @param element - Element that was added
+     */
+    void elementAdded(DiscreteSet<?> source, E element);
+
+    /**
+     * Called after an element has been removed from a set.
+     *
+     * @param source - Set that changed
+     * @param element - Element that was removed
+     */
+    void elementRemoved(DiscreteSet<?> source, E element);
+}
@@ -0,0 +1,471 @@
+package sets;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * A compact container for a large family of sets over a shared pool of elements.
+ *
+ * Every distinct element is given an int id by a dictionary, and the members of the family
+ * are stored one after another as sorted runs of ids in a single flat array, with a second array
+ * holding where each member starts (compressed sparse row layout). A family of a million small sets
+ * is then two int arrays instead of a million set objects with their own tables and nodes,
+ * and walking the family reads memory in order.
+ *
+ * Members are numbered in the order they are added and cannot be changed afterwards.
+ * {@link #get(int)} returns a read-only {@link DiscreteSet} view of a member without copying it,
+ * and the pairwise algebra methods merge the sorted id runs of two members directly.
+ *
+ * @author Gavin Borne
+ */
+public class SetFamily<E>
+    implements Iterable<DiscreteSet<E>>
+{
+    private final Map<Object, Integer> ids = new HashMap<>();
+    private Object[] elementsById = new Object[16];
+    private int elementCount = 0;
+
+    // Member i is memberIds[offsets[i], offsets[i + 1]), sorted in increasing order
+    private int[] memberIds = new int[64];
+    private int[] offsets = new int[17];
+    private int size = 0;
+
+    /**
+     * Create an empty family.
+     */
+    public SetFamily() {}
+
+    /**
+     * Create a family containing the given sets, in iteration order.
+     *
+     * @param sets - Sets to add
+     * @return The family of the sets
+     */
+    public static <E> SetFamily<E> of(Iterable<? extends Collection<? extends E>> sets) {
+        SetFamily<E> family = new SetFamily<>();
+        for (Collection<? extends E> set : sets) {
+            family.add(set);
+        }
+        return family;
+    }
+
+    /**
+     * Create the family of every subset of a set (its power set).
+     * Member i is the subset containing the jth element of the set, in iteration order, exactly when bit j of i is set.
+     *
+     * @param set - Set to take the power set of
+     * @return The power set as a family
+     * @throws IllegalArgumentException If the power set is too large to store in one array
+     */
+    public static <E> SetFamily<E> powerSetOf(DiscreteSet<E> set) throws IllegalArgumentException {
+        int n = set.cardinality();
+        // Each element is in half of the 2^n subsets
+        long total = n == 0 ? 0 : (long) n << (n - 1);
+        if (n >= Integer.SIZE - 1 || total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("powerSetOf arg 'set' has too many elements (" + n + ") to store every subset");
+        }
+
+        SetFamily<E> family = new SetFamily<>();
+        for (E element : set) {
+            family.idOf(element);
+        }
+
+        int count = 1 << n;
+        family.memberIds = new int[(int) total];
+        family.offsets = new int[count + 1];
+        int position = 0;
+        for (int mask = 0; mask < count; mask++) {
+            family.offsets[mask] = position;
+            for (int bits = mask; bits != 0; bits &= bits - 1) {
+                family.memberIds[position++] = Integer.numberOfTrailingZeros(bits);
+            }
+        }
+        family.offsets[count] = position;
+        family.size = count;
+        return family;
+    }
+
+    /**
+     * Add a set as the next member of this family.
+     *
+     * @param set - Set to add
+     * @return The index of the new member
+     */
+    public int add(Collection<? extends E> set) {
+        int start = this.offsets[this.size];
+        ensureIdCapacity(start + set.size());
+
+        int end = start;
+        for (E element : set) {
+            this.memberIds[end++] = idOf(element);
+        }
+        Arrays.sort(this.memberIds, start, end);
+        end = removeDuplicates(this.memberIds, start, end);
+
+        if (this.size + 2 > this.offsets.length) {
+            this.offsets = Arrays.copyOf(this.offsets, this.offsets.length * 2);
+        }
+        this.offsets[++this.size] = end;
+        return this.size - 1;
+    }
+
+    /**
+     * Get the number of members in this family.
+     *
+     * @return The number of sets in this family
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Get the number of distinct elements across every member.
+     *
+     * @return The number of elements in the dictionary
+     */
+    public int elementCount() {
+        return this.elementCount;
+    }
+
+    /**
+     * Estimate the memory used by this family, including its dictionary of ids but not the elements themselves.
+     *
+     * @return The approximate size in bytes
+     */
+    public long memoryFootprint() {
+        return MemoryFootprint.OBJECT
+            // Each entry of the dictionary also boxes its id
+            + MemoryFootprint.hashMap(this.elementCount, this.elementCount) + 16L * this.elementCount
+            + MemoryFootprint.array(this.elementsById.length, MemoryFootprint.REFERENCE)
+            + MemoryFootprint.array(this.memberIds.length, Integer.BYTES)
+            + MemoryFootprint.array(this.offsets.length, Integer.BYTES);
+    }
+
+    /**
+     * Shrink the arrays of this family to what its members use.
+     * Members can still be added afterwards, at the cost of growing the arrays again.
+     */
+    public void compact() {
+        this.elementsById = Arrays.copyOf(this.elementsById, Math.max(this.elementCount, 1));
+        this.memberIds = Arrays.copyOf(this.memberIds, this.offsets[this.size]);
+        this.offsets = Arrays.copyOf(this.offsets, this.size + 1);
+    }
+
+    /**
+     * Get the cardinality of a member.
+     *
+     * @param member - Index of the member
+     * @return The number of elements in the member
+     * @throws IndexOutOfBoundsException If member is out of range
+     */
+    public int cardinality(int member) throws IndexOutOfBoundsException {
+        checkMember(member);
+        return this.offsets[member + 1] - this.offsets[member];
+    }
+
+    /**
+     * Check whether a member contains an element.
+     *
+     * @param member - Index of the member
+     * @param element - Element to check
+     * @return Whether the member contains the element
+     * @throws IndexOutOfBoundsException If member is out of range
+     */
+    public boolean contains(int member, Object element) throws IndexOutOfBoundsException {
+        checkMember(member);
+        Integer id = this.ids.get(element);
+        return id != null && Arrays.binarySearch(this.memberIds, this.offsets[member], this.offsets[member + 1], id) >= 0;
+    }
+
+    /**
+     * Get a read-only view of a member as a set.
+     * The view does not copy the member, so creating one is cheap.
+     *
+     * @param member - Index of the member
+     * @return The member as a set
+     * @throws IndexOutOfBoundsException If member is out of range
+     */
+    public DiscreteSet<E> get(int member) throws IndexOutOfBoundsException {
+        checkMember(member);
+        return GenericDiscreteSet.view(new MemberView(member));
+    }
+
+    /**
+     * Call an action for every element of a member, in order of element id.
+     *
+     * @param member - Index of the member
+     * @param action - Action to call for each element
+     * @throws IndexOutOfBoundsException If member is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachElement(int member, Consumer<? super E> action) throws IndexOutOfBoundsException {
+        checkMember(member);
+        for (int i = this.offsets[member]; i < this.offsets[member + 1]; i++) {
+            action.accept((E) this.elementsById[this.memberIds[i]]);
+        }
+    }
+
+    /**
+     * Generate an iterator over views of every member, in order.
+     *
+     * @return Iterator over the members of this family
+     */
+    @Override
+    public Iterator<DiscreteSet<E>> iterator() {
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < size;
+            }
+
+            @Override
+            public DiscreteSet<E> next() {
+                if (this.next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return get(this.next++);
+            }
+        };
+    }
+
+    /**
+     * Generate the union of two members.
+     *
+     * @param a - Index of the first member
+     * @param b - Index of the second member
+     * @return The union of the two members
+     * @throws IndexOutOfBoundsException If a or b is out of range
+     */
+    public DiscreteSet<E> union(int a, int b) throws IndexOutOfBoundsException {
+        checkMember(a);
+        checkMember(b);
+        int[] result = new int[cardinality(a) + cardinality(b)];
+        int length = SetKernels.union(this.memberIds, this.offsets[a], this.offsets[a + 1],
+                                      this.memberIds, this.offsets[b], this.offsets[b + 1], result);
+        return toSet(result, length);
+    }
+
+    /**
+     * Generate the intersection of two members.
+     *
+     * @param a - Index of the first member
+     * @param b - Index of the second member
+     * @return The intersection of the two members
+     * @throws IndexOutOfBoundsException If a or b is out of range
+     */
+    public DiscreteSet<E> intersection(int a, int b) throws IndexOutOfBoundsException {
+        checkMember(a);
+        checkMember(b);
+        int[] result = new int[Math.min(cardinality(a), cardinality(b))];
+        int length = SetKernels.intersection(this.memberIds, this.offsets[a], this.offsets[a + 1],
+                                             this.memberIds, this.offsets[b], this.offsets[b + 1], result);
+        return toSet(result, length);
+    }
+
+    /**
+     * Generate the difference between two members, the elements of the first that are not in the second.
+     *
+     * @param a - Index of the member to take elements from
+     * @param b - Index of the member of elements to leave out
+     * @return The difference between the two members
+     * @throws IndexOutOfBoundsException If a or b is out of range
+     */
+    public DiscreteSet<E> difference(int a, int b) throws IndexOutOfBoundsException {
+        checkMember(a);
+        checkMember(b);
+        int[] result = new int[cardinality(a)];
+        int length = SetKernels.difference(this.memberIds, this.offsets[a], this.offsets[a + 1],
+                                           this.memberIds, this.offsets[b], this.offsets[b + 1], result);
+        return toSet(result, length);
+    }
+
+    /**
+     * Calculate the cardinality of the intersection of two members without building it.
+     *
+     * @param a - Index of the first member
+     * @param b - Index of the second member
+     * @return The number of elements the two members have in common
+     * @throws IndexOutOfBoundsException If a or b is out of range
+     */
+    public int intersectionSize(int a, int b) throws IndexOutOfBoundsException {
+        checkMember(a);
+        checkMember(b);
+        return SetKernels.intersectionSize(this.memberIds, this.offsets[a], this.offsets[a + 1],
+                                           this.memberIds, this.offsets[b], this.offsets[b + 1]);
+    }
+
+    /**
+     * Check whether one member is a subset of another.
+     *
+     * @param a - Index of the possible subset
+     * @param b - Index of the possible superset
+     * @return Whether every element of the first member is in the second
+     * @throws IndexOutOfBoundsException If a or b is out of range
+     */
+    public boolean isSubset(int a, int b) throws IndexOutOfBoundsException {
+        checkMember(a);
+        checkMember(b);
+        return SetKernels.isSubset(this.memberIds, this.offsets[a], this.offsets[a + 1],
+                                   this.memberIds, this.offsets[b], this.offsets[b + 1]);
+    }
+
+    /**
+     * Generate the union of every member.
+     *
+     * @return The union of the family
+     */
+    public DiscreteSet<E> unionOfAll() {
+        boolean[] seen = new boolean[this.elementCount];
+        int end = this.offsets[this.size];
+        for (int i = 0; i < end; i++) {
+            seen[this.memberIds[i]] = true;
+        }
+
+        int[] result = new int[this.elementCount];
+        int length = 0;
+        for (int id = 0; id < this.elementCount; id++) {
+            if (seen[id]) result[length++] = id;
+        }
+        return toSet(result, length);
+    }
+
+    /**
+     * Generate the intersection of every member.
+     *
+     * @return The intersection of the family, or the empty set if the family has no members
+     */
+    public DiscreteSet<E> intersectionOfAll() {
+        int[] counts = new int[this.elementCount];
+        int end = this.offsets[this.size];
+        for (int i = 0; i < end; i++) {
+            counts[this.memberIds[i]]++;
+        }
+
+        int[] result = new int[this.elementCount];
+        int length = 0;
+        for (int id = 0; id < this.elementCount && this.size > 0; id++) {
+            if (counts[id] == this.size) result[length++] = id;
+        }
+        return toSet(result, length);
+    }
+
+    /**
+     * Find every member containing an element.
+     *
+     * @param element - Element to look for
+     * @return The indices of the members containing the element, in increasing order
+     */
+    public int[] membersContaining(Object element) {
+        Integer id = this.ids.get(element);
+        if (id == null) return new int[0];
+
+        int[] result = new int[this.size];
+        int length = 0;
+        for (int member = 0; member < this.size; member++) {
+            if (Arrays.binarySearch(this.memberIds, this.offsets[member], this.offsets[member + 1], id) >= 0) {
+                result[length++] = member;
+            }
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    @SuppressWarnings("unchecked")
+    private DiscreteSet<E> toSet(int[] ids, int length) {
+        DiscreteSet<E> set = new GenericDiscreteSet<>();
+        for (int i = 0; i < length; i++) {
+            set.add((E) this.elementsById[ids[i]]);
+        }
+        return set;
+    }
+
+    private int idOf(Object element) {
+        Integer id = this.ids.get(element);
+        if (id != null) return id;
+
+        if (this.elementCount == this.elementsById.length) {
+            this.elementsById = Arrays.copyOf(this.elementsById, this.elementCount * 2);
+        }
+        this.elementsById[this.elementCount] = element;
+        this.ids.put(element, this.elementCount);
+        return this.elementCount++;
+    }
+
+    private void ensureIdCapacity(int needed) {
+        if (needed > this.memberIds.length) {
+            this.memberIds = Arrays.copyOf(this.memberIds, Math.max(needed, this.memberIds.length * 2));
+        }
+    }
+
+    private void checkMember(int member) throws IndexOutOfBoundsException {
+        if (member < 0 || member >= this.size) {
+            throw new IndexOutOfBoundsException("Member " + member + " out of bounds for family of size " + this.size);
+        }
+    }
+
+    private static int removeDuplicates(int[] ids, int start, int end) {
+        if (end - start < 2) return end;
+
+        int kept = start + 1;
+        for (int i = start + 1; i < end; i++) {
+            if (ids[i] != ids[kept - 1]) {
+                ids[kept++] = ids[i];
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * The elements of one member, read straight from the flat arrays.
+     */
+    private final class MemberView
+        extends AbstractSet<E>
+    {
+        private final int start;
+        private final int end;
+
+        private MemberView(int member) {
+            this.start = offsets[member];
+            this.end = offsets[member + 1];
+        }
+
+        @Override
+        public int size() {
+            return this.end - this.start;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer id = ids.get(o);
+            return id != null && Arrays.binarySearch(memberIds, this.start, this.end, id) >= 0;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<>() {
+                private int next = start;
+
+                @Override
+                public boolean hasNext() {
+                    return this.next < end;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public E next() {
+                    if (this.next >= end) {
+                        throw new NoSuchElementException();
+                    }
+                    return (E) elementsById[memberIds[this.next++]];
+                }
+            };
+        }
+    }
+}
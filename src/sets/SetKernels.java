@@ -0,0 +1,289 @@
+package sets;
+
+/**
+ * Inner loops for set algebra on the two compact set layouts used in this package:
+ * bitsets stored as ranges of a long[] (one bit per element id), and sorted ranges of an int[] of element ids.
+ *
+ * The bitset kernels are plain counted loops over the words with no branches or calls in the body:
+ * loops shaped for auto-vectorization, which the JIT compiler can turn into vector instructions but does not have to.
+ * Checks that can stop early, like {@link #isSubset}, work through fixed-size chunks without branching
+ * and only test the result between chunks, so each chunk keeps that shape.
+ *
+ * The sorted kernels choose their algorithm at runtime: ranges of similar length are merged
+ * in a single branch-free pass, and when one range is much longer than the other, each id of the
+ * shorter range is found in the longer one by galloping search, so the cost follows the shorter range.
+ *
+ * @author Gavin Borne
+ */
+final class SetKernels {
+    // Number of words checked between early exits
+    private static final int CHUNK = 16;
+    // A range this many times longer than the other is searched instead of merged
+    private static final int GALLOP_RATIO = 32;
+
+    private SetKernels() {}
+
+    /**
+     * Or a range of words into another: target |= source.
+     */
+    static void or(long[] target, int targetFrom, long[] source, int sourceFrom, int length) {
+        for (int i = 0; i < length; i++) {
+            target[targetFrom + i] |= source[sourceFrom + i];
+        }
+    }
+
+    /**
+     * And a range of words into another: target &= source.
+     */
+    static void and(long[] target, int targetFrom, long[] source, int sourceFrom, int length) {
+        for (int i = 0; i < length; i++) {
+            target[targetFrom + i] &= source[sourceFrom + i];
+        }
+    }
+
+    /**
+     * Clear the bits of one range of words that are set in another: target &= ~source.
+     */
+    static void andNot(long[] target, int targetFrom, long[] source, int sourceFrom, int length) {
+        for (int i = 0; i < length; i++) {
+            target[targetFrom + i] &= ~source[sourceFrom + i];
+        }
+    }
+
+    /**
+     * Xor a range of words into another: target ^= source.
+     */
+    static void xor(long[] target, int targetFrom, long[] source, int sourceFrom, int length) {
+        for (int i = 0; i < length; i++) {
+            target[targetFrom + i] ^= source[sourceFrom + i];
+        }
+    }
+
+    /**
+     * Count the set bits in a range of words.
+     */
+    static int cardinality(long[] words, int from, int length) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            count += Long.bitCount(words[from + i]);
+        }
+        return count;
+    }
+
+    /**
+     * Count the bits set in both of two ranges of words, without building their intersection.
+     */
+    static int andCardinality(long[] a, int aFrom, long[] b, int bFrom, int length) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            count += Long.bitCount(a[aFrom + i] & b[bFrom + i]);
+        }
+        return count;
+    }
+
+    /**
+     * Check whether every bit set in one range of words is also set in another.
+     */
+    static boolean isSubset(long[] a, int aFrom, long[] b, int bFrom, int length) {
+        for (int chunk = 0; chunk < length; chunk += CHUNK) {
+            int end = Math.min(length, chunk + CHUNK);
+            long extra = 0;
+            for (int i = chunk; i < end; i++) {
+                extra |= a[aFrom + i] & ~b[bFrom + i];
+            }
+            if (extra != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Check whether two ranges of words have any bit set in both.
+     */
+    static boolean intersects(long[] a, int aFrom, long[] b, int bFrom, int length) {
+        for (int chunk = 0; chunk < length; chunk += CHUNK) {
+            int end = Math.min(length, chunk + CHUNK);
+            long common = 0;
+            for (int i = chunk; i < end; i++) {
+                common |= a[aFrom + i] & b[bFrom + i];
+            }
+            if (common != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check whether no bit is set in a range of words.
+     */
+    static boolean isZero(long[] words, int from, int length) {
+        for (int chunk = 0; chunk < length; chunk += CHUNK) {
+            int end = Math.min(length, chunk + CHUNK);
+            long any = 0;
+            for (int i = chunk; i < end; i++) {
+                any |= words[from + i];
+            }
+            if (any != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Write the union of two sorted ranges of ids into out, which must have room for both ranges.
+     *
+     * @return The number of ids written
+     */
+    static int union(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out) {
+        int i = aFrom;
+        int j = bFrom;
+        int length = 0;
+        while (i < aTo && j < bTo) {
+            int x = a[i];
+            int y = b[j];
+            out[length++] = Math.min(x, y);
+            i += x <= y ? 1 : 0;
+            j += y <= x ? 1 : 0;
+        }
+        System.arraycopy(a, i, out, length, aTo - i);
+        length += aTo - i;
+        System.arraycopy(b, j, out, length, bTo - j);
+        return length + bTo - j;
+    }
+
+    /**
+     * Write the intersection of two sorted ranges of ids into out, which must have room for the shorter range.
+     *
+     * @return The number of ids written
+     */
+    static int intersection(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out) {
+        if (aTo - aFrom > bTo - bFrom) {
+            return intersection(b, bFrom, bTo, a, aFrom, aTo, out);
+        }
+
+        int length = 0;
+        if (isSkewed(aTo - aFrom, bTo - bFrom)) {
+            int j = bFrom;
+            for (int i = aFrom; i < aTo && j < bTo; i++) {
+                j = gallop(b, j, bTo, a[i]);
+                if (j < bTo && b[j] == a[i]) {
+                    out[length++] = a[i];
+                }
+            }
+            return length;
+        }
+
+        int i = aFrom;
+        int j = bFrom;
+        while (i < aTo && j < bTo) {
+            int x = a[i];
+            int y = b[j];
+            // Always write, but only keep the write when the ids match
+            out[length] = x;
+            length += x == y ? 1 : 0;
+            i += x <= y ? 1 : 0;
+            j += y <= x ? 1 : 0;
+        }
+        return length;
+    }
+
+    /**
+     * Write the ids of one sorted range that are not in another into out, which must have room for the first range.
+     *
+     * @return The number of ids written
+     */
+    static int difference(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] out) {
+        int length = 0;
+        int j = bFrom;
+        boolean search = isSkewed(aTo - aFrom, bTo - bFrom) && bTo - bFrom > aTo - aFrom;
+        for (int i = aFrom; i < aTo; i++) {
+            int x = a[i];
+            if (search) {
+                j = gallop(b, j, bTo, x);
+            } else {
+                while (j < bTo && b[j] < x) j++;
+            }
+            out[length] = x;
+            length += j == bTo || b[j] != x ? 1 : 0;
+        }
+        return length;
+    }
+
+    /**
+     * Count the ids in both of two sorted ranges, without building their intersection.
+     */
+    static int intersectionSize(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo) {
+        if (aTo - aFrom > bTo - bFrom) {
+            return intersectionSize(b, bFrom, bTo, a, aFrom, aTo);
+        }
+
+        int count = 0;
+        if (isSkewed(aTo - aFrom, bTo - bFrom)) {
+            int j = bFrom;
+            for (int i = aFrom; i < aTo && j < bTo; i++) {
+                j = gallop(b, j, bTo, a[i]);
+                count += j < bTo && b[j] == a[i] ? 1 : 0;
+            }
+            return count;
+        }
+
+        int i = aFrom;
+        int j = bFrom;
+        while (i < aTo && j < bTo) {
+            int x = a[i];
+            int y = b[j];
+            count += x == y ? 1 : 0;
+            i += x <= y ? 1 : 0;
+            j += y <= x ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * Check whether every id of one sorted range is in another.
+     */
+    static boolean isSubset(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo) {
+        if (aTo - aFrom > bTo - bFrom) return false;
+
+        int j = bFrom;
+        boolean search = isSkewed(aTo - aFrom, bTo - bFrom);
+        for (int i = aFrom; i < aTo; i++) {
+            if (search) {
+                j = gallop(b, j, bTo, a[i]);
+            } else {
+                while (j < bTo && b[j] < a[i]) j++;
+            }
+            if (j == bTo || b[j] != a[i]) return false;
+            j++;
+        }
+        return true;
+    }
+
+    private static boolean isSkewed(int shorter, int longer) {
+        return (long) shorter * GALLOP_RATIO < longer;
+    }
+
+    /**
+     * Find the first position in ids[from, to) whose id is not less than the target,
+     * by doubling the step until the target is passed and then binary searching the last step.
+     *
+     * @return The position, or to if every id is less than the target
+     */
+    static int gallop(int[] ids, int from, int to, int target) {
+        int low = from;
+        int step = 1;
+        int high = from;
+        while (high < to && ids[high] < target) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        high = Math.min(high, to);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ids[middle] < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,150 @@
+package sets;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Opt-in measurements of set operations.
+ *
+ * While enabled, every call to {@link SetOperation measured operations} records its latency
+ * and result size in the {@link OperationStats} for that operation, and calls slower than the
+ * slow call threshold also emit a {@code sets.SlowSetOperation} Java Flight Recorder event
+ * with the cardinalities of the operands.
+ * While disabled (the default), each operation only pays for reading one volatile flag.
+ *
+ * The statistics can be read with {@link #stats} or {@link #forEach},
+ * for example to copy them into another metrics library.
+ *
+ * @author Gavin Borne
+ */
+public final class SetMetrics {
+    private static volatile boolean enabled = false;
+    private static volatile long slowThresholdNanos = Duration.ofMillis(100).toNanos();
+    private static final Map<SetOperation, OperationStats> stats = new EnumMap<>(SetOperation.class);
+
+    static {
+        for (SetOperation operation : SetOperation.values()) {
+            stats.put(operation, new OperationStats(operation));
+        }
+    }
+
+    private SetMetrics() {}
+
+    /**
+     * Start recording set operations.
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * Stop recording set operations.
+     * Statistics recorded so far are kept.
+     */
+    public static void disable() {
+        enabled = false;
+    }
+
+    /**
+     * Determine whether set operations are being recorded.
+     *
+     * @return Whether metrics are enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set the latency above which a call emits a slow operation event.
+     *
+     * @param threshold - Slow call threshold
+     * @throws IllegalArgumentException If threshold is negative
+     */
+    public static void setSlowThreshold(Duration threshold) throws IllegalArgumentException {
+        if (threshold.isNegative()) {
+            throw new IllegalArgumentException("setSlowThreshold arg 'threshold' cannot be negative");
+        }
+        slowThresholdNanos = threshold.toNanos();
+    }
+
+    /**
+     * Get the latency above which a call emits a slow operation event.
+     *
+     * @return Slow call threshold
+     */
+    public static Duration getSlowThreshold() {
+        return Duration.ofNanos(slowThresholdNanos);
+    }
+
+    /**
+     * Get the statistics for an operation.
+     *
+     * @param operation - Operation to get the statistics of
+     * @return Live statistics for the operation
+     */
+    public static OperationStats stats(SetOperation operation) {
+        return stats.get(operation);
+    }
+
+    /**
+     * Call an action with the statistics of every operation.
+     *
+     * @param action - Action to call
+     */
+    public static void forEach(BiConsumer<SetOperation, OperationStats> action) {
+        stats.forEach(action);
+    }
+
+    /**
+     * Clear the statistics of every operation.
+     */
+    public static void reset() {
+        for (OperationStats operationStats : stats.values()) {
+            operationStats.reset();
+        }
+    }
+
+    /**
+     * Mark the start of an operation.
+     * The returned event has already begun, so if it is committed its duration covers the whole operation.
+     *
+     * @return The event to pass to {@link #record}, or null if metrics are disabled
+     */
+    static SlowSetOperationEvent start() {
+        if (!enabled) return null;
+
+        SlowSetOperationEvent event = new SlowSetOperationEvent();
+        event.startNanos = System.nanoTime();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Record the end of an operation started with {@link #start()}.
+     *
+     * @param operation - Operation that ran
+     * @param event - Value returned by {@link #start()}
+     * @param leftCardinality - Cardinality of the set the operation was called on
+     * @param rightCardinality - Cardinality of the other operand (summed for lists of sets,
+     *                           or the segment count for partition), or -1 if there is none
+     * @param resultSize - Size of the result
+     */
+    static void record(SetOperation operation, SlowSetOperationEvent event, int leftCardinality, int rightCardinality, long resultSize) {
+        if (event == null) return;
+
+        event.end();
+        long latency = System.nanoTime() - event.startNanos;
+        stats.get(operation).record(latency, resultSize);
+
+        if (latency >= slowThresholdNanos && event.shouldCommit()) {
+            event.operation = operation.name();
+            event.leftCardinality = leftCardinality;
+            event.rightCardinality = rightCardinality;
+            event.resultSize = resultSize;
+            event.latency = latency;
+            event.commit();
+        }
+    }
+}
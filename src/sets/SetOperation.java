@@ -0,0 +1,17 @@
+package sets;
+
+/**
+ * Set operations that can be measured by {@link SetMetrics}.
+ *
+ * @author Gavin Borne
+ */
+public enum SetOperation {
+    UNION,
+    INTERSECTION,
+    DIFFERENCE,
+    SYMMETRIC_DIFFERENCE,
+    POWER_SET,
+    CARTESIAN_PRODUCT,
+    PARTITION,
+    BELL_NUMBER
+}
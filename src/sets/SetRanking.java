@@ -0,0 +1,431 @@
+package sets;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Number the subsets and partitions of a set, and the ordered groups of a cartesian product,
+ * with consecutive integers (ranks) starting from 0.
+ *
+ * Ranking is a bijection, so a huge enumeration can be split into rank ranges [from, to)
+ * which independent workers can process without coordinating or sharing any state.
+ * Every worker must use the same element order, so rankings created from a {@link List}
+ * are preferred over rankings created from a set's iteration order when the work
+ * is spread over several processes.
+ *
+ * <ul>
+ *     <li>A subset is ranked by the binary number whose ith bit is set if the ith element is in the subset.</li>
+ *     <li>A partition is ranked by the lexicographic position of its restricted growth string,
+ *     which labels every element with the index of its block in order of first appearance.</li>
+ *     <li>An ordered group is ranked as a mixed radix number whose ith digit is the position
+ *     of its ith item in the ith set.</li>
+ * </ul>
+ *
+ * @author Gavin Borne
+ */
+public class SetRanking<E> {
+    private final Object[] elements;
+    private final Map<Object, Integer> positions;
+    // completions[i][m]: number of ways to finish a restricted growth string at position i with m blocks used
+    private BigInteger[][] completions;
+
+    /**
+     * Create a ranking of a set's elements in its iteration order.
+     *
+     * @param set - Set to rank
+     */
+    public SetRanking(DiscreteSet<E> set) {
+        this.elements = set.toArray();
+        this.positions = indexPositions(this.elements);
+    }
+
+    /**
+     * Create a ranking of a set's elements in a given order.
+     *
+     * @param order - Elements of the set, in order
+     * @throws IllegalArgumentException If order contains duplicate elements
+     */
+    public SetRanking(List<E> order) throws IllegalArgumentException {
+        this.elements = order.toArray();
+        this.positions = indexPositions(this.elements);
+        if (this.positions.size() != this.elements.length) {
+            throw new IllegalArgumentException("SetRanking arg 'order' cannot contain duplicate elements");
+        }
+    }
+
+    /**
+     * Calculate the cardinality of the ranked set.
+     *
+     * @return The number of elements being ranked
+     */
+    public int cardinality() {
+        return this.elements.length;
+    }
+
+    /**
+     * Get the position of an element in the ranking order.
+     *
+     * @param element - Element to find
+     * @return The position of the element, or -1 if it is not in the ranked set
+     */
+    public int positionOf(Object element) {
+        return this.positions.getOrDefault(element, -1);
+    }
+
+    /**
+     * Get the element at a position in the ranking order.
+     *
+     * @param position - Position of the element
+     * @return The element at the given position
+     * @throws IndexOutOfBoundsException If the position is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public E elementAt(int position) throws IndexOutOfBoundsException {
+        return (E) this.elements[position];
+    }
+
+    /**
+     * Calculate the number of subsets, 2^n.
+     *
+     * @return The number of subsets
+     */
+    public BigInteger subsetCount() {
+        return BigInteger.ONE.shiftLeft(this.elements.length);
+    }
+
+    /**
+     * Calculate the rank of a subset.
+     *
+     * @param subset - Subset to rank
+     * @return The rank of the subset
+     * @throws IllegalArgumentException If subset contains an element not in the ranked set
+     */
+    public BigInteger rankSubset(DiscreteSet<E> subset) throws IllegalArgumentException {
+        BigInteger rank = BigInteger.ZERO;
+        for (E element : subset) {
+            rank = rank.setBit(requirePosition(element));
+        }
+        return rank;
+    }
+
+    /**
+     * Get the subset with a given rank.
+     *
+     * @param rank - Rank of the subset, from 0 (inclusive) to {@link #subsetCount()} (exclusive)
+     * @return The subset with the given rank
+     * @throws IndexOutOfBoundsException If the rank is out of range
+     */
+    public DiscreteSet<E> unrankSubset(BigInteger rank) throws IndexOutOfBoundsException {
+        checkRank(rank, subsetCount(), "subsets");
+
+        DiscreteSet<E> subset = new GenericDiscreteSet<>();
+        for (int i = 0; i < this.elements.length; i++) {
+            if (rank.testBit(i)) {
+                subset.add(elementAt(i));
+            }
+        }
+        return subset;
+    }
+
+    /**
+     * Call an action on every subset with a rank in [from, to), in order of rank.
+     *
+     * @param from - First rank (inclusive)
+     * @param to - Last rank (exclusive)
+     * @param action - Action to call for each subset
+     * @throws IndexOutOfBoundsException If the range is out of bounds
+     */
+    public void forEachSubset(BigInteger from, BigInteger to, Consumer<? super DiscreteSet<E>> action) throws IndexOutOfBoundsException {
+        checkRange(from, to, subsetCount(), "subsets");
+
+        boolean[] members = new boolean[this.elements.length];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = from.testBit(i);
+        }
+
+        for (BigInteger rank = from; rank.compareTo(to) < 0; rank = rank.add(BigInteger.ONE)) {
+            DiscreteSet<E> subset = new GenericDiscreteSet<>();
+            for (int i = 0; i < members.length; i++) {
+                if (members[i]) subset.add(elementAt(i));
+            }
+            action.accept(subset);
+
+            // Binary increment: clear the trailing members, then add the next element
+            int i = 0;
+            while (i < members.length && members[i]) {
+                members[i++] = false;
+            }
+            if (i < members.length) {
+                members[i] = true;
+            }
+        }
+    }
+
+    /**
+     * Calculate the number of partitions, which is the Bell number B(n).
+     *
+     * @return The number of partitions
+     */
+    public BigInteger partitionCount() {
+        if (this.elements.length == 0) {
+            return BigInteger.ONE;
+        }
+        return completions()[1][1];
+    }
+
+    /**
+     * Calculate the rank of a partition.
+     *
+     * @param partition - Blocks of the partition
+     * @return The rank of the partition
+     * @throws IllegalArgumentException If partition is not a partition of the ranked set
+     */
+    public BigInteger rankPartition(List<DiscreteSet<E>> partition) throws IllegalArgumentException {
+        int[] growth = toGrowthString(partition);
+        BigInteger[][] completions = completions();
+
+        // Every smaller value at position i leaves an existing block count, so it skips
+        // completions[i + 1][blocks] partitions
+        BigInteger rank = BigInteger.ZERO;
+        int blocks = 1;
+        for (int i = 1; i < growth.length; i++) {
+            if (growth[i] > 0) {
+                rank = rank.add(BigInteger.valueOf(growth[i]).multiply(completions[i + 1][blocks]));
+            }
+            blocks = Math.max(blocks, growth[i] + 1);
+        }
+        return rank;
+    }
+
+    /**
+     * Get the partition with a given rank.
+     *
+     * @param rank - Rank of the partition, from 0 (inclusive) to {@link #partitionCount()} (exclusive)
+     * @return The blocks of the partition with the given rank
+     * @throws IndexOutOfBoundsException If the rank is out of range
+     */
+    public List<DiscreteSet<E>> unrankPartition(BigInteger rank) throws IndexOutOfBoundsException {
+        checkRank(rank, partitionCount(), "partitions");
+
+        int n = this.elements.length;
+        int[] growth = new int[n];
+        if (n == 0) {
+            return toBlocks(growth);
+        }
+
+        BigInteger[][] completions = completions();
+        int blocks = 1;
+        for (int i = 1; i < n; i++) {
+            BigInteger perValue = completions[i + 1][blocks];
+            BigInteger existing = perValue.multiply(BigInteger.valueOf(blocks));
+            if (rank.compareTo(existing) < 0) {
+                // Join an existing block
+                BigInteger[] quotient = rank.divideAndRemainder(perValue);
+                growth[i] = quotient[0].intValue();
+                rank = quotient[1];
+            } else {
+                // Start a new block
+                growth[i] = blocks++;
+                rank = rank.subtract(existing);
+            }
+        }
+        return toBlocks(growth);
+    }
+
+    /**
+     * Call an action on every partition with a rank in [from, to), in order of rank.
+     *
+     * @param from - First rank (inclusive)
+     * @param to - Last rank (exclusive)
+     * @param action - Action to call with the blocks of each partition
+     * @throws IndexOutOfBoundsException If the range is out of bounds
+     */
+    public void forEachPartition(BigInteger from, BigInteger to, Consumer<? super List<DiscreteSet<E>>> action) throws IndexOutOfBoundsException {
+        checkRange(from, to, partitionCount(), "partitions");
+        if (from.equals(to)) return;
+
+        int[] growth = toGrowthString(unrankPartition(from));
+        for (BigInteger rank = from; rank.compareTo(to) < 0; rank = rank.add(BigInteger.ONE)) {
+            action.accept(toBlocks(growth));
+            nextGrowthString(growth);
+        }
+    }
+
+    /**
+     * Calculate the number of ordered groups in the cartesian product of the ranked sets.
+     *
+     * @param components - Rankings of the sets in the product, in order
+     * @return The number of ordered groups
+     */
+    public static BigInteger tupleCount(List<? extends SetRanking<?>> components) {
+        BigInteger count = BigInteger.ONE;
+        for (SetRanking<?> component : components) {
+            count = count.multiply(BigInteger.valueOf(component.cardinality()));
+        }
+        return count;
+    }
+
+    /**
+     * Calculate the rank of an ordered group in the cartesian product of the ranked sets.
+     *
+     * @param tuple - Ordered group to rank
+     * @param components - Rankings of the sets in the product, in order
+     * @return The rank of the ordered group
+     * @throws IllegalArgumentException If the ordered group is not in the cartesian product
+     */
+    public static BigInteger rankTuple(OrderedGroup tuple, List<? extends SetRanking<?>> components) throws IllegalArgumentException {
+        if (tuple.size() != components.size()) {
+            throw new IllegalArgumentException("rankTuple arg 'tuple' must have one item per component");
+        }
+
+        BigInteger rank = BigInteger.ZERO;
+        for (int i = 0; i < components.size(); i++) {
+            SetRanking<?> component = components.get(i);
+            rank = rank.multiply(BigInteger.valueOf(component.cardinality()))
+                .add(BigInteger.valueOf(component.requirePosition(tuple.get(i))));
+        }
+        return rank;
+    }
+
+    /**
+     * Get the ordered group with a given rank in the cartesian product of the ranked sets.
+     *
+     * @param rank - Rank of the ordered group, from 0 (inclusive) to {@link #tupleCount} (exclusive)
+     * @param components - Rankings of the sets in the product, in order
+     * @return The ordered group with the given rank
+     * @throws IndexOutOfBoundsException If the rank is out of range
+     */
+    public static OrderedGroup unrankTuple(BigInteger rank, List<? extends SetRanking<?>> components) throws IndexOutOfBoundsException {
+        checkRank(rank, tupleCount(components), "tuples");
+
+        // Digits come out least significant first, so fill from the back
+        Object[] items = new Object[components.size()];
+        for (int i = components.size() - 1; i >= 0; i--) {
+            SetRanking<?> component = components.get(i);
+            BigInteger[] digit = rank.divideAndRemainder(BigInteger.valueOf(component.cardinality()));
+            items[i] = component.elementAt(digit[1].intValue());
+            rank = digit[0];
+        }
+        return new OrderedGroup(items);
+    }
+
+    private int requirePosition(Object element) throws IllegalArgumentException {
+        Integer position = this.positions.get(element);
+        if (position == null) {
+            throw new IllegalArgumentException("Element " + element + " is not in the ranked set");
+        }
+        return position;
+    }
+
+    private int[] toGrowthString(List<DiscreteSet<E>> partition) throws IllegalArgumentException {
+        int[] blockOf = new int[this.elements.length];
+        Arrays.fill(blockOf, -1);
+        for (int block = 0; block < partition.size(); block++) {
+            if (partition.get(block).isEmpty()) {
+                throw new IllegalArgumentException("rankPartition arg 'partition' cannot contain empty blocks");
+            }
+            for (E element : partition.get(block)) {
+                int position = requirePosition(element);
+                if (blockOf[position] >= 0) {
+                    throw new IllegalArgumentException("rankPartition arg 'partition' must have disjoint blocks");
+                }
+                blockOf[position] = block;
+            }
+        }
+
+        // Relabel the blocks in order of first appearance
+        int[] labels = new int[partition.size()];
+        Arrays.fill(labels, -1);
+        int[] growth = new int[this.elements.length];
+        int blocks = 0;
+        for (int i = 0; i < growth.length; i++) {
+            if (blockOf[i] < 0) {
+                throw new IllegalArgumentException("rankPartition arg 'partition' must cover the ranked set");
+            }
+            if (labels[blockOf[i]] < 0) {
+                labels[blockOf[i]] = blocks++;
+            }
+            growth[i] = labels[blockOf[i]];
+        }
+        return growth;
+    }
+
+    private List<DiscreteSet<E>> toBlocks(int[] growth) {
+        List<DiscreteSet<E>> blocks = new ArrayList<>();
+        for (int i = 0; i < growth.length; i++) {
+            if (growth[i] == blocks.size()) {
+                blocks.add(new GenericDiscreteSet<>());
+            }
+            blocks.get(growth[i]).add(elementAt(i));
+        }
+        return blocks;
+    }
+
+    /**
+     * Advance a restricted growth string to its lexicographic successor.
+     */
+    private static void nextGrowthString(int[] growth) {
+        int[] prefixMax = new int[growth.length];
+        for (int i = 1; i < growth.length; i++) {
+            prefixMax[i] = Math.max(prefixMax[i - 1], growth[i - 1]);
+        }
+
+        for (int i = growth.length - 1; i >= 1; i--) {
+            if (growth[i] <= prefixMax[i]) {
+                growth[i]++;
+                Arrays.fill(growth, i + 1, growth.length, 0);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Build the table of restricted growth string completions, a generalization of the Bell triangle:
+     * completions[n][m] = 1 and completions[i][m] = m * completions[i + 1][m] + completions[i + 1][m + 1].
+     */
+    private BigInteger[][] completions() {
+        if (this.completions != null) {
+            return this.completions;
+        }
+
+        int n = this.elements.length;
+        BigInteger[][] table = new BigInteger[n + 1][];
+        table[n] = new BigInteger[n + 2];
+        Arrays.fill(table[n], BigInteger.ONE);
+        for (int i = n - 1; i >= 1; i--) {
+            // At position i at most i blocks can have been used
+            table[i] = new BigInteger[i + 2];
+            for (int m = 1; m <= i; m++) {
+                table[i][m] = BigInteger.valueOf(m).multiply(table[i + 1][m]).add(table[i + 1][m + 1]);
+            }
+        }
+
+        this.completions = table;
+        return table;
+    }
+
+    private static void checkRank(BigInteger rank, BigInteger count, String name) throws IndexOutOfBoundsException {
+        if (rank.signum() < 0 || rank.compareTo(count) >= 0) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " out of range for " + count + " " + name);
+        }
+    }
+
+    private static void checkRange(BigInteger from, BigInteger to, BigInteger count, String name) throws IndexOutOfBoundsException {
+        if (from.signum() < 0 || to.compareTo(count) > 0 || from.compareTo(to) > 0) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for " + count + " " + name);
+        }
+    }
+
+    private static Map<Object, Integer> indexPositions(Object[] elements) {
+        Map<Object, Integer> positions = new HashMap<>();
+        for (int i = 0; i < elements.length; i++) {
+            positions.put(elements[i], i);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,295 @@
+package sets;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+import java.util.stream.Stream;
+
+/**
+ * Draw uniformly random subsets, tuples and partitions directly from sets,
+ * without generating the power set, cartesian product or set of partitions first.
+ * Each draw costs time proportional to the cardinality of the sets involved.
+ *
+ * A sampler is as reproducible as the random generator given to it,
+ * and like most random generators it is not thread-safe.
+ *
+ * @author Gavin Borne
+ */
+public class SetSampler {
+    // ln(ulp(1)), below which a term relative to the sum is lost to rounding
+    private static final double LOG_ULP = Math.log(Math.ulp(1.0));
+
+    private final RandomGenerator random;
+    // ln(B(n)) for the cardinalities partitioned so far
+    private final Map<Integer, Double> logBellNumbers = new HashMap<>();
+
+    /**
+     * Create a sampler using the default random generator.
+     */
+    public SetSampler() {
+        this(RandomGenerator.getDefault());
+    }
+
+    /**
+     * Create a sampler using a given random generator.
+     * Use a seeded generator for reproducible draws.
+     *
+     * @param random - Source of randomness
+     */
+    public SetSampler(RandomGenerator random) {
+        this.random = random;
+    }
+
+    /**
+     * Draw a uniformly random subset of a set,
+     * i.e. a uniformly random element of its power set.
+     *
+     * @param <E> Type of the elements
+     * @param set - Set to draw from
+     * @return A random subset of the set
+     */
+    public <E> DiscreteSet<E> subset(DiscreteSet<E> set) {
+        DiscreteSet<E> subset = new GenericDiscreteSet<>();
+
+        // Every element is included independently with probability 1/2,
+        // using one random bit per element
+        long bits = 0;
+        int available = 0;
+        for (E element : set) {
+            if (available == 0) {
+                bits = this.random.nextLong();
+                available = Long.SIZE;
+            }
+            if ((bits & 1) != 0) {
+                subset.add(element);
+            }
+            bits >>>= 1;
+            available--;
+        }
+
+        return subset;
+    }
+
+    /**
+     * Draw a uniformly random subset with exactly k elements from a set.
+     *
+     * @param <E> Type of the elements
+     * @param set - Set to draw from
+     * @param k - Number of elements in the subset
+     * @return A random k-subset of the set
+     * @throws IllegalArgumentException If k is negative or greater than the cardinality of the set
+     */
+    @SuppressWarnings("unchecked")
+    public <E> DiscreteSet<E> subset(DiscreteSet<E> set, int k) throws IllegalArgumentException {
+        Object[] elements = set.toArray();
+        if (k < 0 || k > elements.length) {
+            throw new IllegalArgumentException("subset arg 'k' must be between 0 and the cardinality of the set");
+        }
+
+        // Partial Fisher-Yates shuffle: the first k slots end up as a uniform k-subset
+        DiscreteSet<E> subset = new GenericDiscreteSet<>();
+        for (int i = 0; i < k; i++) {
+            int j = this.random.nextInt(i, elements.length);
+            Object chosen = elements[j];
+            elements[j] = elements[i];
+            elements[i] = chosen;
+
+            subset.add((E) chosen);
+        }
+
+        return subset;
+    }
+
+    /**
+     * Draw a uniformly random element of a set.
+     *
+     * @param <E> Type of the elements
+     * @param set - Set to draw from
+     * @return A random element of the set
+     * @throws IllegalArgumentException If the set is empty
+     */
+    @SuppressWarnings("unchecked")
+    public <E> E element(DiscreteSet<E> set) throws IllegalArgumentException {
+        if (set.isEmpty()) {
+            throw new IllegalArgumentException("element arg 'set' cannot be empty");
+        }
+        return (E) set.toArray()[this.random.nextInt(set.cardinality())];
+    }
+
+    /**
+     * Draw a uniformly random ordered group from the cartesian product of a list of sets.
+     * The group contains one uniformly random element from each set, in order.
+     *
+     * @param sets - Sets to draw from
+     * @return A random element of the cartesian product of the sets
+     * @throws IllegalArgumentException If sets is an empty list or any of the sets are empty
+     */
+    public OrderedGroup tuple(List<? extends DiscreteSet<?>> sets) throws IllegalArgumentException {
+        if (sets.size() == 0) {
+            throw new IllegalArgumentException("tuple arg 'sets' cannot be an empty list");
+        }
+
+        OrderedGroup group = new OrderedGroup();
+        for (DiscreteSet<?> set : sets) {
+            group.add(element(set));
+        }
+        return group;
+    }
+
+    /**
+     * Draw a uniformly random partition of a set, i.e. one of its B(n) partitions
+     * into non-empty, pairwise disjoint blocks.
+     *
+     * This uses Stam's algorithm: a number of urns M is chosen with probability
+     * M^n / (e * M! * B(n)), every element is thrown into a uniformly random urn,
+     * and the non-empty urns are the blocks of the partition.
+     *
+     * @param <E> Type of the elements
+     * @param set - Set to partition
+     * @return The blocks of a random partition of the set
+     */
+    public <E> List<DiscreteSet<E>> partition(DiscreteSet<E> set) {
+        int n = set.cardinality();
+        List<DiscreteSet<E>> blocks = new ArrayList<>();
+        if (n == 0) {
+            return blocks;
+        }
+
+        int urns = urnCount(n);
+        List<DiscreteSet<E>> byUrn = new ArrayList<>(urns);
+        for (int i = 0; i < urns; i++) {
+            byUrn.add(null);
+        }
+        for (E element : set) {
+            int urn = this.random.nextInt(urns);
+            if (byUrn.get(urn) == null) {
+                DiscreteSet<E> block = new GenericDiscreteSet<>();
+                byUrn.set(urn, block);
+                blocks.add(block);
+            }
+            byUrn.get(urn).add(element);
+        }
+
+        return blocks;
+    }
+
+    /**
+     * Draw a uniformly random sample of k elements from a stream,
+     * without knowing its length in advance and in a single pass.
+     * If the stream has fewer than k elements, all of them are returned.
+     *
+     * @param <E> Type of the elements
+     * @param stream - Stream to sample
+     * @param k - Number of elements to sample
+     * @return The sampled elements, in no particular order
+     * @throws IllegalArgumentException If k is negative
+     */
+    public <E> List<E> reservoir(Stream<E> stream, int k) throws IllegalArgumentException {
+        return reservoir(stream.iterator(), k);
+    }
+
+    /**
+     * Draw a uniformly random sample of k elements from a set in a single pass.
+     * If the set has fewer than k elements, all of them are returned.
+     *
+     * @param <E> Type of the elements
+     * @param elements - Elements to sample
+     * @param k - Number of elements to sample
+     * @return The sampled elements, in no particular order
+     * @throws IllegalArgumentException If k is negative
+     */
+    public <E> List<E> reservoir(Iterable<E> elements, int k) throws IllegalArgumentException {
+        return reservoir(elements.iterator(), k);
+    }
+
+    private <E> List<E> reservoir(Iterator<E> iterator, int k) throws IllegalArgumentException {
+        if (k < 0) {
+            throw new IllegalArgumentException("reservoir arg 'k' cannot be negative");
+        }
+
+        List<E> sample = new ArrayList<>(k);
+        while (sample.size() < k && iterator.hasNext()) {
+            sample.add(iterator.next());
+        }
+        if (k == 0) {
+            return sample;
+        }
+
+        // Algorithm L: jump directly to the next element that enters the reservoir,
+        // so the random generator is called O(k log(n / k)) times instead of n times
+        double w = Math.exp(Math.log(nextOpenDouble()) / k);
+        while (iterator.hasNext()) {
+            long skip = (long) Math.floor(Math.log(nextOpenDouble()) / Math.log1p(-w));
+            for (long i = 0; i < skip && iterator.hasNext(); i++) {
+                iterator.next();
+            }
+            if (!iterator.hasNext()) {
+                break;
+            }
+
+            sample.set(this.random.nextInt(k), iterator.next());
+            w *= Math.exp(Math.log(nextOpenDouble()) / k);
+        }
+
+        return sample;
+    }
+
+    /**
+     * Choose the number of urns for Stam's algorithm.
+     */
+    private int urnCount(int n) {
+        double logBell = this.logBellNumbers.computeIfAbsent(n, SetSampler::logBellNumber);
+        double target = this.random.nextDouble();
+
+        // Walk the distribution until it passes the target. The terms peak near
+        // n / ln(n) and then shrink faster than geometrically, so this loop is short.
+        double cumulative = 0;
+        double logFactorial = 0;
+        int m = 0;
+        while (true) {
+            m++;
+            logFactorial += Math.log(m);
+            double probability = Math.exp(n * Math.log(m) - logFactorial - 1 - logBell);
+            cumulative += probability;
+
+            if (cumulative > target || (m > n && probability < Math.ulp(1.0))) {
+                return m;
+            }
+        }
+    }
+
+    private double nextOpenDouble() {
+        double value;
+        do {
+            value = this.random.nextDouble();
+        } while (value == 0);
+        return value;
+    }
+
+    /**
+     * Calculate ln(B(n)) for n >= 1 from Dobinski's formula, B(n) = (1 / e) * (sum over m >= 1 of m^n / m!),
+     * the same terms urnCount walks. The terms are summed in log space relative to the largest so far
+     * (log-sum-exp), since they overflow a double long before B(n) itself is needed exactly.
+     */
+    private static double logBellNumber(int n) {
+        double largest = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        double logFactorial = 0;
+        for (int m = 1; ; m++) {
+            logFactorial += Math.log(m);
+            double logTerm = n * Math.log(m) - logFactorial;
+            if (logTerm > largest) {
+                sum = sum * Math.exp(largest - logTerm) + 1;
+                largest = logTerm;
+            } else {
+                sum += Math.exp(logTerm - largest);
+                // Past the peak the terms shrink faster than geometrically, so the rest no longer count
+                if (logTerm - largest < LOG_ULP) break;
+            }
+        }
+        return largest + Math.log(sum) - 1;
+    }
+}
@@ -0,0 +1,69 @@
+package sets;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The pending result of a set computation started by {@link AsyncSetOperations}.
+ *
+ * A task is a {@link CompletableFuture}, so it can be composed, waited on or given a deadline
+ * with {@link #orTimeout}. The computation checks the task between the items it produces:
+ * once the task is completed by any means, including {@link #cancel}, a timeout or an explicit
+ * {@link #complete}, the computation stops at its next check instead of running to the end.
+ *
+ * While running, the task reports how many items it has produced and, when known, how many it will produce in total.
+ *
+ * @author Gavin Borne
+ */
+public class SetTask<T>
+    extends CompletableFuture<T>
+{
+    private final long total;
+    private volatile long produced = 0;
+
+    SetTask(long total) {
+        this.total = total;
+    }
+
+    /**
+     * Get the number of items the computation has produced so far.
+     *
+     * @return The number of items produced
+     */
+    public long getProduced() {
+        return this.produced;
+    }
+
+    /**
+     * Get the number of items the computation will produce when it finishes.
+     *
+     * @return The total number of items, or -1 if it is unknown or does not fit in a long
+     */
+    public long getTotal() {
+        return this.total;
+    }
+
+    /**
+     * Calculate the fraction of the computation that has been completed.
+     *
+     * @return A number from 0 to 1, or NaN if the total is unknown
+     */
+    public double getProgress() {
+        if (this.total < 0) return Double.NaN;
+        if (this.total == 0) return 1;
+        return Math.min(1, (double) this.produced / this.total);
+    }
+
+    /**
+     * Record progress and stop the computation if the task is already complete.
+     *
+     * @param produced - Number of items produced so far
+     * @throws CancellationException If the task has been cancelled, timed out or otherwise completed
+     */
+    void checkpoint(long produced) throws CancellationException {
+        this.produced = produced;
+        if (isDone()) {
+            throw new CancellationException("SetTask was completed before the computation finished");
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An index over a family of sets that answers subset, superset and exact match queries
+ * without comparing the query against every stored set.
+ *
+ * Every element is given a global id the first time it is seen, and each stored set is a path
+ * through a trie following its element ids in increasing order. A query walks only the
+ * branches that can still lead to a match: a subset query follows only elements of the query,
+ * and a superset query skips branches that have passed an element of the query without containing it.
+ *
+ * Only the paths are stored, so sets returned by queries are new sets rebuilt from the trie,
+ * and later changes to an added set are not reflected until it is removed and added again.
+ * Once no stored set contains an element, its id is released and given to the next new element,
+ * so an index whose sets come and go does not hold on to every element it has ever seen.
+ *
+ * @author Gavin Borne
+ */
+public class SetTrie<E> {
+    private final Map<Object, Integer> ids = new HashMap<>();
+    private final List<Object> elementsById = new ArrayList<>();
+    // Number of trie nodes reached through each id, which drops to zero once no stored set contains its element
+    private int[] uses = new int[16];
+    private final ArrayDeque<Integer> freeIds = new ArrayDeque<>();
+    private final Node root = new Node();
+    private int size = 0;
+
+    private static final class Node {
+        private final TreeMap<Integer, Node> children = new TreeMap<>();
+        // Whether a stored set ends at this node
+        private boolean terminal;
+    }
+
+    /**
+     * Create an empty index.
+     */
+    public SetTrie() {}
+
+    /**
+     * Create an index containing a family of sets.
+     *
+     * @param sets - Sets to add
+     */
+    public SetTrie(Iterable<? extends DiscreteSet<E>> sets) {
+        for (DiscreteSet<E> set : sets) {
+            add(set);
+        }
+    }
+
+    /**
+     * Add a set to this index.
+     *
+     * @param set - Set to add
+     * @return Whether this operation changed the index, i.e. whether an equal set was not already stored
+     */
+    public boolean add(DiscreteSet<E> set) {
+        Node node = this.root;
+        for (int id : assignIds(set)) {
+            Node child = node.children.get(id);
+            if (child == null) {
+                child = new Node();
+                node.children.put(id, child);
+                this.uses[id]++;
+            }
+            node = child;
+        }
+        if (node.terminal) return false;
+
+        node.terminal = true;
+        this.size++;
+        return true;
+    }
+
+    /**
+     * Remove a set from this index.
+     *
+     * @param set - Set to remove
+     * @return Whether this operation changed the index
+     */
+    public boolean remove(DiscreteSet<E> set) {
+        int[] path = knownIds(set);
+        if (path == null) return false;
+
+        // Remember the path so branches left empty can be pruned
+        Node[] nodes = new Node[path.length + 1];
+        nodes[0] = this.root;
+        for (int i = 0; i < path.length; i++) {
+            nodes[i + 1] = nodes[i].children.get(path[i]);
+            if (nodes[i + 1] == null) return false;
+        }
+        if (!nodes[path.length].terminal) return false;
+
+        nodes[path.length].terminal = false;
+        this.size--;
+        for (int i = path.length; i > 0 && !nodes[i].terminal && nodes[i].children.isEmpty(); i--) {
+            nodes[i - 1].children.remove(path[i - 1]);
+            release(path[i - 1]);
+        }
+        return true;
+    }
+
+    /**
+     * Check whether a set equal to the given set is stored.
+     *
+     * @param set - Set to find
+     * @return Whether the set is stored
+     */
+    public boolean contains(DiscreteSet<E> set) {
+        int[] path = knownIds(set);
+        if (path == null) return false;
+
+        Node node = this.root;
+        for (int id : path) {
+            node = node.children.get(id);
+            if (node == null) return false;
+        }
+        return node.terminal;
+    }
+
+    /**
+     * Calculate the number of stored sets.
+     *
+     * @return The number of sets in this index
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Determine whether this index is empty.
+     *
+     * @return Whether no sets are stored
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Find every stored set that is a subset of the query set.
+     *
+     * @param query - Query set
+     * @return The stored subsets of the query set
+     */
+    public List<DiscreteSet<E>> subsetsOf(DiscreteSet<E> query) {
+        List<DiscreteSet<E>> results = new ArrayList<>();
+        int[] ids = queryIds(query);
+        collectSubsets(this.root, ids, 0, new int[ids.length], 0, results);
+        return results;
+    }
+
+    /**
+     * Find every stored set that is a superset of the query set.
+     *
+     * @param query - Query set
+     * @return The stored supersets of the query set
+     */
+    public List<DiscreteSet<E>> supersetsOf(DiscreteSet<E> query) {
+        List<DiscreteSet<E>> results = new ArrayList<>();
+        int[] path = knownIds(query);
+        // An element no stored set has ever contained cannot be in a stored superset
+        if (path != null) {
+            collectSupersets(this.root, path, 0, new int[this.elementsById.size()], 0, results);
+        }
+        return results;
+    }
+
+    /**
+     * Follow only the children whose ids are in the query.
+     * The path from the root to the current node is kept in path[0, depth).
+     */
+    private void collectSubsets(Node node, int[] query, int from, int[] path, int depth, List<DiscreteSet<E>> results) {
+        addStored(node, path, depth, results);
+
+        if (node.children.size() < query.length - from) {
+            // Fewer children than remaining query ids, so probe the query for each child
+            for (Map.Entry<Integer, Node> entry : node.children.tailMap(query[from], true).entrySet()) {
+                int i = Arrays.binarySearch(query, from, query.length, entry.getKey());
+                if (i >= 0) {
+                    path[depth] = entry.getKey();
+                    collectSubsets(entry.getValue(), query, i + 1, path, depth + 1, results);
+                }
+            }
+        } else {
+            for (int i = from; i < query.length; i++) {
+                Node child = node.children.get(query[i]);
+                if (child != null) {
+                    path[depth] = query[i];
+                    collectSubsets(child, query, i + 1, path, depth + 1, results);
+                }
+            }
+        }
+    }
+
+    /**
+     * Follow every child below the next required id, and the child equal to it.
+     * Children above the next required id have skipped it, so they cannot match.
+     */
+    private void collectSupersets(Node node, int[] query, int next, int[] path, int depth, List<DiscreteSet<E>> results) {
+        if (next == query.length) {
+            collectAll(node, path, depth, results);
+            return;
+        }
+
+        int required = query[next];
+        for (Map.Entry<Integer, Node> entry : node.children.headMap(required, true).entrySet()) {
+            int nextRequired = entry.getKey() == required ? next + 1 : next;
+            path[depth] = entry.getKey();
+            collectSupersets(entry.getValue(), query, nextRequired, path, depth + 1, results);
+        }
+    }
+
+    private void collectAll(Node node, int[] path, int depth, List<DiscreteSet<E>> results) {
+        addStored(node, path, depth, results);
+        for (Map.Entry<Integer, Node> entry : node.children.entrySet()) {
+            path[depth] = entry.getKey();
+            collectAll(entry.getValue(), path, depth + 1, results);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addStored(Node node, int[] path, int depth, List<DiscreteSet<E>> results) {
+        if (!node.terminal) return;
+
+        DiscreteSet<E> set = new GenericDiscreteSet<>();
+        for (int i = 0; i < depth; i++) {
+            set.add((E) this.elementsById.get(path[i]));
+        }
+        results.add(set);
+    }
+
+    /**
+     * Get the sorted ids of a set's elements, assigning ids to new elements.
+     */
+    private int[] assignIds(DiscreteSet<E> set) {
+        int[] path = new int[set.cardinality()];
+        int i = 0;
+        for (E element : set) {
+            Integer id = this.ids.get(element);
+            if (id == null) {
+                id = newId(element);
+            }
+            path[i++] = id;
+        }
+        Arrays.sort(path);
+        return path;
+    }
+
+    /**
+     * Give an element an id, reusing a released one if there is any.
+     */
+    private int newId(Object element) {
+        int id;
+        if (this.freeIds.isEmpty()) {
+            id = this.elementsById.size();
+            this.elementsById.add(element);
+            if (id == this.uses.length) {
+                this.uses = Arrays.copyOf(this.uses, id * 2);
+            }
+        } else {
+            id = this.freeIds.pop();
+            this.elementsById.set(id, element);
+        }
+        this.ids.put(element, id);
+        return id;
+    }
+
+    /**
+     * Note that a node reached through an id was removed, and release the id if it was the last one.
+     */
+    private void release(int id) {
+        if (--this.uses[id] > 0) return;
+
+        this.ids.remove(this.elementsById.get(id));
+        this.elementsById.set(id, null);
+        this.freeIds.push(id);
+    }
+
+    /**
+     * Get the sorted ids of a set's elements.
+     *
+     * @return The ids, or null if an element has never been stored
+     */
+    private int[] knownIds(DiscreteSet<E> set) {
+        int[] path = new int[set.cardinality()];
+        int i = 0;
+        for (E element : set) {
+            Integer id = this.ids.get(element);
+            if (id == null) return null;
+            path[i++] = id;
+        }
+        Arrays.sort(path);
+        return path;
+    }
+
+    /**
+     * Get the sorted ids of the elements of a set that have been stored, ignoring the others.
+     */
+    private int[] queryIds(DiscreteSet<E> set) {
+        int[] path = new int[set.cardinality()];
+        int i = 0;
+        for (E element : set) {
+            Integer id = this.ids.get(element);
+            if (id != null) {
+                path[i++] = id;
+            }
+        }
+        path = Arrays.copyOf(path, i);
+        Arrays.sort(path);
+        return path;
+    }
+}
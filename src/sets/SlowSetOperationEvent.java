@@ -0,0 +1,43 @@
+package sets;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event emitted by {@link SetMetrics} when a set operation
+ * takes longer than the slow call threshold.
+ *
+ * @author Gavin Borne
+ */
+@Name("sets.SlowSetOperation")
+@Label("Slow Set Operation")
+@Category("Discrete Sets")
+@Description("A set operation that took longer than the configured threshold")
+class SlowSetOperationEvent
+    extends Event
+{
+    @Label("Operation")
+    String operation;
+
+    @Label("Left Cardinality")
+    @Description("Cardinality of the set the operation was called on")
+    int leftCardinality;
+
+    @Label("Right Cardinality")
+    @Description("Cardinality of the other operand (summed for lists of sets, or the segment count for partition), or -1 if there is none")
+    int rightCardinality;
+
+    @Label("Result Size")
+    long resultSize;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+
+    // Start time for the statistics, which are kept whether or not the event is committed
+    transient long startNanos;
+}
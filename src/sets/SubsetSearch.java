@@ -0,0 +1,283 @@
+package sets;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Search the subsets of a set through a callback, without building the power set.
+ *
+ * Every search mutates a single subset in place and tells the visitor about each element that enters
+ * or leaves it, so sums, counts and other aggregates can be kept up to date in constant time per step
+ * instead of being recomputed for every subset:
+ * <ul>
+ *   <li>{@link #grayCode} visits all 2^n subsets in Gray-code order, where consecutive subsets differ by one element.</li>
+ *   <li>{@link #depthFirst} decides the elements one at a time, including each before excluding it,
+ *       and lets the visitor prune every subset below a partial decision.</li>
+ * </ul>
+ * Both have parallel forms that split the subsets by the decisions for a few elements
+ * and search each block on its own subset and visitor.
+ *
+ * Elements are decided in the iteration order of the source set, or in the order of a comparator;
+ * putting the elements with the most effect on the visitor's bounds first makes pruning cut earlier.
+ * The elements are copied when the search is created, so later changes to the source set are not reflected.
+ *
+ * @author Gavin Borne
+ */
+public class SubsetSearch<E> {
+    // Gray-code walks count subsets in a long
+    private static final int MAX_GRAY_CODE_ELEMENTS = 62;
+
+    // Progress of the depth-first search at each depth: not yet visited,
+    // include branch searched, or both branches searched
+    private static final byte NEW = 0;
+    private static final byte INCLUDED = 1;
+    private static final byte EXCLUDED = 2;
+
+    private final Object[] elements;
+
+    /**
+     * A callback for the subsets visited by a search.
+     * The subset passed to it is reused for the whole search; copy it to keep it.
+     */
+    @FunctionalInterface
+    public interface Visitor<E> {
+        /**
+         * Called when an element enters the current subset, before the resulting subset is visited.
+         *
+         * @param element - Element added
+         */
+        default void added(E element) {}
+
+        /**
+         * Called when an element leaves the current subset, before the resulting subset is visited.
+         *
+         * @param element - Element removed
+         */
+        default void removed(E element) {}
+
+        /**
+         * Visit the current subset.
+         *
+         * @param subset - Current subset, which must not be modified
+         * @param decided - Number of elements whose membership has been decided;
+         *                  in a Gray-code walk, and at the leaves of a depth-first search, this is every element
+         * @return In a Gray-code walk, whether to continue; in a depth-first search,
+         *         whether to explore the subsets below this partial decision
+         */
+        boolean visit(DiscreteSet<E> subset, int decided);
+    }
+
+    /**
+     * Create a search over the subsets of a set, deciding elements in its iteration order.
+     *
+     * @param set - Set whose subsets to search
+     */
+    public SubsetSearch(DiscreteSet<E> set) {
+        this.elements = set.toArray();
+    }
+
+    /**
+     * Create a search over the subsets of a set, deciding elements in a given order.
+     *
+     * @param set - Set whose subsets to search
+     * @param order - Order to decide elements in
+     */
+    @SuppressWarnings("unchecked")
+    public SubsetSearch(DiscreteSet<E> set, Comparator<? super E> order) {
+        this.elements = set.toArray();
+        Arrays.sort(this.elements, (a, b) -> order.compare((E) a, (E) b));
+    }
+
+    /**
+     * Get the number of elements being decided.
+     *
+     * @return The cardinality of the source set
+     */
+    public int elementCount() {
+        return this.elements.length;
+    }
+
+    /**
+     * Visit every subset once, starting with the empty set, changing a single element between visits.
+     *
+     * @param visitor - Visitor for the subsets; returning false stops the walk
+     * @return The number of subsets visited
+     * @throws IllegalArgumentException If the set has more than 62 elements
+     */
+    public long grayCode(Visitor<E> visitor) throws IllegalArgumentException {
+        checkGrayCodeSize();
+        return grayCode(visitor, 0, 0, new AtomicBoolean());
+    }
+
+    /**
+     * Visit every subset once in parallel. The last prefixLength elements are fixed in each of
+     * 2^prefixLength blocks, and the rest are walked in Gray-code order within the block,
+     * on its own subset and with its own visitor.
+     *
+     * @param visitors - Creates the visitor for each block; returning false from any visitor stops every block
+     * @param prefixLength - Number of elements to split the blocks by
+     * @return The number of subsets visited
+     * @throws IllegalArgumentException If the set has more than 62 elements,
+     *                                  or prefixLength is negative, above 20 or above the number of elements
+     */
+    public long grayCodeParallel(Supplier<? extends Visitor<E>> visitors, int prefixLength) throws IllegalArgumentException {
+        checkGrayCodeSize();
+        checkPrefixLength(prefixLength);
+
+        AtomicBoolean stopped = new AtomicBoolean();
+        LongAdder visited = new LongAdder();
+        IntStream.range(0, 1 << prefixLength).parallel().forEach(prefix -> {
+            visited.add(grayCode(visitors.get(), prefixLength, prefix, stopped));
+        });
+        return visited.sum();
+    }
+
+    /**
+     * Decide each element in turn, visiting the subset of included elements after every decision.
+     * Each element is first included and then excluded, so the first complete subset visited is
+     * the whole set and the last is the empty set.
+     *
+     * @param visitor - Visitor for the partial and complete subsets; returning false prunes
+     *                  every subset that extends the current decisions
+     * @return The number of visits made
+     */
+    public long depthFirst(Visitor<E> visitor) {
+        return depthFirst(visitor, 0, 0);
+    }
+
+    /**
+     * Run a depth-first search in parallel. The decisions for the first prefixLength elements
+     * split the search into 2^prefixLength disjoint branches, each searched on its own subset
+     * and with its own visitor. Each visitor is first shown the partial subsets leading to its branch,
+     * so pruning at those levels works as usual, but the shared levels are visited once per branch.
+     *
+     * @param visitors - Creates the visitor for each branch
+     * @param prefixLength - Number of elements to split the branches by
+     * @return The number of visits made
+     * @throws IllegalArgumentException If prefixLength is negative, above 20 or above the number of elements
+     */
+    public long depthFirstParallel(Supplier<? extends Visitor<E>> visitors, int prefixLength) throws IllegalArgumentException {
+        checkPrefixLength(prefixLength);
+
+        LongAdder visited = new LongAdder();
+        IntStream.range(0, 1 << prefixLength).parallel().forEach(prefix -> {
+            visited.add(depthFirst(visitors.get(), prefixLength, prefix));
+        });
+        return visited.sum();
+    }
+
+    /**
+     * Walk the subsets of the first n - prefixLength elements in Gray-code order,
+     * with each of the last prefixLength elements included if its bit in prefix is set.
+     */
+    @SuppressWarnings("unchecked")
+    private long grayCode(Visitor<E> visitor, int prefixLength, int prefix, AtomicBoolean stopped) {
+        int n = this.elements.length;
+        int free = n - prefixLength;
+        DiscreteSet<E> subset = new GenericDiscreteSet<>();
+        for (int i = 0; i < prefixLength; i++) {
+            if ((prefix >>> i & 1) != 0) {
+                include(visitor, subset, (E) this.elements[free + i]);
+            }
+        }
+
+        long visited = 0;
+        long steps = 1L << free;
+        for (long step = 0; step < steps; step++) {
+            if (step > 0) {
+                // Gray code g(step) = step ^ (step >> 1) differs from g(step - 1) in the lowest set bit of step
+                int bit = Long.numberOfTrailingZeros(step);
+                E element = (E) this.elements[bit];
+                if (((step ^ (step >> 1)) >>> bit & 1) != 0) {
+                    include(visitor, subset, element);
+                } else {
+                    exclude(visitor, subset, element);
+                }
+            }
+            if (stopped.get()) break;
+            visited++;
+            if (!visitor.visit(subset, n)) {
+                stopped.set(true);
+                break;
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Search depth first, with the first prefixLength elements decided by the bits of prefix.
+     */
+    @SuppressWarnings("unchecked")
+    private long depthFirst(Visitor<E> visitor, int prefixLength, int prefix) {
+        int n = this.elements.length;
+        DiscreteSet<E> subset = new GenericDiscreteSet<>();
+        long visited = 0;
+
+        // Replay the decisions leading to this branch, so the visitor can prune along the way
+        for (int depth = 0; depth < prefixLength; depth++) {
+            visited++;
+            if (!visitor.visit(subset, depth)) return visited;
+            if ((prefix >>> depth & 1) == 0) {
+                include(visitor, subset, (E) this.elements[depth]);
+            }
+        }
+
+        // Iterative, so deep searches cannot overflow the stack
+        byte[] state = new byte[n + 1];
+        int depth = prefixLength;
+        state[depth] = NEW;
+        while (depth >= prefixLength) {
+            switch (state[depth]) {
+                case NEW:
+                    visited++;
+                    if (!visitor.visit(subset, depth) || depth == n) {
+                        depth--;
+                        break;
+                    }
+                    state[depth] = INCLUDED;
+                    include(visitor, subset, (E) this.elements[depth]);
+                    state[++depth] = NEW;
+                    break;
+                case INCLUDED:
+                    state[depth] = EXCLUDED;
+                    exclude(visitor, subset, (E) this.elements[depth]);
+                    state[++depth] = NEW;
+                    break;
+                default:
+                    depth--;
+                    break;
+            }
+        }
+        return visited;
+    }
+
+    private void include(Visitor<E> visitor, DiscreteSet<E> subset, E element) {
+        subset.add(element);
+        visitor.added(element);
+    }
+
+    private void exclude(Visitor<E> visitor, DiscreteSet<E> subset, E element) {
+        subset.remove(element);
+        visitor.removed(element);
+    }
+
+    private void checkGrayCodeSize() throws IllegalArgumentException {
+        if (this.elements.length > MAX_GRAY_CODE_ELEMENTS) {
+            throw new IllegalArgumentException(
+                "SubsetSearch cannot walk the subsets of more than " + MAX_GRAY_CODE_ELEMENTS + " elements in Gray-code order"
+            );
+        }
+    }
+
+    private void checkPrefixLength(int prefixLength) throws IllegalArgumentException {
+        if (prefixLength < 0 || prefixLength > 20 || prefixLength > this.elements.length) {
+            throw new IllegalArgumentException(
+                "SubsetSearch arg 'prefixLength' must be between 0 and the smaller of 20 and the number of elements"
+            );
+        }
+    }
+}
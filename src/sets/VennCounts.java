@@ -0,0 +1,303 @@
+package sets;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The sizes of every region of the Venn diagram of up to 64 sets, counted in a single pass over their elements.
+ *
+ * Each element is mapped to a membership mask, with bit i set if the element is in set i, by one open addressing
+ * table holding the masks in a primitive long array. The regions are then the distinct masks, and the size of a
+ * region is how many elements have exactly that mask. Any count built from intersections, unions and differences
+ * of the sets, like the elements in A and B but not C, or the number of elements in exactly k sets, is a sum over the regions,
+ * so none of those sets is ever built.
+ *
+ * Sets are named by masks in the queries, in the order they were given: the mask {@code 0b101} means the first
+ * and third sets. The counts are a snapshot; later changes to the sets are not reflected.
+ *
+ * @author Gavin Borne
+ */
+public final class VennCounts {
+    private static final int MAX_SETS = 64;
+    // Largest table of elements, which holds at least one and a half slots per element
+    private static final long MAX_CAPACITY = 1 << 30;
+    // Stands in for null elements, since null marks an empty slot
+    private static final Object NULL = new Object();
+
+    private final int setCount;
+    // Region i holds the regionSizes[i] elements whose membership mask is exactly regionMasks[i], sorted by mask
+    private final long[] regionMasks;
+    private final long[] regionSizes;
+    private final long elementCount;
+
+    private VennCounts(int setCount, long[] regionMasks, long[] regionSizes, long elementCount) {
+        this.setCount = setCount;
+        this.regionMasks = regionMasks;
+        this.regionSizes = regionSizes;
+        this.elementCount = elementCount;
+    }
+
+    /**
+     * Count the regions of the Venn diagram of some sets.
+     * The cardinalities of the sets can add up to at most about 715 million, since the table
+     * that maps elements to masks is sized for all of them being distinct and holds at most 2^30 slots.
+     *
+     * @param sets - Sets to count, at most 64
+     * @return The region counts
+     * @throws IllegalArgumentException If there are more than 64 sets, or their cardinalities add up to too many elements
+     */
+    public static VennCounts of(DiscreteSet<?>... sets) throws IllegalArgumentException {
+        return of(Arrays.asList(sets));
+    }
+
+    /**
+     * Count the regions of the Venn diagram of a list of sets.
+     * The cardinalities of the sets can add up to at most about 715 million, see {@link #of(DiscreteSet...)}.
+     *
+     * @param sets - Sets to count, at most 64
+     * @return The region counts
+     * @throws IllegalArgumentException If there are more than 64 sets, or their cardinalities add up to too many elements
+     */
+    public static VennCounts of(List<? extends DiscreteSet<?>> sets) throws IllegalArgumentException {
+        if (sets.size() > MAX_SETS) {
+            throw new IllegalArgumentException("VennCounts.of arg 'sets' cannot have more than " + MAX_SETS + " sets");
+        }
+
+        // Size the table for every element being distinct, so it never has to grow
+        // and every probe sequence reaches an empty slot
+        long total = 0;
+        for (DiscreteSet<?> set : sets) {
+            total += set.cardinality();
+        }
+        long slots = Long.highestOneBit(Math.max(total * 3 / 2, 4)) << 1;
+        if (slots > MAX_CAPACITY) {
+            throw new IllegalArgumentException("VennCounts.of arg 'sets' cannot hold more than " + (MAX_CAPACITY * 2 / 3) + " elements in total");
+        }
+        int capacity = (int) slots;
+        Object[] keys = new Object[capacity];
+        long[] masks = new long[capacity];
+        int tableMask = capacity - 1;
+
+        int distinct = 0;
+        for (int i = 0; i < sets.size(); i++) {
+            long bit = 1L << i;
+            for (Object element : sets.get(i)) {
+                Object key = element == null ? NULL : element;
+                int hash = key.hashCode() * 0x9E3779B9;
+                int slot = (hash ^ (hash >>> 16)) & tableMask;
+                while (keys[slot] != null && !keys[slot].equals(key)) {
+                    slot = (slot + 1) & tableMask;
+                }
+                if (keys[slot] == null) {
+                    keys[slot] = key;
+                    distinct++;
+                }
+                masks[slot] |= bit;
+            }
+        }
+
+        // Group equal masks by sorting them
+        long[] memberships = new long[distinct];
+        int length = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            if (keys[slot] != null) {
+                memberships[length++] = masks[slot];
+            }
+        }
+        Arrays.sort(memberships);
+
+        long[] regionMasks = new long[distinct];
+        long[] regionSizes = new long[distinct];
+        int regions = 0;
+        for (int i = 0; i < distinct; i++) {
+            if (regions > 0 && regionMasks[regions - 1] == memberships[i]) {
+                regionSizes[regions - 1]++;
+            } else {
+                regionMasks[regions] = memberships[i];
+                regionSizes[regions++] = 1;
+            }
+        }
+
+        return new VennCounts(
+            sets.size(), Arrays.copyOf(regionMasks, regions), Arrays.copyOf(regionSizes, regions), distinct
+        );
+    }
+
+    /**
+     * Get the number of sets counted.
+     *
+     * @return The number of sets
+     */
+    public int setCount() {
+        return this.setCount;
+    }
+
+    /**
+     * Get the number of distinct elements across all the sets, the size of their union.
+     *
+     * @return The number of elements
+     */
+    public long elementCount() {
+        return this.elementCount;
+    }
+
+    /**
+     * Get the number of non-empty regions.
+     *
+     * @return The number of regions
+     */
+    public int regionCount() {
+        return this.regionMasks.length;
+    }
+
+    /**
+     * Get the membership mask of a non-empty region. Regions are ordered by their masks.
+     *
+     * @param i - Index of the region
+     * @return The sets the elements of the region are in
+     * @throws IndexOutOfBoundsException If i is not between 0 and regionCount() - 1
+     */
+    public long regionMask(int i) throws IndexOutOfBoundsException {
+        return this.regionMasks[i];
+    }
+
+    /**
+     * Get the size of a non-empty region.
+     *
+     * @param i - Index of the region
+     * @return The number of elements in the region
+     * @throws IndexOutOfBoundsException If i is not between 0 and regionCount() - 1
+     */
+    public long regionSize(int i) throws IndexOutOfBoundsException {
+        return this.regionSizes[i];
+    }
+
+    /**
+     * Count the elements that are in exactly the given sets and no others.
+     *
+     * @param sets - Mask of the sets
+     * @return The size of the region
+     * @throws IllegalArgumentException If the mask names sets that were not counted
+     */
+    public long region(long sets) throws IllegalArgumentException {
+        checkMask(sets);
+        int i = Arrays.binarySearch(this.regionMasks, sets);
+        return i >= 0 ? this.regionSizes[i] : 0;
+    }
+
+    /**
+     * Count the elements that are in all of one group of sets and none of another,
+     * e.g. the elements in A and B but not C are {@code count(0b011, 0b100)}.
+     *
+     * @param inAll - Mask of the sets the elements must be in
+     * @param inNone - Mask of the sets the elements must not be in
+     * @return The number of such elements
+     * @throws IllegalArgumentException If either mask names sets that were not counted
+     */
+    public long count(long inAll, long inNone) throws IllegalArgumentException {
+        checkMask(inAll);
+        checkMask(inNone);
+        long count = 0;
+        for (int i = 0; i < this.regionMasks.length; i++) {
+            long mask = this.regionMasks[i];
+            if ((mask & inAll) == inAll && (mask & inNone) == 0) {
+                count += this.regionSizes[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Count the elements in every one of the given sets.
+     *
+     * @param sets - Mask of the sets
+     * @return The size of their intersection, or the size of the union of all sets if the mask is empty
+     * @throws IllegalArgumentException If the mask names sets that were not counted
+     */
+    public long intersectionSize(long sets) throws IllegalArgumentException {
+        return count(sets, 0);
+    }
+
+    /**
+     * Count the elements in at least one of the given sets.
+     *
+     * @param sets - Mask of the sets
+     * @return The size of their union
+     * @throws IllegalArgumentException If the mask names sets that were not counted
+     */
+    public long unionSize(long sets) throws IllegalArgumentException {
+        checkMask(sets);
+        long count = 0;
+        for (int i = 0; i < this.regionMasks.length; i++) {
+            if ((this.regionMasks[i] & sets) != 0) {
+                count += this.regionSizes[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Count the elements by how many of the sets they are in.
+     *
+     * @return An array where index k holds the number of elements in exactly k sets, for k from 0 to setCount();
+     *         index 0 is always 0, since every element counted is in at least one set
+     */
+    public long[] membershipCounts() {
+        long[] counts = new long[this.setCount + 1];
+        for (int i = 0; i < this.regionMasks.length; i++) {
+            counts[Long.bitCount(this.regionMasks[i])] += this.regionSizes[i];
+        }
+        return counts;
+    }
+
+    /**
+     * Count the elements that are in exactly k of the sets.
+     *
+     * @param k - Number of sets
+     * @return The number of such elements
+     */
+    public long exactly(int k) {
+        long count = 0;
+        for (int i = 0; i < this.regionMasks.length; i++) {
+            if (Long.bitCount(this.regionMasks[i]) == k) {
+                count += this.regionSizes[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Count the elements that are in at least k of the sets.
+     *
+     * @param k - Number of sets
+     * @return The number of such elements
+     */
+    public long atLeast(int k) {
+        long count = 0;
+        for (int i = 0; i < this.regionMasks.length; i++) {
+            if (Long.bitCount(this.regionMasks[i]) >= k) {
+                count += this.regionSizes[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < this.regionMasks.length; i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(Long.toBinaryString(this.regionMasks[i])).append(": ").append(this.regionSizes[i]);
+        }
+        return builder.append('}').toString();
+    }
+
+    private void checkMask(long sets) throws IllegalArgumentException {
+        if (this.setCount < MAX_SETS && sets >>> this.setCount != 0) {
+            throw new IllegalArgumentException("VennCounts mask " + Long.toBinaryString(sets) + " names sets that were not counted");
+        }
+    }
+}
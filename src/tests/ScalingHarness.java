@@ -0,0 +1,182 @@
+package tests;
+
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntFunction;
+
+/**
+ * Measures how the running time and allocation of an operation grow with the size of its input,
+ * to catch changes that make an operation asymptotically slower.
+ *
+ * An operation is run at a series of geometrically growing sizes. The time per run at each size is the
+ * fastest of a few timed batches, which filters out most interference from the JIT compiler and the
+ * garbage collector, and the growth exponent is the slope of a least-squares fit of log(time) against log(size).
+ * An O(n) operation fits an exponent near 1, O(n log n) slightly above 1, and O(n^2) near 2.
+ * Allocation is read from the thread's allocation counter for a single run at the largest size.
+ *
+ * An operation that exceeds its budget is measured again, and only fails if it exceeds the budget
+ * on every attempt: a complexity regression does so every time, while a burst of noise rarely lasts.
+ * Budgets should still be loose enough to absorb timing noise on a busy machine,
+ * but tight enough that the next complexity class up fails.
+ */
+final class ScalingHarness {
+    // Each timed batch runs the operation until at least this much time has passed
+    private static final long BATCH_NANOS = 20_000_000;
+    private static final int BATCHES = 3;
+    // Measurements over budget before an operation fails
+    private static final int ATTEMPTS = 3;
+
+    private ScalingHarness() {}
+
+    /**
+     * The measured growth of one operation.
+     */
+    static final class Result {
+        final String name;
+        final int[] sizes;
+        final double[] nanos;
+        final double exponent;
+        final double bytesPerElement;
+
+        private Result(String name, int[] sizes, double[] nanos, double exponent, double bytesPerElement) {
+            this.name = name;
+            this.sizes = sizes;
+            this.nanos = nanos;
+            this.exponent = exponent;
+            this.bytesPerElement = bytesPerElement;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(this.name)
+                .append(String.format(": exponent %.2f, %.1f bytes/element (", this.exponent, this.bytesPerElement));
+            for (int i = 0; i < this.sizes.length; i++) {
+                if (i > 0) builder.append(", ");
+                builder.append(String.format("n=%d %.0f ns", this.sizes[i], this.nanos[i]));
+            }
+            return builder.append(')').toString();
+        }
+    }
+
+    /**
+     * Get sizes from first, doubling each time.
+     */
+    static int[] doubling(int first, int count) {
+        int[] sizes = new int[count];
+        for (int i = 0; i < count; i++) {
+            sizes[i] = first << i;
+        }
+        return sizes;
+    }
+
+    /**
+     * Measure an operation at each size.
+     *
+     * @param name - Name of the operation, for reports
+     * @param sizes - Input sizes, in increasing order
+     * @param setup - Builds the input for a size, untimed, and returns the operation to time on it
+     * @return The measured growth
+     */
+    static Result measure(String name, int[] sizes, IntFunction<Runnable> setup) {
+        Runnable[] operations = new Runnable[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            operations[i] = setup.apply(sizes[i]);
+        }
+        // Warm up at every size first, so no size is timed before the compiler has settled
+        for (int i = sizes.length - 1; i >= 0; i--) {
+            time(operations[i]);
+        }
+
+        double[] nanos = new double[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            double fastest = Double.MAX_VALUE;
+            for (int batch = 0; batch < BATCHES; batch++) {
+                fastest = Math.min(fastest, time(operations[i]));
+            }
+            nanos[i] = fastest;
+        }
+
+        Runnable largest = operations[sizes.length - 1];
+        double bytes = allocatedBytes(largest);
+        return new Result(name, sizes, nanos, slope(sizes, nanos), bytes / sizes[sizes.length - 1]);
+    }
+
+    /**
+     * Measure an operation and fail if it grows faster than its budget on every attempt.
+     *
+     * @param name - Name of the operation, for reports
+     * @param sizes - Input sizes, in increasing order
+     * @param maxExponent - Largest growth exponent allowed
+     * @param maxBytesPerElement - Most bytes allocated per element of the largest input allowed
+     * @param setup - Builds the input for a size, untimed, and returns the operation to time on it
+     * @return The measured growth
+     */
+    static Result assertScaling(String name, int[] sizes, double maxExponent, double maxBytesPerElement,
+                                IntFunction<Runnable> setup) {
+        Result result = null;
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            result = measure(name, sizes, setup);
+            if (result.exponent <= maxExponent && result.bytesPerElement <= maxBytesPerElement) return result;
+        }
+        if (result.exponent > maxExponent) {
+            fail(String.format("%s grows faster than its budget of n^%.2f: %s", name, maxExponent, result));
+        }
+        if (result.bytesPerElement > maxBytesPerElement) {
+            fail(String.format("%s allocates more than its budget of %.1f bytes/element: %s", name, maxBytesPerElement, result));
+        }
+        return result;
+    }
+
+    /**
+     * Time one batch of runs.
+     *
+     * @return The average nanoseconds per run
+     */
+    private static double time(Runnable operation) {
+        long runs = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            operation.run();
+            runs++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < BATCH_NANOS);
+        return (double) elapsed / runs;
+    }
+
+    /**
+     * Count the bytes allocated by one run, or 0 if the JVM cannot count allocations per thread.
+     */
+    private static double allocatedBytes(Runnable operation) {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) return 0;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) return 0;
+
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        operation.run();
+        return threads.getThreadAllocatedBytes(thread) - before;
+    }
+
+    /**
+     * Fit log(nanos) = exponent * log(size) + c by least squares.
+     */
+    private static double slope(int[] sizes, double[] nanos) {
+        int count = sizes.length;
+        double meanX = 0;
+        double meanY = 0;
+        for (int i = 0; i < count; i++) {
+            meanX += Math.log(sizes[i]) / count;
+            meanY += Math.log(nanos[i]) / count;
+        }
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < count; i++) {
+            double dx = Math.log(sizes[i]) - meanX;
+            covariance += dx * (Math.log(nanos[i]) - meanY);
+            variance += dx * dx;
+        }
+        return covariance / variance;
+    }
+}
@@ -0,0 +1,139 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import sets.AdaptiveDiscreteSet;
+import sets.AdaptiveDiscreteSet.Representation;
+import sets.DiscreteSet;
+import sets.GenericDiscreteSet;
+
+public class TestAdaptiveDiscreteSet {
+    @Test
+    public void testRepresentations() {
+        AdaptiveDiscreteSet<Object> set = new AdaptiveDiscreteSet<>();
+        set.add(1);
+        assertEquals(Representation.INLINE, set.getRepresentation());
+
+        // Every other value: too fragmented for runs, dense enough for a bitset
+        for (int i = 0; i < 10000; i += 2) set.add(i);
+        assertEquals(Representation.BITSET, set.getRepresentation());
+
+        // Filling the gaps leaves a single run
+        for (int i = 0; i < 80000; i++) set.add(i);
+        assertEquals(Representation.RUNS, set.getRepresentation());
+
+        // An element that is not an integer needs a hash set
+        set.add("a");
+        assertEquals(Representation.HASH, set.getRepresentation());
+        assertEquals(80001, set.cardinality());
+        assertTrue(set.contains("a"));
+        assertTrue(set.contains(79999));
+    }
+
+    @Test
+    public void testRemovalsReconsiderRepresentation() {
+        AdaptiveDiscreteSet<Integer> set = new AdaptiveDiscreteSet<>();
+        for (int i = 0; i < 90000; i++) set.add(i);
+        assertEquals(Representation.RUNS, set.getRepresentation());
+
+        // Removing every even value through the iterator leaves 45000 runs of one, far cheaper as a bitset
+        Iterator<Integer> iterator = set.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 2 == 0) iterator.remove();
+        }
+        assertEquals(Representation.BITSET, set.getRepresentation());
+        assertTrue(set.memoryFootprint() < 20000);
+        Set<Integer> odds = new HashSet<>();
+        for (int i = 1; i < 90000; i += 2) odds.add(i);
+        assertEquals(odds, set.getElements());
+        assertEquals(new GenericDiscreteSet<>(odds).hashCode(), set.hashCode());
+
+        // The same through a single bulk removal
+        AdaptiveDiscreteSet<Integer> runs = new AdaptiveDiscreteSet<>();
+        for (int i = 0; i < 90000; i++) runs.add(i);
+        runs.removeIf(value -> value % 2 == 0);
+        assertEquals(Representation.BITSET, runs.getRepresentation());
+        assertEquals(odds, runs.getElements());
+
+        // A wide bitset that shrinks to a few values is cheaper as a hash set
+        AdaptiveDiscreteSet<Integer> sparse = new AdaptiveDiscreteSet<>();
+        for (int i = 0; i < 200000; i += 2) sparse.add(i);
+        assertEquals(Representation.BITSET, sparse.getRepresentation());
+        sparse.removeIf(value -> value % 10000 != 0);
+        assertEquals(Representation.HASH, sparse.getRepresentation());
+        assertEquals(20, sparse.cardinality());
+        assertTrue(sparse.contains(190000));
+    }
+
+    @Test
+    public void testAlgebraMatchesHashSets() {
+        AdaptiveDiscreteSet<Integer> evens = new AdaptiveDiscreteSet<>();
+        AdaptiveDiscreteSet<Integer> thirds = new AdaptiveDiscreteSet<>();
+        Set<Integer> expectedEvens = new HashSet<>();
+        Set<Integer> expectedThirds = new HashSet<>();
+        for (int i = -500; i < 3000; i++) {
+            if (i % 2 == 0) {
+                evens.add(i);
+                expectedEvens.add(i);
+            }
+            if (i % 3 == 0 && i > 100) {
+                thirds.add(i);
+                expectedThirds.add(i);
+            }
+        }
+        assertEquals(Representation.BITSET, evens.getRepresentation());
+        assertEquals(Representation.BITSET, thirds.getRepresentation());
+
+        long bitsetKernels = AdaptiveDiscreteSet.kernelCount(AdaptiveDiscreteSet.Kernel.BITSET);
+        DiscreteSet<Integer> union = evens.union(thirds);
+        DiscreteSet<Integer> intersection = evens.intersection(thirds);
+        DiscreteSet<Integer> difference = evens.difference(thirds);
+        assertTrue(AdaptiveDiscreteSet.kernelCount(AdaptiveDiscreteSet.Kernel.BITSET) >= bitsetKernels + 3);
+
+        Set<Integer> expected = new HashSet<>(expectedEvens);
+        expected.addAll(expectedThirds);
+        assertEquals(expected, union.getElements());
+        assertEquals(new GenericDiscreteSet<>(expected).hashCode(), union.hashCode());
+
+        expected = new HashSet<>(expectedEvens);
+        expected.retainAll(expectedThirds);
+        assertEquals(expected, intersection.getElements());
+
+        expected = new HashSet<>(expectedEvens);
+        expected.removeAll(expectedThirds);
+        assertEquals(expected, difference.getElements());
+
+        assertTrue(intersection.isSubsetOf(evens));
+        assertFalse(evens.isSubsetOf(thirds));
+    }
+
+    @Test
+    public void testUnionOfDistantBitsets() {
+        // Two dense bitsets at opposite ends of the int range, whose union as one bitset would need 512 MB
+        AdaptiveDiscreteSet<Integer> low = new AdaptiveDiscreteSet<>();
+        AdaptiveDiscreteSet<Integer> high = new AdaptiveDiscreteSet<>();
+        for (int i = 0; i < 2000; i += 2) {
+            low.add(Integer.MIN_VALUE + i);
+            high.add(Integer.MAX_VALUE - i);
+        }
+        assertEquals(Representation.BITSET, low.getRepresentation());
+        assertEquals(Representation.BITSET, high.getRepresentation());
+
+        long probes = AdaptiveDiscreteSet.kernelCount(AdaptiveDiscreteSet.Kernel.PROBE);
+        DiscreteSet<Integer> union = low.union(high);
+        assertTrue(AdaptiveDiscreteSet.kernelCount(AdaptiveDiscreteSet.Kernel.PROBE) > probes);
+        assertEquals(2000, union.cardinality());
+        assertTrue(union.contains(Integer.MIN_VALUE));
+        assertTrue(union.contains(Integer.MAX_VALUE));
+        assertEquals(0, low.intersection(high).cardinality());
+        assertEquals(low, low.difference(high));
+    }
+}
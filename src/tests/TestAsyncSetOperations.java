@@ -0,0 +1,134 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import sets.AsyncSetOperations;
+import sets.BellNumbers;
+import sets.DiscreteSet;
+import sets.GenericDiscreteSet;
+import sets.OrderedGroup;
+import sets.SetTask;
+
+public class TestAsyncSetOperations {
+    /**
+     * An element whose hash code throws once it is armed, to fail a computation partway through.
+     */
+    private static final class Fragile {
+        private RuntimeException failure;
+
+        @Override
+        public int hashCode() {
+            if (this.failure != null) throw this.failure;
+            return 0;
+        }
+    }
+
+    @Test
+    public void testResultsMatchSynchronousOperations() {
+        AsyncSetOperations async = new AsyncSetOperations(Runnable::run);
+        DiscreteSet<Integer> a = new GenericDiscreteSet<>(List.of(1, 2, 3, 4, 5));
+        DiscreteSet<Integer> b = new GenericDiscreteSet<>(List.of(4, 5, 6));
+        DiscreteSet<Integer> c = new GenericDiscreteSet<>(List.of(7, 8));
+
+        SetTask<DiscreteSet<DiscreteSet<Integer>>> powerSet = async.powerSet(a);
+        assertEquals(a.powerSet(), powerSet.join());
+        assertEquals(32, powerSet.getTotal());
+        assertEquals(32, powerSet.getProduced());
+        assertEquals(1.0, powerSet.getProgress(), 0);
+
+        SetTask<DiscreteSet<OrderedGroup>> product = async.cartesianProduct(List.of(a, b, c));
+        assertEquals(a.cartesianProduct(List.of(b, c)), product.join());
+        assertEquals(30, product.join().cardinality());
+        assertTrue(product.join().contains(new OrderedGroup(1, 6, 8)));
+        assertEquals(30, product.getProduced());
+        assertEquals(a.cartesianProduct(b), async.cartesianProduct(List.of(a, b)).join());
+        SetTask<DiscreteSet<OrderedGroup>> empty = async.cartesianProduct(List.of(a, new GenericDiscreteSet<>()));
+        assertTrue(empty.join().isEmpty());
+        assertEquals(1.0, empty.getProgress(), 0);
+
+        SetTask<BigInteger> bell = async.bellNumber(30);
+        assertEquals(BellNumbers.bellNumber(30), bell.join());
+        assertEquals(a.bellNumber(), async.bellNumber(a).join());
+        assertEquals(30, bell.getProduced());
+        assertEquals(BigInteger.ONE, async.bellNumber(0).join());
+
+        assertEquals(a.intersection(List.of(b)), async.intersection(a, List.of(b)).join());
+        assertThrows(IllegalArgumentException.class, () -> async.bellNumber(-1));
+        assertThrows(IllegalArgumentException.class, () -> async.cartesianProduct(List.of()));
+    }
+
+    @Test
+    public void testCancelledBeforeStarting() {
+        List<Runnable> queued = new ArrayList<>();
+        AsyncSetOperations async = new AsyncSetOperations(queued::add);
+        SetTask<BigInteger> task = async.bellNumber(10);
+        assertFalse(task.isDone());
+        assertEquals(0.0, task.getProgress(), 0);
+
+        assertTrue(task.cancel(false));
+        queued.get(0).run();
+        assertTrue(task.isCancelled());
+        assertEquals(0, task.getProduced());
+    }
+
+    @Test
+    public void testCancelStopsTheComputation() throws InterruptedException {
+        // B(200000) would take hours, so the worker only finishes if cancelling stops it
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        SetTask<BigInteger> task = new AsyncSetOperations(executor).bellNumber(200000);
+        while (task.getProduced() < 10) {
+            Thread.sleep(1);
+        }
+        assertTrue(task.cancel(true));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        long produced = task.getProduced();
+        assertTrue(produced >= 10 && produced < 200000);
+        assertTrue(task.isCancelled());
+        assertThrows(CancellationException.class, task::join);
+    }
+
+    @Test
+    public void testFailuresCompleteTheTask() {
+        AsyncSetOperations async = new AsyncSetOperations(Runnable::run);
+        Fragile fragile = new Fragile();
+        DiscreteSet<Object> set = new GenericDiscreteSet<>(List.of(1, 2, fragile));
+
+        IllegalStateException failure = new IllegalStateException("failed");
+        fragile.failure = failure;
+        SetTask<DiscreteSet<DiscreteSet<Object>>> failed = async.powerSet(set);
+        assertTrue(failed.isCompletedExceptionally());
+        CompletionException thrown = assertThrows(CompletionException.class, failed::join);
+        assertSame(failure, thrown.getCause());
+
+        // A cancellation thrown by the computation itself must still complete the task
+        fragile.failure = new CancellationException("thrown by an element");
+        SetTask<DiscreteSet<DiscreteSet<Object>>> cancelled = async.powerSet(set);
+        assertTrue(cancelled.isDone());
+        assertTrue(cancelled.isCompletedExceptionally());
+
+        // An executor that refuses the task
+        SetTask<BigInteger> rejected = new AsyncSetOperations(run -> {
+            throw new RejectedExecutionException("shut down");
+        }).bellNumber(5);
+        assertTrue(rejected.isCompletedExceptionally());
+        assertThrows(CompletionException.class, rejected::join);
+    }
+}
@@ -226,4 +226,23 @@ public class TestBellNumbers {
         got = BellNumbers.bellNumberRecursive(26);
         assertEquals(exp, got);
     }
-}
+
+    @Test
+    public void testStirlingSecondKind() {
+        // Stirling number values sourced from
+        // https://oeis.org/A008277
+        assertEquals(BigInteger.ONE, BellNumbers.stirlingSecondKind(0, 0));
+        assertEquals(BigInteger.ZERO, BellNumbers.stirlingSecondKind(4, 0));
+        assertEquals(BigInteger.valueOf(7), BellNumbers.stirlingSecondKind(4, 2));
+        assertEquals(BigInteger.valueOf(6), BellNumbers.stirlingSecondKind(4, 3));
+        assertEquals(BigInteger.valueOf(350), BellNumbers.stirlingSecondKind(7, 4));
+        assertEquals(BigInteger.ZERO, BellNumbers.stirlingSecondKind(3, 4));
+
+        // B_n is the sum of S(n, k) over k
+        BigInteger sum = BigInteger.ZERO;
+        for (int k = 0; k <= 26; k++) {
+            sum = sum.add(BellNumbers.stirlingSecondKind(26, k));
+        }
+        assertEquals(BellNumbers.bellNumber(26), sum);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,110 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+
+import sets.BinomialCoefficients;
+
+public class TestBinomialCoefficients {
+    @Test
+    public void testBinomial() {
+        assertEquals(BigInteger.ONE, BinomialCoefficients.binomial(0, 0));
+        assertEquals(BigInteger.valueOf(10), BinomialCoefficients.binomial(5, 2));
+        assertEquals(BigInteger.valueOf(10), BinomialCoefficients.binomial(5, 3));
+        assertEquals(BigInteger.ZERO, BinomialCoefficients.binomial(5, 6));
+        assertEquals(BigInteger.ZERO, BinomialCoefficients.binomial(5, -1));
+
+        // Largest central coefficient that fits in a long
+        assertEquals(BigInteger.valueOf(7219428434016265740L), BinomialCoefficients.binomial(66, 33));
+        assertEquals(new BigInteger("14226520737620288370"), BinomialCoefficients.binomial(67, 33));
+
+        assertThrows(IllegalArgumentException.class, () -> BinomialCoefficients.binomial(-1, 0));
+    }
+
+    @Test
+    public void testBinomialStrategiesAgree() {
+        // Compare every strategy against a plain multiplicative loop
+        int[] ns = {100, 1024, 1025, 3000};
+        int[] ks = {0, 1, 7, 63, 64, 500};
+
+        for (int n : ns) {
+            for (int k : ks) {
+                BigInteger expected = BigInteger.ONE;
+                for (int i = 0; i < k; i++) {
+                    expected = expected.multiply(BigInteger.valueOf(n - i))
+                        .divide(BigInteger.valueOf(i + 1));
+                }
+                assertEquals(expected, BinomialCoefficients.binomial(n, k));
+                assertEquals(expected, BinomialCoefficients.binomial(n, n - k));
+            }
+        }
+    }
+
+    @Test
+    public void testBinomialExact() {
+        assertEquals(252L, BinomialCoefficients.binomialExact(10, 5));
+        assertEquals(7219428434016265740L, BinomialCoefficients.binomialExact(66, 33));
+        assertThrows(ArithmeticException.class, () -> BinomialCoefficients.binomialExact(67, 33));
+    }
+
+    @Test
+    public void testPascalRow() {
+        BigInteger[] row = BinomialCoefficients.pascalRow(4);
+        assertEquals(5, row.length);
+        assertEquals(BigInteger.ONE, row[0]);
+        assertEquals(BigInteger.valueOf(4), row[1]);
+        assertEquals(BigInteger.valueOf(6), row[2]);
+        assertEquals(BigInteger.valueOf(4), row[3]);
+        assertEquals(BigInteger.ONE, row[4]);
+    }
+
+    @Test
+    public void testMultinomial() {
+        assertEquals(BigInteger.ONE, BinomialCoefficients.multinomial());
+        // 4! / (2! 1! 1!)
+        assertEquals(BigInteger.valueOf(12), BinomialCoefficients.multinomial(2, 1, 1));
+        // MISSISSIPPI: 11! / (1! 4! 4! 2!)
+        assertEquals(BigInteger.valueOf(34650), BinomialCoefficients.multinomial(1, 4, 4, 2));
+    }
+
+    @Test
+    public void testRowCacheIsBounded() {
+        BinomialCoefficients.clearCache();
+        assertEquals(0, BinomialCoefficients.cacheFootprint());
+
+        // Every cacheable row together is several times the 8 MB budget, so later rows are computed without caching
+        for (int n = 68; n <= 1024; n++) {
+            int k = n / 2 - n % 3;
+            BigInteger expected = BigInteger.ONE;
+            for (int i = 0; i < k; i++) {
+                expected = expected.multiply(BigInteger.valueOf(n - i))
+                    .divide(BigInteger.valueOf(i + 1));
+            }
+            assertEquals(expected, BinomialCoefficients.binomial(n, k));
+            assertEquals(expected, BinomialCoefficients.binomial(n, n - k));
+        }
+        long footprint = BinomialCoefficients.cacheFootprint();
+        assertTrue(footprint > 4L << 20);
+        assertTrue(footprint <= 8L << 20);
+
+        // Rows past the budget are still whole and correct
+        BigInteger[] row = BinomialCoefficients.pascalRow(1024);
+        assertEquals(1025, row.length);
+        BigInteger sum = BigInteger.ZERO;
+        for (BigInteger value : row) {
+            sum = sum.add(value);
+        }
+        assertEquals(BigInteger.TWO.pow(1024), sum);
+        assertEquals(footprint, BinomialCoefficients.cacheFootprint());
+
+        BinomialCoefficients.clearCache();
+        assertEquals(0, BinomialCoefficients.cacheFootprint());
+        assertEquals(new BigInteger("14226520737620288370"), BinomialCoefficients.binomial(67, 33));
+        assertTrue(BinomialCoefficients.cacheFootprint() > 0);
+    }
+}
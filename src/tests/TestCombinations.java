@@ -0,0 +1,151 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import sets.BinomialCoefficients;
+import sets.Combinations;
+import sets.DiscreteSet;
+import sets.GenericDiscreteSet;
+
+public class TestCombinations {
+    @Test
+    public void testColexOrder() {
+        // Masks with k bits in increasing numeric order are exactly the k-subsets in colex order of positions
+        for (int n = 0; n <= 10; n++) {
+            DiscreteSet<Integer> set = range(n);
+            Object[] order = set.toArray();
+            for (int k = 0; k <= n + 1; k++) {
+                Combinations<Integer> combinations = set.combinations(k);
+                Iterator<DiscreteSet<Integer>> iterator = combinations.iterator();
+                long rank = 0;
+                for (int mask = 0; mask < 1 << n; mask++) {
+                    if (Integer.bitCount(mask) != k) continue;
+                    DiscreteSet<Integer> expected = fromMask(order, mask);
+                    assertEquals(expected, iterator.next());
+                    assertEquals(expected, combinations.get(rank++));
+                }
+                assertFalse(iterator.hasNext());
+                assertEquals(BigInteger.valueOf(rank), combinations.count());
+                assertEquals(rank, combinations.size());
+            }
+        }
+    }
+
+    @Test
+    public void testGosperAtTheTopOfTheWord() {
+        // 64 elements fill the mask exactly, and 65 need the array of positions
+        for (int n : new int[] { 63, 64, 65 }) {
+            DiscreteSet<Integer> set = range(n);
+            for (int k : new int[] { 1, 2, n - 1, n }) {
+                Combinations<Integer> combinations = set.combinations(k);
+                long expected = BinomialCoefficients.binomial(n, k).longValueExact();
+                long rank = 0;
+                HashSet<DiscreteSet<Integer>> seen = new HashSet<>();
+                for (DiscreteSet<Integer> subset : combinations) {
+                    assertEquals(k, subset.cardinality());
+                    assertTrue(seen.add(subset));
+                    // Spot check the iterator against unranking
+                    if (rank % 97 == 0 || rank == expected - 1) {
+                        assertEquals(combinations.get(rank), subset);
+                    }
+                    rank++;
+                }
+                assertEquals(expected, rank);
+            }
+        }
+    }
+
+    @Test
+    public void testRankAndUnrankOnLargeSets() {
+        // 70 elements take the array path, and C(70, 3) subsets are few enough to walk
+        Combinations<Integer> combinations = range(70).combinations(3);
+        long rank = 0;
+        for (DiscreteSet<Integer> subset : combinations) {
+            assertEquals(combinations.get(rank++), subset);
+        }
+        assertEquals(54740, rank);
+
+        // Ranks past the range of a long
+        Combinations<Integer> huge = range(200).combinations(100);
+        BigInteger last = huge.count().subtract(BigInteger.ONE);
+        assertTrue(last.bitLength() > Long.SIZE);
+        assertEquals(100, huge.get(last).cardinality());
+        assertEquals(Integer.MAX_VALUE, huge.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> huge.get(huge.count()));
+        assertThrows(IndexOutOfBoundsException.class, () -> combinations.get(-1));
+        assertThrows(IllegalArgumentException.class, () -> range(3).combinations(-1));
+    }
+
+    @Test
+    public void testSpliterator() {
+        Combinations<Integer> combinations = range(20).combinations(5);
+        List<DiscreteSet<Integer>> sequential = new ArrayList<>();
+        combinations.forEach(sequential::add);
+        assertEquals(15504, sequential.size());
+
+        assertEquals(sequential, combinations.stream().collect(Collectors.toList()));
+        assertEquals(sequential, combinations.parallelStream().collect(Collectors.toList()));
+        assertEquals(new HashSet<>(sequential), combinations.parallelStream().collect(Collectors.toSet()));
+
+        // Splitting after some subsets were taken hands the rest of the lower half to the prefix
+        Spliterator<DiscreteSet<Integer>> spliterator = combinations.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.ORDERED));
+        List<DiscreteSet<Integer>> visited = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            spliterator.tryAdvance(visited::add);
+        }
+        Spliterator<DiscreteSet<Integer>> prefix = spliterator.trySplit();
+        assertEquals(15504 - 10, prefix.estimateSize() + spliterator.estimateSize());
+        prefix.forEachRemaining(visited::add);
+        spliterator.forEachRemaining(visited::add);
+        assertEquals(sequential, visited);
+        assertNull(spliterator.trySplit());
+    }
+
+    @Test
+    public void testContains() {
+        DiscreteSet<String> set = new GenericDiscreteSet<>(Arrays.asList("a", null, "c"));
+        Combinations<String> combinations = set.combinations(2);
+        assertTrue(combinations.contains(new GenericDiscreteSet<>(Arrays.asList("a", null))));
+        assertTrue(combinations.contains(new GenericDiscreteSet<>(Arrays.asList("a", "c"))));
+        assertFalse(combinations.contains(new GenericDiscreteSet<>(Arrays.asList("a", "b"))));
+        assertFalse(combinations.contains(new GenericDiscreteSet<>(Arrays.asList("a"))));
+        assertFalse(combinations.contains(List.of("a", "c")));
+
+        for (DiscreteSet<String> subset : combinations) {
+            assertTrue(combinations.contains(subset));
+        }
+    }
+
+    private static DiscreteSet<Integer> range(int n) {
+        List<Integer> elements = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            elements.add(i);
+        }
+        return new GenericDiscreteSet<>(elements);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> DiscreteSet<E> fromMask(Object[] order, int mask) {
+        DiscreteSet<E> subset = new GenericDiscreteSet<>();
+        for (int i = 0; i < order.length; i++) {
+            if ((mask & 1 << i) != 0) subset.add((E) order[i]);
+        }
+        return subset;
+    }
+}
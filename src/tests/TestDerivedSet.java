@@ -0,0 +1,160 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import sets.DerivedSet;
+import sets.DiscreteSet;
+import sets.GenericDiscreteSet;
+
+public class TestDerivedSet {
+    @Test
+    public void testViewsFollowEveryMutation() {
+        SplittableRandom random = new SplittableRandom(1);
+        DiscreteSet<Integer> a = new GenericDiscreteSet<>(List.of(1, 2, 3, 4));
+        DiscreteSet<Integer> b = new GenericDiscreteSet<>(List.of(3, 4, 5));
+        DiscreteSet<Integer> c = new GenericDiscreteSet<>();
+        DerivedSet<Integer> union = DerivedSet.unionOf(a, b);
+        DerivedSet<Integer> unionOfThree = DerivedSet.unionOf(List.of(a, b, c));
+        DerivedSet<Integer> intersection = DerivedSet.intersectionOf(a, b);
+        DerivedSet<Integer> difference = DerivedSet.differenceOf(a, b);
+        DerivedSet<Integer> symmetricDifference = DerivedSet.symmetricDifferenceOf(a, b);
+        // A view of views, which changes only through the notifications of the views below it
+        DerivedSet<Integer> chained = DerivedSet.unionOf(intersection, difference);
+
+        for (int step = 0; step < 3000; step++) {
+            DiscreteSet<Integer> target = random.nextInt(3) == 0 ? c : random.nextBoolean() ? a : b;
+            mutate(target, random);
+
+            assertView(a.union(b), union);
+            assertView(a.union(List.of(b, c)), unionOfThree);
+            assertView(a.intersection(b), intersection);
+            assertView(a.difference(b), difference);
+            assertView(a.symmetricDifference(b), symmetricDifference);
+            assertView(new GenericDiscreteSet<>(a), chained);
+        }
+    }
+
+    @Test
+    public void testViewOfTheSameSetTwice() {
+        DiscreteSet<String> a = new GenericDiscreteSet<>(List.of("x", "y"));
+        DerivedSet<String> union = DerivedSet.unionOf(a, a);
+        DerivedSet<String> intersection = DerivedSet.intersectionOf(a, a);
+        DerivedSet<String> difference = DerivedSet.differenceOf(a, a);
+        a.add("z");
+        a.remove("x");
+        assertView(a, union);
+        assertView(a, intersection);
+        assertView(new GenericDiscreteSet<>(), difference);
+        a.clear();
+        assertView(a, union);
+        assertView(a, intersection);
+    }
+
+    @Test
+    public void testDetach() {
+        DiscreteSet<Integer> a = new GenericDiscreteSet<>(List.of(1, 2, 3));
+        DiscreteSet<Integer> b = new GenericDiscreteSet<>(List.of(2, 3, 4));
+        DerivedSet<Integer> intersection = DerivedSet.intersectionOf(a, b);
+        DerivedSet<Integer> chained = DerivedSet.unionOf(intersection, a);
+        assertTrue(intersection.isAttached());
+
+        intersection.detach();
+        assertFalse(intersection.isAttached());
+        DiscreteSet<Integer> frozen = new GenericDiscreteSet<>(List.of(2, 3));
+        a.add(4);
+        b.remove(2);
+        assertView(frozen, intersection);
+        // The chained view still follows a, and still sees the detached view's elements
+        assertView(frozen.union(a), chained);
+
+        // Detaching again does nothing, and a detached view stays unchanged
+        intersection.detach();
+        a.clear();
+        assertView(frozen, intersection);
+        assertView(frozen, chained);
+        assertEquals(List.of(a, b), intersection.getSources());
+    }
+
+    @Test
+    public void testViewsAreReadOnly() {
+        DerivedSet<Integer> union = DerivedSet.unionOf(new GenericDiscreteSet<>(List.of(1)), new GenericDiscreteSet<>(List.of(2)));
+        assertThrows(UnsupportedOperationException.class, () -> union.add(3));
+        assertThrows(UnsupportedOperationException.class, () -> union.addAll(List.of(3)));
+        assertThrows(UnsupportedOperationException.class, () -> union.addAll(new Integer[] { 3 }));
+        assertThrows(UnsupportedOperationException.class, () -> union.remove(1));
+        assertThrows(UnsupportedOperationException.class, () -> union.removeAll(List.of(1)));
+        assertThrows(UnsupportedOperationException.class, () -> union.removeAll(new Object[] { 1 }));
+        assertThrows(UnsupportedOperationException.class, () -> union.removeIf(e -> true));
+        assertThrows(UnsupportedOperationException.class, () -> union.retainAll(List.of()));
+        assertThrows(UnsupportedOperationException.class, () -> union.clear());
+        assertThrows(UnsupportedOperationException.class, () -> {
+            Iterator<Integer> iterator = union.iterator();
+            iterator.next();
+            iterator.remove();
+        });
+        assertThrows(IllegalArgumentException.class, () -> DerivedSet.unionOf(List.of()));
+        assertEquals(new GenericDiscreteSet<>(List.of(1, 2)), union);
+    }
+
+    /**
+     * Apply one random mutation, covering every method that can remove elements in bulk.
+     */
+    private static void mutate(DiscreteSet<Integer> set, SplittableRandom random) {
+        int element = random.nextInt(40);
+        switch (random.nextInt(10)) {
+            case 0:
+            case 1:
+            case 2:
+                set.add(element);
+                break;
+            case 3:
+                set.remove(element);
+                break;
+            case 4:
+                set.addAll(List.of(element, random.nextInt(40), random.nextInt(40)));
+                break;
+            case 5:
+                // Collections both smaller and larger than the set, to take both removal paths
+                List<Integer> removed = new ArrayList<>();
+                int count = random.nextInt(30);
+                for (int i = 0; i < count; i++) {
+                    removed.add(random.nextInt(40));
+                }
+                set.removeAll(removed);
+                break;
+            case 6:
+                int modulus = 2 + random.nextInt(5);
+                set.removeIf(e -> e % modulus == 0);
+                break;
+            case 7:
+                set.retainAll(List.of(element, element + 1, element + 2, element + 3));
+                break;
+            case 8:
+                Iterator<Integer> iterator = set.iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next() < element) iterator.remove();
+                }
+                break;
+            default:
+                if (random.nextInt(5) == 0) set.clear();
+                break;
+        }
+    }
+
+    private static <E> void assertView(DiscreteSet<E> expected, DerivedSet<E> view) {
+        assertEquals(expected, view);
+        assertEquals(expected.getElements(), view.getElements());
+        assertEquals(expected.hashCode(), view.hashCode());
+        assertEquals(expected.cardinality(), view.cardinality());
+    }
+}
@@ -0,0 +1,173 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import sets.DiscreteMultiset;
+import sets.GenericDiscreteSet;
+
+public class TestDiscreteMultiset {
+    /**
+     * An element with a chosen hash code, so tests can pile elements into the same probe chain.
+     */
+    private static final class Key {
+        private final int id;
+        private final int hash;
+
+        Key(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && ((Key) other).id == this.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public String toString() {
+            return "Key" + this.id;
+        }
+    }
+
+    @Test
+    public void testCountsAcrossResizes() {
+        DiscreteMultiset<Integer> multiset = new DiscreteMultiset<>();
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(0, multiset.add(i, i % 7 + 1));
+        }
+        assertEquals(10000, multiset.distinctSize());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i % 7 + 1, multiset.count(i));
+        }
+
+        // Remove every other element entirely and change the counts of the rest
+        for (int i = 0; i < 10000; i += 2) {
+            assertEquals(i % 7 + 1, multiset.remove(i, Integer.MAX_VALUE));
+            multiset.setCount(i + 1, 3);
+        }
+        assertEquals(5000, multiset.distinctSize());
+        assertEquals(15000, multiset.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i % 2 == 0 ? 0 : 3, multiset.count(i));
+        }
+
+        multiset.compact();
+        assertEquals(3, multiset.count(9999));
+        assertEquals(3, multiset.setCount(9999, 0));
+        assertFalse(multiset.contains(9999));
+    }
+
+    @Test
+    public void testCollidingElementsMatchHashMap() {
+        // Three hash codes for 40 elements put most of them in long probe chains, some of which wrap around the table
+        SplittableRandom random = new SplittableRandom(1);
+        for (int round = 0; round < 50; round++) {
+            DiscreteMultiset<Key> multiset = new DiscreteMultiset<>();
+            Map<Key, Integer> expected = new HashMap<>();
+            for (int operation = 0; operation < 2000; operation++) {
+                Key key = key(random.nextInt(40), round);
+                int occurrences = random.nextInt(4);
+                int before = expected.getOrDefault(key, 0);
+                if (random.nextBoolean()) {
+                    assertEquals(before, multiset.add(key, occurrences));
+                    if (before + occurrences > 0) expected.put(key, before + occurrences);
+                } else {
+                    assertEquals(before, multiset.remove(key, occurrences));
+                    if (before > occurrences) {
+                        expected.put(key, before - occurrences);
+                    } else {
+                        expected.remove(key);
+                    }
+                }
+
+                // Every element must still be reachable after each deletion shifts its chain back
+                assertEquals(expected.size(), multiset.distinctSize());
+                for (int id = 0; id < 40; id++) {
+                    assertEquals((int) expected.getOrDefault(key(id, round), 0), multiset.count(key(id, round)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNullElements() {
+        DiscreteMultiset<String> multiset = new DiscreteMultiset<>();
+        assertEquals(0, multiset.add(null));
+        assertEquals(1, multiset.add(null, 2));
+        multiset.add("a");
+        assertEquals(3, multiset.count(null));
+        assertTrue(multiset.toSet().contains(null));
+        assertEquals(new GenericDiscreteSet<>(Arrays.asList(null, "a")), multiset.toSet());
+
+        Map<String, Integer> entries = new HashMap<>();
+        multiset.forEachEntry(entries::put);
+        assertEquals(Integer.valueOf(3), entries.get(null));
+
+        assertEquals(3, multiset.remove(null, 3));
+        assertFalse(multiset.contains(null));
+        assertEquals(1, multiset.distinctSize());
+    }
+
+    @Test
+    public void testCountsNearIntegerLimit() {
+        DiscreteMultiset<String> multiset = new DiscreteMultiset<>();
+        multiset.add("a", Integer.MAX_VALUE - 1);
+        multiset.add("a");
+        assertEquals(Integer.MAX_VALUE, multiset.count("a"));
+        assertThrows(IllegalArgumentException.class, () -> multiset.add("a"));
+        assertEquals(Integer.MAX_VALUE, multiset.count("a"));
+
+        // The total is a long, so it can pass the int range
+        multiset.add("b", Integer.MAX_VALUE);
+        assertEquals(2L * Integer.MAX_VALUE, multiset.size());
+        assertThrows(IllegalArgumentException.class, () -> multiset.sum(multiset));
+
+        assertEquals(Integer.MAX_VALUE, multiset.remove("a", Integer.MAX_VALUE - 1));
+        assertEquals(1, multiset.count("a"));
+        assertThrows(IllegalArgumentException.class, () -> multiset.add("a", -1));
+        assertThrows(IllegalArgumentException.class, () -> multiset.setCount("a", -1));
+    }
+
+    @Test
+    public void testAlgebra() {
+        // a = {x, x, x, y}, b = {x, y, y, z}
+        DiscreteMultiset<String> a = new DiscreteMultiset<>(List.of("x", "x", "x", "y"));
+        DiscreteMultiset<String> b = new DiscreteMultiset<>(List.of("x", "y", "y", "z"));
+
+        assertEquals(new DiscreteMultiset<>(List.of("x", "x", "x", "x", "y", "y", "y", "z")), a.sum(b));
+        assertEquals(new DiscreteMultiset<>(List.of("x", "x", "x", "y", "y", "z")), a.union(b));
+        assertEquals(new DiscreteMultiset<>(List.of("x", "y")), a.intersection(b));
+        assertEquals(new DiscreteMultiset<>(List.of("x", "x")), a.difference(b));
+        assertEquals(new DiscreteMultiset<>(List.of("y", "z")), b.difference(a));
+
+        assertTrue(a.intersection(b).isSubMultisetOf(a));
+        assertTrue(a.intersection(b).isSubMultisetOf(b));
+        assertTrue(a.isSubMultisetOf(a.union(b)));
+        assertFalse(a.isSubMultisetOf(b));
+        assertTrue(new DiscreteMultiset<String>().isSubMultisetOf(a));
+        assertThrows(IllegalArgumentException.class, () -> a.isSubMultisetOf(null));
+
+        assertEquals(a.union(b).hashCode(), b.union(a).hashCode());
+        assertFalse(a.equals(b));
+    }
+
+    private static Key key(int id, int round) {
+        return new Key(id, id % 3 + round);
+    }
+}
@@ -0,0 +1,159 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import sets.DiscreteSet;
+import sets.DisjointSets;
+import sets.GenericDiscreteSet;
+import sets.OrderedGroup;
+
+public class TestDisjointSets {
+    @Test
+    public void testMergesMatchBruteForce() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int round = 0; round < 50; round++) {
+            int n = 1 + random.nextInt(40);
+            DiscreteSet<Integer> set = range(n);
+            DisjointSets<Integer> forest = new DisjointSets<>(set);
+            // Label of each element's class, relabelled by hand on every merge
+            int[] labels = new int[n];
+            for (int i = 0; i < n; i++) {
+                labels[i] = i;
+            }
+
+            int merges = random.nextInt(2 * n);
+            for (int m = 0; m < merges; m++) {
+                int a = random.nextInt(n);
+                int b = random.nextInt(n);
+                assertEquals(labels[a] != labels[b], forest.merge(a, b));
+                int from = labels[b];
+                for (int i = 0; i < n; i++) {
+                    if (labels[i] == from) labels[i] = labels[a];
+                }
+            }
+
+            Set<Integer> distinct = new HashSet<>();
+            for (int label : labels) {
+                distinct.add(label);
+            }
+            assertEquals(n, forest.size());
+            assertEquals(distinct.size(), forest.classCount());
+            for (int a = 0; a < n; a++) {
+                for (int b = 0; b < n; b++) {
+                    assertEquals(labels[a] == labels[b], forest.areEquivalent(a, b));
+                }
+            }
+
+            List<DiscreteSet<Integer>> classes = forest.classes();
+            assertEquals(distinct.size(), classes.size());
+            assertTrue(set.isPartition(classes));
+            for (DiscreteSet<Integer> equivalenceClass : classes) {
+                int label = labels[equivalenceClass.iterator().next()];
+                for (int element : equivalenceClass) {
+                    assertEquals(label, labels[element]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testChainedMerges() {
+        // A long chain merged from both ends meets in the middle as one class
+        int n = 100000;
+        DisjointSets<Integer> forest = new DisjointSets<>(range(n));
+        for (int i = 0; i < n / 2; i++) {
+            assertTrue(forest.merge(i, i + 1));
+            assertTrue(forest.merge(n - 1 - i, n - 2 - i) || i == n / 2 - 1);
+        }
+        assertEquals(1, forest.classCount());
+        assertTrue(forest.areEquivalent(0, n - 1));
+        assertFalse(forest.merge(n - 1, 0));
+        assertEquals(1, forest.classes().size());
+
+        // Chains given as pairs in any order
+        DiscreteSet<String> set = new GenericDiscreteSet<>(List.of("a", "b", "c", "d", "e", "f"));
+        List<DiscreteSet<String>> classes = set.quotient(Stream.of(
+            new OrderedGroup("d", "c"), new OrderedGroup("a", "b"), new OrderedGroup("c", "b"), new OrderedGroup("e", "e")));
+        assertTrue(set.isPartition(classes));
+        assertEquals(3, classes.size());
+        assertTrue(classes.contains(new GenericDiscreteSet<>(List.of("a", "b", "c", "d"))));
+        assertTrue(classes.contains(new GenericDiscreteSet<>(List.of("e"))));
+        assertTrue(classes.contains(new GenericDiscreteSet<>(List.of("f"))));
+        assertEquals(6, set.quotient(Stream.empty()).size());
+    }
+
+    @Test
+    public void testAddingElementsLater() {
+        DisjointSets<String> forest = new DisjointSets<>(new GenericDiscreteSet<>());
+        for (int i = 0; i < 20; i++) {
+            assertTrue(forest.add("e" + i));
+            if (i > 0 && i % 2 == 0) forest.merge("e" + i, "e" + (i - 2));
+        }
+        assertFalse(forest.add("e0"));
+        assertEquals(20, forest.size());
+        // The evens form one class and every odd is alone
+        assertEquals(11, forest.classCount());
+        assertTrue(forest.areEquivalent("e0", "e18"));
+        assertFalse(forest.areEquivalent("e1", "e3"));
+    }
+
+    @Test
+    public void testElementsOutsideTheSet() {
+        DiscreteSet<String> set = new GenericDiscreteSet<>(List.of("a", "b", "c"));
+        DisjointSets<String> forest = new DisjointSets<>(set);
+        assertThrows(IllegalArgumentException.class, () -> forest.merge("a", "z"));
+        assertThrows(IllegalArgumentException.class, () -> forest.merge("z", "a"));
+        assertThrows(IllegalArgumentException.class, () -> forest.areEquivalent("a", "z"));
+        assertEquals(3, forest.classCount());
+
+        assertThrows(IllegalArgumentException.class,
+            () -> set.quotient(Stream.of(new OrderedGroup("a", "b"), new OrderedGroup("c", "z"))));
+        assertThrows(IllegalArgumentException.class, () -> set.quotient(Stream.of(new OrderedGroup("a", "b", "c"))));
+        assertThrows(IllegalArgumentException.class, () -> set.quotient(Stream.of(new OrderedGroup("a"))));
+        // A failed quotient leaves the set as it was
+        assertEquals(3, set.cardinality());
+        assertEquals(3, set.quotient(Stream.empty()).size());
+    }
+
+    @Test
+    public void testQuotientByKey() {
+        DiscreteSet<Integer> set = range(20);
+        List<DiscreteSet<Integer>> classes = set.quotient(element -> element % 3);
+        assertTrue(set.isPartition(classes));
+        assertEquals(3, classes.size());
+        for (DiscreteSet<Integer> equivalenceClass : classes) {
+            int key = equivalenceClass.iterator().next() % 3;
+            for (int element : equivalenceClass) {
+                assertEquals(key, element % 3);
+            }
+        }
+
+        // A null key is a key like any other
+        assertEquals(2, set.quotient(element -> element < 5 ? null : "big").size());
+        assertEquals(1, set.quotient(element -> "same").size());
+        assertTrue(new GenericDiscreteSet<Integer>().quotient(element -> element).isEmpty());
+
+        List<DiscreteSet<Integer>> byKey = DisjointSets.classesByKey(set, element -> element / 10);
+        assertEquals(List.of(range(10), set.difference(range(10))), byKey);
+    }
+
+    private static DiscreteSet<Integer> range(int n) {
+        List<Integer> elements = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            elements.add(i);
+        }
+        return new GenericDiscreteSet<>(elements);
+    }
+}
@@ -0,0 +1,194 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import sets.DiscreteSet;
+import sets.FunctionSpace;
+import sets.GenericDiscreteSet;
+import sets.Mapping;
+
+public class TestFunctionSpace {
+    @Test
+    public void testEnumerationMatchesBruteForce() {
+        // Includes an empty domain, an empty codomain and both empty
+        for (int n = 0; n <= 5; n++) {
+            for (int m = 0; m <= 5; m++) {
+                DiscreteSet<String> domain = labelled("x", n);
+                DiscreteSet<Integer> codomain = range(m);
+                FunctionSpace<String, Integer> space = new FunctionSpace<>(domain, codomain);
+
+                Set<Map<String, Integer>> functions = new HashSet<>();
+                Set<Map<String, Integer>> injections = new HashSet<>();
+                Set<Map<String, Integer>> surjections = new HashSet<>();
+                Set<Map<String, Integer>> bijections = new HashSet<>();
+                for (Map<String, Integer> function : allMaps(domain, codomain)) {
+                    functions.add(function);
+                    boolean injective = new HashSet<>(function.values()).size() == n;
+                    boolean surjective = new HashSet<>(function.values()).size() == m;
+                    if (injective) injections.add(function);
+                    if (surjective) surjections.add(function);
+                    if (injective && surjective) bijections.add(function);
+                }
+
+                String label = n + " -> " + m;
+                assertEquals(label, BigInteger.valueOf(functions.size()), space.functionCount());
+                assertEquals(label, BigInteger.valueOf(injections.size()), space.injectionCount());
+                assertEquals(label, BigInteger.valueOf(surjections.size()), space.surjectionCount());
+                assertEquals(label, BigInteger.valueOf(bijections.size()), space.bijectionCount());
+
+                assertVisits(label, functions, space::forEachFunction);
+                assertVisits(label, injections, space::forEachInjection);
+                assertVisits(label, surjections, space::forEachSurjection);
+                assertVisits(label, bijections, space::forEachBijection);
+            }
+        }
+    }
+
+    @Test
+    public void testZeroSizedSets() {
+        DiscreteSet<String> empty = new GenericDiscreteSet<>();
+        DiscreteSet<Integer> three = range(3);
+
+        // The empty function is the one function out of an empty domain, and it is injective
+        FunctionSpace<String, Integer> fromEmpty = new FunctionSpace<>(empty, three);
+        assertEquals(BigInteger.ONE, fromEmpty.functionCount());
+        assertEquals(BigInteger.ONE, fromEmpty.injectionCount());
+        assertEquals(BigInteger.ZERO, fromEmpty.surjectionCount());
+        assertEquals(BigInteger.ZERO, fromEmpty.bijectionCount());
+
+        // Nothing maps a non-empty domain into an empty codomain
+        FunctionSpace<Integer, String> intoEmpty = new FunctionSpace<>(three, empty);
+        assertEquals(BigInteger.ZERO, intoEmpty.functionCount());
+        assertEquals(BigInteger.ZERO, intoEmpty.injectionCount());
+        assertEquals(BigInteger.ZERO, intoEmpty.surjectionCount());
+        assertEquals(BigInteger.ZERO, intoEmpty.bijectionCount());
+
+        // Between two empty sets the empty function is all four kinds at once
+        FunctionSpace<String, String> bothEmpty = new FunctionSpace<>(empty, empty);
+        List<String> visited = new ArrayList<>();
+        bothEmpty.forEachFunction(mapping -> visited.add(mapping.toString()));
+        bothEmpty.forEachInjection(mapping -> visited.add(mapping.toString()));
+        bothEmpty.forEachSurjection(mapping -> visited.add(mapping.toString()));
+        bothEmpty.forEachBijection(mapping -> visited.add(mapping.toString()));
+        assertEquals(List.of("{}", "{}", "{}", "{}"), visited);
+        assertEquals(BigInteger.ONE, bothEmpty.surjectionCount());
+    }
+
+    @Test
+    public void testFunctionOrder() {
+        // Functions count up like a number whose last digit is the last domain element
+        DiscreteSet<String> domain = labelled("x", 3);
+        DiscreteSet<Integer> codomain = range(2);
+        FunctionSpace<String, Integer> space = new FunctionSpace<>(domain, codomain);
+        Object[] inputs = domain.toArray();
+        Object[] outputs = codomain.toArray();
+        List<Integer> numbers = new ArrayList<>();
+        space.forEachFunction(mapping -> {
+            int number = 0;
+            for (int i = 0; i < mapping.size(); i++) {
+                assertEquals(inputs[i], mapping.domainElement(i));
+                number = number * 2 + (mapping.image(i).equals(outputs[0]) ? 0 : 1);
+            }
+            numbers.add(number);
+        });
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7), numbers);
+    }
+
+    @Test
+    public void testLargeCounts() {
+        // Counts come from closed forms, so spaces too large to enumerate can still be measured
+        FunctionSpace<Integer, Integer> space = new FunctionSpace<>(range(30), range(20));
+        assertEquals(BigInteger.valueOf(20).pow(30), space.functionCount());
+        assertEquals(BigInteger.ZERO, space.injectionCount());
+        assertEquals(BigInteger.ZERO, space.bijectionCount());
+        // Inclusion-exclusion: the sum over j of (-1)^j C(20, j) (20 - j)^30
+        BigInteger expected = BigInteger.ZERO;
+        BigInteger binomial = BigInteger.ONE;
+        for (int j = 0; j <= 20; j++) {
+            BigInteger term = binomial.multiply(BigInteger.valueOf(20 - j).pow(30));
+            expected = j % 2 == 0 ? expected.add(term) : expected.subtract(term);
+            binomial = binomial.multiply(BigInteger.valueOf(20 - j)).divide(BigInteger.valueOf(j + 1));
+        }
+        assertEquals(expected, space.surjectionCount());
+    }
+
+    @Test
+    public void testMapping() {
+        FunctionSpace<String, Integer> space = new FunctionSpace<>(labelled("x", 2), range(2));
+        List<Map<String, Integer>> copies = new ArrayList<>();
+        space.forEachBijection(mapping -> {
+            assertEquals(2, mapping.size());
+            assertEquals(range(2), mapping.range());
+            for (int i = 0; i < mapping.size(); i++) {
+                assertEquals(mapping.image(i), mapping.get(mapping.domainElement(i)));
+            }
+            assertThrows(IllegalArgumentException.class, () -> mapping.get("y0"));
+            assertThrows(IndexOutOfBoundsException.class, () -> mapping.image(2));
+            String text = mapping.toString();
+            assertTrue(text.startsWith("{" + mapping.domainElement(0) + " -> " + mapping.image(0)));
+            copies.add(mapping.toMap());
+        });
+
+        // The mapping is reused, but copies keep each function
+        assertEquals(2, copies.size());
+        assertEquals(2, new HashSet<>(copies).size());
+
+        space.forEachSurjection(mapping -> assertEquals(range(2), mapping.range()));
+        space.forEachFunction(mapping -> assertTrue(mapping.range().cardinality() >= 1));
+    }
+
+    private static void assertVisits(String label, Set<Map<String, Integer>> expected,
+                                     Consumer<Consumer<? super Mapping<String, Integer>>> enumeration) {
+        List<Map<String, Integer>> visited = new ArrayList<>();
+        enumeration.accept(mapping -> visited.add(mapping.toMap()));
+        // Every function exactly once
+        assertEquals(label, expected.size(), visited.size());
+        assertEquals(label, expected, new HashSet<>(visited));
+    }
+
+    private static List<Map<String, Integer>> allMaps(DiscreteSet<String> domain, DiscreteSet<Integer> codomain) {
+        List<Map<String, Integer>> maps = new ArrayList<>();
+        maps.add(new HashMap<>());
+        for (String input : domain) {
+            List<Map<String, Integer>> extended = new ArrayList<>();
+            for (Map<String, Integer> map : maps) {
+                for (Integer output : codomain) {
+                    Map<String, Integer> copy = new HashMap<>(map);
+                    copy.put(input, output);
+                    extended.add(copy);
+                }
+            }
+            maps = extended;
+        }
+        return maps;
+    }
+
+    private static DiscreteSet<String> labelled(String prefix, int n) {
+        List<String> elements = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            elements.add(prefix + i);
+        }
+        return new GenericDiscreteSet<>(elements);
+    }
+
+    private static DiscreteSet<Integer> range(int n) {
+        List<Integer> elements = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            elements.add(i);
+        }
+        return new GenericDiscreteSet<>(elements);
+    }
+}
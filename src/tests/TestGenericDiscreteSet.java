@@ -0,0 +1,251 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import sets.DiscreteSet;
+import sets.GenericDiscreteSet;
+import sets.SetChangeListener;
+
+public class TestGenericDiscreteSet {
+    @Test
+    public void testHashCodeIsMaintained() {
+        GenericDiscreteSet<Integer> set = new GenericDiscreteSet<>(List.of(1, 2, 3));
+        assertEquals(new GenericDiscreteSet<>(List.of(3, 2, 1)).hashCode(), set.hashCode());
+
+        set.add(4);
+        set.remove(1);
+        set.addAll(new Integer[] { 5, 6 });
+        set.removeIf(element -> element == 6);
+        set.retainAll(List.of(2, 3, 4, 5, 7));
+        Iterator<Integer> iterator = set.iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals(new GenericDiscreteSet<>(new ArrayList<>(set.getElements())).hashCode(), set.hashCode());
+
+        set.clear();
+        assertEquals(0, set.hashCode());
+    }
+
+    @Test
+    public void testHashCodesOfSubsetsAreSpread() {
+        // Plain sums give the 2^14 subsets of {0, ..., 13} only 92 distinct hash codes
+        List<Integer> elements = new ArrayList<>();
+        for (int i = 0; i < 14; i++) {
+            elements.add(i);
+        }
+        Set<Integer> hashes = new HashSet<>();
+        for (DiscreteSet<Integer> subset : new GenericDiscreteSet<>(elements).powerSet()) {
+            hashes.add(subset.hashCode());
+        }
+        assertTrue(hashes.size() > (1 << 14) - 16);
+    }
+
+    @Test
+    public void testEquals() {
+        GenericDiscreteSet<Integer> a = new GenericDiscreteSet<>(List.of(1, 2, 3));
+        GenericDiscreteSet<Integer> b = new GenericDiscreteSet<>(List.of(3, 2, 1));
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+
+        b.add(4);
+        assertNotEquals(a, b);
+        b.remove(4);
+        assertEquals(a, b);
+    }
+
+    @Test
+    public void testNestedSets() {
+        DiscreteSet<DiscreteSet<Integer>> family = new GenericDiscreteSet<>();
+        family.add(new GenericDiscreteSet<>(List.of(1, 2)));
+        assertFalse(family.add(new GenericDiscreteSet<>(List.of(2, 1))));
+        assertTrue(family.contains(new GenericDiscreteSet<>(List.of(1, 2))));
+
+        // The power set of a set with n elements has 2^n distinct subsets
+        DiscreteSet<DiscreteSet<Integer>> powerSet = new GenericDiscreteSet<>(List.of(1, 2, 3)).powerSet();
+        Set<DiscreteSet<Integer>> distinct = new HashSet<>(powerSet.getElements());
+        assertEquals(8, distinct.size());
+        assertTrue(powerSet.contains(new GenericDiscreteSet<>(List.of(1, 3))));
+    }
+
+    @Test
+    public void testCompaction() {
+        GenericDiscreteSet<Integer> set = new GenericDiscreteSet<>();
+        for (int i = 0; i < 10000; i++) {
+            set.add(i);
+        }
+        long grown = set.memoryFootprint();
+        set.removeIf(element -> element >= 10);
+        // Removing leaves the table at the size it grew to
+        long shrunk = set.memoryFootprint();
+
+        int hash = set.hashCode();
+        set.compact();
+        assertTrue(set.memoryFootprint() < shrunk / 10);
+        assertEquals(hash, set.hashCode());
+        assertEquals(new HashSet<>(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9)), set.getElements());
+
+        // Automatic compaction once fewer than a quarter of the most elements held are left
+        set.setAutoCompaction(0.25);
+        for (int i = 10; i < 10000; i++) {
+            set.add(i);
+        }
+        set.removeIf(element -> element >= 100);
+        assertTrue(set.memoryFootprint() < grown / 10);
+        assertEquals(100, set.cardinality());
+    }
+
+    @Test
+    public void testBulkOperations() {
+        GenericDiscreteSet<Integer> set = new GenericDiscreteSet<>(List.of(1, 2));
+        List<Integer> added = new ArrayList<>();
+        List<Integer> removed = new ArrayList<>();
+        set.addChangeListener(new SetChangeListener<Integer>() {
+            @Override
+            public void elementAdded(DiscreteSet<?> source, Integer element) {
+                added.add(element);
+            }
+
+            @Override
+            public void elementRemoved(DiscreteSet<?> source, Integer element) {
+                removed.add(element);
+            }
+        });
+
+        // Duplicates within the array and of existing elements are added once and reported once
+        assertTrue(set.addAll(new Integer[] { 2, 3, 3, 4 }));
+        assertFalse(set.addAll(new Integer[] { 1, 4 }));
+        assertFalse(set.addAll(new Integer[0]));
+        assertEquals(List.of(3, 4), added);
+
+        // Enough new elements at once to make room for them in one step, from an inline store
+        Integer[] many = new Integer[100];
+        for (int i = 0; i < many.length; i++) {
+            many[i] = i;
+        }
+        assertTrue(set.addAll(many));
+        assertEquals(100, set.cardinality());
+        assertEquals(2 + 96, added.size());
+        assertEquals(new GenericDiscreteSet<>(List.of(many)), set);
+        assertEquals(new GenericDiscreteSet<>(List.of(many)).hashCode(), set.hashCode());
+
+        assertTrue(set.removeAll(new Object[] { 0, 0, "zero", 200, 99 }));
+        assertFalse(set.removeAll(new Object[] { 0, 99 }));
+        assertEquals(List.of(0, 99), removed);
+        assertEquals(98, set.cardinality());
+
+        BitSet contained = set.containsEach(new Object[] { 1, 0, null, "1", 98, 99, 1 });
+        assertEquals(BitSet.valueOf(new long[] { 0b1010001 }), contained);
+        assertEquals(contained, set.containsEach(Stream.of(1, 0, null, "1", 98, 99, 1)));
+        assertEquals(0, set.containsEach(new Object[0]).cardinality());
+        // Duplicates count every time they appear
+        assertEquals(3, set.countContained(List.of(1, 1, 0, 2, 500)));
+        assertEquals(0, set.countContained(List.of()));
+
+        GenericDiscreteSet<String> withNull = new GenericDiscreteSet<>();
+        withNull.addAll(new String[] { null, "a" });
+        assertEquals(BitSet.valueOf(new long[] { 0b011 }), withNull.containsEach(new Object[] { null, "a", "b" }));
+        assertTrue(withNull.removeAll(new Object[] { null }));
+        assertEquals(Set.of("a"), withNull.getElements());
+    }
+
+    @Test
+    public void testMakingRoomFailsRunningIterators() {
+        // Adding many elements at once moves the set to a larger table, which running iterators must notice
+        for (int start : new int[] { 2, 40 }) {
+            GenericDiscreteSet<Integer> set = new GenericDiscreteSet<>();
+            for (int i = 0; i < start; i++) {
+                set.add(-1 - i);
+            }
+            List<Integer> more = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                more.add(i);
+            }
+            Iterator<Integer> iterator = set.iterator();
+            iterator.next();
+            set.addAll(more);
+            assertThrows(ConcurrentModificationException.class, iterator::next);
+            assertEquals(start + 100, set.cardinality());
+        }
+    }
+
+    @Test
+    public void testRemoveAllAndRetainAll() {
+        // Collections both smaller and larger than the set, so both sides of removeAll get probed
+        SplittableRandom random = new SplittableRandom(1);
+        for (int round = 0; round < 200; round++) {
+            Set<Integer> expected = new HashSet<>();
+            GenericDiscreteSet<Integer> set = new GenericDiscreteSet<>();
+            int size = random.nextInt(40);
+            for (int i = 0; i < size; i++) {
+                int element = random.nextInt(60);
+                expected.add(element);
+                set.add(element);
+            }
+            List<Integer> other = new ArrayList<>();
+            int otherSize = random.nextInt(80);
+            for (int i = 0; i < otherSize; i++) {
+                other.add(random.nextInt(60));
+            }
+
+            Set<Integer> removed = new HashSet<>(expected);
+            GenericDiscreteSet<Integer> removing = new GenericDiscreteSet<>(new ArrayList<>(expected));
+            assertEquals(removed.removeAll(other), removing.removeAll(other));
+            assertEquals(removed, removing.getElements());
+            assertEquals(new GenericDiscreteSet<>(new ArrayList<>(removed)).hashCode(), removing.hashCode());
+            assertEquals(removed.removeAll(other), removing.removeAll(other.toArray()));
+
+            Set<Integer> retained = new HashSet<>(expected);
+            assertEquals(retained.retainAll(other), set.retainAll(other));
+            assertEquals(retained, set.getElements());
+            assertEquals(new GenericDiscreteSet<>(new ArrayList<>(retained)).hashCode(), set.hashCode());
+        }
+    }
+
+    @Test
+    public void testBulkRemovalCompactsOnce() {
+        // Removing elements one at a time would compact at 2047 and 1023 elements and keep a table sized for 1023;
+        // compacting once at the end sizes the table for the 700 elements left
+        List<Integer> toRemove = new ArrayList<>();
+        for (int i = 700; i < 4096; i++) {
+            toRemove.add(i);
+        }
+        for (int path = 0; path < 3; path++) {
+            GenericDiscreteSet<Integer> set = new GenericDiscreteSet<>();
+            for (int i = 0; i < 4096; i++) {
+                set.add(i);
+            }
+            set.setAutoCompaction(0.5);
+            if (path == 0) {
+                assertTrue(set.removeAll(toRemove));
+            } else if (path == 1) {
+                assertTrue(set.removeAll(toRemove.toArray()));
+            } else {
+                Set<Integer> kept = new HashSet<>();
+                for (int i = 0; i < 700; i++) {
+                    kept.add(i);
+                }
+                assertTrue(set.retainAll(kept));
+            }
+            assertEquals(700, set.cardinality());
+            long footprint = set.memoryFootprint();
+            set.compact();
+            assertEquals(footprint, set.memoryFootprint());
+        }
+    }
+}
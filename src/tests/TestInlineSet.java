@@ -0,0 +1,122 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import sets.DiscreteSet;
+import sets.GenericDiscreteSet;
+
+/**
+ * Sets of up to four elements keep them in an inline store, so these tests stay at or just past that size.
+ */
+public class TestInlineSet {
+    @Test
+    public void testPromotionPastFourElements() {
+        DiscreteSet<Integer> set = new GenericDiscreteSet<>();
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(set.add(i));
+            assertFalse(set.add(i));
+        }
+        long inlineFootprint = set.memoryFootprint();
+        // The set itself, then the inline store: 12 + 4 * 4 + 4 + 4 bytes, padded to 40
+        assertEquals(24 + 40, inlineFootprint);
+        // A duplicate of a full inline store must not move it to a hash set
+        assertFalse(set.add(4));
+        assertEquals(inlineFootprint, set.memoryFootprint());
+
+        assertTrue(set.add(5));
+        assertTrue(set.memoryFootprint() > inlineFootprint);
+        assertEquals(5, set.cardinality());
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(set.contains(i));
+        }
+        assertEquals(new GenericDiscreteSet<>(List.of(1, 2, 3, 4, 5)), set);
+        assertEquals(new GenericDiscreteSet<>(List.of(1, 2, 3, 4, 5)).hashCode(), set.hashCode());
+    }
+
+    @Test
+    public void testIteratorRemoveVisitsEveryElement() {
+        // Removing an element moves the last one into its slot, which must still be visited
+        for (int removed = 0; removed < 16; removed++) {
+            DiscreteSet<Integer> set = new GenericDiscreteSet<>(List.of(0, 1, 2, 3));
+            List<Integer> visited = new ArrayList<>();
+            Set<Integer> kept = new HashSet<>();
+            Iterator<Integer> iterator = set.iterator();
+            while (iterator.hasNext()) {
+                int element = iterator.next();
+                visited.add(element);
+                if ((removed & 1 << element) != 0) {
+                    iterator.remove();
+                    assertThrows(IllegalStateException.class, iterator::remove);
+                } else {
+                    kept.add(element);
+                }
+            }
+            assertEquals(4, visited.size());
+            assertEquals(Set.of(0, 1, 2, 3), new HashSet<>(visited));
+            assertEquals(kept, set.getElements());
+            assertEquals(new GenericDiscreteSet<>(kept).hashCode(), set.hashCode());
+        }
+    }
+
+    @Test
+    public void testNullElements() {
+        DiscreteSet<String> set = new GenericDiscreteSet<>();
+        assertFalse(set.contains(null));
+        assertTrue(set.add(null));
+        assertFalse(set.add(null));
+        assertTrue(set.contains(null));
+        set.add("a");
+        assertTrue(set.remove(null));
+        assertFalse(set.contains(null));
+        assertEquals(Set.of("a"), set.getElements());
+
+        // A null carried through promotion
+        set.add(null);
+        set.addAll(List.of("b", "c", "d"));
+        assertEquals(5, set.cardinality());
+        assertTrue(set.contains(null));
+        assertTrue(set.remove(null));
+        assertEquals(4, set.cardinality());
+    }
+
+    @Test
+    public void testChangesDuringIterationFailFast() {
+        DiscreteSet<Integer> set = new GenericDiscreteSet<>(List.of(1, 2));
+        Iterator<Integer> iterator = set.iterator();
+        iterator.next();
+        set.add(3);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+
+        iterator = set.iterator();
+        iterator.next();
+        set.remove(3);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+
+        // An add that moves the elements to a hash set must fail the iterator over the old store too
+        set.addAll(List.of(3, 4));
+        iterator = set.iterator();
+        iterator.next();
+        set.add(5);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+
+        // Adding an element that is already there is not a change
+        set = new GenericDiscreteSet<>(List.of(1, 2));
+        iterator = set.iterator();
+        int first = iterator.next();
+        set.add(2);
+        assertEquals(3 - first, (int) iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+}
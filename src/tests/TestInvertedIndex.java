@@ -0,0 +1,138 @@
+package tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import sets.DiscreteSet;
+import sets.GenericDiscreteSet;
+import sets.InvertedIndex;
+
+public class TestInvertedIndex {
+    private static final int ELEMENTS = 12;
+
+    @Test
+    public void testQueriesMatchBruteForce() {
+        // Element e is in about (e + 1) / 13 of the sets, so posting lists run from a few to dozens of skip blocks
+        SplittableRandom random = new SplittableRandom(1);
+        List<DiscreteSet<Integer>> sets = new ArrayList<>();
+        for (int id = 0; id < 3000; id++) {
+            List<Integer> elements = new ArrayList<>();
+            for (int e = 0; e < ELEMENTS; e++) {
+                if (random.nextInt(ELEMENTS + 1) <= e) elements.add(e);
+            }
+            sets.add(new GenericDiscreteSet<>(elements));
+        }
+        InvertedIndex<Integer> index = new InvertedIndex<>(sets);
+        assertQueriesMatch(index, sets, random);
+
+        // Removed ids stay in the posting lists until compaction, and queries must skip them either way
+        for (int id = 0; id < sets.size(); id++) {
+            if (random.nextInt(3) == 0) {
+                assertTrue(index.remove(id));
+                assertFalse(index.remove(id));
+                sets.set(id, null);
+            }
+        }
+        assertQueriesMatch(index, sets, random);
+        index.compact();
+        assertQueriesMatch(index, sets, random);
+        for (int e = 0; e < ELEMENTS; e++) {
+            int frequency = 0;
+            for (DiscreteSet<Integer> set : sets) {
+                if (set != null && set.contains(e)) frequency++;
+            }
+            assertEquals(frequency, index.frequency(e));
+        }
+
+        // Adding after compaction continues the ids
+        int id = index.add(new GenericDiscreteSet<>(List.of(0, 1)));
+        assertEquals(sets.size(), id);
+        sets.add(index.get(id));
+        assertQueriesMatch(index, sets, random);
+    }
+
+    @Test
+    public void testSparseIdsAcrossSkipBlocks() {
+        // "rare" sits in every 97th set, so consecutive ids in its list are encoded as gaps over 127,
+        // and every query has to jump into the middle of the long list of "common"
+        InvertedIndex<String> index = new InvertedIndex<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int id = 0; id < 20000; id++) {
+            if (id % 97 == 5) {
+                index.add(new GenericDiscreteSet<>(List.of("common", "rare")));
+                expected.add(id);
+            } else if (id % 2 == 0) {
+                index.add(new GenericDiscreteSet<>(List.of("common")));
+            } else {
+                index.add(new GenericDiscreteSet<>(List.of("other")));
+            }
+        }
+        assertArrayEquals(toArray(expected), index.idsContainingAll(List.of("common", "rare")));
+        assertArrayEquals(toArray(expected), index.idsContainingAll(List.of("rare", "common")));
+        assertEquals(0, index.idsContainingAll(List.of("rare", "other")).length);
+
+        // Remove the first and last matches, which sit at the ends of the lists
+        index.remove(expected.remove(0));
+        index.remove(expected.remove(expected.size() - 1));
+        assertArrayEquals(toArray(expected), index.idsContainingAll(List.of("common", "rare")));
+        index.compact();
+        assertArrayEquals(toArray(expected), index.idsContainingAll(List.of("common", "rare")));
+        assertEquals(expected.size(), index.frequency("rare"));
+        assertEquals(0, index.idsContainingAll(List.of("missing")).length);
+    }
+
+    @Test
+    public void testRemovedSets() {
+        InvertedIndex<Integer> index = new InvertedIndex<>();
+        index.add(new GenericDiscreteSet<>(List.of(1, 2)));
+        index.add(new GenericDiscreteSet<>(List.of(2, 3)));
+        index.add(new GenericDiscreteSet<>(List.of(2)));
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertFalse(index.remove(3));
+        assertEquals(2, index.size());
+        assertNull(index.get(1));
+
+        assertArrayEquals(new int[] { 0, 2 }, index.idsContainingAll(List.of()));
+        assertArrayEquals(new int[] { 0, 2 }, index.idsContainingAll(List.of(2)));
+        assertEquals(0, index.idsContainingAll(List.of(3)).length);
+        assertEquals(new GenericDiscreteSet<>(List.of(2)), index.intersectionOf(new int[] { 0, 2 }));
+        assertThrows(IllegalArgumentException.class, () -> index.intersectionOf(new int[] { 0, 1 }));
+        assertThrows(IllegalArgumentException.class, () -> index.intersectionOf(new int[0]));
+
+        index.compact();
+        assertArrayEquals(new int[] { 0, 2 }, index.idsContainingAll(List.of()));
+        assertEquals(0, index.frequency(3));
+        assertEquals(2, index.frequency(2));
+    }
+
+    private static void assertQueriesMatch(InvertedIndex<Integer> index, List<DiscreteSet<Integer>> sets, SplittableRandom random) {
+        for (int query = 0; query < 200; query++) {
+            List<Integer> elements = new ArrayList<>();
+            int length = random.nextInt(4);
+            for (int i = 0; i < length; i++) {
+                elements.add(random.nextInt(ELEMENTS));
+            }
+
+            List<Integer> expected = new ArrayList<>();
+            for (int id = 0; id < sets.size(); id++) {
+                if (sets.get(id) != null && sets.get(id).containsAll(elements)) expected.add(id);
+            }
+            assertArrayEquals(toArray(expected), index.idsContainingAll(elements));
+        }
+    }
+
+    private static int[] toArray(List<Integer> ids) {
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,197 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import sets.DiscreteSet;
+import sets.GenericDiscreteSet;
+import sets.OrderedGroup;
+import sets.Permutations;
+
+public class TestPermutations {
+    @Test
+    public void testLexicographicOrder() {
+        for (int n = 0; n <= 6; n++) {
+            DiscreteSet<Integer> set = range(n);
+            Object[] order = set.toArray();
+            for (int k = 0; k <= n; k++) {
+                List<OrderedGroup> expected = new ArrayList<>();
+                arrangements(order, k, new ArrayList<>(), new boolean[n], expected);
+
+                Permutations<Integer> permutations = set.permutations(k);
+                assertEquals(BigInteger.valueOf(expected.size()), permutations.count());
+                assertEquals(expected.size(), permutations.size());
+
+                List<OrderedGroup> iterated = new ArrayList<>();
+                permutations.forEach(iterated::add);
+                assertEquals(expected, iterated);
+
+                // The visitor sees one group mutated in place
+                List<OrderedGroup> visited = new ArrayList<>();
+                permutations.visit(group -> visited.add(new OrderedGroup(new ArrayList<>(group.getAll()))));
+                assertEquals(expected, visited);
+
+                for (int rank = 0; rank < expected.size(); rank++) {
+                    assertEquals(expected.get(rank), permutations.get(rank));
+                    assertEquals(BigInteger.valueOf(rank), permutations.rank(expected.get(rank)));
+                    assertTrue(permutations.contains(expected.get(rank)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFactorialNumberSystem() {
+        Permutations<Integer> permutations = range(4).permutations();
+        assertEquals(BigInteger.valueOf(24), permutations.count());
+        assertEquals(new OrderedGroup(0, 1, 2, 3), permutations.get(0));
+        assertEquals(new OrderedGroup(0, 1, 3, 2), permutations.get(1));
+        // Digits 2, 0, 1, 0 weighted by 3!, 2!, 1!, 0! make rank 13
+        assertEquals(new OrderedGroup(2, 0, 3, 1), permutations.get(13));
+        assertEquals(new OrderedGroup(3, 2, 1, 0), permutations.get(23));
+
+        // For k-permutations the digit weights are falling factorials: 4 * 3 and 3 here
+        Permutations<Integer> pairs = range(5).permutations(3);
+        assertEquals(BigInteger.valueOf(60), pairs.count());
+        assertEquals(new OrderedGroup(2, 0, 4), pairs.get(2 * 12 + 0 * 3 + 2));
+
+        // Twenty-five elements have more permutations than a long can count
+        Permutations<Integer> large = range(25).permutations();
+        BigInteger last = large.count().subtract(BigInteger.ONE);
+        assertTrue(large.count().bitLength() > Long.SIZE);
+        assertEquals(Integer.MAX_VALUE, large.size());
+        List<Object> reversed = new ArrayList<>(List.of(range(25).toArray()));
+        Collections.reverse(reversed);
+        assertEquals(new OrderedGroup(reversed), large.get(last));
+        BigInteger middle = large.count().shiftRight(1).add(BigInteger.valueOf(12345));
+        assertEquals(middle, large.rank(large.get(middle)));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> large.get(large.count()));
+        assertThrows(IndexOutOfBoundsException.class, () -> permutations.get(-1));
+    }
+
+    @Test
+    public void testVisitRanges() {
+        Permutations<Integer> permutations = range(6).permutations(4);
+        List<OrderedGroup> all = new ArrayList<>(permutations);
+        assertEquals(360, all.size());
+
+        // Consecutive ranges cover the whole enumeration in order
+        List<OrderedGroup> visited = new ArrayList<>();
+        long[] bounds = { 0, 1, 7, 100, 359, 360 };
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            permutations.visit(BigInteger.valueOf(bounds[i]), BigInteger.valueOf(bounds[i + 1]),
+                group -> visited.add(new OrderedGroup(new ArrayList<>(group.getAll()))));
+        }
+        assertEquals(all, visited);
+
+        permutations.visit(BigInteger.TEN, BigInteger.TEN, group -> visited.add(group));
+        assertEquals(360, visited.size());
+        assertThrows(IndexOutOfBoundsException.class,
+            () -> permutations.visit(BigInteger.ZERO, BigInteger.valueOf(361), group -> {}));
+        assertThrows(IndexOutOfBoundsException.class,
+            () -> permutations.visit(BigInteger.TWO, BigInteger.ONE, group -> {}));
+    }
+
+    @Test
+    public void testSpliterator() {
+        Permutations<Integer> permutations = range(7).permutations(5);
+        List<OrderedGroup> sequential = new ArrayList<>();
+        permutations.forEach(sequential::add);
+        assertEquals(2520, sequential.size());
+        assertEquals(sequential, permutations.parallelStream().collect(Collectors.toList()));
+        assertEquals(new HashSet<>(sequential), permutations.parallelStream().collect(Collectors.toSet()));
+
+        // A split after a few permutations must not skip or repeat any
+        Spliterator<OrderedGroup> spliterator = permutations.spliterator();
+        List<OrderedGroup> visited = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            spliterator.tryAdvance(visited::add);
+        }
+        Spliterator<OrderedGroup> prefix = spliterator.trySplit();
+        Spliterator<OrderedGroup> prefixOfPrefix = prefix.trySplit();
+        prefixOfPrefix.forEachRemaining(visited::add);
+        prefix.forEachRemaining(visited::add);
+        spliterator.forEachRemaining(visited::add);
+        assertEquals(sequential, visited);
+        assertNull(spliterator.trySplit());
+    }
+
+    @Test
+    public void testMembership() {
+        DiscreteSet<String> set = new GenericDiscreteSet<>(List.of("a", "b", "c"));
+        Permutations<String> permutations = set.permutations(2);
+        assertEquals(2, permutations.getK());
+        assertTrue(permutations.contains(new OrderedGroup("c", "a")));
+        assertFalse(permutations.contains(new OrderedGroup("a", "a")));
+        assertFalse(permutations.contains(new OrderedGroup("a", "d")));
+        assertFalse(permutations.contains(new OrderedGroup("a", "b", "c")));
+        assertFalse(permutations.contains(List.of("a", "b")));
+        assertThrows(IllegalArgumentException.class, () -> permutations.rank(new OrderedGroup("a", "a")));
+
+        assertThrows(IllegalArgumentException.class, () -> set.permutations(4));
+        assertThrows(IllegalArgumentException.class, () -> set.permutations(-1));
+
+        // The empty arrangement is the single 0-permutation
+        Permutations<String> empty = set.permutations(0);
+        assertEquals(1, empty.size());
+        assertEquals(new OrderedGroup(), empty.iterator().next());
+        assertEquals(1, new GenericDiscreteSet<String>().permutations().size());
+    }
+
+    @Test
+    public void testOrderedGroup() {
+        OrderedGroup group = new OrderedGroup(1, "two", 3.0);
+        assertEquals(3, group.size());
+        assertEquals("two", group.get(1));
+        assertEquals(Double.class, group.getClass(2));
+        assertEquals(List.of(Integer.class, String.class, Double.class), group.getAllClasses());
+        assertEquals("(1, two, 3.0)", group.toString());
+        assertEquals("()", new OrderedGroup().toString());
+
+        assertEquals(new OrderedGroup(List.of(1, "two", 3.0)), group);
+        assertEquals(new OrderedGroup(List.of(1, "two", 3.0)).hashCode(), group.hashCode());
+        assertNotEquals(new OrderedGroup("two", 1, 3.0), group);
+        assertNotEquals(List.of(1, "two", 3.0), group);
+    }
+
+    /**
+     * Collect every arrangement of k distinct items in lexicographic order of their positions.
+     */
+    private static void arrangements(Object[] order, int k, List<Object> prefix, boolean[] used, List<OrderedGroup> out) {
+        if (prefix.size() == k) {
+            out.add(new OrderedGroup(new ArrayList<>(prefix)));
+            return;
+        }
+        for (int i = 0; i < order.length; i++) {
+            if (used[i]) continue;
+            used[i] = true;
+            prefix.add(order[i]);
+            arrangements(order, k, prefix, used, out);
+            prefix.remove(prefix.size() - 1);
+            used[i] = false;
+        }
+    }
+
+    private static DiscreteSet<Integer> range(int n) {
+        List<Integer> elements = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            elements.add(i);
+        }
+        return new GenericDiscreteSet<>(elements);
+    }
+}
@@ -0,0 +1,178 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import sets.RangeSet;
+
+public class TestRangeSet {
+    /**
+     * Number of values in the windows the brute-force tests draw from.
+     */
+    private static final int WIDTH = 16;
+
+    @Test
+    public void testAlgebraMatchesBruteForce() {
+        // Windows around zero and at both ends of the long range, where interval bounds can overflow
+        assertAlgebraMatchesBruteForce(-WIDTH / 2);
+        assertAlgebraMatchesBruteForce(Long.MIN_VALUE);
+        assertAlgebraMatchesBruteForce(Long.MAX_VALUE - WIDTH + 1);
+    }
+
+    private static void assertAlgebraMatchesBruteForce(long low) {
+        SplittableRandom random = new SplittableRandom(low);
+        RangeSet universe = RangeSet.closed(low, low + WIDTH - 1);
+        for (int round = 0; round < 2000; round++) {
+            BitSet a = randomBits(random);
+            BitSet b = randomBits(random);
+            RangeSet x = toRangeSet(low, a, random);
+            RangeSet y = toRangeSet(low, b, random);
+            assertMatches(low, a, x);
+            assertMatches(low, b, y);
+
+            BitSet expected = (BitSet) a.clone();
+            expected.or(b);
+            assertMatches(low, expected, x.union(y));
+            expected = (BitSet) a.clone();
+            expected.and(b);
+            assertMatches(low, expected, x.intersection(y));
+            expected = (BitSet) a.clone();
+            expected.andNot(b);
+            assertMatches(low, expected, x.difference(y));
+            expected = (BitSet) a.clone();
+            expected.xor(b);
+            assertMatches(low, expected, x.symmetricDifference(y));
+            expected = (BitSet) a.clone();
+            expected.flip(0, WIDTH);
+            assertMatches(low, expected, x.complement(universe));
+
+            expected = (BitSet) a.clone();
+            expected.andNot(b);
+            assertEquals(expected.isEmpty(), x.isSubsetOf(y));
+        }
+    }
+
+    @Test
+    public void testTouchingIntervalsMerge() {
+        assertEquals(RangeSet.closed(0, 9), RangeSet.closed(0, 4).union(RangeSet.closed(5, 9)));
+        assertEquals(RangeSet.closed(0, 9), RangeSet.closed(5, 9).union(RangeSet.closed(0, 4)));
+        assertEquals(2, RangeSet.closed(0, 4).union(RangeSet.closed(6, 9)).intervalCount());
+        assertEquals(RangeSet.closed(-2, 2), RangeSet.of(2, -1, 0, -2, 1, 0));
+
+        // Touching at the ends of the long range must not wrap around
+        RangeSet top = RangeSet.of(Long.MAX_VALUE - 1, Long.MAX_VALUE);
+        assertEquals(1, top.intervalCount());
+        assertEquals(2, top.size());
+        RangeSet ends = RangeSet.of(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(2, ends.intervalCount());
+        assertEquals(Long.MIN_VALUE, ends.intervalLow(0));
+        assertEquals(Long.MAX_VALUE, ends.intervalHigh(1));
+        assertEquals(RangeSet.all(), RangeSet.atMost(-1).union(RangeSet.atLeast(0)));
+        assertEquals(RangeSet.all(), RangeSet.atLeast(0).union(RangeSet.atMost(-1)));
+    }
+
+    @Test
+    public void testSizeSaturates() {
+        assertEquals(Long.MAX_VALUE, RangeSet.all().size());
+        assertEquals(Long.MAX_VALUE, RangeSet.atLeast(-1).size());
+        assertEquals(Long.MAX_VALUE, RangeSet.atLeast(0).size());
+        assertEquals(Long.MAX_VALUE, RangeSet.atLeast(1).size());
+        assertEquals(Long.MAX_VALUE - 1, RangeSet.atLeast(2).size());
+        assertEquals(Long.MAX_VALUE, RangeSet.atMost(Long.MAX_VALUE - 1).size());
+
+        // Two intervals that each fit but together do not
+        RangeSet halves = RangeSet.atMost(-10).union(RangeSet.atLeast(10));
+        assertEquals(2, halves.intervalCount());
+        assertEquals(Long.MAX_VALUE, halves.size());
+
+        assertEquals(0, RangeSet.empty().size());
+        assertEquals(1, RangeSet.closed(Long.MAX_VALUE, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    public void testComplementAtTheEdges() {
+        RangeSet all = RangeSet.all();
+        assertTrue(all.complement(all).isEmpty());
+        assertEquals(all, RangeSet.empty().complement(all));
+        assertEquals(RangeSet.atMost(Long.MAX_VALUE - 1), RangeSet.of(Long.MAX_VALUE).complement(all));
+        assertEquals(RangeSet.atLeast(Long.MIN_VALUE + 1), RangeSet.of(Long.MIN_VALUE).complement(all));
+        assertEquals(RangeSet.closed(Long.MIN_VALUE + 1, Long.MAX_VALUE - 1),
+                RangeSet.of(Long.MIN_VALUE, Long.MAX_VALUE).complement(all));
+        assertEquals(RangeSet.atLeast(1), RangeSet.atMost(0).complement(all));
+        assertEquals(RangeSet.atMost(0), RangeSet.atLeast(1).complement(all));
+        assertEquals(RangeSet.of(0), RangeSet.atMost(-1).union(RangeSet.atLeast(1)).complement(all));
+
+        assertTrue(RangeSet.atLeast(Long.MAX_VALUE).contains(Long.MAX_VALUE));
+        assertFalse(RangeSet.atLeast(Long.MAX_VALUE).contains(Long.MAX_VALUE - 1));
+        assertTrue(RangeSet.atMost(Long.MIN_VALUE).contains(Long.MIN_VALUE));
+        assertFalse(RangeSet.atMost(Long.MIN_VALUE).contains(Long.MIN_VALUE + 1));
+        assertEquals(RangeSet.empty(), RangeSet.atMost(Long.MIN_VALUE).intersection(RangeSet.atLeast(Long.MIN_VALUE + 1)));
+        assertEquals(RangeSet.of(Long.MIN_VALUE, Long.MAX_VALUE),
+                RangeSet.atMost(Long.MIN_VALUE).symmetricDifference(RangeSet.atLeast(Long.MAX_VALUE)));
+        assertEquals(RangeSet.atMost(Long.MAX_VALUE - 1), all.difference(RangeSet.atLeast(Long.MAX_VALUE)));
+
+        assertTrue(RangeSet.atLeast(5).isSubsetOf(all));
+        assertFalse(all.isSubsetOf(RangeSet.atLeast(Long.MIN_VALUE + 1)));
+        assertThrows(IllegalArgumentException.class, () -> RangeSet.closed(1, 0));
+    }
+
+    @Test
+    public void testIteratorAtTheTop() {
+        PrimitiveIterator.OfLong iterator = RangeSet.atLeast(Long.MAX_VALUE - 1).iterator();
+        assertEquals(Long.MAX_VALUE - 1, iterator.nextLong());
+        assertEquals(Long.MAX_VALUE, iterator.nextLong());
+        assertFalse(iterator.hasNext());
+        assertEquals(2, RangeSet.of(Long.MAX_VALUE, Long.MAX_VALUE - 1).asDiscreteSet().cardinality());
+        assertEquals(Integer.MAX_VALUE, RangeSet.all().asDiscreteSet().cardinality());
+    }
+
+    private static BitSet randomBits(SplittableRandom random) {
+        BitSet bits = new BitSet(WIDTH);
+        // Vary the density so both sparse sets and sets of long runs come up
+        int percent = random.nextInt(101);
+        for (int i = 0; i < WIDTH; i++) {
+            if (random.nextInt(100) < percent) bits.set(i);
+        }
+        return bits;
+    }
+
+    /**
+     * Build the range set of a window's bits from randomly cut overlapping intervals, to exercise the merging.
+     */
+    private static RangeSet toRangeSet(long low, BitSet bits, SplittableRandom random) {
+        RangeSet set = RangeSet.empty();
+        for (int start = bits.nextSetBit(0); start >= 0; start = bits.nextSetBit(start + 1)) {
+            int end = bits.nextClearBit(start) - 1;
+            int cut = start + random.nextInt(end - start + 1);
+            set = set.union(RangeSet.closed(low + cut, low + end)).union(RangeSet.closed(low + start, low + cut));
+            start = end;
+        }
+        return set;
+    }
+
+    private static void assertMatches(long low, BitSet expected, RangeSet actual) {
+        assertEquals(expected.cardinality(), actual.size());
+        int intervals = 0;
+        for (int i = 0; i < WIDTH; i++) {
+            assertEquals(expected.get(i), actual.contains(low + i));
+            if (expected.get(i) && (i == 0 || !expected.get(i - 1))) intervals++;
+        }
+        assertEquals(intervals, actual.intervalCount());
+        assertTrue(low == Long.MIN_VALUE || !actual.contains(low - 1));
+        assertTrue(low + WIDTH - 1 == Long.MAX_VALUE || !actual.contains(low + WIDTH));
+
+        PrimitiveIterator.OfLong iterator = actual.iterator();
+        for (int i = expected.nextSetBit(0); i >= 0; i = expected.nextSetBit(i + 1)) {
+            assertEquals(low + i, iterator.nextLong());
+        }
+        assertFalse(iterator.hasNext());
+    }
+}
@@ -0,0 +1,102 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import sets.GenericDiscreteSet;
+import sets.Relation;
+
+public class TestRelation {
+    private static GenericDiscreteSet<Integer> domain(int n) {
+        GenericDiscreteSet<Integer> domain = new GenericDiscreteSet<>();
+        for (int i = 0; i < n; i++) {
+            domain.add(i);
+        }
+        return domain;
+    }
+
+    @Test
+    public void testProperties() {
+        GenericDiscreteSet<Integer> domain = domain(4);
+
+        Relation<Integer> identity = Relation.identity(domain);
+        assertTrue(identity.isEquivalence());
+        assertTrue(identity.isPartialOrder());
+
+        // Divisibility on {1, 2, 3, 4} is a partial order
+        GenericDiscreteSet<Integer> divisors = new GenericDiscreteSet<>(List.of(1, 2, 3, 4));
+        Relation<Integer> divides = new Relation<>(divisors);
+        for (int a = 1; a <= 4; a++) {
+            for (int b = 1; b <= 4; b++) {
+                if (b % a == 0) divides.add(a, b);
+            }
+        }
+        assertTrue(divides.isPartialOrder());
+        assertFalse(divides.isSymmetric());
+        assertFalse(divides.isEquivalence());
+    }
+
+    @Test
+    public void testTransitiveClosure() {
+        // A path 0 -> 1 -> ... -> 99 spans two words per row
+        GenericDiscreteSet<Integer> domain = domain(100);
+        Relation<Integer> path = new Relation<>(domain);
+        for (int i = 0; i < 99; i++) {
+            path.add(i, i + 1);
+        }
+        assertFalse(path.isTransitive());
+
+        Relation<Integer> closure = path.transitiveClosure();
+        assertTrue(closure.isTransitive());
+        assertTrue(closure.contains(0, 99));
+        assertFalse(closure.contains(99, 0));
+        assertEquals(99 * 100 / 2, closure.size());
+    }
+
+    @Test
+    public void testClosuresAndComposition() {
+        GenericDiscreteSet<Integer> domain = domain(70);
+        Relation<Integer> relation = new Relation<>(domain);
+        relation.add(3, 68);
+        relation.add(68, 5);
+
+        Relation<Integer> symmetric = relation.symmetricClosure();
+        assertTrue(symmetric.isSymmetric());
+        assertTrue(symmetric.contains(68, 3));
+        assertEquals(relation.inverse().union(relation), symmetric);
+
+        assertTrue(relation.reflexiveClosure().isReflexive());
+
+        Relation<Integer> composition = relation.compose(relation);
+        assertEquals(1, composition.size());
+        assertTrue(composition.contains(3, 5));
+
+        assertEquals(relation, new Relation<>(domain, relation.toPairs()));
+    }
+
+    @Test
+    public void testLargeDomains() {
+        // The smallest domain whose last rows start past bit 2^31 of the matrix
+        int n = 46341;
+        Relation<Integer> relation = new Relation<>(domain(n));
+        for (int i = 0; i < n; i++) {
+            assertTrue(relation.add(i, i));
+        }
+        for (int i = 0; i < n; i++) {
+            assertTrue(relation.contains(i, i));
+            assertFalse(relation.contains(i, (i + 1) % n));
+        }
+        assertEquals(n, relation.size());
+        assertTrue(relation.remove(n - 1, n - 1));
+        assertEquals(n - 1, relation.size());
+
+        // A bit matrix for this many elements would not fit in one array
+        assertThrows(IllegalArgumentException.class, () -> new Relation<>(domain(400000)));
+    }
+}
@@ -0,0 +1,147 @@
+package tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import sets.BellNumbers;
+import sets.DiscreteSet;
+import sets.GenericDiscreteSet;
+
+/**
+ * Complexity budgets for the set operations, checked with {@link ScalingHarness}.
+ * Linear and n log n operations get an exponent budget of 1.5, which a quadratic regression exceeds.
+ * Tagged "scaling" so timing-sensitive runs can be excluded on loaded machines.
+ */
+@Tag("scaling")
+public class TestScaling {
+    private static final int[] SET_SIZES = ScalingHarness.doubling(2048, 5);
+    private static final double LINEAR = 1.5;
+    // A hash set entry, a boxed element and a share of the table, with room to spare
+    private static final double BYTES_PER_ENTRY = 160;
+
+    @Test
+    public void testBuilding() {
+        ScalingHarness.assertScaling("add", SET_SIZES, LINEAR, BYTES_PER_ENTRY, n -> {
+            List<Integer> values = values(0, n);
+            return () -> {
+                DiscreteSet<Integer> set = new GenericDiscreteSet<>();
+                for (Integer value : values) {
+                    set.add(value);
+                }
+            };
+        });
+        ScalingHarness.assertScaling("addAll", SET_SIZES, LINEAR, BYTES_PER_ENTRY, n -> {
+            List<Integer> values = values(0, n);
+            return () -> new GenericDiscreteSet<Integer>().addAll(values);
+        });
+        ScalingHarness.assertScaling("removeAll", SET_SIZES, LINEAR, BYTES_PER_ENTRY, n -> {
+            List<Integer> values = values(0, n);
+            List<Integer> removed = values(n / 2, n);
+            return () -> new GenericDiscreteSet<>(values).removeAll(removed);
+        });
+    }
+
+    @Test
+    public void testQueries() {
+        // Lookups and comparisons should not allocate per element
+        ScalingHarness.assertScaling("contains", SET_SIZES, LINEAR, 1, n -> {
+            List<Integer> values = values(0, n);
+            DiscreteSet<Integer> set = new GenericDiscreteSet<>(values);
+            return () -> {
+                for (Integer value : values) {
+                    set.contains(value);
+                }
+            };
+        });
+        ScalingHarness.assertScaling("isSubsetOf", SET_SIZES, LINEAR, 1, pair(n -> 0, n -> 2 * n, DiscreteSet::isSubsetOf));
+        ScalingHarness.assertScaling("equals", SET_SIZES, LINEAR, 1, n -> {
+            DiscreteSet<Integer> a = new GenericDiscreteSet<>(values(0, n));
+            DiscreteSet<Integer> b = new GenericDiscreteSet<>(values(0, n));
+            return () -> a.equals(b);
+        });
+    }
+
+    @Test
+    public void testAlgebra() {
+        ScalingHarness.assertScaling("union", SET_SIZES, LINEAR, BYTES_PER_ENTRY, pair(n -> n / 2, n -> 3 * n / 2, DiscreteSet::union));
+        ScalingHarness.assertScaling("intersection", SET_SIZES, LINEAR, BYTES_PER_ENTRY, pair(n -> n / 2, n -> 3 * n / 2, DiscreteSet::intersection));
+        ScalingHarness.assertScaling("difference", SET_SIZES, LINEAR, BYTES_PER_ENTRY, pair(n -> n / 2, n -> 3 * n / 2, DiscreteSet::difference));
+        ScalingHarness.assertScaling("symmetricDifference", SET_SIZES, LINEAR, 2 * BYTES_PER_ENTRY,
+            pair(n -> n / 2, n -> 3 * n / 2, DiscreteSet::symmetricDifference));
+        // n is the number of pairs produced
+        ScalingHarness.assertScaling("cartesianProduct", SET_SIZES, LINEAR, 2 * BYTES_PER_ENTRY, n -> {
+            DiscreteSet<Integer> a = new GenericDiscreteSet<>(values(0, n / 16));
+            DiscreteSet<Integer> b = new GenericDiscreteSet<>(values(0, 16));
+            return () -> a.cartesianProduct(b);
+        });
+        // n is the number of subsets produced, each of which is a small set of its own.
+        // Subsets of consecutive small integers are where a weak set hash collides, which this must catch
+        ScalingHarness.assertScaling("powerSet", ScalingHarness.doubling(1024, 5), LINEAR, 8 * BYTES_PER_ENTRY, n -> {
+            DiscreteSet<Integer> set = new GenericDiscreteSet<>(values(0, Integer.numberOfTrailingZeros(n)));
+            return set::powerSet;
+        });
+    }
+
+    @Test
+    public void testPartitions() {
+        ScalingHarness.assertScaling("partition", SET_SIZES, LINEAR, BYTES_PER_ENTRY, n -> {
+            DiscreteSet<Integer> set = new GenericDiscreteSet<>(values(0, n));
+            return () -> set.partition(n / 4);
+        });
+        // Many small blocks, which is where comparing every pair of blocks shows up
+        ScalingHarness.assertScaling("isPartition", SET_SIZES, LINEAR, 2 * BYTES_PER_ENTRY, n -> {
+            DiscreteSet<Integer> set = new GenericDiscreteSet<>(values(0, n));
+            List<DiscreteSet<Integer>> blocks = new ArrayList<>();
+            for (int start = 0; start < n; start += 4) {
+                blocks.add(new GenericDiscreteSet<>(values(start, start + 4)));
+            }
+            return () -> set.isPartition(blocks);
+        });
+        ScalingHarness.assertScaling("quotient", SET_SIZES, LINEAR, 2 * BYTES_PER_ENTRY, n -> {
+            DiscreteSet<Integer> set = new GenericDiscreteSet<>(values(0, n));
+            return () -> set.quotient(value -> value % 64);
+        });
+    }
+
+    @Test
+    public void testBellNumbers() {
+        // The triangle and the recursion both do O(n^2) additions of O(n log n)-bit numbers, so close to n^3.
+        // The rows of big integers grow with n, so allocation is not bounded per element.
+        int[] sizes = ScalingHarness.doubling(32, 4);
+        double cubic = 3.5;
+        double unbounded = Double.POSITIVE_INFINITY;
+        ScalingHarness.assertScaling("bellNumber", sizes, cubic, unbounded, n -> () -> BellNumbers.bellNumber(n));
+        ScalingHarness.assertScaling("bellNumberRecursive", sizes, cubic, unbounded, n -> () -> BellNumbers.bellNumberRecursive(n));
+        ScalingHarness.assertScaling("stirlingSecondKind", sizes, cubic, unbounded, n -> () -> BellNumbers.stirlingSecondKind(n, n / 2));
+        ScalingHarness.assertScaling("DiscreteSet.bellNumber", sizes, cubic, unbounded, n -> {
+            DiscreteSet<Integer> set = new GenericDiscreteSet<>(values(0, n));
+            return set::bellNumber;
+        });
+    }
+
+    /**
+     * Time an operation on the sets [0, n) and [from(n), to(n)).
+     */
+    private static IntFunction<Runnable> pair(IntUnaryOperator from, IntUnaryOperator to,
+                                              BiFunction<DiscreteSet<Integer>, DiscreteSet<Integer>, ?> operation) {
+        return n -> {
+            DiscreteSet<Integer> a = new GenericDiscreteSet<>(values(0, n));
+            DiscreteSet<Integer> b = new GenericDiscreteSet<>(values(from.applyAsInt(n), to.applyAsInt(n)));
+            return () -> operation.apply(a, b);
+        };
+    }
+
+    private static List<Integer> values(int from, int to) {
+        List<Integer> values = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            values.add(i);
+        }
+        return values;
+    }
+}
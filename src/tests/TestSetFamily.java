@@ -0,0 +1,175 @@
+package tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import sets.DiscreteSet;
+import sets.GenericDiscreteSet;
+import sets.RangeSet;
+import sets.SetFamily;
+
+public class TestSetFamily {
+    @Test
+    public void testMembersMatchTheirSources() {
+        // Enough members and ids to grow both flat arrays several times, with duplicates in the added lists
+        SplittableRandom random = new SplittableRandom(1);
+        SetFamily<String> family = new SetFamily<>();
+        List<DiscreteSet<String>> expected = new ArrayList<>();
+        for (int member = 0; member < 300; member++) {
+            if (member == 150) family.compact();
+            List<String> elements = new ArrayList<>();
+            int size = random.nextInt(8);
+            for (int i = 0; i < size; i++) {
+                elements.add("e" + random.nextInt(30));
+            }
+            assertEquals(member, family.add(elements));
+            expected.add(new GenericDiscreteSet<>(new HashSet<>(elements)));
+        }
+        assertEquals(expected.size(), family.size());
+
+        Set<String> all = new HashSet<>();
+        for (DiscreteSet<String> set : expected) {
+            all.addAll(set);
+        }
+        assertEquals(all.size(), family.elementCount());
+
+        Iterator<DiscreteSet<String>> iterator = family.iterator();
+        for (int member = 0; member < expected.size(); member++) {
+            DiscreteSet<String> set = expected.get(member);
+            DiscreteSet<String> view = family.get(member);
+            assertEquals(set, view);
+            assertEquals(set.hashCode(), view.hashCode());
+            assertEquals(set, iterator.next());
+            assertEquals(set.cardinality(), family.cardinality(member));
+
+            Set<String> visited = new HashSet<>();
+            family.forEachElement(member, visited::add);
+            assertEquals(set.getElements(), visited);
+            for (int i = 0; i < 30; i++) {
+                assertEquals(set.contains("e" + i), family.contains(member, "e" + i));
+                assertEquals(set.contains("e" + i), view.contains("e" + i));
+            }
+        }
+        assertFalse(iterator.hasNext());
+
+        for (int i = 0; i < 30; i++) {
+            List<Integer> containing = new ArrayList<>();
+            for (int member = 0; member < expected.size(); member++) {
+                if (expected.get(member).contains("e" + i)) containing.add(member);
+            }
+            assertArrayEquals(containing.stream().mapToInt(Integer::intValue).toArray(), family.membersContaining("e" + i));
+        }
+        assertEquals(0, family.membersContaining("missing").length);
+        assertEquals(new GenericDiscreteSet<>(all), family.unionOfAll());
+    }
+
+    @Test
+    public void testPairwiseAlgebra() {
+        SplittableRandom random = new SplittableRandom(2);
+        List<List<Integer>> sources = new ArrayList<>();
+        for (int member = 0; member < 40; member++) {
+            List<Integer> elements = new ArrayList<>();
+            // Some members are dense enough to be supersets of others
+            int density = random.nextInt(12);
+            for (int i = 0; i < 12; i++) {
+                if (random.nextInt(12) < density) elements.add(i);
+            }
+            sources.add(elements);
+        }
+        SetFamily<Integer> family = SetFamily.of(sources);
+
+        for (int a = 0; a < sources.size(); a++) {
+            DiscreteSet<Integer> x = new GenericDiscreteSet<>(sources.get(a));
+            for (int b = 0; b < sources.size(); b++) {
+                DiscreteSet<Integer> y = new GenericDiscreteSet<>(sources.get(b));
+                assertEquals(x.union(y), family.union(a, b));
+                assertEquals(x.intersection(y), family.intersection(a, b));
+                assertEquals(x.difference(y), family.difference(a, b));
+                assertEquals(x.intersection(y).cardinality(), family.intersectionSize(a, b));
+                assertEquals(x.isSubsetOf(y), family.isSubset(a, b));
+            }
+        }
+
+        DiscreteSet<Integer> intersection = new GenericDiscreteSet<>(sources.get(0));
+        for (List<Integer> source : sources) {
+            intersection = intersection.intersection(new GenericDiscreteSet<>(source));
+        }
+        assertEquals(intersection, family.intersectionOfAll());
+        assertTrue(new SetFamily<Integer>().intersectionOfAll().isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> family.union(0, sources.size()));
+        assertThrows(IndexOutOfBoundsException.class, () -> family.cardinality(-1));
+    }
+
+    @Test
+    public void testPowerSet() {
+        DiscreteSet<String> set = new GenericDiscreteSet<>(List.of("a", "b", "c", "d"));
+        SetFamily<String> family = SetFamily.powerSetOf(set);
+        assertEquals(16, family.size());
+        assertEquals(4, family.elementCount());
+        assertEquals(0, family.cardinality(0));
+        assertEquals(4, family.cardinality(15));
+
+        Set<DiscreteSet<String>> members = new HashSet<>();
+        for (DiscreteSet<String> member : family) {
+            members.add(new GenericDiscreteSet<>(member));
+        }
+        assertEquals(set.powerSet().getElements(), members);
+
+        SetFamily<String> empty = SetFamily.powerSetOf(new GenericDiscreteSet<>());
+        assertEquals(1, empty.size());
+        assertTrue(empty.get(0).isEmpty());
+
+        List<Integer> large = new ArrayList<>();
+        for (int i = 0; i < 31; i++) {
+            large.add(i);
+        }
+        assertThrows(IllegalArgumentException.class, () -> SetFamily.powerSetOf(new GenericDiscreteSet<>(large)));
+    }
+
+    @Test
+    public void testViews() {
+        SetFamily<Integer> family = SetFamily.of(List.of(List.of(1, 2, 3), List.of(3, 4)));
+        DiscreteSet<Integer> view = family.get(0);
+        DiscreteSet<Integer> copy = new GenericDiscreteSet<>(List.of(1, 2, 3));
+
+        // Views are read-only and take part in the algebra like any other set
+        assertThrows(UnsupportedOperationException.class, () -> view.add(4));
+        assertThrows(UnsupportedOperationException.class, () -> view.remove(1));
+        assertEquals(new GenericDiscreteSet<>(List.of(1, 2, 3, 4)), view.union(family.get(1)));
+        assertEquals(new GenericDiscreteSet<>(List.of(3)), copy.intersection(family.get(1)));
+        assertTrue(view.isSubsetOf(copy));
+        assertEquals(Set.of(copy), Set.of(view));
+        assertTrue(view.memoryFootprint() < copy.memoryFootprint());
+
+        // Adding and compacting the family does not move earlier members
+        family.add(List.of(5));
+        family.compact();
+        assertEquals(copy, view);
+        assertEquals(copy.hashCode(), view.hashCode());
+
+        DiscreteSet<Long> range = RangeSet.closed(10, 20).union(RangeSet.of(30)).asDiscreteSet();
+        assertEquals(12, range.cardinality());
+        assertTrue(range.contains(30L));
+        assertFalse(range.contains(21L));
+        List<Long> values = new ArrayList<>();
+        for (long value = 10; value <= 20; value++) {
+            values.add(value);
+        }
+        values.add(30L);
+        assertEquals(new GenericDiscreteSet<>(values), range);
+        assertEquals(new GenericDiscreteSet<>(values).hashCode(), range.hashCode());
+        assertThrows(UnsupportedOperationException.class, () -> range.add(1L));
+    }
+}
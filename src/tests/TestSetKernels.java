@@ -0,0 +1,192 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import sets.AdaptiveDiscreteSet;
+import sets.AdaptiveDiscreteSet.Kernel;
+import sets.AdaptiveDiscreteSet.Representation;
+import sets.DiscreteSet;
+import sets.GenericDiscreteSet;
+import sets.SetFamily;
+
+/**
+ * The kernels are internal, so these tests reach the bitset kernels through {@link AdaptiveDiscreteSet}
+ * and the sorted id kernels through {@link SetFamily}, and compare both against plain hash sets.
+ */
+public class TestSetKernels {
+    /**
+     * Words spanned by the bitsets below, several of the 16-word chunks the early-exit checks work through.
+     */
+    private static final int WORDS = 64;
+
+    @Test
+    public void testChunkedSubsetCheckFindsEveryWord() {
+        AdaptiveDiscreteSet<Integer> evens = bitset(0, WORDS * 64, 0);
+        for (int word = 0; word < WORDS; word++) {
+            // One extra value in a single word, which the check must find whichever chunk it falls in
+            AdaptiveDiscreteSet<Integer> extra = bitset(0, WORDS * 64, 0);
+            extra.add(word * 64 + 1);
+            assertEquals(Representation.BITSET, extra.getRepresentation());
+
+            long bitsetKernels = AdaptiveDiscreteSet.kernelCount(Kernel.BITSET);
+            assertTrue(evens.isSubsetOf(extra));
+            assertFalse(extra.isSubsetOf(evens));
+            assertTrue(AdaptiveDiscreteSet.kernelCount(Kernel.BITSET) >= bitsetKernels + 2);
+        }
+
+        // Values of the smaller set outside the words of the larger one
+        AdaptiveDiscreteSet<Integer> shifted = bitset(64, WORDS * 64, 0);
+        shifted.add(WORDS * 64 + 2);
+        AdaptiveDiscreteSet<Integer> wide = bitset(0, WORDS * 64 + 64, 0);
+        assertTrue(shifted.isSubsetOf(wide));
+        wide.remove(WORDS * 64 + 2);
+        assertFalse(shifted.isSubsetOf(wide));
+    }
+
+    @Test
+    public void testChunkedOverlapCheckFindsEveryWord() {
+        // Evens and odds share no value, at every offset between their first words
+        for (int start : new int[] { 0, 64, 1000, 64 * 17 }) {
+            AdaptiveDiscreteSet<Integer> evens = bitset(0, WORDS * 64, 0);
+            AdaptiveDiscreteSet<Integer> odds = bitset(start, start + WORDS * 64, 1);
+            assertFalse(evens.isOverlappingWith(odds));
+            assertTrue(evens.isDisjointWith(odds));
+
+            for (int word = start / 64 + 1; word < WORDS; word++) {
+                AdaptiveDiscreteSet<Integer> shared = bitset(start, start + WORDS * 64, 1);
+                shared.add(word * 64);
+                assertEquals(Representation.BITSET, shared.getRepresentation());
+
+                long bitsetKernels = AdaptiveDiscreteSet.kernelCount(Kernel.BITSET);
+                assertTrue(evens.isOverlappingWith(shared));
+                assertTrue(shared.isOverlappingWith(evens));
+                assertFalse(shared.isDisjointWith(evens));
+                assertTrue(AdaptiveDiscreteSet.kernelCount(Kernel.BITSET) >= bitsetKernels + 3);
+            }
+        }
+
+        // Bitsets whose words do not overlap at all
+        assertFalse(bitset(0, 1000, 0).isOverlappingWith(bitset(5000, 6000, 0)));
+    }
+
+    @Test
+    public void testBitsetAlgebraMatchesHashSets() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int round = 0; round < 50; round++) {
+            AdaptiveDiscreteSet<Integer> a = new AdaptiveDiscreteSet<>();
+            AdaptiveDiscreteSet<Integer> b = new AdaptiveDiscreteSet<>();
+            Set<Integer> x = new HashSet<>();
+            Set<Integer> y = new HashSet<>();
+            int aStart = random.nextInt(2000);
+            int bStart = random.nextInt(2000);
+            for (int i = 0; i < 3000; i++) {
+                if (random.nextInt(3) != 0) {
+                    a.add(aStart + i);
+                    x.add(aStart + i);
+                }
+                if (random.nextInt(3) != 0) {
+                    b.add(bStart + i);
+                    y.add(bStart + i);
+                }
+            }
+
+            assertEquals(Representation.BITSET, a.getRepresentation());
+            assertEquals(Representation.BITSET, b.getRepresentation());
+
+            Set<Integer> expected = new HashSet<>(x);
+            expected.addAll(y);
+            assertEquals(expected, a.union(b).getElements());
+            expected = new HashSet<>(x);
+            expected.retainAll(y);
+            assertEquals(expected, a.intersection(b).getElements());
+            assertEquals(!expected.isEmpty(), a.isOverlappingWith(b));
+            expected = new HashSet<>(x);
+            expected.removeAll(y);
+            assertEquals(expected, a.difference(b).getElements());
+            assertEquals(y.containsAll(x), a.isSubsetOf(b));
+        }
+    }
+
+    @Test
+    public void testSortedKernelsAroundTheGallopSwitch() {
+        // A range 32 times longer than the other is searched instead of merged, so try lengths on both sides of that
+        SplittableRandom random = new SplittableRandom(2);
+        List<Integer> universe = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            universe.add(i);
+        }
+
+        for (int shorter = 0; shorter <= 3; shorter++) {
+            for (int longer : new int[] { shorter * 32 - 1, shorter * 32, shorter * 32 + 1, 999 }) {
+                if (longer < shorter) continue;
+                for (int round = 0; round < 100; round++) {
+                    List<Integer> longMember = sample(universe, longer, random);
+                    List<Integer> shortMember = new ArrayList<>();
+                    for (int i = 0; i < shorter; i++) {
+                        // Mostly ids from the longer member, including its first and last, so subsets come up
+                        int choice = random.nextInt(4);
+                        if (choice == 0 && longer > 0) {
+                            shortMember.add(Collections.min(longMember));
+                        } else if (choice == 1 && longer > 0) {
+                            shortMember.add(Collections.max(longMember));
+                        } else if (choice == 2 && longer > 0) {
+                            shortMember.add(longMember.get(random.nextInt(longer)));
+                        } else {
+                            shortMember.add(random.nextInt(1000));
+                        }
+                    }
+                    assertMatchesHashSets(universe, shortMember, longMember);
+                }
+            }
+        }
+    }
+
+    private static void assertMatchesHashSets(List<Integer> universe, List<Integer> first, List<Integer> second) {
+        // The universe goes in first, so each element's id is the element itself and ids sort like the elements
+        SetFamily<Integer> family = SetFamily.of(List.of(universe, first, second));
+        DiscreteSet<Integer> x = new GenericDiscreteSet<>(new HashSet<>(first));
+        DiscreteSet<Integer> y = new GenericDiscreteSet<>(new HashSet<>(second));
+        for (int swap = 0; swap < 2; swap++) {
+            int a = swap == 0 ? 1 : 2;
+            int b = swap == 0 ? 2 : 1;
+            DiscreteSet<Integer> p = swap == 0 ? x : y;
+            DiscreteSet<Integer> q = swap == 0 ? y : x;
+            assertEquals(p.union(q), family.union(a, b));
+            assertEquals(p.intersection(q), family.intersection(a, b));
+            assertEquals(p.difference(q), family.difference(a, b));
+            assertEquals(p.intersection(q).cardinality(), family.intersectionSize(a, b));
+            assertEquals(q.containsAll(p), family.isSubset(a, b));
+        }
+    }
+
+    /**
+     * Build a bitset of every other value in [from, to), starting at the given parity.
+     */
+    private static AdaptiveDiscreteSet<Integer> bitset(int from, int to, int parity) {
+        AdaptiveDiscreteSet<Integer> set = new AdaptiveDiscreteSet<>();
+        for (int value = from + parity; value < to; value += 2) {
+            set.add(value);
+        }
+        assertEquals(Representation.BITSET, set.getRepresentation());
+        return set;
+    }
+
+    private static List<Integer> sample(List<Integer> universe, int count, SplittableRandom random) {
+        List<Integer> shuffled = new ArrayList<>(universe);
+        for (int i = 0; i < count; i++) {
+            Collections.swap(shuffled, i, i + random.nextInt(shuffled.size() - i));
+        }
+        return new ArrayList<>(shuffled.subList(0, count));
+    }
+}
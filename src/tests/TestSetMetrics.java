@@ -0,0 +1,241 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import sets.AsyncSetOperations;
+import sets.DiscreteSet;
+import sets.GenericDiscreteSet;
+import sets.OperationStats;
+import sets.SetMetrics;
+import sets.SetOperation;
+
+public class TestSetMetrics {
+    @Test
+    public void testDisabledByDefault() {
+        assertFalse(SetMetrics.isEnabled());
+        SetMetrics.reset();
+        DiscreteSet<Integer> set = range(0, 10);
+        set.union(range(5, 15));
+        set.intersection(range(5, 15));
+        set.powerSet();
+        SetMetrics.forEach((operation, stats) -> assertEquals(0, stats.getCount()));
+    }
+
+    @Test
+    public void testEachCallRecordsOneOperation() {
+        DiscreteSet<Integer> set = range(0, 10);
+        DiscreteSet<Integer> other = range(5, 15);
+        try {
+            SetMetrics.reset();
+            SetMetrics.enable();
+            assertEquals(10, set.symmetricDifference(other).cardinality());
+            assertCounts(SetOperation.SYMMETRIC_DIFFERENCE);
+
+            // Intersecting with several sets is one intersection, not one per set
+            assertEquals(range(7, 9), set.intersection(List.of(other, range(7, 9), range(0, 100))));
+            assertCounts(SetOperation.SYMMETRIC_DIFFERENCE, SetOperation.INTERSECTION);
+
+            set.union(other);
+            set.difference(other);
+            assertCounts(SetOperation.SYMMETRIC_DIFFERENCE, SetOperation.INTERSECTION, SetOperation.UNION,
+                SetOperation.DIFFERENCE);
+
+            // Calls made after disabling are not counted, and counts made before are kept
+            SetMetrics.disable();
+            set.union(other);
+            assertEquals(1, SetMetrics.stats(SetOperation.UNION).getCount());
+        } finally {
+            SetMetrics.disable();
+            SetMetrics.reset();
+        }
+    }
+
+    @Test
+    public void testHistograms() {
+        try {
+            SetMetrics.reset();
+            SetMetrics.enable();
+            // Results of 0, 1, 2, 3, 4 and 15 elements
+            for (int size : new int[] { 0, 1, 2, 3, 4, 15 }) {
+                range(0, size).union(range(0, 0));
+            }
+        } finally {
+            SetMetrics.disable();
+        }
+
+        OperationStats stats = SetMetrics.stats(SetOperation.UNION);
+        assertEquals(SetOperation.UNION, stats.getOperation());
+        assertEquals(6, stats.getCount());
+        long[] sizes = stats.getResultSizeHistogram();
+        assertEquals(Long.SIZE + 1, sizes.length);
+        assertEquals(1, sizes[0]);
+        assertEquals(1, sizes[1]);
+        assertEquals(2, sizes[2]);
+        assertEquals(1, sizes[3]);
+        assertEquals(1, sizes[4]);
+
+        long[] latencies = stats.getLatencyHistogram();
+        long total = 0;
+        for (long bucket : latencies) {
+            total += bucket;
+        }
+        assertEquals(6, total);
+        assertTrue(stats.getTotalNanos() >= 0);
+        long median = stats.latencyPercentileNanos(50);
+        assertTrue(median <= stats.latencyPercentileNanos(100));
+        assertTrue(stats.latencyPercentileNanos(0) <= median);
+        assertThrows(IllegalArgumentException.class, () -> stats.latencyPercentileNanos(101));
+        assertThrows(IllegalArgumentException.class, () -> stats.latencyPercentileNanos(-1));
+
+        SetMetrics.reset();
+        assertEquals(0, stats.getCount());
+        assertEquals(0, stats.latencyPercentileNanos(99));
+        assertEquals(0, stats.getResultSizeHistogram()[2]);
+    }
+
+    @Test
+    public void testRegistry() {
+        Set<SetOperation> visited = EnumSet.noneOf(SetOperation.class);
+        SetMetrics.forEach((operation, stats) -> {
+            assertEquals(operation, stats.getOperation());
+            assertTrue(visited.add(operation));
+        });
+        assertEquals(EnumSet.allOf(SetOperation.class), visited);
+        for (SetOperation operation : SetOperation.values()) {
+            assertSame(SetMetrics.stats(operation), SetMetrics.stats(operation));
+        }
+
+        Duration threshold = SetMetrics.getSlowThreshold();
+        try {
+            SetMetrics.setSlowThreshold(Duration.ofMillis(5));
+            assertEquals(Duration.ofMillis(5), SetMetrics.getSlowThreshold());
+            assertThrows(IllegalArgumentException.class, () -> SetMetrics.setSlowThreshold(Duration.ofNanos(-1)));
+        } finally {
+            SetMetrics.setSlowThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void testSlowOperationEvents() throws Exception {
+        DiscreteSet<Integer> set = range(0, 200000);
+        DiscreteSet<Integer> other = range(100000, 300000);
+        Duration threshold = SetMetrics.getSlowThreshold();
+        Path file = Files.createTempFile("sets", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("sets.SlowSetOperation");
+            recording.start();
+            SetMetrics.setSlowThreshold(Duration.ZERO);
+            SetMetrics.enable();
+            set.union(other);
+            // Calls under the threshold emit nothing
+            SetMetrics.setSlowThreshold(Duration.ofDays(1));
+            set.difference(other);
+            SetMetrics.disable();
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = slowEvents(file);
+            assertEquals(1, events.size());
+            RecordedEvent event = events.get(0);
+            assertEquals("UNION", event.getString("operation"));
+            assertEquals(200000, event.getInt("leftCardinality"));
+            assertEquals(200000, event.getInt("rightCardinality"));
+            assertEquals(300000, event.getLong("resultSize"));
+            // The event began with the operation, so its duration spans it
+            long latency = event.getLong("latency");
+            assertTrue(event.getDuration().toNanos() > 0);
+            assertTrue(event.getDuration().toNanos() >= latency / 2);
+        } finally {
+            SetMetrics.disable();
+            SetMetrics.setSlowThreshold(threshold);
+            SetMetrics.reset();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testAsyncOperationsRecordLikeSync() throws Exception {
+        DiscreteSet<Integer> a = range(0, 10);
+        DiscreteSet<Integer> b = range(5, 12);
+        DiscreteSet<Integer> c = range(8, 11);
+        AsyncSetOperations async = new AsyncSetOperations(Runnable::run);
+        Duration threshold = SetMetrics.getSlowThreshold();
+        Path file = Files.createTempFile("sets", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("sets.SlowSetOperation");
+            recording.start();
+            SetMetrics.setSlowThreshold(Duration.ZERO);
+            SetMetrics.enable();
+            // c is the smallest, and b and c are the others, which the operands must not confuse
+            a.intersection(List.of(b, c));
+            async.intersection(a, List.of(b, c)).join();
+            a.cartesianProduct(List.of(b, c));
+            async.cartesianProduct(List.of(a, b, c)).join();
+            SetMetrics.disable();
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = slowEvents(file);
+            assertEquals(4, events.size());
+            for (int i = 0; i < 4; i += 2) {
+                RecordedEvent sync = events.get(i);
+                RecordedEvent background = events.get(i + 1);
+                assertEquals(sync.getString("operation"), background.getString("operation"));
+                assertEquals(10, background.getInt("leftCardinality"));
+                assertEquals(10, background.getInt("rightCardinality"));
+                assertEquals(sync.getInt("leftCardinality"), background.getInt("leftCardinality"));
+                assertEquals(sync.getInt("rightCardinality"), background.getInt("rightCardinality"));
+                assertEquals(sync.getLong("resultSize"), background.getLong("resultSize"));
+            }
+        } finally {
+            SetMetrics.disable();
+            SetMetrics.setSlowThreshold(threshold);
+            SetMetrics.reset();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<RecordedEvent> slowEvents(Path file) throws Exception {
+        List<RecordedEvent> events = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            if (event.getEventType().getName().equals("sets.SlowSetOperation")) events.add(event);
+        }
+        // Events are written per thread buffer, so put them back in the order they began
+        events.sort(Comparator.comparing(RecordedEvent::getStartTime));
+        return events;
+    }
+
+    private static void assertCounts(SetOperation... recorded) {
+        Set<SetOperation> expected = EnumSet.noneOf(SetOperation.class);
+        expected.addAll(List.of(recorded));
+        for (SetOperation operation : SetOperation.values()) {
+            assertEquals(operation.name(), expected.contains(operation) ? 1 : 0, SetMetrics.stats(operation).getCount());
+        }
+    }
+
+    private static DiscreteSet<Integer> range(int from, int to) {
+        List<Integer> elements = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            elements.add(i);
+        }
+        return new GenericDiscreteSet<>(elements);
+    }
+}
@@ -0,0 +1,82 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import sets.BellNumbers;
+import sets.DiscreteSet;
+import sets.GenericDiscreteSet;
+import sets.OrderedGroup;
+import sets.SetRanking;
+
+public class TestSetRanking {
+    @Test
+    public void testSubsets() {
+        SetRanking<String> ranking = new SetRanking<>(List.of("a", "b", "c"));
+        assertEquals(BigInteger.valueOf(8), ranking.subsetCount());
+
+        // Bit i of the rank is set when the ith element is in the subset
+        DiscreteSet<String> subset = ranking.unrankSubset(BigInteger.valueOf(5));
+        assertEquals(new GenericDiscreteSet<>(List.of("a", "c")), subset);
+        assertEquals(BigInteger.valueOf(5), ranking.rankSubset(subset));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> ranking.unrankSubset(BigInteger.valueOf(8)));
+    }
+
+    @Test
+    public void testPartitions() {
+        for (int n = 0; n <= 7; n++) {
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            SetRanking<Integer> ranking = new SetRanking<>(List.of(order));
+            assertEquals(BellNumbers.bellNumber(n), ranking.partitionCount());
+
+            // Every rank gives a distinct partition that ranks back to itself
+            Set<String> seen = new HashSet<>();
+            for (int rank = 0; rank < ranking.partitionCount().intValue(); rank++) {
+                List<DiscreteSet<Integer>> partition = ranking.unrankPartition(BigInteger.valueOf(rank));
+                assertEquals(BigInteger.valueOf(rank), ranking.rankPartition(partition));
+                seen.add(partition.toString());
+            }
+            assertEquals(ranking.partitionCount().intValue(), seen.size());
+        }
+    }
+
+    @Test
+    public void testPartitionRanges() {
+        SetRanking<Integer> ranking = new SetRanking<>(List.of(1, 2, 3, 4, 5));
+        BigInteger middle = BigInteger.valueOf(20);
+
+        // Two workers splitting the range visit the same partitions as one worker
+        StringBuilder whole = new StringBuilder();
+        ranking.forEachPartition(BigInteger.ZERO, ranking.partitionCount(), p -> whole.append(p));
+        StringBuilder split = new StringBuilder();
+        ranking.forEachPartition(BigInteger.ZERO, middle, p -> split.append(p));
+        ranking.forEachPartition(middle, ranking.partitionCount(), p -> split.append(p));
+
+        assertEquals(whole.toString(), split.toString());
+    }
+
+    @Test
+    public void testTuples() {
+        List<SetRanking<?>> components = List.of(
+            new SetRanking<>(List.of("a", "b", "c")),
+            new SetRanking<>(List.of(1, 2))
+        );
+        assertEquals(BigInteger.valueOf(6), SetRanking.tupleCount(components));
+
+        // The last component is the least significant digit
+        OrderedGroup tuple = SetRanking.unrankTuple(BigInteger.valueOf(3), components);
+        assertEquals(new OrderedGroup("b", 2), tuple);
+        assertEquals(BigInteger.valueOf(3), SetRanking.rankTuple(tuple, components));
+    }
+}
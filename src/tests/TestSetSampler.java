@@ -0,0 +1,209 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import sets.DiscreteSet;
+import sets.GenericDiscreteSet;
+import sets.OrderedGroup;
+import sets.SetSampler;
+
+public class TestSetSampler {
+    @Test
+    public void testPartitionsAreUniform() {
+        // {1, 2, 3} has 5 partitions: one with 1 block, three with 2 blocks and one with 3 blocks
+        SetSampler sampler = new SetSampler(new SplittableRandom(1));
+        DiscreteSet<Integer> set = new GenericDiscreteSet<>(List.of(1, 2, 3));
+        int draws = 50000;
+        int[] byBlocks = new int[4];
+        for (int i = 0; i < draws; i++) {
+            byBlocks[sampler.partition(set).size()]++;
+        }
+        assertEquals(draws / 5.0, byBlocks[1], draws / 50.0);
+        assertEquals(3 * draws / 5.0, byBlocks[2], draws / 50.0);
+        assertEquals(draws / 5.0, byBlocks[3], draws / 50.0);
+    }
+
+    @Test
+    public void testPartitionOfLargeSet() {
+        // B(n) for n in the thousands has tens of thousands of digits, so it must never be computed exactly
+        List<Integer> elements = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            elements.add(i);
+        }
+        DiscreteSet<Integer> set = new GenericDiscreteSet<>(elements);
+        List<DiscreteSet<Integer>> blocks = new SetSampler(new SplittableRandom(2)).partition(set);
+        assertTrue(set.isPartition(blocks));
+    }
+
+    @Test
+    public void testSubsetsAreUniform() {
+        // Each of the 16 subsets of a 4-element set is equally likely
+        SetSampler sampler = new SetSampler(new SplittableRandom(3));
+        DiscreteSet<Integer> set = range(4);
+        int draws = 64000;
+        int[] bySubset = new int[16];
+        for (int i = 0; i < draws; i++) {
+            bySubset[mask(sampler.subset(set))]++;
+        }
+        assertUniform(bySubset, draws);
+
+        // Every element is included half the time, including those on either side of a 64-bit word of random bits
+        DiscreteSet<Integer> large = range(130);
+        int[] byElement = new int[130];
+        for (int i = 0; i < 20000; i++) {
+            for (int element : sampler.subset(large)) {
+                byElement[element]++;
+            }
+        }
+        for (int element : new int[] { 0, 62, 63, 64, 65, 127, 128, 129 }) {
+            assertEquals(10000, byElement[element], 5 * Math.sqrt(20000 * 0.25));
+        }
+        assertTrue(sampler.subset(new GenericDiscreteSet<Integer>()).isEmpty());
+    }
+
+    @Test
+    public void testFixedSizeSubsetsAreUniform() {
+        // Each of the C(4, 2) = 6 2-subsets is equally likely
+        SetSampler sampler = new SetSampler(new SplittableRandom(4));
+        DiscreteSet<Integer> set = range(4);
+        int draws = 60000;
+        int[] bySubset = new int[16];
+        for (int i = 0; i < draws; i++) {
+            DiscreteSet<Integer> subset = sampler.subset(set, 2);
+            assertEquals(2, subset.cardinality());
+            bySubset[mask(subset)]++;
+        }
+        int[] pairs = new int[6];
+        int pair = 0;
+        for (int mask = 0; mask < 16; mask++) {
+            if (Integer.bitCount(mask) == 2) {
+                pairs[pair++] = bySubset[mask];
+            } else {
+                assertEquals(0, bySubset[mask]);
+            }
+        }
+        assertUniform(pairs, draws);
+
+        assertTrue(sampler.subset(set, 0).isEmpty());
+        assertEquals(set, sampler.subset(set, 4));
+        assertThrows(IllegalArgumentException.class, () -> sampler.subset(set, -1));
+        assertThrows(IllegalArgumentException.class, () -> sampler.subset(set, 5));
+    }
+
+    @Test
+    public void testElementsAndTuplesAreUniform() {
+        SetSampler sampler = new SetSampler(new SplittableRandom(5));
+        DiscreteSet<Integer> set = range(5);
+        int draws = 50000;
+        int[] byElement = new int[5];
+        for (int i = 0; i < draws; i++) {
+            byElement[sampler.element(set)]++;
+        }
+        assertUniform(byElement, draws);
+
+        // Pairs from a 2-element set and a 3-element set, each of the 6 equally likely
+        int[] byTuple = new int[6];
+        List<DiscreteSet<Integer>> sets = List.of(range(2), range(3));
+        for (int i = 0; i < draws; i++) {
+            OrderedGroup tuple = sampler.tuple(sets);
+            assertEquals(2, tuple.size());
+            byTuple[(int) tuple.get(0) * 3 + (int) tuple.get(1)]++;
+        }
+        assertUniform(byTuple, draws);
+
+        assertThrows(IllegalArgumentException.class, () -> sampler.element(new GenericDiscreteSet<Integer>()));
+        assertThrows(IllegalArgumentException.class, () -> sampler.tuple(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> sampler.tuple(List.of(range(2), range(0))));
+    }
+
+    @Test
+    public void testReservoirIsUniform() {
+        SetSampler sampler = new SetSampler(new SplittableRandom(6));
+
+        // Short stream: every element is in a sample of 3 out of 10 with probability 3/10
+        int draws = 30000;
+        int[] byElement = new int[10];
+        for (int i = 0; i < draws; i++) {
+            List<Integer> sample = sampler.reservoir(range(10), 3);
+            assertEquals(3, new HashSet<>(sample).size());
+            for (int element : sample) {
+                byElement[element]++;
+            }
+        }
+        for (int count : byElement) {
+            assertEquals(draws * 0.3, count, 5 * Math.sqrt(draws * 0.3 * 0.7));
+        }
+
+        // Long stream, where most elements are skipped over: each tenth of the stream holds a tenth of the samples
+        int n = 100000;
+        int k = 10;
+        draws = 3000;
+        int[] byTenth = new int[10];
+        for (int i = 0; i < draws; i++) {
+            List<Integer> sample = sampler.reservoir(IntStream.range(0, n).boxed(), k);
+            assertEquals(k, new HashSet<>(sample).size());
+            for (int element : sample) {
+                byTenth[element / (n / 10)]++;
+            }
+        }
+        assertUniform(byTenth, draws * k);
+
+        // The last element of a long stream is as likely as any other to be kept
+        int last = 0;
+        for (int i = 0; i < 20000; i++) {
+            if (sampler.reservoir(IntStream.range(0, 1000).boxed(), 10).contains(999)) last++;
+        }
+        assertEquals(200, last, 5 * Math.sqrt(200));
+    }
+
+    @Test
+    public void testReservoirEdgeCases() {
+        SetSampler sampler = new SetSampler(new SplittableRandom(7));
+        // Streams shorter than k are returned whole
+        assertEquals(Set.of(0, 1, 2), new HashSet<>(sampler.reservoir(range(3), 5)));
+        assertEquals(List.of(0, 1), sampler.reservoir(Stream.of(0, 1), 2));
+        assertTrue(sampler.reservoir(Stream.empty(), 3).isEmpty());
+        assertTrue(sampler.reservoir(range(10), 0).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> sampler.reservoir(range(3), -1));
+        assertThrows(IllegalArgumentException.class, () -> sampler.reservoir(Stream.of(1), -1));
+    }
+
+    /**
+     * Check that the counts of equally likely outcomes are all within five standard deviations of their mean.
+     */
+    private static void assertUniform(int[] counts, int draws) {
+        double p = 1.0 / counts.length;
+        double tolerance = 5 * Math.sqrt(draws * p * (1 - p));
+        for (int count : counts) {
+            assertEquals(draws * p, count, tolerance);
+        }
+    }
+
+    private static int mask(DiscreteSet<Integer> subset) {
+        int mask = 0;
+        for (int element : subset) {
+            mask |= 1 << element;
+        }
+        return mask;
+    }
+
+    private static DiscreteSet<Integer> range(int n) {
+        List<Integer> elements = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            elements.add(i);
+        }
+        return new GenericDiscreteSet<>(elements);
+    }
+}
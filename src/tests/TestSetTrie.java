@@ -0,0 +1,127 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import sets.DiscreteSet;
+import sets.GenericDiscreteSet;
+import sets.SetTrie;
+
+public class TestSetTrie {
+    @Test
+    public void testQueriesMatchBruteForce() {
+        SplittableRandom random = new SplittableRandom(1);
+        SetTrie<Integer> trie = new SetTrie<>();
+        Set<DiscreteSet<Integer>> stored = new HashSet<>();
+        for (int step = 0; step < 3000; step++) {
+            DiscreteSet<Integer> set = randomSet(random);
+            if (random.nextInt(5) < 3) {
+                assertEquals(stored.add(set), trie.add(set));
+            } else {
+                // Mostly remove stored sets, so branches are pruned and ids are released
+                if (!stored.isEmpty() && random.nextInt(4) != 0) {
+                    set = new ArrayList<>(stored).get(random.nextInt(stored.size()));
+                }
+                assertEquals(stored.remove(set), trie.remove(set));
+            }
+            assertEquals(stored.size(), trie.size());
+
+            DiscreteSet<Integer> query = randomSet(random);
+            assertEquals(stored.contains(query), trie.contains(query));
+            Set<DiscreteSet<Integer>> subsets = new HashSet<>();
+            Set<DiscreteSet<Integer>> supersets = new HashSet<>();
+            for (DiscreteSet<Integer> candidate : stored) {
+                if (query.containsAll(candidate)) subsets.add(candidate);
+                if (candidate.containsAll(query)) supersets.add(candidate);
+            }
+            assertResults(subsets, trie.subsetsOf(query));
+            assertResults(supersets, trie.supersetsOf(query));
+        }
+    }
+
+    @Test
+    public void testElementsComeAndGo() {
+        // Each round uses new elements and drops the previous round's, so released ids are reused
+        SetTrie<String> trie = new SetTrie<>();
+        for (int round = 0; round < 200; round++) {
+            DiscreteSet<String> pair = set("a" + round, "b" + round, "shared");
+            DiscreteSet<String> single = set("a" + round);
+            assertTrue(trie.add(pair));
+            assertTrue(trie.add(single));
+            if (round > 0) {
+                assertTrue(trie.remove(set("a" + (round - 1), "b" + (round - 1), "shared")));
+                assertTrue(trie.remove(set("a" + (round - 1))));
+                assertFalse(trie.contains(set("a" + (round - 1))));
+            }
+
+            assertEquals(2, trie.size());
+            assertTrue(trie.contains(pair));
+            assertResults(new HashSet<>(List.of(pair)), trie.supersetsOf(set("shared")));
+            assertResults(new HashSet<>(List.of(pair, single)), trie.supersetsOf(set("a" + round)));
+            assertResults(new HashSet<>(List.of(single)), trie.subsetsOf(set("a" + round, "shared", "unknown")));
+            assertEquals(0, trie.supersetsOf(set("b" + (round + 1))).size());
+        }
+
+        assertTrue(trie.remove(set("a199", "b199", "shared")));
+        assertTrue(trie.remove(set("a199")));
+        assertTrue(trie.isEmpty());
+        assertEquals(0, trie.supersetsOf(set("shared")).size());
+    }
+
+    @Test
+    public void testEmptyAndNullElements() {
+        SetTrie<String> trie = new SetTrie<>();
+        DiscreteSet<String> empty = new GenericDiscreteSet<>();
+        DiscreteSet<String> withNull = set("a", null);
+        assertTrue(trie.add(empty));
+        assertFalse(trie.add(empty));
+        assertTrue(trie.add(withNull));
+
+        assertTrue(trie.contains(empty));
+        assertTrue(trie.contains(withNull));
+        assertResults(new HashSet<>(List.of(empty)), trie.subsetsOf(set("b")));
+        assertResults(new HashSet<>(List.of(empty, withNull)), trie.subsetsOf(withNull));
+        assertResults(new HashSet<>(List.of(withNull)), trie.supersetsOf(set((String) null)));
+        assertResults(new HashSet<>(List.of(empty, withNull)), trie.supersetsOf(empty));
+
+        assertTrue(trie.remove(withNull));
+        assertFalse(trie.contains(set((String) null)));
+        assertEquals(0, trie.supersetsOf(set((String) null)).size());
+        assertTrue(trie.remove(empty));
+        assertFalse(trie.remove(empty));
+    }
+
+    private static DiscreteSet<Integer> randomSet(SplittableRandom random) {
+        DiscreteSet<Integer> set = new GenericDiscreteSet<>();
+        int size = random.nextInt(6);
+        for (int i = 0; i < size; i++) {
+            set.add(random.nextInt(10));
+        }
+        return set;
+    }
+
+    @SafeVarargs
+    private static <E> DiscreteSet<E> set(E... elements) {
+        // Copied element by element, so the varargs array never escapes
+        DiscreteSet<E> set = new GenericDiscreteSet<>();
+        for (E element : elements) {
+            set.add(element);
+        }
+        return set;
+    }
+
+    private static <E> void assertResults(Set<DiscreteSet<E>> expected, List<DiscreteSet<E>> actual) {
+        // Each stored set is reported exactly once
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, new HashSet<>(actual));
+    }
+}
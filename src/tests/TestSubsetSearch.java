@@ -0,0 +1,228 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import sets.DiscreteSet;
+import sets.GenericDiscreteSet;
+import sets.SubsetSearch;
+
+public class TestSubsetSearch {
+    private static final List<Integer> WEIGHTS = List.of(3, 5, 7, 11, 13, 17, 19, 23);
+
+    @Test
+    public void testGrayCodeChangesOneElementPerStep() {
+        SubsetSearch<Integer> search = new SubsetSearch<>(new GenericDiscreteSet<>(WEIGHTS));
+        Set<Set<Integer>> seen = new HashSet<>();
+        List<Set<Integer>> previous = new ArrayList<>();
+        long visited = search.grayCode((subset, decided) -> {
+            Set<Integer> current = new HashSet<>(subset.getElements());
+            assertTrue(previous.isEmpty() || differByOne(previous.get(0), current));
+            assertTrue(seen.add(current));
+            previous.clear();
+            previous.add(current);
+            return true;
+        });
+
+        assertEquals(256, visited);
+        assertEquals(256, seen.size());
+    }
+
+    @Test
+    public void testDepthFirstPruning() {
+        // Count the subsets weighing at most 30, pruning as soon as a partial subset is too heavy
+        SubsetSearch<Integer> search = new SubsetSearch<>(new GenericDiscreteSet<>(WEIGHTS), Comparator.reverseOrder());
+        AtomicLong found = new AtomicLong();
+        long visits = search.depthFirstParallel(() -> new SubsetSearch.Visitor<>() {
+            private int weight = 0;
+
+            @Override
+            public void added(Integer element) {
+                this.weight += element;
+            }
+
+            @Override
+            public void removed(Integer element) {
+                this.weight -= element;
+            }
+
+            @Override
+            public boolean visit(DiscreteSet<Integer> subset, int decided) {
+                if (this.weight > 30) return false;
+                if (decided == WEIGHTS.size()) found.incrementAndGet();
+                return true;
+            }
+        }, 2);
+
+        long expected = 0;
+        for (int mask = 0; mask < 1 << WEIGHTS.size(); mask++) {
+            int weight = 0;
+            for (int i = 0; i < WEIGHTS.size(); i++) {
+                if ((mask >>> i & 1) != 0) weight += WEIGHTS.get(i);
+            }
+            if (weight <= 30) expected++;
+        }
+        assertEquals(expected, found.get());
+        // The root is replayed by all four branches and each first-level subset by two
+        assertEquals(prunedVisits(30) + 5, visits);
+    }
+
+    @Test
+    public void testGrayCodeParallelSplitsByTheLastElements() {
+        // Sorted, so the last two elements decided are 19 and 23
+        SubsetSearch<Integer> search = new SubsetSearch<>(new GenericDiscreteSet<>(WEIGHTS), Comparator.naturalOrder());
+        List<List<Set<Integer>>> blocks = Collections.synchronizedList(new ArrayList<>());
+        long visited = search.grayCodeParallel(() -> {
+            List<Set<Integer>> block = new ArrayList<>();
+            blocks.add(block);
+            return (subset, decided) -> {
+                assertEquals(WEIGHTS.size(), decided);
+                block.add(new HashSet<>(subset.getElements()));
+                return true;
+            };
+        }, 2);
+
+        assertEquals(256, visited);
+        assertEquals(4, blocks.size());
+        Set<Set<Integer>> seen = new HashSet<>();
+        Set<Set<Integer>> prefixes = new HashSet<>();
+        for (List<Set<Integer>> block : blocks) {
+            assertEquals(64, block.size());
+            Set<Integer> prefix = new HashSet<>(block.get(0));
+            prefix.retainAll(Set.of(19, 23));
+            assertTrue(prefixes.add(prefix));
+            for (int i = 0; i < block.size(); i++) {
+                Set<Integer> fixed = new HashSet<>(block.get(i));
+                fixed.retainAll(Set.of(19, 23));
+                assertEquals(prefix, fixed);
+                assertTrue(i == 0 || differByOne(block.get(i - 1), block.get(i)));
+                assertTrue(seen.add(block.get(i)));
+            }
+        }
+        assertEquals(256, seen.size());
+    }
+
+    @Test
+    public void testGrayCodeStopsEarly() {
+        SubsetSearch<Integer> search = new SubsetSearch<>(new GenericDiscreteSet<>(WEIGHTS));
+        AtomicLong calls = new AtomicLong();
+        assertEquals(10, search.grayCode((subset, decided) -> calls.incrementAndGet() < 10));
+        assertEquals(10, calls.get());
+        assertEquals(1, search.grayCode((subset, decided) -> false));
+
+        // Only the first block stops, and the others wait for it, so they only stop early through it
+        calls.set(0);
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch stopping = new CountDownLatch(1);
+        long visited = search.grayCodeParallel(() -> {
+            boolean first = created.getAndIncrement() == 0;
+            return (subset, decided) -> {
+                calls.incrementAndGet();
+                if (first) {
+                    stopping.countDown();
+                    return false;
+                }
+                try {
+                    stopping.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return true;
+            };
+        }, 2);
+        assertEquals(calls.get(), visited);
+        // Without the shared flag the other three blocks would visit all 64 of their subsets
+        assertTrue(visited < 1 + 3 * 64);
+
+        calls.set(0);
+        visited = search.grayCodeParallel(() -> (subset, decided) -> {
+            calls.incrementAndGet();
+            return false;
+        }, 2);
+        assertEquals(calls.get(), visited);
+        assertTrue(visited >= 1 && visited <= 4);
+    }
+
+    @Test
+    public void testDepthFirstOrder() {
+        SubsetSearch<Integer> search = new SubsetSearch<>(new GenericDiscreteSet<>(WEIGHTS));
+        List<Set<Integer>> complete = new ArrayList<>();
+        long visits = search.depthFirst((subset, decided) -> {
+            if (decided == WEIGHTS.size()) complete.add(new HashSet<>(subset.getElements()));
+            return true;
+        });
+
+        // Every partial decision is visited: 2^0 + 2^1 + ... + 2^8
+        assertEquals(511, visits);
+        assertEquals(256, complete.size());
+        assertEquals(256, new HashSet<>(complete).size());
+        assertEquals(new HashSet<>(WEIGHTS), complete.get(0));
+        assertTrue(complete.get(255).isEmpty());
+    }
+
+    @Test
+    public void testDepthFirstVisitsOnlyUnprunedBranches() {
+        SubsetSearch<Integer> search = new SubsetSearch<>(new GenericDiscreteSet<>(WEIGHTS), Comparator.reverseOrder());
+        int[] weight = new int[1];
+        long visits = search.depthFirst(new SubsetSearch.Visitor<>() {
+            @Override
+            public void added(Integer element) {
+                weight[0] += element;
+            }
+
+            @Override
+            public void removed(Integer element) {
+                weight[0] -= element;
+            }
+
+            @Override
+            public boolean visit(DiscreteSet<Integer> subset, int decided) {
+                return weight[0] <= 30;
+            }
+        });
+        assertEquals(prunedVisits(30), visits);
+        assertEquals(0, weight[0]);
+    }
+
+    /**
+     * Count the visits of a depth-first search over WEIGHTS in descending order that prunes every
+     * partial subset weighing more than limit. A partial subset is visited if it is the root
+     * or its parent, the same decisions without the last one, was visited and not pruned.
+     */
+    private static long prunedVisits(int limit) {
+        List<Integer> descending = new ArrayList<>(WEIGHTS);
+        descending.sort(Comparator.reverseOrder());
+        long visits = 1;
+        for (int depth = 1; depth <= descending.size(); depth++) {
+            for (int mask = 0; mask < 1 << depth; mask++) {
+                int parentWeight = 0;
+                for (int i = 0; i < depth - 1; i++) {
+                    if ((mask >>> i & 1) != 0) parentWeight += descending.get(i);
+                }
+                if (parentWeight <= limit) visits++;
+            }
+        }
+        return visits;
+    }
+
+    private static boolean differByOne(Set<Integer> a, Set<Integer> b) {
+        Set<Integer> difference = new HashSet<>(a);
+        difference.addAll(b);
+        Set<Integer> common = new HashSet<>(a);
+        common.retainAll(b);
+        return difference.size() - common.size() == 1;
+    }
+}
@@ -0,0 +1,191 @@
+package tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import sets.DiscreteSet;
+import sets.GenericDiscreteSet;
+import sets.RangeSet;
+import sets.VennCounts;
+
+public class TestVennCounts {
+    @Test
+    public void testRegions() {
+        DiscreteSet<Integer> a = new GenericDiscreteSet<>(List.of(1, 2, 3, 4, 5));
+        DiscreteSet<Integer> b = new GenericDiscreteSet<>(List.of(4, 5, 6, 7));
+        DiscreteSet<Integer> c = new GenericDiscreteSet<>(List.of(5, 7, 8));
+        VennCounts counts = VennCounts.of(a, b, c);
+
+        assertEquals(8, counts.elementCount());
+        // 1, 2, 3 only in a; 4 in a and b; 5 in all three; 6 only in b; 7 in b and c; 8 only in c
+        assertEquals(3, counts.region(0b001));
+        assertEquals(1, counts.region(0b011));
+        assertEquals(1, counts.region(0b111));
+        assertEquals(0, counts.region(0b101));
+        assertEquals(6, counts.regionCount());
+
+        // Elements in a and b but not c, and the same count built from the set algebra
+        assertEquals(a.intersection(b).difference(c).cardinality(), counts.count(0b011, 0b100));
+        assertEquals(a.union(b).cardinality(), counts.unionSize(0b011));
+        assertEquals(1, counts.intersectionSize(0b111));
+        assertArrayEquals(new long[] { 0, 5, 2, 1 }, counts.membershipCounts());
+        assertEquals(3, counts.atLeast(2));
+    }
+
+    @Test
+    public void testQueriesMatchSetAlgebra() {
+        SplittableRandom random = new SplittableRandom(1);
+        List<DiscreteSet<Integer>> sets = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            DiscreteSet<Integer> set = new GenericDiscreteSet<>();
+            for (int element = 0; element < 40; element++) {
+                if (random.nextInt(3) == 0) set.add(element);
+            }
+            sets.add(set);
+        }
+        VennCounts counts = VennCounts.of(sets);
+        DiscreteSet<Integer> union = sets.get(0).union(sets.subList(1, sets.size()));
+
+        // An empty mask asks for nothing, so it matches every counted element
+        assertEquals(union.cardinality(), counts.elementCount());
+        assertEquals(union.cardinality(), counts.count(0, 0));
+        assertEquals(union.cardinality(), counts.intersectionSize(0));
+        assertEquals(0, counts.unionSize(0));
+        assertEquals(0, counts.region(0));
+
+        for (long inAll = 0; inAll < 32; inAll++) {
+            DiscreteSet<Integer> in = union;
+            DiscreteSet<Integer> any = new GenericDiscreteSet<>();
+            for (int i = 0; i < 5; i++) {
+                if ((inAll >>> i & 1) != 0) {
+                    in = in.intersection(sets.get(i));
+                    any = any.union(sets.get(i));
+                }
+            }
+            assertEquals(in.cardinality(), counts.intersectionSize(inAll));
+            assertEquals(any.cardinality(), counts.unionSize(inAll));
+
+            for (long inNone = 0; inNone < 32; inNone++) {
+                DiscreteSet<Integer> expected = in;
+                for (int i = 0; i < 5; i++) {
+                    if ((inNone >>> i & 1) != 0) expected = expected.difference(sets.get(i));
+                }
+                assertEquals(expected.cardinality(), counts.count(inAll, inNone));
+                if ((inAll | inNone) == 31 && (inAll & inNone) == 0 && inAll != 0) {
+                    assertEquals(expected.cardinality(), counts.region(inAll));
+                }
+            }
+        }
+
+        long[] byMembership = new long[6];
+        for (int element : union) {
+            int in = 0;
+            for (DiscreteSet<Integer> set : sets) {
+                if (set.contains(element)) in++;
+            }
+            byMembership[in]++;
+        }
+        assertArrayEquals(byMembership, counts.membershipCounts());
+        long atLeast = 0;
+        for (int k = 5; k >= 0; k--) {
+            assertEquals(byMembership[k], counts.exactly(k));
+            atLeast += byMembership[k];
+            assertEquals(atLeast, counts.atLeast(k));
+        }
+        assertEquals(0, counts.exactly(6));
+    }
+
+    @Test
+    public void testSixtyFourSets() {
+        // Random masks over all 64 bits, so about half the regions have bit 63 set and sort as negative longs
+        SplittableRandom random = new SplittableRandom(2);
+        List<DiscreteSet<Integer>> sets = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            sets.add(new GenericDiscreteSet<>());
+        }
+        Map<Long, Long> expected = new HashMap<>();
+        for (int element = 0; element < 3000; element++) {
+            // Few distinct masks, so regions hold several elements
+            long mask = random.nextInt(4) == 0 ? -1L : random.nextLong() | 1L << random.nextInt(64);
+            if (random.nextInt(3) == 0) mask = element % 7 == 0 ? Long.MIN_VALUE : 1L << 62 | 5;
+            for (int i = 0; i < 64; i++) {
+                if ((mask >>> i & 1) != 0) sets.get(i).add(element);
+            }
+            expected.merge(mask, 1L, Long::sum);
+        }
+        VennCounts counts = VennCounts.of(sets);
+
+        assertEquals(64, counts.setCount());
+        assertEquals(3000, counts.elementCount());
+        assertEquals(expected.size(), counts.regionCount());
+        for (int i = 0; i < counts.regionCount(); i++) {
+            if (i > 0) assertTrue(counts.regionMask(i - 1) < counts.regionMask(i));
+            assertEquals((long) expected.get(counts.regionMask(i)), counts.regionSize(i));
+        }
+        for (Map.Entry<Long, Long> region : expected.entrySet()) {
+            assertEquals((long) region.getValue(), counts.region(region.getKey()));
+        }
+        assertEquals(0, counts.region(Long.MIN_VALUE | 1));
+
+        // Every mask names counted sets, including those with the top bit
+        assertEquals(sets.get(63).cardinality(), counts.intersectionSize(Long.MIN_VALUE));
+        assertEquals(sets.get(63).intersection(sets.get(0)).cardinality(), counts.intersectionSize(Long.MIN_VALUE | 1));
+        assertEquals(sets.get(63).difference(sets.get(62)).cardinality(), counts.count(Long.MIN_VALUE, 1L << 62));
+        assertEquals(sets.get(62).union(sets.get(63)).cardinality(), counts.unionSize(3L << 62));
+        assertEquals((long) expected.get(-1L), counts.exactly(64));
+        assertEquals((long) expected.get(-1L), counts.intersectionSize(-1L));
+    }
+
+    @Test
+    public void testNullElements() {
+        DiscreteSet<String> a = new GenericDiscreteSet<>(Arrays.asList(null, "x"));
+        DiscreteSet<String> b = new GenericDiscreteSet<>(Arrays.asList(null, "y"));
+        VennCounts counts = VennCounts.of(a, b);
+        assertEquals(3, counts.elementCount());
+        assertEquals(1, counts.region(0b11));
+        assertEquals(1, counts.region(0b01));
+        assertEquals(1, counts.region(0b10));
+        assertEquals(a.intersection(b).cardinality(), counts.intersectionSize(0b11));
+    }
+
+    @Test
+    public void testMasksNamingUncountedSets() {
+        DiscreteSet<Integer> a = new GenericDiscreteSet<>(List.of(1, 2));
+        VennCounts counts = VennCounts.of(a, a, a);
+        assertEquals(2, counts.region(0b111));
+        assertThrows(IllegalArgumentException.class, () -> counts.region(0b1000));
+        assertThrows(IllegalArgumentException.class, () -> counts.count(0b1, 0b1000));
+        assertThrows(IllegalArgumentException.class, () -> counts.count(0b1000, 0));
+        assertThrows(IllegalArgumentException.class, () -> counts.intersectionSize(Long.MIN_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> counts.unionSize(-1L));
+
+        VennCounts none = VennCounts.of();
+        assertEquals(0, none.elementCount());
+        assertEquals(0, none.count(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> none.region(1));
+    }
+
+    @Test
+    public void testTooManySetsOrElements() {
+        List<DiscreteSet<Integer>> sets = new ArrayList<>();
+        for (int i = 0; i < 65; i++) {
+            sets.add(new GenericDiscreteSet<>());
+        }
+        assertThrows(IllegalArgumentException.class, () -> VennCounts.of(sets));
+
+        // Rejected from the cardinalities alone, before any element is read
+        DiscreteSet<Long> large = RangeSet.closed(0, 399999999).asDiscreteSet();
+        assertThrows(IllegalArgumentException.class, () -> VennCounts.of(large, large));
+    }
+}